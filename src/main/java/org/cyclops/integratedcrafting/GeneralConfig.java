@@ -28,6 +28,42 @@ public class GeneralConfig extends DummyConfig {
     @ConfigurableProperty(category = "machine", comment = "The maximum amount of crafting jobs that could be scheduled within one crafting interface without being started", minimalValue = 1, isCommandable = true, configLocation = ModConfig.Type.SERVER)
     public static int maxPendingCraftingJobs = 256;
 
+    @ConfigurableProperty(category = "machine", comment = "If crafting networks should index recipes by integer ids, which reduces memory usage and garbage collection for networks with many recipes. This only applies to networks that are (re)formed after changing this option.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean compactRecipeIndex = false;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of recipe choices that are remembered per crafting network channel, so that repeated crafting job calculations can skip comparing alternative recipes while the highest-priority recipe keeps being valid. Setting this to 0 disables the cache.", minimalValue = 0, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobCalculationCacheSize = 0;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of failed crafting job calculations that are remembered per crafting network channel, so that repeated requests fail immediately until recipes or storage contents change. Setting this to 0 disables the cache.", minimalValue = 0, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobCalculationNegativeCacheSize = 256;
+
+    @ConfigurableProperty(category = "machine", comment = "If crafting job calculation should compare the estimated cost of alternative recipes, and pick the cheapest one, instead of picking the first valid recipe. The cost is based on the number of crafting jobs, the processing time of earlier crafting jobs, and the number of ingredients taken from storage.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean craftingJobCalculationCostBased = false;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of valid alternative recipes that are compared over all ingredients of a single level in a crafting job calculation when craftingJobCalculationCostBased is enabled. Once this is used up, the first valid recipe is chosen in that level.", minimalValue = 1, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobCalculationCostBudget = 4;
+
+    @ConfigurableProperty(category = "machine", comment = "The number of worker threads on which crafting jobs triggered by crafting writers are calculated. Setting this to 0 calculates all crafting jobs on the server thread.", minimalValue = 0, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobPlanningThreads = 0;
+
+    @ConfigurableProperty(category = "machine", comment = "If alternative recipes for the same ingredient should be calculated concurrently when calculating crafting jobs. This requires taking a copy of all network storages for each calculation, so it mainly benefits networks with many alternative recipes.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean craftingJobCalculationParallelAlternatives = false;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of recipe nodes that are visited per tick over all crafting job calculations when calculating crafting jobs triggered by crafting writers over multiple ticks. Setting this to 0 calculates crafting jobs within a single tick. This is ignored if craftingJobPlanningThreads is larger than 0.", minimalValue = 0, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobCalculationTickNodes = 0;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of nanoseconds that are spent per tick over all crafting job calculations when calculating crafting jobs over multiple ticks.", minimalValue = 1, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobCalculationTickNanos = 2000000;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of crafting job calculations over multiple ticks that are in progress at the same time. Each of these calculations holds a worker thread until it is done, other calculations wait for their turn.", minimalValue = 1, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobCalculationTickConcurrency = 2;
+
+    @ConfigurableProperty(category = "machine", comment = "The number of crafting interface updates after which pending crafting jobs that are missing ingredients are checked again, even if no storage change for those ingredients was observed. Setting this to 1 checks them on every update.", minimalValue = 1, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobMissingIngredientsRecheckInterval = 20;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of pending crafting jobs that a crafting interface can start in a single update, as long as it has room for more processing crafting jobs.", minimalValue = 1, isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int craftingJobStartsPerUpdate = 1;
+
     @ConfigurableProperty(category = "general", comment = "The base energy usage for the crafting writer.", minimalValue = 0, configLocation = ModConfig.Type.SERVER)
     public static int craftingWriterBaseConsumption = 1;
     @ConfigurableProperty(category = "general", comment = "The base energy usage for the crafting interface per crafting job being processed.", minimalValue = 0, configLocation = ModConfig.Type.SERVER)
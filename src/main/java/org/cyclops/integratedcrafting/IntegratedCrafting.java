@@ -7,6 +7,9 @@ import net.neoforged.api.distmarker.OnlyIn;
 import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import net.neoforged.neoforge.registries.NewRegistryEvent;
 import org.apache.logging.log4j.Level;
 import org.cyclops.cyclopscore.config.ConfigHandler;
@@ -18,8 +21,10 @@ import org.cyclops.cyclopscore.proxy.ICommonProxy;
 import org.cyclops.integratedcrafting.api.crafting.ICraftingProcessOverrideRegistry;
 import org.cyclops.integratedcrafting.capability.network.CraftingNetworkCapabilityConstructors;
 import org.cyclops.integratedcrafting.capability.network.NetworkCraftingHandlerCraftingNetwork;
+import org.cyclops.integratedcrafting.core.CraftingJobPlanningExecutor;
 import org.cyclops.integratedcrafting.core.CraftingProcessOverrideRegistry;
 import org.cyclops.integratedcrafting.core.CraftingProcessOverrides;
+import org.cyclops.integratedcrafting.core.TimeSlicedCraftingJobCalculation;
 import org.cyclops.integratedcrafting.inventory.container.ContainerPartInterfaceCraftingConfig;
 import org.cyclops.integratedcrafting.inventory.container.ContainerPartInterfaceCraftingSettingsConfig;
 import org.cyclops.integratedcrafting.part.PartTypes;
@@ -55,6 +60,8 @@ public class IntegratedCrafting extends ModBaseVersionable<IntegratedCrafting> {
         modEventBus.addListener(this::onRegistriesCreate);
         modEventBus.addListener(this::onSetup);
         modEventBus.register(new CraftingNetworkCapabilityConstructors());
+        NeoForge.EVENT_BUS.addListener(this::onServerStopping);
+        NeoForge.EVENT_BUS.addListener(this::onServerTick);
     }
 
     public void onRegistriesCreate(NewRegistryEvent event) {
@@ -63,6 +70,15 @@ public class IntegratedCrafting extends ModBaseVersionable<IntegratedCrafting> {
         CraftingProcessOverrides.load();
     }
 
+    protected void onServerStopping(ServerStoppingEvent event) {
+        CraftingJobPlanningExecutor.shutdown();
+        TimeSlicedCraftingJobCalculation.cancelAll();
+    }
+
+    protected void onServerTick(ServerTickEvent.Post event) {
+        TimeSlicedCraftingJobCalculation.tickAll();
+    }
+
     @Override
     protected void setup(FMLCommonSetupEvent event) {
         super.setup(event);
@@ -31,6 +31,8 @@ public class CraftingJob {
     private IMixedIngredients ingredientsStorage;
     private Map<IngredientComponent<?, ?>, MissingIngredients<?, ?>> lastMissingIngredients;
     private long startTick;
+    private long processingStartTick;
+    private int processingAmount;
     private boolean invalidInputs;
     @Nullable
     private String initiatorUuid;
@@ -45,6 +47,7 @@ public class CraftingJob {
         this.lastMissingIngredients = Maps.newIdentityHashMap();
         this.dependencyCraftingJobs = new IntArrayList();
         this.dependentCraftingJobs = new IntArrayList();
+        this.processingStartTick = -1;
         this.invalidInputs = false;
         this.ignoreDependencyCheck = false;
     }
@@ -118,6 +121,26 @@ public class CraftingJob {
         this.startTick = startTick;
     }
 
+    /**
+     * @return The tick at which the first ingredients of this job were inserted into its target,
+     *         or -1 if it has not started processing yet.
+     */
+    public long getProcessingStartTick() {
+        return processingStartTick;
+    }
+
+    /**
+     * @return The amount of this job at the moment it started processing.
+     */
+    public int getProcessingAmount() {
+        return processingAmount;
+    }
+
+    public void setProcessingStart(long processingStartTick, int processingAmount) {
+        this.processingStartTick = processingStartTick;
+        this.processingAmount = processingAmount;
+    }
+
     public boolean isInvalidInputs() {
         return invalidInputs;
     }
@@ -154,6 +177,8 @@ public class CraftingJob {
         tag.put("ingredientsStorage", IMixedIngredients.serialize(lookupProvider, craftingJob.ingredientsStorage));
         tag.put("lastMissingIngredients", MissingIngredients.serialize(lookupProvider, craftingJob.lastMissingIngredients));
         tag.putLong("startTick", craftingJob.startTick);
+        tag.putLong("processingStartTick", craftingJob.processingStartTick);
+        tag.putInt("processingAmount", craftingJob.processingAmount);
         tag.putBoolean("invalidInputs", craftingJob.invalidInputs);
         if (craftingJob.initiatorUuid != null) {
             tag.putString("initiatorUuid", craftingJob.initiatorUuid);
@@ -209,6 +234,9 @@ public class CraftingJob {
                 .deserialize(lookupProvider, tag.getCompound("lastMissingIngredients"));
         craftingJob.setLastMissingIngredients(lastMissingIngredients);
         craftingJob.setStartTick(tag.getLong("startTick"));
+        if (tag.contains("processingStartTick", Tag.TAG_LONG)) {
+            craftingJob.setProcessingStart(tag.getLong("processingStartTick"), tag.getInt("processingAmount"));
+        }
         craftingJob.setInvalidInputs(tag.getBoolean("invalidInputs"));
         if (tag.contains("initiatorUuid", Tag.TAG_STRING)) {
             craftingJob.setInitiatorUuid(tag.getString("initiatorUuid"));
@@ -6,6 +6,8 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntCollection;
 import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.IntArrayTag;
@@ -240,6 +242,80 @@ public class CraftingJobDependencyGraph {
         }
     }
 
+    /**
+     * Check if the first crafting job (indirectly) depends on the second crafting job.
+     * @param craftingJob A crafting job.
+     * @param dependency A potential dependency.
+     * @return If the dependency is reachable from the crafting job.
+     */
+    public boolean dependsOn(CraftingJob craftingJob, CraftingJob dependency) {
+        IntSet visited = new IntOpenHashSet();
+        IntArrayList pending = new IntArrayList();
+        pending.add(craftingJob.getId());
+        while (!pending.isEmpty()) {
+            IntCollection jobDependencies = dependencies.get(pending.popInt());
+            if (jobDependencies != null) {
+                IntIterator it = jobDependencies.iterator();
+                while (it.hasNext()) {
+                    int jobDependency = it.nextInt();
+                    if (jobDependency == dependency.getId()) {
+                        return true;
+                    }
+                    if (visited.add(jobDependency)) {
+                        pending.add(jobDependency);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merge the second crafting job into the first one, where both jobs may have different dependents.
+     * All dependents of the second job will depend on the first job instead,
+     * and dependencies of both jobs with the same recipe are merged as well.
+     * The caller must make sure that neither job (indirectly) depends on the other.
+     * @param target The job that should be merged into.
+     * @param mergee The job that should be removed and merged into the target job.
+     */
+    public void mergeSharedCraftingJobs(CraftingJob target, CraftingJob mergee) {
+        target.setAmount(target.getAmount() + mergee.getAmount());
+        target.setIngredientsStorage(CraftingHelpers.mergeMixedIngredients(
+                target.getIngredientsStorage(), mergee.getIngredientsStorage()));
+
+        // Merge dependencies with the same recipe, and move the other dependencies to the target
+        Map<IRecipeDefinition, CraftingJob> dependencyRecipeJobs = Maps.newHashMap();
+        for (CraftingJob dependency : this.getDependencies(target)) {
+            dependencyRecipeJobs.put(dependency.getRecipe(), dependency);
+        }
+        for (CraftingJob dependency : this.getDependencies(mergee)) {
+            mergee.removeDependency(dependency);
+            this.removeDependency(mergee.getId(), dependency.getId());
+            CraftingJob existingDependency = dependencyRecipeJobs.get(dependency.getRecipe());
+            if (existingDependency == null) {
+                target.addDependency(dependency);
+                this.addDependency(target, dependency);
+                dependencyRecipeJobs.put(dependency.getRecipe(), dependency);
+            } else if (existingDependency != dependency) {
+                mergeSharedCraftingJobs(existingDependency, dependency);
+            }
+        }
+
+        // Let all dependents depend on the target instead
+        for (CraftingJob dependent : this.getDependents(mergee)) {
+            dependent.removeDependency(mergee);
+            this.removeDependency(dependent.getId(), mergee.getId());
+            if (!dependent.getDependencyCraftingJobs().contains(target.getId())) {
+                dependent.addDependency(target);
+                this.addDependency(dependent, target);
+            }
+        }
+
+        this.removeCraftingJobId(mergee);
+        this.dependencies.remove(mergee.getId());
+        this.dependents.remove(mergee.getId());
+    }
+
     public static CompoundTag serialize(HolderLookup.Provider lookupProvider, CraftingJobDependencyGraph graph) {
         CompoundTag tag = new CompoundTag();
 
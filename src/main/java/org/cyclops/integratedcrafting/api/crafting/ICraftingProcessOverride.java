@@ -31,4 +31,14 @@ public interface ICraftingProcessOverride {
     public boolean craft(Function<IngredientComponent<?, ?>, PartPos> targetGetter, IMixedIngredients ingredients,
                          ICraftingResultsSink resultsSink, boolean simulate);
 
+    /**
+     * Check if the ingredients of multiple recipe entries may be passed to {@link #craft} at once.
+     * This should only be enabled if all passed ingredients are processed,
+     * and not only the ingredients of a single recipe entry.
+     * @return If multiple recipe entries can be crafted at once.
+     */
+    public default boolean isBulkCraftingSupported() {
+        return false;
+    }
+
 }
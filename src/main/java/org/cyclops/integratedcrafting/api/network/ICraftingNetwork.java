@@ -2,6 +2,7 @@ package org.cyclops.integratedcrafting.api.network;
 
 import com.google.common.collect.Multimap;
 import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IMixedIngredients;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJobDependencyGraph;
@@ -45,6 +46,16 @@ public interface ICraftingNetwork {
      */
     public IRecipeIndex getRecipeIndex(int channel);
 
+    /**
+     * Get an immutable snapshot of the recipe index on the given channel,
+     * which can safely be read from other threads.
+     * The same snapshot is returned until the recipe index changes.
+     * This must be called on the server thread.
+     * @param channel The crafting channel.
+     * @return The snapshot, with the same version as the recipe index.
+     */
+    public IRecipeIndex getRecipeIndexSnapshot(int channel);
+
     /**
      * Add a crafting interface to the network.
      * @param channel The channel of the interface.
@@ -101,6 +112,22 @@ public interface ICraftingNetwork {
      */
     public void onCraftingJobFinished(CraftingJob craftingJob);
 
+    /**
+     * Called by crafting interfaces when the amount of the crafting job has changed,
+     * so that the expected output quantities can be updated.
+     * @param craftingJob The crafting job.
+     */
+    public void onCraftingJobAmountChanged(CraftingJob craftingJob);
+
+    /**
+     * Called by crafting interfaces when the crafting job has extracted ingredients from storage,
+     * so that its reservations for these ingredients can be consumed.
+     * The first call for a job marks the start of its processing.
+     * @param craftingJob The crafting job.
+     * @param ingredients The extracted ingredients.
+     */
+    public void onCraftingJobIngredientsExtracted(CraftingJob craftingJob, IMixedIngredients ingredients);
+
     /**
      * Cancel the given crafting job.
      * This will also cancel all its dependencies.
@@ -114,6 +141,9 @@ public interface ICraftingNetwork {
     /**
      * @param channel A channel id.
      * @return Get all present crafting jobs.
+     *         The iterator is backed by a snapshot, so crafting jobs may be finished or cancelled while iterating.
+     *         Removing a crafting job via the iterator only removes it from the network,
+     *         without finishing or cancelling it.
      */
     public Iterator<CraftingJob> getCraftingJobs(int channel);
 
@@ -138,6 +168,52 @@ public interface ICraftingNetwork {
     public <T, M> Iterator<CraftingJob> getCraftingJobs(int channel, IngredientComponent<T, M> ingredientComponent,
                                                         T instance, M matchCondition);
 
+    /**
+     * Get present crafting jobs for the given recipe.
+     * @param channel The channel.
+     * @param recipe The recipe.
+     * @return The applicable crafting jobs, can be empty.
+     */
+    public Iterator<CraftingJob> getCraftingJobs(int channel, IRecipeDefinition recipe);
+
+    /**
+     * Get the total output quantity that present crafting jobs are still expected to produce for the given instance.
+     * @param channel The channel.
+     * @param ingredientComponent The ingredient component of the given output type.
+     * @param instance The expected output instance, which is matched exactly, ignoring its quantity.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The expected output quantity.
+     */
+    public <T, M> long getCraftingJobsOutputQuantity(int channel, IngredientComponent<T, M> ingredientComponent, T instance);
+
+    /**
+     * @param channel The channel.
+     * @param ingredientComponent An ingredient component type.
+     * @return If present crafting jobs have reserved any storage ingredients of the given type.
+     */
+    public boolean hasReservedIngredients(int channel, IngredientComponent<?, ?> ingredientComponent);
+
+    /**
+     * Get the storage quantity that present crafting jobs have reserved for the given instance.
+     *
+     * Crafting jobs reserve their storage ingredients when they are scheduled,
+     * or when they are loaded from a save before they have extracted any ingredients.
+     * Loaded jobs that had already extracted part of their ingredients do not reserve their remaining ingredients.
+     *
+     * @param channel The channel.
+     * @param ingredientComponent The ingredient component of the given instance.
+     * @param instance The instance, which is matched exactly, ignoring its quantity.
+     * @param craftingJob The crafting job that wants to extract the instance,
+     *                    only the reservations of older crafting jobs (with a smaller id) are counted.
+     *                    If null, all reservations are counted.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The reserved quantity.
+     */
+    public <T, M> long getReservedQuantity(int channel, IngredientComponent<T, M> ingredientComponent, T instance,
+                                           @Nullable CraftingJob craftingJob);
+
     /**
      * @return An overview of all crafting job dependencies in this network.
      */
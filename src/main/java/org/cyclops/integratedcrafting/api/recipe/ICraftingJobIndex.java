@@ -1,5 +1,6 @@
 package org.cyclops.integratedcrafting.api.recipe;
 
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
 
@@ -8,13 +9,14 @@ import java.util.Collection;
 import java.util.Iterator;
 
 /**
- * Indexes crafting jobs by expected output.
+ * Indexes crafting jobs by expected output, and by recipe.
  * @author rubensworks
  */
 public interface ICraftingJobIndex {
 
     /**
-     * @return All crafting jobs that are available.
+     * @return All crafting jobs that are available, in the order in which they were added.
+     *         This is an immutable snapshot that is not affected by later modifications of this index.
      */
     public Collection<CraftingJob> getCraftingJobs();
 
@@ -29,6 +31,23 @@ public interface ICraftingJobIndex {
      */
     public <T, M> Iterator<CraftingJob> getCraftingJobs(IngredientComponent<T, M> outputType, T output, M matchCondition);
 
+    /**
+     * Find crafting jobs for the given recipe.
+     * @param recipe A recipe.
+     * @return The crafting jobs that craft the given recipe, can be empty.
+     */
+    public Collection<CraftingJob> getCraftingJobs(IRecipeDefinition recipe);
+
+    /**
+     * Get the total output quantity that the crafting jobs in this index are still expected to produce.
+     * @param outputType The recipe component type.
+     * @param output An output ingredient instance, which is matched exactly, ignoring its quantity.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter, may be Void.
+     * @return The expected output quantity.
+     */
+    public <T, M> long getExpectedOutputQuantity(IngredientComponent<T, M> outputType, T output);
+
     /**
      * Get the crafting job with the given id.
      * @param craftingJobId A crafting job id.
@@ -14,6 +14,12 @@ public interface ICraftingJobIndexModifiable extends ICraftingJobIndex {
      */
     public void addCraftingJob(CraftingJob craftingJob);
 
+    /**
+     * Update the expected outputs of the given crafting job in this index after its amount has changed.
+     * @param craftingJob A crafting job.
+     */
+    public void updateCraftingJob(CraftingJob craftingJob);
+
     /**
      * Remove the given crafting job from this index.
      * @param craftingJob A crafting job.
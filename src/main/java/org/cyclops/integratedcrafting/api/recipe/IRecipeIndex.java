@@ -1,13 +1,14 @@
 package org.cyclops.integratedcrafting.api.recipe;
 
 import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 
 import java.util.Iterator;
 import java.util.Set;
 
 /**
- * Indexes recipes by output.
+ * Indexes recipes by output, and by input.
  * @author rubensworks
  */
 public interface IRecipeIndex {
@@ -28,4 +29,72 @@ public interface IRecipeIndex {
      */
     public <T, M> Iterator<IRecipeDefinition> getRecipes(IngredientComponent<T, M> outputType, T output, M matchCondition);
 
+    /**
+     * Find recipes that have an input alternative with the given prototype.
+     * @param inputType The recipe component type.
+     * @param input An input ingredient instance.
+     * @param matchCondition A condition under which the matching should be done.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter, may be Void.
+     * @return An iterator of the recipes that may consume the given input.
+     */
+    public default <T, M> Iterator<IRecipeDefinition> getRecipesByInput(IngredientComponent<T, M> inputType, T input, M matchCondition) {
+        // Implementations are encouraged to index their recipes by input, instead of visiting all recipes.
+        IIngredientMatcher<T, M> matcher = inputType.getMatcher();
+        return getRecipes().stream()
+                .filter(recipe -> recipe.getInputs(inputType).stream()
+                        .anyMatch(inputAlternatives -> inputAlternatives.getAlternatives().stream()
+                                .anyMatch(inputPrototype -> matcher.matches(input, inputPrototype.getPrototype(), matchCondition)
+                                        || matcher.matches(input, inputPrototype.getPrototype(), inputPrototype.getCondition()))))
+                .iterator();
+    }
+
+    /**
+     * Get the quantity of the given instance that a single crafting job of the given recipe outputs.
+     * @param recipe A recipe.
+     * @param outputType The recipe component type.
+     * @param output An output ingredient instance.
+     * @param matchCondition A condition under which the matching should be done.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter, may be Void.
+     * @return The summed quantity of all recipe outputs that match the given instance.
+     */
+    public default <T, M> long getOutputQuantity(IRecipeDefinition recipe, IngredientComponent<T, M> outputType, T output, M matchCondition) {
+        IIngredientMatcher<T, M> matcher = outputType.getMatcher();
+        long quantity = 0;
+        for (T instance : recipe.getOutput().getInstances(outputType)) {
+            if (matcher.matches(instance, output, matchCondition)) {
+                quantity += matcher.getQuantity(instance);
+            }
+        }
+        return quantity;
+    }
+
+    /**
+     * Indicates that an index does not track its changes,
+     * so that nothing that was derived from it may be reused.
+     */
+    public static final long VERSION_UNTRACKED = -1;
+
+    /**
+     * @return A counter that is incremented each time a recipe is added to or removed from this index,
+     *         or {@link #VERSION_UNTRACKED} if this index does not track its changes.
+     */
+    public default long getVersion() {
+        return VERSION_UNTRACKED;
+    }
+
+    /**
+     * Check if the given recipe is part of a cycle in the recipe graph,
+     * i.e., if the recipe can (indirectly) require one of its own outputs as input.
+     * Only for such recipes, crafting job calculation can run into infinite recursion.
+     * By default, all recipes are assumed to be cyclic,
+     * so that recursion is always checked for.
+     * @param recipe A recipe.
+     * @return If the recipe is part of a cycle.
+     */
+    public default boolean isRecipeCyclic(IRecipeDefinition recipe) {
+        return true;
+    }
+
 }
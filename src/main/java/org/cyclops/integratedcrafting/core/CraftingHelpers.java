@@ -1,11 +1,17 @@
 package org.cyclops.integratedcrafting.core;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import net.minecraft.core.Direction;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import net.neoforged.neoforge.server.ServerLifecycleHooks;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Level;
 import org.cyclops.commoncapabilities.api.capability.recipehandler.IPrototypedIngredientAlternatives;
@@ -25,7 +31,9 @@ import org.cyclops.cyclopscore.ingredient.collection.IngredientArrayList;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionQuantitativeGrouper;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientHashSet;
+import org.cyclops.cyclopscore.ingredient.storage.IngredientComponentStorageCollectionWrapper;
 import org.cyclops.integratedcrafting.Capabilities;
+import org.cyclops.integratedcrafting.GeneralConfig;
 import org.cyclops.integratedcrafting.IntegratedCrafting;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJobDependencyGraph;
@@ -35,6 +43,8 @@ import org.cyclops.integratedcrafting.api.crafting.UnavailableCraftingInterfaces
 import org.cyclops.integratedcrafting.api.crafting.UnknownCraftingRecipeException;
 import org.cyclops.integratedcrafting.api.network.ICraftingNetwork;
 import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+import org.cyclops.integratedcrafting.core.network.CraftingNetwork;
+import org.cyclops.integratedcrafting.ingredient.storage.IngredientComponentStorageReservedProxy;
 import org.cyclops.integrateddynamics.IntegratedDynamics;
 import org.cyclops.integrateddynamics.api.PartStateException;
 import org.cyclops.integrateddynamics.api.ingredient.capability.IPositionedAddonsNetworkIngredientsHandler;
@@ -46,8 +56,11 @@ import org.cyclops.integrateddynamics.core.network.IngredientChannelAdapter;
 import org.cyclops.integrateddynamics.core.network.IngredientChannelIndexed;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -55,7 +68,14 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -65,6 +85,8 @@ import java.util.stream.IntStream;
  */
 public class CraftingHelpers {
 
+    private static final Map<IRecipeIndex, RecipeIndexSnapshot> RECIPE_INDEX_SNAPSHOTS = Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Get the network at the given position,
      * or throw a PartStateException if it is null.
@@ -170,6 +192,66 @@ public class CraftingHelpers {
         }
     }
 
+    /**
+     * Make sure that storage changes in the ingredient networks of the given ingredient components
+     * are reflected in the storage versions of the crafting network.
+     * @param network The network.
+     * @param craftingNetwork The crafting network.
+     * @param ingredientComponents The ingredient components to observe.
+     */
+    public static void observeStorageChanges(INetwork network, CraftingNetwork craftingNetwork,
+                                             Collection<IngredientComponent<?, ?>> ingredientComponents) {
+        for (IngredientComponent<?, ?> ingredientComponent : ingredientComponents) {
+            getIngredientsNetwork(network, ingredientComponent).ifPresent(craftingNetwork::observeStorageChanges);
+        }
+    }
+
+    /**
+     * @param craftingNetwork The crafting network.
+     * @return The cost model to choose between alternative recipes, or null if the first valid recipe should be chosen.
+     */
+    @Nullable
+    public static CraftingJobCostModel getCraftingJobCostModel(ICraftingNetwork craftingNetwork) {
+        return GeneralConfig.craftingJobCalculationCostBased && craftingNetwork instanceof CraftingNetwork
+                ? ((CraftingNetwork) craftingNetwork).getCraftingJobCostModel().forCalculation() : null;
+    }
+
+    /**
+     * @param craftingNetwork The crafting network.
+     * @param channel The target channel.
+     * @param recipeIndex The recipe index of the channel.
+     * @return The cache of earlier recipe choices, validated against the given recipe index,
+     *         or null if the cache is disabled.
+     */
+    @Nullable
+    public static CraftingJobCalculationCache getCraftingJobCalculationCache(ICraftingNetwork craftingNetwork, int channel,
+                                                                             IRecipeIndex recipeIndex) {
+        if (GeneralConfig.craftingJobCalculationCacheSize <= 0 || !(craftingNetwork instanceof CraftingNetwork)) {
+            return null;
+        }
+        CraftingJobCalculationCache calculationCache = ((CraftingNetwork) craftingNetwork).getCraftingJobCalculationCache(channel);
+        calculationCache.validate(recipeIndex);
+        return calculationCache;
+    }
+
+    /**
+     * @param craftingNetwork The crafting network.
+     * @param channel The target channel.
+     * @param recipeIndex The recipe index of the channel.
+     * @return The cache of failed calculations, validated against the given recipe index,
+     *         or null if the cache is disabled.
+     */
+    @Nullable
+    public static CraftingJobCalculationNegativeCache getCraftingJobCalculationNegativeCache(ICraftingNetwork craftingNetwork,
+                                                                                             int channel, IRecipeIndex recipeIndex) {
+        if (GeneralConfig.craftingJobCalculationNegativeCacheSize <= 0 || !(craftingNetwork instanceof CraftingNetwork)) {
+            return null;
+        }
+        CraftingJobCalculationNegativeCache negativeCache = ((CraftingNetwork) craftingNetwork).getCraftingJobCalculationNegativeCache(channel);
+        negativeCache.validate(recipeIndex);
+        return negativeCache;
+    }
+
     /**
      * Calculate the required crafting jobs and their dependencies for the given instance in the given network.
      * @param network The target network.
@@ -196,16 +278,81 @@ public class CraftingHelpers {
                                                            CraftingJobDependencyGraph craftingJobsGraph,
                                                            boolean collectMissingRecipes)
             throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
+        return calculateCraftingJobResult(network, channel, ingredientComponent, instance, matchCondition, craftMissing,
+                identifierGenerator, craftingJobsGraph, collectMissingRecipes).getCraftingJobOrThrow();
+    }
+
+    /**
+     * Calculate the required crafting jobs and their dependencies for the given instance in the given network.
+     *
+     * Unlike {@link #calculateCraftingJobs(INetwork, int, IngredientComponent, Object, Object, boolean, IIdentifierGenerator, CraftingJobDependencyGraph, boolean)},
+     * failures are returned as result instead of being thrown.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The instance to craft.
+     * @param matchCondition The match condition of the instance.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param identifierGenerator identifierGenerator An ID generator for crafting jobs.
+     * @param craftingJobsGraph The target graph where all dependencies will be stored.
+     * @param collectMissingRecipes If the missing recipes should be collected inside the result.
+     *                              This may slow down calculation for deeply nested recipe graphs.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The calculation result.
+     */
+    public static <T, M> CraftingJobCalculationResult calculateCraftingJobResult(INetwork network, int channel,
+                                                                                 IngredientComponent<T, M> ingredientComponent,
+                                                                                 T instance, M matchCondition, boolean craftMissing,
+                                                                                 IIdentifierGenerator identifierGenerator,
+                                                                                 CraftingJobDependencyGraph craftingJobsGraph,
+                                                                                 boolean collectMissingRecipes) {
         ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
-        IRecipeIndex recipeIndex = craftingNetwork.getRecipeIndex(channel);
-        Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = getNetworkStorageGetter(network, channel, true);
+        ForkJoinPool alternativesPool = CraftingJobPlanningExecutor.getAlternativesPool();
+        // Alternatives calculated on other threads may only read from snapshots
+        IRecipeIndex recipeIndex = alternativesPool != null ? craftingNetwork.getRecipeIndexSnapshot(channel) : craftingNetwork.getRecipeIndex(channel);
+        CraftingJobCalculationCache calculationCache = getCraftingJobCalculationCache(craftingNetwork, channel, recipeIndex);
         beforeCalculateCraftingJobs(network, channel);
 
-        CraftingJob craftingJob = calculateCraftingJobs(recipeIndex, channel, storageGetter, ingredientComponent, instance, matchCondition,
-                craftMissing, Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), identifierGenerator, craftingJobsGraph, Sets.newHashSet(),
-                collectMissingRecipes);
-        craftingJobsGraph.addCraftingJobId(craftingJob);
-        return craftingJob;
+        // Fail immediately if the same calculation failed before, and nothing has changed since then.
+        CraftingJobCalculationNegativeCache negativeCache = getCraftingJobCalculationNegativeCache(craftingNetwork, channel, recipeIndex);
+        if (negativeCache != null) {
+            CraftingJobCalculationResult cachedResult = negativeCache.get(ingredientComponent, instance, matchCondition,
+                    craftMissing, collectMissingRecipes);
+            if (cachedResult != null) {
+                return cachedResult;
+            }
+        }
+
+        Set<IngredientComponent<?, ?>> storageComponents = alternativesPool != null
+                ? getRecipeTreeInputComponents(recipeIndex, ingredientComponent, instance, matchCondition) : null;
+        Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = alternativesPool != null
+                ? getNetworkStorageSnapshotGetter(network, channel, storageComponents)
+                : getNetworkStorageGetterReserved(network, channel, null, true);
+        if (alternativesPool != null) {
+            identifierGenerator = synchronizedIdentifierGenerator(identifierGenerator);
+        }
+
+        CraftingJobCalculationResult result;
+        try {
+            result = calculateCraftingJobResult(recipeIndex, channel, storageGetter, ingredientComponent, instance, matchCondition,
+                    craftMissing, Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), identifierGenerator, craftingJobsGraph, Sets.newHashSet(),
+                    collectMissingRecipes, calculationCache, alternativesPool, getCraftingJobCostModel(craftingNetwork));
+        } catch (RecursiveCraftingRecipeException e) {
+            result = CraftingJobCalculationResult.recursive(e);
+        }
+        if (result.isSuccess()) {
+            craftingJobsGraph.addCraftingJobId(result.getCraftingJob());
+        } else if (negativeCache != null) {
+            // Only the storage of the ingredient components within the recipe tree can make this calculation succeed later.
+            if (storageComponents == null) {
+                storageComponents = getRecipeTreeInputComponents(recipeIndex, ingredientComponent, instance, matchCondition);
+            }
+            observeStorageChanges(network, (CraftingNetwork) craftingNetwork, storageComponents);
+            negativeCache.put(ingredientComponent, instance, matchCondition, craftMissing, collectMissingRecipes, result, storageComponents);
+        }
+        return result;
     }
 
     /**
@@ -230,28 +377,277 @@ public class CraftingHelpers {
                                                     CraftingJobDependencyGraph craftingJobsGraph,
                                                     boolean collectMissingRecipes)
             throws FailedCraftingRecipeException, RecursiveCraftingRecipeException {
+        return calculateCraftingJobResult(network, channel, recipe, amount, craftMissing,
+                identifierGenerator, craftingJobsGraph, collectMissingRecipes).getRecipeCraftingJobOrThrow();
+    }
+
+    /**
+     * Calculate the required crafting jobs and their dependencies for the given recipe in the given network.
+     *
+     * Unlike {@link #calculateCraftingJobs(INetwork, int, IRecipeDefinition, int, boolean, IIdentifierGenerator, CraftingJobDependencyGraph, boolean)},
+     * missing dependencies and recursion are returned as result instead of being thrown.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param recipe The recipe to calculate a job for.
+     * @param amount The amount of times the recipe should be crafted.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param identifierGenerator identifierGenerator An ID generator for crafting jobs.
+     * @param craftingJobsGraph The target graph where all dependencies will be stored.
+     * @param collectMissingRecipes If the missing recipes should be collected inside the result.
+     *                              This may slow down calculation for deeply nested recipe graphs.
+     * @return The calculation result, containing a crafting job if calculation succeeded.
+     */
+    public static CraftingJobCalculationResult calculateCraftingJobResult(INetwork network, int channel,
+                                                                          IRecipeDefinition recipe, int amount, boolean craftMissing,
+                                                                          IIdentifierGenerator identifierGenerator,
+                                                                          CraftingJobDependencyGraph craftingJobsGraph,
+                                                                          boolean collectMissingRecipes) {
         ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
-        IRecipeIndex recipeIndex = craftingNetwork.getRecipeIndex(channel);
-        Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = getNetworkStorageGetter(network, channel, true);
+        ForkJoinPool alternativesPool = CraftingJobPlanningExecutor.getAlternativesPool();
+        // Alternatives calculated on other threads may only read from snapshots
+        IRecipeIndex recipeIndex = alternativesPool != null ? craftingNetwork.getRecipeIndexSnapshot(channel) : craftingNetwork.getRecipeIndex(channel);
+        CraftingJobCalculationCache calculationCache = getCraftingJobCalculationCache(craftingNetwork, channel, recipeIndex);
         beforeCalculateCraftingJobs(network, channel);
+        Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = alternativesPool != null
+                ? getNetworkStorageSnapshotGetter(network, channel, getRecipeTreeInputComponents(recipeIndex, Iterators.singletonIterator(recipe)))
+                : getNetworkStorageGetterReserved(network, channel, null, true);
+        if (alternativesPool != null) {
+            identifierGenerator = synchronizedIdentifierGenerator(identifierGenerator);
+        }
 
-        PartialCraftingJobCalculation result = calculateCraftingJobs(recipeIndex, channel, storageGetter, recipe, amount,
-                craftMissing, Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), identifierGenerator, craftingJobsGraph, Sets.newHashSet(),
-                collectMissingRecipes);
+        PartialCraftingJobCalculation result;
+        try {
+            result = calculateCraftingJobs(recipeIndex, channel, storageGetter, recipe, amount,
+                    craftMissing, Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), identifierGenerator, craftingJobsGraph, Sets.newHashSet(),
+                    collectMissingRecipes, calculationCache, alternativesPool, getCraftingJobCostModel(craftingNetwork));
+        } catch (RecursiveCraftingRecipeException e) {
+            return CraftingJobCalculationResult.recursive(e);
+        }
         if (result.getCraftingJob() == null) {
-            throw new FailedCraftingRecipeException(recipe, amount, result.getMissingDependencies(),
-                    compressMixedIngredients(new MixedIngredients(result.getIngredientsStorage())), result.getPartialCraftingJobs());
-        } else {
-            craftingJobsGraph.addCraftingJobId(result.getCraftingJob());
-            return result.getCraftingJob();
+            return CraftingJobCalculationResult.failed(new FailedCraftingRecipe(recipe, amount, result.getMissingDependencies(),
+                    result.getIngredientsStorage(), result.getPartialCraftingJobs()));
         }
+        craftingJobsGraph.addCraftingJobId(result.getCraftingJob());
+        return CraftingJobCalculationResult.success(result.getCraftingJob());
+    }
+
+    /**
+     * Calculate the required crafting jobs and their dependencies for all given instances in the given network.
+     *
+     * All instances are planned against the same simulated storage,
+     * so that ingredients that are used for one instance are not counted as available for the next instances.
+     * Instances that are produced by the same recipe are merged into a single crafting job,
+     * including their dependencies, so that all instances end up in one combined dependency graph.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param instances The instances to craft.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param identifierGenerator identifierGenerator An ID generator for crafting jobs.
+     * @param craftingJobsGraph The target graph where all dependencies will be stored.
+     * @param collectMissingRecipes If the missing recipes should be collected inside the results.
+     *                              This may slow down calculation for deeply nested recipe graphs.
+     * @return The calculation results, in the order of the given instances.
+     *         Successful results contain the (possibly merged) crafting job that produces the instance.
+     */
+    public static List<CraftingJobCalculationResult> calculateCraftingJobResults(INetwork network, int channel,
+                                                                                 List<IPrototypedIngredient<?, ?>> instances,
+                                                                                 boolean craftMissing,
+                                                                                 IIdentifierGenerator identifierGenerator,
+                                                                                 CraftingJobDependencyGraph craftingJobsGraph,
+                                                                                 boolean collectMissingRecipes) {
+        ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
+        ForkJoinPool alternativesPool = CraftingJobPlanningExecutor.getAlternativesPool();
+        // Alternatives calculated on other threads may only read from snapshots
+        IRecipeIndex recipeIndex = alternativesPool != null ? craftingNetwork.getRecipeIndexSnapshot(channel) : craftingNetwork.getRecipeIndex(channel);
+        CraftingJobCalculationCache calculationCache = getCraftingJobCalculationCache(craftingNetwork, channel, recipeIndex);
+        beforeCalculateCraftingJobs(network, channel);
+        Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = alternativesPool != null
+                ? getNetworkStorageSnapshotGetter(network, channel, getRecipeTreeInputComponents(recipeIndex, instances))
+                : getNetworkStorageGetterReserved(network, channel, null, true);
+        if (alternativesPool != null) {
+            identifierGenerator = synchronizedIdentifierGenerator(identifierGenerator);
+        }
+
+        return calculateCraftingJobResults(recipeIndex, channel, storageGetter, instances, craftMissing,
+                identifierGenerator, craftingJobsGraph, collectMissingRecipes, calculationCache, alternativesPool,
+                getCraftingJobCostModel(craftingNetwork));
+    }
+
+    /**
+     * Calculate crafting jobs for all given instances against a shared simulated storage.
+     *
+     * Each instance is calculated against the simulated extraction memory of the instances before it,
+     * where the changes of failing instances are undone, so that they do not influence the instances after it.
+     * Crafting jobs with the same recipe are merged over all instances,
+     * both for the requested instances and for shared intermediate ingredients,
+     * unless one of these jobs (indirectly) depends on the other.
+     *
+     * @param recipeIndex The recipe index.
+     * @param channel The target channel that will be stored in created crafting jobs.
+     * @param storageGetter A callback function to get a storage for the given ingredient component.
+     * @param instances The instances to craft.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param craftingJobsGraph The target graph where all crafting jobs and dependencies will be stored.
+     * @param collectMissingRecipes If the missing recipes should be collected inside the results.
+     *                              This may slow down calculation for deeply nested recipe graphs.
+     * @param calculationCache An optional cache of earlier recipe choices.
+     *                         It must have been validated against the given recipe index.
+     * @param alternativesPool An optional pool on which alternative recipes are calculated concurrently.
+     * @param costModel An optional cost model to choose between alternative recipes.
+     * @return The calculation results, in the order of the given instances.
+     */
+    protected static List<CraftingJobCalculationResult> calculateCraftingJobResults(IRecipeIndex recipeIndex, int channel,
+                                                                                    Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                                                    List<IPrototypedIngredient<?, ?>> instances,
+                                                                                    boolean craftMissing,
+                                                                                    IIdentifierGenerator identifierGenerator,
+                                                                                    CraftingJobDependencyGraph craftingJobsGraph,
+                                                                                    boolean collectMissingRecipes,
+                                                                                    @Nullable CraftingJobCalculationCache calculationCache,
+                                                                                    @Nullable ForkJoinPool alternativesPool,
+                                                                                    @Nullable CraftingJobCostModel costModel) {
+        List<CraftingJobCalculationResult> results = Lists.newArrayListWithExpectedSize(instances.size());
+        Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory = Maps.newIdentityHashMap();
+        Map<IngredientComponent<?, ?>, IIngredientCollectionMutable<?, ?>> extractionMemoryReusable = Maps.newIdentityHashMap();
+        // Only one job exists per unique recipe, so that jobs for equal recipes can be merged.
+        Map<IRecipeDefinition, CraftingJob> recipeJobs = Maps.newHashMap();
+        for (IPrototypedIngredient<?, ?> instance : instances) {
+            ExtractionMemoryCheckpoint checkpoint = new ExtractionMemoryCheckpoint(simulatedExtractionMemory, extractionMemoryReusable);
+            CraftingJobDependencyGraph craftingJobsGraphInstance = new CraftingJobDependencyGraph();
+
+            CraftingJobCalculationResult result;
+            try {
+                result = calculateCraftingJobResultPrototyped(recipeIndex, channel, storageGetter, instance, craftMissing,
+                        simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator,
+                        craftingJobsGraphInstance, collectMissingRecipes, calculationCache, alternativesPool,
+                        costModel != null ? costModel.forCalculation() : null);
+            } catch (RecursiveCraftingRecipeException e) {
+                result = CraftingJobCalculationResult.recursive(e);
+            }
+
+            if (result.isSuccess()) {
+                // Continue with the storage state after this instance
+                checkpoint.commit();
+
+                CraftingJob craftingJob = result.getCraftingJob();
+                craftingJobsGraph.importDependencies(craftingJobsGraphInstance);
+                craftingJobsGraph.addCraftingJobId(craftingJob);
+                CraftingJob mergedJob = mergeSharedCraftingJobs(craftingJobsGraph, recipeJobs, craftingJob);
+                if (mergedJob != craftingJob) {
+                    result = CraftingJobCalculationResult.success(mergedJob);
+                }
+            } else {
+                checkpoint.rollback();
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Merge the given crafting job and its dependencies into existing crafting jobs with the same recipe.
+     * Jobs are only merged if neither of them (indirectly) depends on the other.
+     * @param craftingJobsGraph The graph containing all crafting jobs.
+     * @param recipeJobs The existing crafting jobs per recipe, which will be updated with new unique jobs.
+     * @param craftingJob A crafting job.
+     * @return The job that the given crafting job was merged into, or the given job if it was not merged.
+     */
+    protected static CraftingJob mergeSharedCraftingJobs(CraftingJobDependencyGraph craftingJobsGraph,
+                                                         Map<IRecipeDefinition, CraftingJob> recipeJobs,
+                                                         CraftingJob craftingJob) {
+        CraftingJob resultJob = craftingJob;
+        // Visit jobs from the top down, so that dependencies are merged along with the jobs depending on them
+        Deque<CraftingJob> pendingJobs = new ArrayDeque<>();
+        IntSet visitedJobs = new IntOpenHashSet();
+        pendingJobs.add(craftingJob);
+        while (!pendingJobs.isEmpty()) {
+            CraftingJob job = pendingJobs.poll();
+            if (craftingJobsGraph.getCraftingJob(job.getId()) != job || !visitedJobs.add(job.getId())) {
+                // This job was merged away, or was visited before
+                continue;
+            }
+            CraftingJob existingJob = recipeJobs.get(job.getRecipe());
+            if (existingJob == null || craftingJobsGraph.getCraftingJob(existingJob.getId()) != existingJob) {
+                recipeJobs.put(job.getRecipe(), job);
+                pendingJobs.addAll(craftingJobsGraph.getDependencies(job));
+            } else if (existingJob != job
+                    && !craftingJobsGraph.dependsOn(existingJob, job) && !craftingJobsGraph.dependsOn(job, existingJob)) {
+                craftingJobsGraph.mergeSharedCraftingJobs(existingJob, job);
+                if (job == resultJob) {
+                    resultJob = existingJob;
+                }
+                pendingJobs.addAll(craftingJobsGraph.getDependencies(existingJob));
+            } else {
+                pendingJobs.addAll(craftingJobsGraph.getDependencies(job));
+            }
+        }
+        return resultJob;
+    }
+
+    // Helper function for calculateCraftingJobResults
+    protected static <T, M> CraftingJobCalculationResult calculateCraftingJobResultPrototyped(IRecipeIndex recipeIndex, int channel,
+                                                                                             Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                                                             IPrototypedIngredient<T, M> instance,
+                                                                                             boolean craftMissing,
+                                                                                             Map<IngredientComponent<?, ?>,
+                                                                                                     IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory,
+                                                                                             Map<IngredientComponent<?, ?>,
+                                                                                                     IIngredientCollectionMutable<?, ?>> extractionMemoryReusable,
+                                                                                             IIdentifierGenerator identifierGenerator,
+                                                                                             CraftingJobDependencyGraph craftingJobsGraph,
+                                                                                             boolean collectMissingRecipes,
+                                                                                             @Nullable CraftingJobCalculationCache calculationCache,
+                                                                                             @Nullable ForkJoinPool alternativesPool,
+                                                                                             @Nullable CraftingJobCostModel costModel)
+            throws RecursiveCraftingRecipeException {
+        return calculateCraftingJobResult(recipeIndex, channel, storageGetter, instance.getComponent(), instance.getPrototype(),
+                instance.getCondition(), craftMissing, simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator,
+                craftingJobsGraph, Sets.newHashSet(), collectMissingRecipes, calculationCache, alternativesPool, costModel);
     }
 
     /**
      * @return An identifier generator for crafting jobs.
      */
     public static IIdentifierGenerator getGlobalCraftingJobIdentifier() {
-        return () -> IntegratedCrafting.globalCounters.getNext("craftingJob");
+        // Synchronized, as crafting jobs may also be calculated on worker threads
+        return () -> {
+            synchronized (IntegratedCrafting.globalCounters) {
+                return IntegratedCrafting.globalCounters.getNext("craftingJob");
+            }
+        };
+    }
+
+    /**
+     * Sort the given recipes by the given priority,
+     * and recipes with the same priority by descending output quantity of the given instance.
+     * @param recipeIndex The recipe index that contains the recipes.
+     * @param recipes The recipes to sort.
+     * @param recipePriority A comparator that places recipes with a higher priority first.
+     * @param outputType The recipe component type.
+     * @param output An output ingredient instance.
+     * @param matchCondition A condition under which the matching should be done.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return An iterator over the sorted recipes.
+     */
+    public static <T, M> Iterator<IRecipeDefinition> sortRecipes(IRecipeIndex recipeIndex, Iterator<IRecipeDefinition> recipes,
+                                                                 Comparator<IRecipeDefinition> recipePriority,
+                                                                 IngredientComponent<T, M> outputType, T output, M matchCondition) {
+        if (!recipes.hasNext()) {
+            return recipes;
+        }
+        IRecipeDefinition firstRecipe = recipes.next();
+        if (!recipes.hasNext()) {
+            return Iterators.singletonIterator(firstRecipe);
+        }
+        List<IRecipeDefinition> sortedRecipes = Lists.newArrayList(firstRecipe);
+        Iterators.addAll(sortedRecipes, recipes);
+        sortedRecipes.sort(recipePriority.thenComparing(Comparator.comparingLong(
+                (IRecipeDefinition recipe) -> recipeIndex.getOutputQuantity(recipe, outputType, output, matchCondition)).reversed()));
+        return sortedRecipes.iterator();
     }
 
     /**
@@ -295,6 +691,7 @@ public class CraftingHelpers {
      * @param identifierGenerator An ID generator for crafting jobs.
      * @param craftingJobsGraph The target graph where all dependencies will be stored.
      * @param parentDependencies A set of parent recipe dependencies that are pending.
+     *                           This set is temporarily modified during calculation.
      *                           This is used to check for infinite recursion in recipes.
      * @param collectMissingRecipes If the missing recipes should be collected inside
      *                              {@link UnknownCraftingRecipeException}.
@@ -318,45 +715,274 @@ public class CraftingHelpers {
                                                               Set<IPrototypedIngredient> parentDependencies,
                                                               boolean collectMissingRecipes)
             throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
+        return calculateCraftingJobs(recipeIndex, channel, storageGetter, ingredientComponent, instance, matchCondition,
+                craftMissing, simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobsGraph,
+                parentDependencies, collectMissingRecipes, null, null);
+    }
+
+    /**
+     * Calculate a crafting job for the given instance.
+     *
+     * @param recipeIndex The recipe index.
+     * @param channel The target channel that will be stored in created crafting jobs.
+     * @param storageGetter A callback function to get a storage for the given ingredient component.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The instance to craft.
+     * @param matchCondition The match condition of the instance.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param simulatedExtractionMemory This map remembers all extracted instances in simulation mode.
+     *                                  This is to make sure that instances can not be extracted multiple times
+     *                                  when simulating.
+     * @param extractionMemoryReusable Like simulatedExtractionMemory, but it stores the reusable ingredients.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param craftingJobsGraph The target graph where all dependencies will be stored.
+     * @param parentDependencies A set of parent recipe dependencies that are pending.
+     *                           This set is temporarily modified during calculation.
+     *                           This is used to check for infinite recursion in recipes.
+     * @param collectMissingRecipes If the missing recipes should be collected inside
+     *                              {@link UnknownCraftingRecipeException}.
+     *                              This may slow down calculation for deeply nested recipe graphs.
+     * @param calculationCache An optional cache of earlier recipe choices.
+     *                         If the highest-priority recipe was chosen before,
+     *                         it is calculated without comparing it to the other recipes.
+     *                         It must have been validated against the given recipe index.
+     * @param alternativesPool An optional pool on which alternative recipes are calculated concurrently.
+     *                         If set, the storages and identifier generator must be thread-safe.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The crafting job for the given instance.
+     * @throws UnknownCraftingRecipeException If the recipe for a (sub)ingredient is unavailable.
+     * @throws RecursiveCraftingRecipeException If an infinite recursive recipe was detected.
+     */
+    protected static <T, M> CraftingJob calculateCraftingJobs(IRecipeIndex recipeIndex, int channel,
+                                                              Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                              IngredientComponent<T, M> ingredientComponent,
+                                                              T instance, M matchCondition, boolean craftMissing,
+                                                              Map<IngredientComponent<?, ?>,
+                                                                      IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory,
+                                                              Map<IngredientComponent<?, ?>,
+                                                                      IIngredientCollectionMutable<?, ?>> extractionMemoryReusable,
+                                                              IIdentifierGenerator identifierGenerator,
+                                                              CraftingJobDependencyGraph craftingJobsGraph,
+                                                              Set<IPrototypedIngredient> parentDependencies,
+                                                              boolean collectMissingRecipes,
+                                                              @Nullable CraftingJobCalculationCache calculationCache,
+                                                              @Nullable ForkJoinPool alternativesPool)
+            throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
+        return calculateCraftingJobResult(recipeIndex, channel, storageGetter, ingredientComponent, instance, matchCondition,
+                craftMissing, simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobsGraph,
+                parentDependencies, collectMissingRecipes, calculationCache, alternativesPool, null).getCraftingJobOrThrow();
+    }
+
+    /**
+     * Calculate a crafting job for the given instance.
+     *
+     * Failures due to missing ingredients are returned as result instead of being thrown,
+     * so that trying alternative recipes does not require creating exceptions.
+     *
+     * @param recipeIndex The recipe index.
+     * @param channel The target channel that will be stored in created crafting jobs.
+     * @param storageGetter A callback function to get a storage for the given ingredient component.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The instance to craft.
+     * @param matchCondition The match condition of the instance.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param simulatedExtractionMemory This map remembers all extracted instances in simulation mode.
+     *                                  This is to make sure that instances can not be extracted multiple times
+     *                                  when simulating.
+     * @param extractionMemoryReusable Like simulatedExtractionMemory, but it stores the reusable ingredients.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param craftingJobsGraph The target graph where all dependencies will be stored.
+     * @param parentDependencies A set of parent recipe dependencies that are pending.
+     *                           This set is temporarily modified during calculation.
+     *                           This is used to check for infinite recursion in recipes.
+     * @param collectMissingRecipes If the missing recipes should be collected inside
+     *                              the result.
+     *                              This may slow down calculation for deeply nested recipe graphs.
+     * @param calculationCache An optional cache of earlier recipe choices.
+     *                         If the highest-priority recipe was chosen before,
+     *                         it is calculated without comparing it to the other recipes.
+     *                         It must have been validated against the given recipe index.
+     * @param alternativesPool An optional pool on which alternative recipes are calculated concurrently.
+     *                         If set, the storages and identifier generator must be thread-safe.
+     * @param costModel An optional cost model.
+     *                  If set, the cheapest of the valid recipes is chosen instead of the first valid recipe,
+     *                  for as long as its candidate budget for this calculation is not used up.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The crafting job for the given instance, or the missing ingredients.
+     * @throws RecursiveCraftingRecipeException If an infinite recursive recipe was detected.
+     */
+    protected static <T, M> CraftingJobCalculationResult calculateCraftingJobResult(IRecipeIndex recipeIndex, int channel,
+                                                                                    Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                                                    IngredientComponent<T, M> ingredientComponent,
+                                                                                    T instance, M matchCondition, boolean craftMissing,
+                                                                                    Map<IngredientComponent<?, ?>,
+                                                                                            IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory,
+                                                                                    Map<IngredientComponent<?, ?>,
+                                                                                            IIngredientCollectionMutable<?, ?>> extractionMemoryReusable,
+                                                                                    IIdentifierGenerator identifierGenerator,
+                                                                                    CraftingJobDependencyGraph craftingJobsGraph,
+                                                                                    Set<IPrototypedIngredient> parentDependencies,
+                                                                                    boolean collectMissingRecipes,
+                                                                                    @Nullable CraftingJobCalculationCache calculationCache,
+                                                                                    @Nullable ForkJoinPool alternativesPool,
+                                                                                    @Nullable CraftingJobCostModel costModel)
+            throws RecursiveCraftingRecipeException {
         IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
         // This matching condition makes it so that the recipe output does not have to match with the requested input by quantity.
         M quantifierlessCondition = matcher.withoutCondition(matchCondition,
                 ingredientComponent.getPrimaryQuantifier().getMatchCondition());
         long instanceQuantity = matcher.getQuantity(instance);
 
-        // Loop over all available recipes, and return the first valid one.
-        Iterator<IRecipeDefinition> recipes = recipeIndex.getRecipes(ingredientComponent, instance, quantifierlessCondition);
-        List<UnknownCraftingRecipeException> firstMissingDependencies = Lists.newArrayList();
+        List<MissingCraftingRecipe> firstMissingDependencies = Lists.newArrayList();
         Map<IngredientComponent<?, ?>, List<?>> firstIngredientsStorage = Collections.emptyMap();
         List<CraftingJob> firstPartialCraftingJobs = Lists.newArrayList();
-        while (recipes.hasNext()) {
-            IRecipeDefinition recipe = recipes.next();
+
+        PeekingIterator<IRecipeDefinition> recipes = Iterators.peekingIterator(
+                recipeIndex.getRecipes(ingredientComponent, instance, quantifierlessCondition));
+        IRecipeDefinition firstRecipe = recipes.hasNext() ? recipes.peek() : null;
+
+        // If this exact instance was calculated before, and the highest-priority recipe was chosen back then,
+        // calculate it directly without comparing it to the other alternatives.
+        CraftingJobCalculationCache.Entry cacheEntry = calculationCache != null ? calculationCache.get(ingredientComponent, instance, matchCondition) : null;
+        if (cacheEntry != null && !cacheEntry.getRecipe().equals(firstRecipe)) {
+            calculationCache.remove(ingredientComponent, instance, matchCondition);
+            cacheEntry = null;
+        }
+        if (cacheEntry != null) {
+            PartialCraftingJobCalculation result = calculateCraftingJobs(recipeIndex, channel,
+                    storageGetter, recipes.next(), cacheEntry.getAmount(), craftMissing,
+                    simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobsGraph, parentDependencies,
+                    collectMissingRecipes, calculationCache, alternativesPool, costModel != null ? costModel.forCalculation() : null);
+            if (result.getCraftingJob() != null) {
+                return CraftingJobCalculationResult.success(result.getCraftingJob());
+            }
+            calculationCache.remove(ingredientComponent, instance, matchCondition);
+            firstMissingDependencies = result.getMissingDependencies();
+            firstIngredientsStorage = result.getIngredientsStorage();
+            if (result.getPartialCraftingJobs() != null) {
+                firstPartialCraftingJobs = result.getPartialCraftingJobs();
+            }
+        }
+
+        // Loop over all available recipes, and return the first valid one.
+        // If a cost model is set, the cheapest of the first valid ones within the budget is returned instead.
+        // Each recipe alternative is calculated with its own budget,
+        // so that concurrently calculated alternatives never influence each other's choices.
+        RecipeAlternativeCalculation cheapestCalculation = null;
+        Iterator<IRecipeDefinition> recipeAlternativesIterator = recipes;
+        if (alternativesPool != null) {
+            List<IRecipeDefinition> recipeAlternatives = Lists.newArrayList(recipes);
+            if (recipeAlternatives.size() > 1 && (costModel == null || costModel.hasCandidateBudget())) {
+                List<RecipeAlternativeCalculation> alternativeCalculations = Lists.newArrayListWithExpectedSize(recipeAlternatives.size());
+                for (IRecipeDefinition recipe : recipeAlternatives) {
+                    long recipeOutputQuantity = recipeIndex.getOutputQuantity(recipe, ingredientComponent, instance, quantifierlessCondition);
+                    int amount = (int) Math.ceil(((float) instanceQuantity) / (float) recipeOutputQuantity);
+                    RecipeAlternativeCalculation alternativeCalculation = new RecipeAlternativeCalculation(recipe, amount,
+                            simulatedExtractionMemory, extractionMemoryReusable);
+                    // Each alternative modifies its parent dependencies during calculation, so it needs its own copy.
+                    Set<IPrototypedIngredient> alternativeParentDependencies = Sets.newHashSet(parentDependencies);
+                    CraftingJobCostModel alternativeCostModel = costModel != null ? costModel.forCalculation() : null;
+                    alternativeCalculation.fork(alternativesPool, () -> calculateCraftingJobs(recipeIndex, channel,
+                            storageGetter, recipe, amount, craftMissing,
+                            alternativeCalculation.simulatedExtractionMemory, alternativeCalculation.extractionMemoryReusable,
+                            identifierGenerator, alternativeCalculation.craftingJobsGraph, alternativeParentDependencies,
+                            collectMissingRecipes, null, alternativesPool, alternativeCostModel));
+                    alternativeCalculations.add(alternativeCalculation);
+                }
+
+                // Pick the first valid alternative in recipe order, or the cheapest one if a cost model is set,
+                // so that the result does not depend on timing.
+                for (int i = 0; i < alternativeCalculations.size(); i++) {
+                    RecipeAlternativeCalculation alternativeCalculation = alternativeCalculations.get(i);
+                    PartialCraftingJobCalculation result = alternativeCalculation.join();
+                    if (result.getCraftingJob() == null) {
+                        firstMissingDependencies = result.getMissingDependencies();
+                        firstIngredientsStorage = result.getIngredientsStorage();
+                        if (result.getPartialCraftingJobs() != null) {
+                            firstPartialCraftingJobs = result.getPartialCraftingJobs();
+                        }
+                    } else {
+                        alternativeCalculation.setCost(costModel, result.getCraftingJob());
+                        if (cheapestCalculation == null || alternativeCalculation.cost < cheapestCalculation.cost) {
+                            cheapestCalculation = alternativeCalculation;
+                        }
+                        if (costModel == null || !costModel.consumeCandidateBudget()) {
+                            for (RecipeAlternativeCalculation otherCalculation : alternativeCalculations.subList(i + 1, alternativeCalculations.size())) {
+                                otherCalculation.cancel();
+                            }
+                            break;
+                        }
+                    }
+                }
+                if (cheapestCalculation != null) {
+                    cheapestCalculation.apply(simulatedExtractionMemory, extractionMemoryReusable, craftingJobsGraph);
+                    if (calculationCache != null && cheapestCalculation.recipe.equals(firstRecipe)) {
+                        calculationCache.put(ingredientComponent, instance, matchCondition, cheapestCalculation.recipe, cheapestCalculation.amount);
+                    }
+                    return CraftingJobCalculationResult.success(cheapestCalculation.craftingJob);
+                }
+                recipeAlternatives.clear();
+            }
+            recipeAlternativesIterator = recipeAlternatives.iterator();
+        }
+        while (recipeAlternativesIterator.hasNext()) {
+            IRecipeDefinition recipe = recipeAlternativesIterator.next();
 
             // Calculate the quantity for the given instance that the recipe outputs
-            long recipeOutputQuantity = getOutputQuantityForRecipe(recipe, ingredientComponent, instance, quantifierlessCondition);
+            long recipeOutputQuantity = recipeIndex.getOutputQuantity(recipe, ingredientComponent, instance, quantifierlessCondition);
             // Based on the quantity of the recipe output, calculate the amount of required recipe jobs.
             int amount = (int) Math.ceil(((float) instanceQuantity) / (float) recipeOutputQuantity);
 
+            // When comparing costs, each recipe is calculated in isolation, so that only the cheapest one is applied.
+            RecipeAlternativeCalculation alternativeCalculation = null;
+            if (costModel != null && costModel.hasCandidateBudget()) {
+                alternativeCalculation = new RecipeAlternativeCalculation(recipe, amount,
+                        simulatedExtractionMemory, extractionMemoryReusable);
+            }
+
             // Calculate jobs for the given recipe
             PartialCraftingJobCalculation result = calculateCraftingJobs(recipeIndex, channel,
                     storageGetter, recipe, amount, craftMissing,
-                    simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobsGraph, parentDependencies,
-                    collectMissingRecipes && firstMissingDependencies.isEmpty());
+                    alternativeCalculation != null ? alternativeCalculation.simulatedExtractionMemory : simulatedExtractionMemory,
+                    alternativeCalculation != null ? alternativeCalculation.extractionMemoryReusable : extractionMemoryReusable,
+                    identifierGenerator,
+                    alternativeCalculation != null ? alternativeCalculation.craftingJobsGraph : craftingJobsGraph,
+                    parentDependencies, collectMissingRecipes && firstMissingDependencies.isEmpty(), calculationCache,
+                    alternativesPool, costModel != null ? costModel.forCalculation() : null);
             if (result.getCraftingJob() == null) {
                 firstMissingDependencies = result.getMissingDependencies();
                 firstIngredientsStorage = result.getIngredientsStorage();
                 if (result.getPartialCraftingJobs() != null) {
                     firstPartialCraftingJobs = result.getPartialCraftingJobs();
                 }
+            } else if (alternativeCalculation == null) {
+                if (calculationCache != null && recipe.equals(firstRecipe)) {
+                    calculationCache.put(ingredientComponent, instance, matchCondition, recipe, amount);
+                }
+                return CraftingJobCalculationResult.success(result.getCraftingJob());
             } else {
-                return result.getCraftingJob();
+                alternativeCalculation.setCost(costModel, result.getCraftingJob());
+                if (cheapestCalculation == null || alternativeCalculation.cost < cheapestCalculation.cost) {
+                    cheapestCalculation = alternativeCalculation;
+                }
+                if (!costModel.consumeCandidateBudget()) {
+                    break;
+                }
+            }
+        }
+        if (cheapestCalculation != null) {
+            cheapestCalculation.apply(simulatedExtractionMemory, extractionMemoryReusable, craftingJobsGraph);
+            if (calculationCache != null && cheapestCalculation.recipe.equals(firstRecipe)) {
+                calculationCache.put(ingredientComponent, instance, matchCondition, cheapestCalculation.recipe, cheapestCalculation.amount);
             }
+            return CraftingJobCalculationResult.success(cheapestCalculation.craftingJob);
         }
 
-        // No valid recipes were available, so we error or collect the missing instance.
-        throw new UnknownCraftingRecipeException(new PrototypedIngredient<>(ingredientComponent, instance, matchCondition),
-                matcher.getQuantity(instance), firstMissingDependencies, compressMixedIngredients(new MixedIngredients(firstIngredientsStorage)),
-                firstPartialCraftingJobs);
+        // No valid recipes were available, so we collect the missing instance.
+        return CraftingJobCalculationResult.missing(new MissingCraftingRecipe(new PrototypedIngredient<>(ingredientComponent, instance, matchCondition),
+                matcher.getQuantity(instance), firstMissingDependencies, firstIngredientsStorage, firstPartialCraftingJobs));
     }
 
     /**
@@ -378,6 +1004,7 @@ public class CraftingHelpers {
      * @param identifierGenerator An ID generator for crafting jobs.
      * @param craftingJobsGraph The target graph where all dependencies will be stored.
      * @param parentDependencies A set of parent recipe dependencies that are pending.
+     *                           This set is temporarily modified during calculation.
      *                           This is used to check for infinite recursion in recipes.
      * @param collectMissingRecipes If the missing recipes should be collected inside
      *                              {@link UnknownCraftingRecipeException}.
@@ -398,7 +1025,55 @@ public class CraftingHelpers {
             Set<IPrototypedIngredient> parentDependencies,
             boolean collectMissingRecipes)
             throws RecursiveCraftingRecipeException {
-        List<UnknownCraftingRecipeException> missingDependencies = Lists.newArrayList();
+        return calculateCraftingJobs(recipeIndex, channel, storageGetter, recipe, amount, craftMissing,
+                simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobsGraph,
+                parentDependencies, collectMissingRecipes, null, null, null);
+    }
+
+    /**
+     * Calculate a crafting job for the given recipe.
+     *
+     * @param recipeIndex The recipe index.
+     * @param channel The target channel that will be stored in created crafting jobs.
+     * @param storageGetter A callback function to get a storage for the given ingredient component.
+     * @param recipe The recipe to calculate a job for.
+     * @param amount The amount of times the recipe should be crafted.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param simulatedExtractionMemory This map remembers all extracted instances in simulation mode.
+     *                                  This is to make sure that instances can not be extracted multiple times
+     *                                  when simulating.
+     * @param extractionMemoryReusable Like simulatedExtractionMemory, but it stores the reusable ingredients.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param craftingJobsGraph The target graph where all dependencies will be stored.
+     * @param parentDependencies A set of parent recipe dependencies that are pending.
+     *                           This set is temporarily modified during calculation.
+     *                           This is used to check for infinite recursion in recipes.
+     * @param collectMissingRecipes If the missing recipes should be collected inside
+     *                              {@link UnknownCraftingRecipeException}.
+     *                              This may slow down calculation for deeply nested recipe graphs.
+     * @param calculationCache An optional cache of earlier recipe choices for dependencies.
+     * @param alternativesPool An optional pool on which alternative recipes for dependencies are calculated concurrently.
+     * @param costModel An optional cost model to choose between alternative recipes for dependencies.
+     * @return The crafting job for the given instance.
+     * @throws RecursiveCraftingRecipeException If an infinite recursive recipe was detected.
+     */
+    protected static PartialCraftingJobCalculation calculateCraftingJobs(
+            IRecipeIndex recipeIndex, int channel,
+            Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+            IRecipeDefinition recipe, int amount, boolean craftMissing,
+            Map<IngredientComponent<?, ?>,
+                    IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory,
+            Map<IngredientComponent<?, ?>,
+                    IIngredientCollectionMutable<?, ?>> extractionMemoryReusable,
+            IIdentifierGenerator identifierGenerator,
+            CraftingJobDependencyGraph craftingJobsGraph,
+            Set<IPrototypedIngredient> parentDependencies,
+            boolean collectMissingRecipes,
+            @Nullable CraftingJobCalculationCache calculationCache,
+            @Nullable ForkJoinPool alternativesPool,
+            @Nullable CraftingJobCostModel costModel)
+            throws RecursiveCraftingRecipeException {
+        List<MissingCraftingRecipe> missingDependencies = Lists.newArrayList();
         List<CraftingJob> partialCraftingJobs = Lists.newArrayList();
 
         // Check if all requirements are met for this recipe, if so return directly (don't schedule yet)
@@ -428,9 +1103,9 @@ public class CraftingHelpers {
                             storageMap = Collections.emptyMap();
                         }
 
-                        missingDependencies.add(new UnknownCraftingRecipeException(
+                        missingDependencies.add(new MissingCraftingRecipe(
                                 alternative.getRequestedPrototype(), alternative.getQuantityMissing(),
-                                Collections.emptyList(), compressMixedIngredients(new MixedIngredients(storageMap)), Lists.newArrayList()));
+                                Collections.emptyList(), storageMap, Lists.newArrayList()));
                     }
                 }
             }
@@ -443,14 +1118,16 @@ public class CraftingHelpers {
         // so that a job amount can be incremented once another equal recipe is found.
         Map<IRecipeDefinition, CraftingJob> dependencies = Maps.newHashMapWithExpectedSize(missingIngredients.size());
         Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> dependenciesOutputSurplus = Maps.newIdentityHashMap();
+        // Recursion can only occur if this recipe is part of a cycle in the recipe graph
+        boolean recipeCyclic = recipeIndex.isRecipeCyclic(recipe);
         // We must be able to find crafting jobs for all dependencies
         for (IngredientComponent dependencyComponent : missingIngredients.keySet()) {
             try {
                 // TODO: if we run into weird simulated extraction bugs, we may have to scope simulatedExtractionMemory, but I'm not sure about this (yet)
                 PartialCraftingJobCalculationDependency resultDependency = calculateCraftingJobDependencyComponent(
                         dependencyComponent, dependenciesOutputSurplus, missingIngredients.get(dependencyComponent), parentDependencies,
-                        dependencies, recipeIndex, channel, storageGetter, simulatedExtractionMemory, extractionMemoryReusable,
-                        identifierGenerator, craftingJobsGraph, collectMissingRecipes);
+                        recipeCyclic, dependencies, recipeIndex, channel, storageGetter, simulatedExtractionMemory, extractionMemoryReusable,
+                        identifierGenerator, craftingJobsGraph, collectMissingRecipes, calculationCache, alternativesPool, costModel);
                 // Don't check the other components once we have an invalid dependency.
                 if (!resultDependency.isValid()) {
                     missingDependencies.addAll(resultDependency.getUnknownCrafingRecipes());
@@ -480,12 +1157,41 @@ public class CraftingHelpers {
         return new PartialCraftingJobCalculation(craftingJob, null, simulation.getLeft(), null);
     }
 
+    /**
+     * Fork the given simulated extraction memory.
+     * @param simulatedExtractionMemory A simulated extraction memory, which must not be modified while the fork is in use.
+     * @return A fork that can be modified independently, and which only copies collections once they are accessed.
+     */
+    public static ExtractionMemoryFork<IngredientCollectionPrototypeMap<?, ?>> forkSimulatedExtractionMemory(
+            Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory) {
+        return new ExtractionMemoryFork<>(simulatedExtractionMemory, (ingredientComponent, collection) -> {
+            IngredientCollectionPrototypeMap copy = ExtractionMemoryCheckpoint.createSimulatedExtractionMemory(ingredientComponent);
+            copy.addAll(collection);
+            return copy;
+        });
+    }
+
+    /**
+     * Fork the given reusable extraction memory.
+     * @param extractionMemoryReusable A reusable extraction memory, which must not be modified while the fork is in use.
+     * @return A fork that can be modified independently, and which only copies collections once they are accessed.
+     */
+    public static ExtractionMemoryFork<IIngredientCollectionMutable<?, ?>> forkExtractionMemoryReusable(
+            Map<IngredientComponent<?, ?>, IIngredientCollectionMutable<?, ?>> extractionMemoryReusable) {
+        return new ExtractionMemoryFork<>(extractionMemoryReusable, (ingredientComponent, collection) -> {
+            IIngredientCollectionMutable copy = ExtractionMemoryCheckpoint.createExtractionMemoryReusable(ingredientComponent);
+            copy.addAll(collection);
+            return copy;
+        });
+    }
+
     // Helper function for calculateCraftingJobs, returns a list of non-craftable ingredients and craftable ingredients.
     protected static <T, M> PartialCraftingJobCalculationDependency calculateCraftingJobDependencyComponent(
             IngredientComponent<T, M> dependencyComponent,
             Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> dependenciesOutputSurplus,
             MissingIngredients<T, M> missingIngredients,
             Set<IPrototypedIngredient> parentDependencies,
+            boolean recipeCyclic,
             Map<IRecipeDefinition, CraftingJob> dependencies,
             IRecipeIndex recipeIndex,
             int channel,
@@ -496,15 +1202,18 @@ public class CraftingHelpers {
                     IIngredientCollectionMutable<?, ?>> extractionMemoryReusable,
             IIdentifierGenerator identifierGenerator,
             CraftingJobDependencyGraph craftingJobsGraph,
-            boolean collectMissingRecipes)
+            boolean collectMissingRecipes,
+            @Nullable CraftingJobCalculationCache calculationCache,
+            @Nullable ForkJoinPool alternativesPool,
+            @Nullable CraftingJobCostModel costModel)
             throws RecursiveCraftingRecipeException {
         IIngredientMatcher<T, M> dependencyMatcher = dependencyComponent.getMatcher();
-        List<UnknownCraftingRecipeException> missingDependencies = Lists.newArrayList();
+        List<MissingCraftingRecipe> missingDependencies = Lists.newArrayList();
         for (MissingIngredients.Element<T, M> missingElement : missingIngredients.getElements()) {
             CraftingJob dependency = null;
             T dependencyInstance = null;
             boolean skipDependency = false;
-            UnknownCraftingRecipeException firstError = null;
+            MissingCraftingRecipe firstError = null;
             // Loop over all prototype alternatives, at least one has to match.
             for (MissingIngredients.PrototypedWithRequested<T, M> prototypedAlternative : missingElement.getAlternatives()) {
                 // Check if the missing element is reusable, and was triggered for craft earlier.
@@ -521,16 +1230,16 @@ public class CraftingHelpers {
                         prototypedAlternative.getRequestedPrototype().getCondition()
                 );
                 // First check if we can grab it from previous surplus
-                IngredientCollectionPrototypeMap<T, M> dependencyComponentSurplusOld = (IngredientCollectionPrototypeMap<T, M>) dependenciesOutputSurplus.get(dependencyComponent);
-                IngredientCollectionPrototypeMap<T, M> dependencyComponentSurplus = null;
-                if (dependencyComponentSurplusOld != null) {
-                    // First create a copy of the given surplus store,
-                    // and only once we see that the prototype is valid,
-                    // save this copy again.
+                IngredientCollectionPrototypeMap<T, M> dependencyComponentSurplus = (IngredientCollectionPrototypeMap<T, M>) dependenciesOutputSurplus.get(dependencyComponent);
+                List<T> dependencyComponentSurplusConsumed = null;
+                if (dependencyComponentSurplus != null) {
+                    // Consume from the surplus store directly,
+                    // but remember the original instances that were consumed,
+                    // so that they can be restored if this prototype turns out to be invalid.
                     // This is because if this prototype is invalid,
                     // then we don't want these invalid surpluses.
-                    dependencyComponentSurplus = new IngredientCollectionPrototypeMap<>(dependencyComponentSurplusOld.getComponent(), true);
-                    dependencyComponentSurplus.addAll(dependencyComponentSurplusOld);
+                    // This avoids copying the whole surplus store for each prototype alternative.
+                    dependencyComponentSurplusConsumed = Lists.newArrayList();
 
                     long remainingQuantity = dependencyMatcher.getQuantity(prototype.getPrototype());
                     IIngredientMatcher<T, M> prototypeMatcher = prototype.getComponent().getMatcher();
@@ -542,6 +1251,7 @@ public class CraftingHelpers {
                     while (remainingQuantity > 0 && surplusIt.hasNext()) {
                         updatedRemainingQuantity = true;
                         T matchingInstance = surplusIt.next();
+                        dependencyComponentSurplusConsumed.add(matchingInstance);
                         long matchingInstanceQuantity = dependencyMatcher.getQuantity(matchingInstance);
                         if (matchingInstanceQuantity <= remainingQuantity) {
                             // This whole surplus instance can be consumed
@@ -557,10 +1267,6 @@ public class CraftingHelpers {
                     }
                     if (updatedRemainingQuantity) {
                         if (remainingQuantity == 0) {
-                            // The prototype is valid,
-                            // so we can finally store our temporary surplus
-                            dependenciesOutputSurplus.put(dependencyComponent, dependencyComponentSurplus);
-
                             // Nothing has to be crafted anymore, jump to next dependency
                             skipDependency = true;
                             break;
@@ -574,23 +1280,39 @@ public class CraftingHelpers {
                 }
 
                 // Try to craft the given prototype
+                // The parent dependencies are only extended for the duration of the child calculation,
+                // and only if the recipe that needs it could lead to recursion.
+                boolean addedParentDependency = false;
                 try {
-                    Set<IPrototypedIngredient> childDependencies = Sets.newHashSet(parentDependencies);
-                    if (!childDependencies.add(prototype)) {
-                        throw new RecursiveCraftingRecipeException(prototype);
+                    if (recipeCyclic) {
+                        if (!parentDependencies.add(prototype)) {
+                            throw new RecursiveCraftingRecipeException(prototype);
+                        }
+                        addedParentDependency = true;
                     }
 
-                    dependency = calculateCraftingJobs(recipeIndex, channel, storageGetter,
+                    CraftingJobCalculationResult result = calculateCraftingJobResult(recipeIndex, channel, storageGetter,
                             dependencyComponent, prototype.getPrototype(),
                             prototype.getCondition(), true, simulatedExtractionMemory, extractionMemoryReusable,
-                            identifierGenerator, craftingJobsGraph, childDependencies, collectMissingRecipes);
-                    dependencyInstance = prototype.getPrototype();
+                            identifierGenerator, craftingJobsGraph, parentDependencies, collectMissingRecipes, calculationCache,
+                            alternativesPool, costModel);
+                    if (!result.isSuccess()) {
+                        // The prototype is invalid, so restore the surplus we consumed for it
+                        if (dependencyComponentSurplusConsumed != null) {
+                            for (T consumedInstance : dependencyComponentSurplusConsumed) {
+                                dependencyComponentSurplus.setQuantity(consumedInstance, dependencyMatcher.getQuantity(consumedInstance));
+                            }
+                        }
 
-                    // The prototype is valid,
-                    // so we can finally store our temporary surplus
-                    if (dependencyComponentSurplus != null) {
-                        dependenciesOutputSurplus.put(dependencyComponent, dependencyComponentSurplus);
+                        // Save the first error, and check the next prototype
+                        if (firstError == null) {
+                            // Modify the error so that the correct missing quantity is stored
+                            firstError = result.getMissingRecipe().withQuantityMissing(prototypedAlternative.getQuantityMissing());
+                        }
+                        continue;
                     }
+                    dependency = result.getCraftingJob();
+                    dependencyInstance = prototype.getPrototype();
 
                     // Add the auxiliary recipe outputs that are not requested to the surplus
                     Object dependencyQuantifierlessCondition = dependencyMatcher.withoutCondition(prototype.getCondition(),
@@ -618,13 +1340,9 @@ public class CraftingHelpers {
                     }
 
                     break;
-                } catch (UnknownCraftingRecipeException e) {
-                    // Save the first error, and check the next prototype
-                    if (firstError == null) {
-                        // Modify the error so that the correct missing quantity is stored
-                        firstError = new UnknownCraftingRecipeException(
-                                e.getIngredient(), prototypedAlternative.getQuantityMissing(),
-                                e.getMissingChildRecipes(), compressMixedIngredients(e.getIngredientsStorage()), e.getPartialCraftingJobs());
+                } finally {
+                    if (addedParentDependency) {
+                        parentDependencies.remove(prototype);
                     }
                 }
             }
@@ -769,15 +1487,18 @@ public class CraftingHelpers {
                                                                      @Nullable UUID initiator) {
         try {
             CraftingJobDependencyGraph dependencyGraph = new CraftingJobDependencyGraph();
-            CraftingJob craftingJob = calculateCraftingJobs(network, channel, ingredientComponent, instance,
-                    matchCondition, craftMissing, identifierGenerator, dependencyGraph, false);
+            CraftingJob craftingJob = calculateCraftingJobResult(network, channel, ingredientComponent, instance,
+                    matchCondition, craftMissing, identifierGenerator, dependencyGraph, false).getCraftingJob();
+            if (craftingJob == null) {
+                return null;
+            }
 
             ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
 
             scheduleCraftingJobs(craftingNetwork, dependencyGraph, allowDistribution, initiator);
 
             return craftingJob;
-        } catch (UnknownCraftingRecipeException | RecursiveCraftingRecipeException | UnavailableCraftingInterfacesException e) {
+        } catch (UnavailableCraftingInterfacesException e) {
             return null;
         }
     }
@@ -802,17 +1523,418 @@ public class CraftingHelpers {
                                                               @Nullable UUID initiator) {
         try {
             CraftingJobDependencyGraph dependencyGraph = new CraftingJobDependencyGraph();
-            CraftingJob craftingJob = calculateCraftingJobs(network, channel, recipe, amount, craftMissing,
-                    identifierGenerator, dependencyGraph, false);
+            CraftingJob craftingJob = calculateCraftingJobResult(network, channel, recipe, amount, craftMissing,
+                    identifierGenerator, dependencyGraph, false).getCraftingJob();
+            if (craftingJob == null) {
+                return null;
+            }
 
             ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
 
-            scheduleCraftingJobs(craftingNetwork, dependencyGraph, allowDistribution, initiator);
+            scheduleCraftingJobs(craftingNetwork, dependencyGraph, allowDistribution, initiator);
+
+            return craftingJob;
+        } catch (UnavailableCraftingInterfacesException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Schedule crafting jobs for all given instances in the given network.
+     * All instances are planned together, so that crafting jobs for equal recipes are shared,
+     * and all resulting crafting jobs are scheduled at once.
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param instances The instances to craft.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param allowDistribution If the crafting jobs are allowed to be split over multiple crafting interfaces.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param initiator Optional UUID of the initiator.
+     * @return The scheduled crafting jobs in the order of the given instances,
+     *         where an element is null if no recipe was found for that instance.
+     *         The list is empty if no crafting interfaces were available.
+     */
+    public static List<CraftingJob> calculateAndScheduleCraftingJobs(INetwork network, int channel,
+                                                                     List<IPrototypedIngredient<?, ?>> instances,
+                                                                     boolean craftMissing, boolean allowDistribution,
+                                                                     IIdentifierGenerator identifierGenerator,
+                                                                     @Nullable UUID initiator) {
+        CraftingJobDependencyGraph dependencyGraph = new CraftingJobDependencyGraph();
+        List<CraftingJobCalculationResult> results = calculateCraftingJobResults(network, channel, instances,
+                craftMissing, identifierGenerator, dependencyGraph, false);
+        List<CraftingJob> craftingJobs = Lists.newArrayListWithExpectedSize(results.size());
+        for (CraftingJobCalculationResult result : results) {
+            craftingJobs.add(result.getCraftingJob());
+        }
+
+        if (!dependencyGraph.getCraftingJobs().isEmpty()) {
+            try {
+                scheduleCraftingJobs(getCraftingNetworkChecked(network), dependencyGraph, allowDistribution, initiator);
+            } catch (UnavailableCraftingInterfacesException e) {
+                return Collections.emptyList();
+            }
+        }
+
+        return craftingJobs;
+    }
+
+    /**
+     * Schedule a crafting job for the given instance in the given network,
+     * where the crafting job is calculated on a worker thread.
+     *
+     * Storage contents and recipes are copied on the calling (server) thread,
+     * after which calculation happens against this snapshot.
+     * The calculated crafting jobs are scheduled on the server thread,
+     * after validating that the snapshot is still consistent with the network.
+     * If not, calculation is redone synchronously.
+     *
+     * If asynchronous calculation is disabled or no server is running,
+     * this will behave like
+     * {@link #calculateAndScheduleCraftingJob(INetwork, int, IngredientComponent, Object, Object, boolean, boolean, IIdentifierGenerator, UUID)}.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The instance to craft.
+     * @param matchCondition The match condition of the instance.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param allowDistribution If the crafting job is allowed to be split over multiple crafting interfaces.
+     * @param identifierGenerator An ID generator for crafting jobs, which must be thread-safe.
+     * @param initiator Optional UUID of the initiator.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return A future of the scheduled crafting job, which will contain null if no recipe was found.
+     */
+    public static <T, M> CompletableFuture<CraftingJob> calculateAndScheduleCraftingJobAsync(INetwork network, int channel,
+                                                                                            IngredientComponent<T, M> ingredientComponent,
+                                                                                            T instance, M matchCondition,
+                                                                                            boolean craftMissing, boolean allowDistribution,
+                                                                                            IIdentifierGenerator identifierGenerator,
+                                                                                            @Nullable UUID initiator) {
+        return calculateAndScheduleCraftingJobAsync(network, channel, allowDistribution, initiator,
+                createCraftingJobCalculator(channel, ingredientComponent, instance, matchCondition, craftMissing, identifierGenerator,
+                        CraftingJobPlanningExecutor.getAlternativesPool(), getCraftingJobCostModel(getCraftingNetworkChecked(network))),
+                recipeIndex -> getRecipeTreeInputComponents(recipeIndex, ingredientComponent, instance, matchCondition),
+                () -> calculateAndScheduleCraftingJob(network, channel, ingredientComponent, instance, matchCondition,
+                        craftMissing, allowDistribution, identifierGenerator, initiator));
+    }
+
+    /**
+     * Schedule a crafting job for the given recipe in the given network,
+     * where the crafting job is calculated on a worker thread.
+     *
+     * If asynchronous calculation is disabled or no server is running,
+     * this will behave like
+     * {@link #calculateAndScheduleCraftingJob(INetwork, int, IRecipeDefinition, int, boolean, boolean, IIdentifierGenerator, UUID)}.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param recipe The recipe to craft.
+     * @param amount The amount to craft.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param allowDistribution If the crafting job is allowed to be split over multiple crafting interfaces.
+     * @param identifierGenerator An ID generator for crafting jobs, which must be thread-safe.
+     * @param initiator Optional UUID of the initiator.
+     * @return A future of the scheduled crafting job, which will contain null if no recipe was found.
+     */
+    public static CompletableFuture<CraftingJob> calculateAndScheduleCraftingJobAsync(INetwork network, int channel,
+                                                                                     IRecipeDefinition recipe, int amount,
+                                                                                     boolean craftMissing, boolean allowDistribution,
+                                                                                     IIdentifierGenerator identifierGenerator,
+                                                                                     @Nullable UUID initiator) {
+        return calculateAndScheduleCraftingJobAsync(network, channel, allowDistribution, initiator,
+                createCraftingJobCalculator(channel, recipe, amount, craftMissing, identifierGenerator,
+                        CraftingJobPlanningExecutor.getAlternativesPool(), getCraftingJobCostModel(getCraftingNetworkChecked(network))),
+                recipeIndex -> getRecipeTreeInputComponents(recipeIndex, Iterators.singletonIterator(recipe)),
+                () -> calculateAndScheduleCraftingJob(network, channel, recipe, amount,
+                        craftMissing, allowDistribution, identifierGenerator, initiator));
+    }
+
+    protected static CompletableFuture<CraftingJob> calculateAndScheduleCraftingJobAsync(INetwork network, int channel,
+                                                                                        boolean allowDistribution,
+                                                                                        @Nullable UUID initiator,
+                                                                                        ICraftingJobCalculator calculator,
+                                                                                        Function<IRecipeIndex, Set<IngredientComponent<?, ?>>> storageComponentsGetter,
+                                                                                        Supplier<CraftingJob> fallback) {
+        Executor executor = CraftingJobPlanningExecutor.getExecutor();
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (executor == null || server == null) {
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+
+        // Take a snapshot of the recipes and storage contents on the server thread
+        ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
+        beforeCalculateCraftingJobs(network, channel);
+        IRecipeIndex recipeIndexSnapshot = craftingNetwork.getRecipeIndexSnapshot(channel);
+        long recipeIndexVersion = recipeIndexSnapshot.getVersion();
+        Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = getNetworkStorageSnapshotGetter(network, channel,
+                storageComponentsGetter.apply(recipeIndexSnapshot));
+
+        return calculateCraftingJobAsync(calculator, recipeIndexSnapshot, storageGetter, executor)
+                .thenApplyAsync(result -> scheduleCalculatedCraftingJob(network, channel, craftingNetwork, recipeIndexVersion,
+                        result.getLeft(), result.getRight(), allowDistribution, initiator, fallback), server);
+    }
+
+    /**
+     * Calculate a crafting job on the given executor.
+     * @param calculator The crafting job calculator.
+     * @param recipeIndex A recipe index that can safely be read from the executor's threads.
+     * @param storageGetter A storage getter that can safely be read from the executor's threads.
+     * @param executor The executor to calculate on.
+     * @return A future of the calculated crafting job, which may be null, and the graph of all calculated crafting jobs.
+     */
+    protected static CompletableFuture<Pair<CraftingJob, CraftingJobDependencyGraph>> calculateCraftingJobAsync(ICraftingJobCalculator calculator,
+                                                                                                               IRecipeIndex recipeIndex,
+                                                                                                               Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                                                                               Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            CraftingJobDependencyGraph craftingJobsGraph = new CraftingJobDependencyGraph();
+            CraftingJob craftingJob = calculator.calculate(recipeIndex, storageGetter, craftingJobsGraph);
+            if (craftingJob != null) {
+                craftingJobsGraph.addCraftingJobId(craftingJob);
+            }
+            return Pair.of(craftingJob, craftingJobsGraph);
+        }, executor);
+    }
+
+    /**
+     * Schedule a crafting job for the given instance in the given network,
+     * where the crafting job is calculated over multiple server ticks.
+     *
+     * Storage contents and recipes are copied immediately,
+     * after which calculation happens against this snapshot.
+     * Each tick, all of these calculations together are advanced by at most
+     * {@link GeneralConfig#craftingJobCalculationTickNodes} recipe nodes
+     * and {@link GeneralConfig#craftingJobCalculationTickNanos} nanoseconds.
+     * Once calculation is done, the crafting jobs are scheduled
+     * after validating that the snapshot is still consistent with the network.
+     * If not, calculation is redone synchronously.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The instance to craft.
+     * @param matchCondition The match condition of the instance.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param allowDistribution If the crafting job is allowed to be split over multiple crafting interfaces.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param initiator Optional UUID of the initiator.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The pending calculation, which exposes its progress and a future of the scheduled crafting job.
+     */
+    public static <T, M> TimeSlicedCraftingJobCalculation calculateAndScheduleCraftingJobTimeSliced(INetwork network, int channel,
+                                                                                                    IngredientComponent<T, M> ingredientComponent,
+                                                                                                    T instance, M matchCondition,
+                                                                                                    boolean craftMissing, boolean allowDistribution,
+                                                                                                    IIdentifierGenerator identifierGenerator,
+                                                                                                    @Nullable UUID initiator) {
+        // Alternatives are never calculated concurrently here, as the calculation must pause on a single thread
+        return calculateAndScheduleCraftingJobTimeSliced(network, channel, allowDistribution, initiator,
+                createCraftingJobCalculator(channel, ingredientComponent, instance, matchCondition, craftMissing, identifierGenerator,
+                        null, getCraftingJobCostModel(getCraftingNetworkChecked(network))),
+                recipeIndex -> getRecipeTreeInputComponents(recipeIndex, ingredientComponent, instance, matchCondition),
+                () -> calculateAndScheduleCraftingJob(network, channel, ingredientComponent, instance, matchCondition,
+                        craftMissing, allowDistribution, identifierGenerator, initiator));
+    }
+
+    /**
+     * Schedule a crafting job for the given recipe in the given network,
+     * where the crafting job is calculated over multiple server ticks.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param recipe The recipe to craft.
+     * @param amount The amount to craft.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param allowDistribution If the crafting job is allowed to be split over multiple crafting interfaces.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param initiator Optional UUID of the initiator.
+     * @return The pending calculation, which exposes its progress and a future of the scheduled crafting job.
+     */
+    public static TimeSlicedCraftingJobCalculation calculateAndScheduleCraftingJobTimeSliced(INetwork network, int channel,
+                                                                                             IRecipeDefinition recipe, int amount,
+                                                                                             boolean craftMissing, boolean allowDistribution,
+                                                                                             IIdentifierGenerator identifierGenerator,
+                                                                                             @Nullable UUID initiator) {
+        // Alternatives are never calculated concurrently here, as the calculation must pause on a single thread
+        return calculateAndScheduleCraftingJobTimeSliced(network, channel, allowDistribution, initiator,
+                createCraftingJobCalculator(channel, recipe, amount, craftMissing, identifierGenerator,
+                        null, getCraftingJobCostModel(getCraftingNetworkChecked(network))),
+                recipeIndex -> getRecipeTreeInputComponents(recipeIndex, Iterators.singletonIterator(recipe)),
+                () -> calculateAndScheduleCraftingJob(network, channel, recipe, amount,
+                        craftMissing, allowDistribution, identifierGenerator, initiator));
+    }
+
+    protected static TimeSlicedCraftingJobCalculation calculateAndScheduleCraftingJobTimeSliced(INetwork network, int channel,
+                                                                                                boolean allowDistribution,
+                                                                                                @Nullable UUID initiator,
+                                                                                                ICraftingJobCalculator calculator,
+                                                                                                Function<IRecipeIndex, Set<IngredientComponent<?, ?>>> storageComponentsGetter,
+                                                                                                Supplier<CraftingJob> fallback) {
+        // Take a snapshot of the recipes and storage contents
+        ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
+        beforeCalculateCraftingJobs(network, channel);
+        IRecipeIndex recipeIndexSnapshot = craftingNetwork.getRecipeIndexSnapshot(channel);
+        long recipeIndexVersion = recipeIndexSnapshot.getVersion();
+        Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = getNetworkStorageSnapshotGetter(network, channel,
+                storageComponentsGetter.apply(recipeIndexSnapshot));
+
+        TimeSlicedCraftingJobCalculation calculation = new TimeSlicedCraftingJobCalculation(calculator, recipeIndexSnapshot, storageGetter,
+                c -> scheduleCalculatedCraftingJob(network, channel, craftingNetwork, recipeIndexVersion,
+                        c.getCraftingJob(), c.getCraftingJobsGraph(), allowDistribution, initiator, fallback));
+        TimeSlicedCraftingJobCalculation.enqueue(calculation);
+        return calculation;
+    }
+
+    /**
+     * Create a calculator for crafting jobs for the given instance.
+     * @param channel The target channel.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The instance to craft.
+     * @param matchCondition The match condition of the instance.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param alternativesPool An optional pool on which alternative recipes are calculated concurrently.
+     * @param costModel An optional cost model to choose between alternative recipes.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return A crafting job calculator.
+     */
+    protected static <T, M> ICraftingJobCalculator createCraftingJobCalculator(int channel,
+                                                                             IngredientComponent<T, M> ingredientComponent,
+                                                                             T instance, M matchCondition, boolean craftMissing,
+                                                                             IIdentifierGenerator identifierGenerator,
+                                                                             @Nullable ForkJoinPool alternativesPool,
+                                                                             @Nullable CraftingJobCostModel costModel) {
+        return (recipeIndex, storageGetter, craftingJobsGraph) -> {
+            try {
+                return calculateCraftingJobResult(recipeIndex, channel, storageGetter, ingredientComponent, instance, matchCondition,
+                        craftMissing, Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), identifierGenerator, craftingJobsGraph,
+                        Sets.newHashSet(), false, null, alternativesPool,
+                        costModel != null ? costModel.forCalculation() : null).getCraftingJob();
+            } catch (RecursiveCraftingRecipeException e) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Create a calculator for crafting jobs for the given recipe.
+     * @param channel The target channel.
+     * @param recipe The recipe to craft.
+     * @param amount The amount to craft.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param identifierGenerator An ID generator for crafting jobs.
+     * @param alternativesPool An optional pool on which alternative recipes are calculated concurrently.
+     * @param costModel An optional cost model to choose between alternative recipes for dependencies.
+     * @return A crafting job calculator.
+     */
+    protected static ICraftingJobCalculator createCraftingJobCalculator(int channel, IRecipeDefinition recipe, int amount,
+                                                                        boolean craftMissing,
+                                                                        IIdentifierGenerator identifierGenerator,
+                                                                        @Nullable ForkJoinPool alternativesPool,
+                                                                        @Nullable CraftingJobCostModel costModel) {
+        return (recipeIndex, storageGetter, craftingJobsGraph) -> {
+            try {
+                return calculateCraftingJobs(recipeIndex, channel, storageGetter, recipe, amount, craftMissing,
+                        Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), identifierGenerator, craftingJobsGraph,
+                        Sets.newHashSet(), false, null, alternativesPool,
+                        costModel != null ? costModel.forCalculation() : null).getCraftingJob();
+            } catch (RecursiveCraftingRecipeException e) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Schedule crafting jobs that were calculated against a snapshot of the given network.
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param craftingNetwork The crafting network from which the snapshot was taken.
+     * @param recipeIndexVersion The version of the recipe index from which the snapshot was taken.
+     * @param craftingJob The calculated crafting job, or null if none could be calculated.
+     * @param craftingJobsGraph The calculated crafting jobs.
+     * @param allowDistribution If the crafting job is allowed to be split over multiple crafting interfaces.
+     * @param initiator Optional UUID of the initiator.
+     * @param fallback Synchronously calculates and schedules the crafting job in case the snapshot is outdated.
+     * @return The scheduled crafting job, or null if no recipe was found.
+     */
+    @Nullable
+    protected static CraftingJob scheduleCalculatedCraftingJob(INetwork network, int channel, ICraftingNetwork craftingNetwork,
+                                                               long recipeIndexVersion, @Nullable CraftingJob craftingJob,
+                                                               CraftingJobDependencyGraph craftingJobsGraph,
+                                                               boolean allowDistribution, @Nullable UUID initiator,
+                                                               Supplier<CraftingJob> fallback) {
+        // The network may have changed since the snapshot was taken, so calculate again if needed.
+        if (!isCraftingJobCalculationValid(network, channel, craftingNetwork, recipeIndexVersion, craftingJobsGraph)) {
+            return fallback.get();
+        }
+        if (craftingJob == null) {
+            return null;
+        }
+        try {
+            scheduleCraftingJobs(craftingNetwork, craftingJobsGraph, allowDistribution, initiator);
+            return craftingJob;
+        } catch (UnavailableCraftingInterfacesException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check if the crafting jobs that were calculated against a snapshot of the given network are still valid.
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param craftingNetwork The crafting network from which the snapshot was taken.
+     * @param recipeIndexVersion The version of the recipe index from which the snapshot was taken.
+     * @param craftingJobsGraph The calculated crafting jobs.
+     * @return If the recipes are unchanged, and all ingredients of the crafting jobs are still present in the network.
+     */
+    protected static boolean isCraftingJobCalculationValid(INetwork network, int channel, ICraftingNetwork craftingNetwork,
+                                                           long recipeIndexVersion, CraftingJobDependencyGraph craftingJobsGraph) {
+        if (getCraftingNetwork(network).orElse(null) != craftingNetwork) {
+            return false;
+        }
+        return isCraftingJobCalculationValid(craftingNetwork.getRecipeIndex(channel), recipeIndexVersion,
+                getNetworkStorageGetter(network, channel, true), craftingJobsGraph);
+    }
+
+    /**
+     * Check if the crafting jobs that were calculated against a snapshot are still valid.
+     * @param recipeIndex The current recipe index.
+     * @param recipeIndexVersion The version of the recipe index from which the snapshot was taken.
+     * @param storageGetter A callback function to get the current storage for an ingredient component.
+     * @param craftingJobsGraph The calculated crafting jobs.
+     * @return If the recipes are unchanged, and all ingredients of the crafting jobs are still present in storage.
+     */
+    protected static boolean isCraftingJobCalculationValid(IRecipeIndex recipeIndex, long recipeIndexVersion,
+                                                           Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                           CraftingJobDependencyGraph craftingJobsGraph) {
+        if (recipeIndex.getVersion() != recipeIndexVersion || recipeIndexVersion == IRecipeIndex.VERSION_UNTRACKED) {
+            return false;
+        }
+        IMixedIngredients ingredients = new MixedIngredients(Maps.newIdentityHashMap());
+        for (CraftingJob craftingJob : craftingJobsGraph.getCraftingJobs()) {
+            ingredients = mergeMixedIngredients(ingredients, craftingJob.getIngredientsStorage());
+        }
+        for (IngredientComponent<?, ?> ingredientComponent : ingredients.getComponents()) {
+            if (!hasStorageInstances(storageGetter.apply(ingredientComponent), ingredientComponent,
+                    (List) ingredients.getInstances(ingredientComponent))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-            return craftingJob;
-        } catch (RecursiveCraftingRecipeException | FailedCraftingRecipeException | UnavailableCraftingInterfacesException e) {
-            return null;
+    protected static <T, M> boolean hasStorageInstances(IIngredientComponentStorage<T, M> storage,
+                                                        IngredientComponent<T, M> ingredientComponent, List<T> instances) {
+        M matchCondition = ingredientComponent.getMatcher().getExactMatchCondition();
+        for (T instance : instances) {
+            if (!hasStorageInstance(storage, ingredientComponent, instance, matchCondition)) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
@@ -829,7 +1951,23 @@ public class CraftingHelpers {
     public static <T, M> boolean hasStorageInstance(INetwork network, int channel,
                                                     IngredientComponent<T, M> ingredientComponent,
                                                     T instance, M matchCondition) {
-        IIngredientComponentStorage<T, M> storage = getNetworkStorage(network, channel, ingredientComponent, true);
+        return hasStorageInstance(getNetworkStorage(network, channel, ingredientComponent, true),
+                ingredientComponent, instance, matchCondition);
+    }
+
+    /**
+     * Check if the given storage contains the given instance.
+     * @param storage The storage.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The instance to check.
+     * @param matchCondition The match condition of the instance.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return If the instance is present in the storage.
+     */
+    public static <T, M> boolean hasStorageInstance(IIngredientComponentStorage<T, M> storage,
+                                                    IngredientComponent<T, M> ingredientComponent,
+                                                    T instance, M matchCondition) {
         if (storage instanceof IngredientChannelAdapter) ((IngredientChannelAdapter) storage).disableLimits();
         boolean contains;
         if (storage instanceof IngredientChannelIndexed) {
@@ -897,13 +2035,7 @@ public class CraftingHelpers {
      */
     public static boolean isCrafting(ICraftingNetwork craftingNetwork, int channel,
                                      IRecipeDefinition recipe) {
-        Iterator<CraftingJob> it = craftingNetwork.getCraftingJobs(channel);
-        while (it.hasNext()) {
-            if (it.next().getRecipe().equals(recipe)) {
-                return true;
-            }
-        }
-        return false;
+        return craftingNetwork.getCraftingJobs(channel, recipe).hasNext();
     }
 
     /**
@@ -1022,10 +2154,8 @@ public class CraftingHelpers {
 
             // Iterate over all alternatives for this input slot, and take the first matching ingredient.
             List<MissingIngredients.PrototypedWithRequested<T, M>> missingAlternatives = Lists.newArrayList();
-            IngredientCollectionPrototypeMap<T, M> simulatedExtractionMemoryAlternative = simulate ? new IngredientCollectionPrototypeMap<>(ingredientComponent, true) : null;
-            if (simulate) {
-                simulatedExtractionMemoryAlternative.addAll(simulatedExtractionMemory);
-            }
+            // Only the changes on top of the simulated extraction memory are stored, to avoid copying it for each slot.
+            SimulatedExtractionMemoryOverlay<T, M> simulatedExtractionMemoryAlternative = simulate ? new SimulatedExtractionMemoryOverlay<>(simulatedExtractionMemory) : null;
             for (IPrototypedIngredient<T, M> inputPrototype : inputPrototypes.getAlternatives()) {
                 boolean inputReusable = recipe.isInputReusable(ingredientComponent, inputIndex);
                 IngredientCollectionPrototypeMap<T, M> simulatedExtractionMemoryBuffer = simulate ? new IngredientCollectionPrototypeMap<>(ingredientComponent, true) : null;
@@ -1158,14 +2288,7 @@ public class CraftingHelpers {
             if (!hasInputInstance) {
                 if (!simulate) {
                     // But first, re-insert all already-extracted instances
-                    for (T instance : inputInstances) {
-                        T remaining = storage.insert(instance, false);
-                        if (!matcher.isEmpty(remaining)) {
-                            throw new IllegalStateException("Extraction for a crafting recipe failed" +
-                                    "due to inconsistent insertion behaviour by destination in simulation " +
-                                    "and non-simulation: " + storage + ". Lost: " + remaining);
-                        }
-                    }
+                    insertIngredientRecipeInputs(storage, ingredientComponent, inputInstances);
                 }
 
                 if (!collectMissingIngredients) {
@@ -1217,11 +2340,193 @@ public class CraftingHelpers {
     public static IMixedIngredients getRecipeInputs(INetwork network, int channel,
                                                     IRecipeDefinition recipe, boolean simulate,
                                                     long recipeOutputQuantity) {
-        Map<IngredientComponent<?, ?>, List<?>> inputs = getRecipeInputs(getNetworkStorageGetter(network, channel, true),
+        return getRecipeInputs(getNetworkStorageGetter(network, channel, true), recipe, simulate, recipeOutputQuantity);
+    }
+
+    /**
+     * Get all required recipe input ingredients of the given crafting job from the network,
+     * without taking the ingredients that are reserved by older crafting jobs.
+     *
+     * Note: Make sure that you first call in simulation-mode
+     * to see if the ingredients are available.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param craftingJob The crafting job to get the recipe inputs for.
+     * @param simulate If true, then the ingredients will effectively be removed from the network, not when false.
+     * @param recipeOutputQuantity The number of times the recipe should be applied.
+     * @return The found ingredients or null.
+     */
+    @Nullable
+    public static IMixedIngredients getRecipeInputs(INetwork network, int channel,
+                                                    CraftingJob craftingJob, boolean simulate,
+                                                    long recipeOutputQuantity) {
+        return getRecipeInputs(getNetworkStorageGetterReserved(network, channel, craftingJob, true),
+                craftingJob.getRecipe(), simulate, recipeOutputQuantity);
+    }
+
+    @Nullable
+    protected static IMixedIngredients getRecipeInputs(Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                       IRecipeDefinition recipe, boolean simulate,
+                                                       long recipeOutputQuantity) {
+        Map<IngredientComponent<?, ?>, List<?>> inputs = getRecipeInputs(storageGetter,
                 recipe, simulate, Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), false, recipeOutputQuantity).getLeft();
         return inputs == null ? null : new MixedIngredients(inputs);
     }
 
+    /**
+     * Determine the maximum number of times that the given recipe input ingredients,
+     * as they were resolved before by calling {@link #getRecipeInputs} in simulation mode for a single recipe application,
+     * can be extracted at once from the given storages.
+     * @param storageGetter A callback function to get a storage for the given ingredient component.
+     * @param ingredients The recipe input ingredients for a single recipe application.
+     * @param maxAmount The maximum amount to return.
+     * @return The maximum amount, between 0 and the given maximum.
+     */
+    protected static long getRecipeInputsMaxAmount(Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                   IMixedIngredients ingredients, long maxAmount) {
+        for (IngredientComponent<?, ?> ingredientComponent : ingredients.getComponents()) {
+            maxAmount = getIngredientRecipeInputsMaxAmount(storageGetter.apply(ingredientComponent), ingredientComponent,
+                    ingredients, maxAmount);
+        }
+        return maxAmount;
+    }
+
+    protected static <T, M> long getIngredientRecipeInputsMaxAmount(IIngredientComponentStorage<T, M> storage,
+                                                                    IngredientComponent<T, M> ingredientComponent,
+                                                                    IMixedIngredients ingredients, long maxAmount) {
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        M matchCondition = matcher.getExactMatchNoQuantityCondition();
+
+        // Multiple inputs may require the same instance, so sum their quantities first
+        IngredientCollectionPrototypeMap<T, M> requiredInstances = new IngredientCollectionPrototypeMap<>(ingredientComponent);
+        for (T instance : ingredients.getInstances(ingredientComponent)) {
+            if (!matcher.isEmpty(instance)) {
+                requiredInstances.add(instance);
+            }
+        }
+
+        for (T requiredInstance : requiredInstances) {
+            if (maxAmount <= 0) {
+                break;
+            }
+            long requiredQuantity = matcher.getQuantity(requiredInstance);
+            long requestedQuantity = Math.min(requiredQuantity * maxAmount, matcher.getMaximumQuantity());
+            if (storage instanceof IngredientChannelAdapter)
+                ((IngredientChannelAdapter) storage).disableLimits();
+            T available = storage.extract(matcher.withQuantity(requiredInstance, requestedQuantity), matchCondition, true);
+            if (storage instanceof IngredientChannelAdapter)
+                ((IngredientChannelAdapter) storage).enableLimits();
+            maxAmount = Math.min(maxAmount, matcher.getQuantity(available) / requiredQuantity);
+        }
+        return maxAmount;
+    }
+
+    /**
+     * Extract the given recipe input ingredients from the network,
+     * as they were resolved before by calling {@link #getRecipeInputs} in simulation mode.
+     *
+     * This avoids resolving all input alternatives of the recipe again.
+     * If any of the ingredients can not be fully extracted anymore,
+     * for example because the storage has changed since the simulation,
+     * then all already extracted ingredients are re-inserted, and null is returned.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param ingredients The recipe input ingredients that were resolved in simulation mode.
+     * @return The extracted ingredients or null.
+     */
+    @Nullable
+    public static IMixedIngredients extractRecipeInputs(INetwork network, int channel, IMixedIngredients ingredients) {
+        return extractRecipeInputs(getNetworkStorageGetter(network, channel, true), ingredients);
+    }
+
+    /**
+     * Extract the given recipe input ingredients of the given crafting job from the network,
+     * without taking the ingredients that are reserved by older crafting jobs.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param craftingJob The crafting job to extract the recipe inputs for.
+     * @param ingredients The recipe input ingredients that were resolved in simulation mode.
+     * @return The extracted ingredients or null.
+     * @see #extractRecipeInputs(INetwork, int, IMixedIngredients)
+     */
+    @Nullable
+    public static IMixedIngredients extractRecipeInputs(INetwork network, int channel, CraftingJob craftingJob,
+                                                        IMixedIngredients ingredients) {
+        return extractRecipeInputs(getNetworkStorageGetterReserved(network, channel, craftingJob, true), ingredients);
+    }
+
+    @Nullable
+    protected static IMixedIngredients extractRecipeInputs(Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                                           IMixedIngredients ingredients) {
+        List<IngredientComponent<?, ?>> extractedComponents = Lists.newArrayList();
+        for (IngredientComponent<?, ?> ingredientComponent : ingredients.getComponents()) {
+            if (!extractIngredientRecipeInputs(storageGetter.apply(ingredientComponent), ingredientComponent, ingredients)) {
+                // Re-insert the ingredients that were already extracted for the previous components
+                for (IngredientComponent<?, ?> extractedComponent : extractedComponents) {
+                    insertIngredientRecipeInputs(storageGetter.apply(extractedComponent), extractedComponent,
+                            (List) ingredients.getInstances(extractedComponent));
+                }
+                return null;
+            }
+            extractedComponents.add(ingredientComponent);
+        }
+        return ingredients;
+    }
+
+    protected static <T, M> boolean extractIngredientRecipeInputs(IIngredientComponentStorage<T, M> storage,
+                                                                  IngredientComponent<T, M> ingredientComponent,
+                                                                  IMixedIngredients ingredients) {
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        M matchCondition = matcher.getExactMatchNoQuantityCondition();
+        List<T> instances = ingredients.getInstances(ingredientComponent);
+        for (int i = 0; i < instances.size(); i++) {
+            T instance = instances.get(i);
+            if (!matcher.isEmpty(instance)) {
+                if (storage instanceof IngredientChannelAdapter)
+                    ((IngredientChannelAdapter) storage).disableLimits();
+                T extracted = storage.extract(instance, matchCondition, false);
+                if (storage instanceof IngredientChannelAdapter)
+                    ((IngredientChannelAdapter) storage).enableLimits();
+                if (matcher.getQuantity(extracted) != matcher.getQuantity(instance)) {
+                    // Re-insert this partial extraction and all previous extractions
+                    insertIngredientRecipeInputs(storage, ingredientComponent, Collections.singletonList(extracted));
+                    insertIngredientRecipeInputs(storage, ingredientComponent, instances.subList(0, i));
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Re-insert recipe input ingredients that were already extracted from the given storage,
+     * because the extraction of other recipe inputs failed.
+     * @param storage The storage the instances were extracted from.
+     * @param ingredientComponent The ingredient component type.
+     * @param instances The extracted instances.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @throws IllegalStateException If the storage does not accept the instances anymore.
+     */
+    protected static <T, M> void insertIngredientRecipeInputs(IIngredientComponentStorage<T, M> storage,
+                                                              IngredientComponent<T, M> ingredientComponent,
+                                                              List<T> instances) {
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        for (T instance : instances) {
+            if (!matcher.isEmpty(instance)) {
+                T remaining = storage.insert(instance, false);
+                if (!matcher.isEmpty(remaining)) {
+                    throw new IllegalStateException("Extraction for a crafting recipe failed " +
+                            "due to inconsistent insertion behaviour by destination in simulation " +
+                            "and non-simulation: " + storage + ". Lost: " + remaining);
+                }
+            }
+        }
+    }
+
     /**
      * Create a callback function for getting a storage for an ingredient component from the given network channel.
      * @param network The target network.
@@ -1233,6 +2538,232 @@ public class CraftingHelpers {
         return ingredientComponent -> getNetworkStorage(network, channel, ingredientComponent, scheduleObservation);
     }
 
+    /**
+     * Create a callback function for getting a storage for an ingredient component from the given network channel,
+     * from which the ingredients that are reserved by older crafting jobs can not be extracted.
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param craftingJob The crafting job that will extract from the storage,
+     *                    the reservations of itself and of newer crafting jobs can be extracted.
+     *                    If null, no reservations can be extracted, which is used when planning new crafting jobs.
+     * @param scheduleObservation If an observation inside the ingredients network should be scheduled.
+     * @return A callback function for getting a storage for an ingredient component.
+     */
+    public static Function<IngredientComponent<?, ?>, IIngredientComponentStorage> getNetworkStorageGetterReserved(INetwork network, int channel,
+                                                                                                                   @Nullable CraftingJob craftingJob,
+                                                                                                                   boolean scheduleObservation) {
+        ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
+        return ingredientComponent -> getNetworkStorageReserved(network, craftingNetwork, channel, ingredientComponent,
+                craftingJob, scheduleObservation);
+    }
+
+    /**
+     * Get the storage of the given ingredient component type from the network,
+     * from which the ingredients that are reserved by older crafting jobs can not be extracted.
+     * @param network The network.
+     * @param craftingNetwork The crafting network.
+     * @param channel A network channel.
+     * @param ingredientComponent The ingredient component type of the network.
+     * @param craftingJob The crafting job that will extract from the storage.
+     *                    If null, no reservations can be extracted.
+     * @param scheduleObservation If an observation inside the ingredients network should be scheduled.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The storage.
+     */
+    public static <T, M> IIngredientComponentStorage<T, M> getNetworkStorageReserved(INetwork network, ICraftingNetwork craftingNetwork,
+                                                                                     int channel, IngredientComponent<T, M> ingredientComponent,
+                                                                                     @Nullable CraftingJob craftingJob, boolean scheduleObservation) {
+        IIngredientComponentStorage<T, M> storage = getNetworkStorage(network, channel, ingredientComponent, scheduleObservation);
+        if (!craftingNetwork.hasReservedIngredients(channel, ingredientComponent)) {
+            return storage;
+        }
+        return new IngredientComponentStorageReservedProxy<>(storage,
+                instance -> craftingNetwork.getReservedQuantity(channel, ingredientComponent, instance, craftingJob));
+    }
+
+    /**
+     * Create a callback function for getting a copy of the storage for an ingredient component from the given network channel.
+     *
+     * The storage contents of the given ingredient components are copied immediately,
+     * so that the returned storages can safely be used from other threads.
+     * Ingredients that are reserved by present crafting jobs are not part of the copy.
+     * All other ingredient components will have an empty storage.
+     *
+     * @param network The target network.
+     * @param channel The target channel.
+     * @param ingredientComponents The ingredient components to copy the storage of,
+     *                             usually obtained via {@link #getRecipeTreeInputComponents(IRecipeIndex, Iterator)}.
+     * @return A callback function for getting a storage snapshot for an ingredient component.
+     */
+    public static Function<IngredientComponent<?, ?>, IIngredientComponentStorage> getNetworkStorageSnapshotGetter(INetwork network, int channel,
+                                                                                                                   Set<IngredientComponent<?, ?>> ingredientComponents) {
+        ICraftingNetwork craftingNetwork = getCraftingNetworkChecked(network);
+        Map<IngredientComponent<?, ?>, IIngredientComponentStorage<?, ?>> storages = Maps.newIdentityHashMap();
+        for (IngredientComponent<?, ?> ingredientComponent : ingredientComponents) {
+            if (getIngredientsNetwork(network, ingredientComponent).isPresent()) {
+                storages.put(ingredientComponent, getNetworkStorageSnapshot(network, craftingNetwork, channel, ingredientComponent));
+            }
+        }
+        return ingredientComponent -> {
+            IIngredientComponentStorage<?, ?> storage = storages.get(ingredientComponent);
+            return storage != null ? storage : new IngredientComponentStorageEmpty<>(ingredientComponent);
+        };
+    }
+
+    protected static <T, M> IIngredientComponentStorage<T, M> getNetworkStorageSnapshot(INetwork network, ICraftingNetwork craftingNetwork,
+                                                                                       int channel, IngredientComponent<T, M> ingredientComponent) {
+        IIngredientComponentStorage<T, M> storage = getNetworkStorage(network, channel, ingredientComponent, true);
+        if (!craftingNetwork.hasReservedIngredients(channel, ingredientComponent)) {
+            return createStorageSnapshot(storage);
+        }
+        return createStorageSnapshot(storage, instance -> craftingNetwork.getReservedQuantity(channel, ingredientComponent, instance, null));
+    }
+
+    /**
+     * Collect all ingredient components of which the storage may be read
+     * when calculating crafting jobs for the given recipes, including all of their (transitive) dependencies.
+     * @param recipeIndex The recipe index.
+     * @param recipes The recipes to calculate crafting jobs for.
+     * @return The input ingredient components of all recipes that may be part of the calculation.
+     */
+    public static Set<IngredientComponent<?, ?>> getRecipeTreeInputComponents(IRecipeIndex recipeIndex, Iterator<IRecipeDefinition> recipes) {
+        Set<IngredientComponent<?, ?>> ingredientComponents = Sets.newIdentityHashSet();
+        Set<IRecipeDefinition> visitedRecipes = Sets.newHashSet();
+        Deque<IRecipeDefinition> pendingRecipes = new ArrayDeque<>();
+        Iterators.addAll(pendingRecipes, recipes);
+        while (!pendingRecipes.isEmpty()) {
+            IRecipeDefinition recipe = pendingRecipes.pop();
+            if (visitedRecipes.add(recipe)) {
+                for (IngredientComponent<?, ?> ingredientComponent : recipe.getInputComponents()) {
+                    ingredientComponents.add(ingredientComponent);
+                    addRecipeInputRecipes(recipeIndex, recipe, ingredientComponent, pendingRecipes);
+                }
+            }
+        }
+        return ingredientComponents;
+    }
+
+    /**
+     * Collect all ingredient components of which the storage may be read
+     * when calculating crafting jobs for the given instance.
+     * @param recipeIndex The recipe index.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The instance to craft.
+     * @param matchCondition The match condition of the instance.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The input ingredient components of all recipes that may be part of the calculation.
+     */
+    public static <T, M> Set<IngredientComponent<?, ?>> getRecipeTreeInputComponents(IRecipeIndex recipeIndex,
+                                                                                    IngredientComponent<T, M> ingredientComponent,
+                                                                                    T instance, M matchCondition) {
+        return getRecipeTreeInputComponents(recipeIndex, getRecipesQuantifierless(recipeIndex, ingredientComponent, instance, matchCondition));
+    }
+
+    /**
+     * Collect all ingredient components of which the storage may be read
+     * when calculating crafting jobs for the given instances.
+     * @param recipeIndex The recipe index.
+     * @param instances The instances to craft.
+     * @return The input ingredient components of all recipes that may be part of the calculation.
+     */
+    public static Set<IngredientComponent<?, ?>> getRecipeTreeInputComponents(IRecipeIndex recipeIndex,
+                                                                            List<IPrototypedIngredient<?, ?>> instances) {
+        List<Iterator<IRecipeDefinition>> recipes = Lists.newArrayListWithExpectedSize(instances.size());
+        for (IPrototypedIngredient<?, ?> instance : instances) {
+            recipes.add(getRecipesQuantifierless(recipeIndex, instance));
+        }
+        return getRecipeTreeInputComponents(recipeIndex, Iterators.concat(recipes.iterator()));
+    }
+
+    protected static <T, M> Iterator<IRecipeDefinition> getRecipesQuantifierless(IRecipeIndex recipeIndex,
+                                                                                IPrototypedIngredient<T, M> prototype) {
+        return getRecipesQuantifierless(recipeIndex, prototype.getComponent(), prototype.getPrototype(), prototype.getCondition());
+    }
+
+    protected static <T, M> Iterator<IRecipeDefinition> getRecipesQuantifierless(IRecipeIndex recipeIndex,
+                                                                                IngredientComponent<T, M> ingredientComponent,
+                                                                                T instance, M matchCondition) {
+        M quantifierlessCondition = ingredientComponent.getMatcher().withoutCondition(matchCondition,
+                ingredientComponent.getPrimaryQuantifier().getMatchCondition());
+        return recipeIndex.getRecipes(ingredientComponent, instance, quantifierlessCondition);
+    }
+
+    protected static <T, M> void addRecipeInputRecipes(IRecipeIndex recipeIndex, IRecipeDefinition recipe,
+                                                       IngredientComponent<T, M> ingredientComponent,
+                                                       Deque<IRecipeDefinition> pendingRecipes) {
+        for (IPrototypedIngredientAlternatives<T, M> inputAlternatives : recipe.getInputs(ingredientComponent)) {
+            for (IPrototypedIngredient<T, M> inputAlternative : inputAlternatives.getAlternatives()) {
+                Iterators.addAll(pendingRecipes, getRecipesQuantifierless(recipeIndex, inputAlternative));
+            }
+        }
+    }
+
+    /**
+     * Copy all contents of the given storage into a new storage.
+     * @param storage A storage.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return A new storage that is backed by a prototype map.
+     */
+    public static <T, M> IIngredientComponentStorage<T, M> createStorageSnapshot(IIngredientComponentStorage<T, M> storage) {
+        IngredientCollectionPrototypeMap<T, M> contents = new IngredientCollectionPrototypeMap<>(storage.getComponent());
+        if (storage instanceof IngredientChannelAdapter) ((IngredientChannelAdapter) storage).disableLimits();
+        for (T instance : storage) {
+            contents.add(instance);
+        }
+        if (storage instanceof IngredientChannelAdapter) ((IngredientChannelAdapter) storage).enableLimits();
+        return new IngredientComponentStorageCollectionWrapper<>(contents);
+    }
+
+    /**
+     * Copy all contents of the given storage into a new storage, except for the reserved quantities.
+     * @param storage A storage.
+     * @param reservedQuantityGetter A function that returns the reserved quantity for an instance,
+     *                               matched exactly, ignoring its quantity.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return A new storage that is backed by a prototype map.
+     */
+    public static <T, M> IIngredientComponentStorage<T, M> createStorageSnapshot(IIngredientComponentStorage<T, M> storage,
+                                                                                 ToLongFunction<T> reservedQuantityGetter) {
+        IIngredientComponentStorage<T, M> snapshot = createStorageSnapshot(storage);
+        IIngredientMatcher<T, M> matcher = storage.getComponent().getMatcher();
+        M exactMatchCondition = matcher.getExactMatchNoQuantityCondition();
+        IIngredientCollectionMutable<T, M> visitedKeys = new IngredientHashSet<>(storage.getComponent());
+        for (T instance : Lists.newArrayList(snapshot.iterator())) {
+            T key = matcher.withQuantity(instance, 1);
+            if (visitedKeys.add(key)) {
+                // Extract in a loop, as a single extraction may be limited to a maximum quantity
+                long reservedQuantity = reservedQuantityGetter.applyAsLong(key);
+                while (reservedQuantity > 0) {
+                    T extracted = snapshot.extract(matcher.withQuantity(key, reservedQuantity), exactMatchCondition, false);
+                    if (matcher.isEmpty(extracted)) {
+                        break;
+                    }
+                    reservedQuantity -= matcher.getQuantity(extracted);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Create an immutable snapshot of the given index.
+     * The same snapshot is returned until the recipe index changes.
+     * @param recipeIndex A recipe index.
+     * @return A snapshot of the recipe index.
+     */
+    public static IRecipeIndex createRecipeIndexSnapshot(IRecipeIndex recipeIndex) {
+        RecipeIndexSnapshot previousSnapshot = RECIPE_INDEX_SNAPSHOTS.get(recipeIndex);
+        RecipeIndexSnapshot snapshot = RecipeIndexSnapshot.of(recipeIndex, null, previousSnapshot);
+        if (snapshot != previousSnapshot && snapshot != recipeIndex) {
+            RECIPE_INDEX_SNAPSHOTS.put(recipeIndex, snapshot);
+        }
+        return snapshot;
+    }
+
     /**
      * Get all required recipe input ingredients based on a given storage callback.
      *
@@ -1272,12 +2803,12 @@ public class CraftingHelpers {
             IIngredientComponentStorage storage = storageGetter.apply(ingredientComponent);
             IngredientCollectionPrototypeMap<?, ?> simulatedExtractionMemory = simulatedExtractionMemories.get(ingredientComponent);
             if (simulatedExtractionMemory == null) {
-                simulatedExtractionMemory = new IngredientCollectionPrototypeMap<>(ingredientComponent, true);
+                simulatedExtractionMemory = ExtractionMemoryCheckpoint.createSimulatedExtractionMemory(ingredientComponent);
                 simulatedExtractionMemories.put(ingredientComponent, simulatedExtractionMemory);
             }
             IIngredientCollectionMutable extractionMemoryReusable = extractionMemoriesReusable.get(ingredientComponent);
             if (extractionMemoryReusable == null) {
-                extractionMemoryReusable = new IngredientHashSet<>(ingredientComponent);
+                extractionMemoryReusable = ExtractionMemoryCheckpoint.createExtractionMemoryReusable(ingredientComponent);
                 extractionMemoriesReusable.put(ingredientComponent, extractionMemoryReusable);
             }
             Pair<List<?>, MissingIngredients<?, ?>> subIngredients = getIngredientRecipeInputs(storage,
@@ -1605,6 +3136,15 @@ public class CraftingHelpers {
             clonedJob.setAmount(newAmount);
         }
 
+        // Divide the storage ingredients over the new jobs,
+        // so that each job only reserves the share it needs.
+        int previousAmount = 0;
+        for (CraftingJob newCraftingJob : newCraftingJobs) {
+            newCraftingJob.setIngredientsStorage(getMixedIngredientsShare(craftingJob.getIngredientsStorage(),
+                    previousAmount, previousAmount + newCraftingJob.getAmount(), craftingJob.getAmount()));
+            previousAmount += newCraftingJob.getAmount();
+        }
+
         // Collect dependency links
         Collection<CraftingJob> originalDependencies = dependencyGraph.getDependencies(craftingJob);
         Collection<CraftingJob> originalDependents = dependencyGraph.getDependents(craftingJob);
@@ -1636,6 +3176,35 @@ public class CraftingHelpers {
         return newCraftingJobs;
     }
 
+    /**
+     * Get the share of the given ingredients that corresponds to the given range of a total amount.
+     * The shares of consecutive ranges always add up to the original quantities.
+     * @param mixedIngredients A mixed ingredients object for the total amount.
+     * @param fromAmount The start of the range, inclusive.
+     * @param toAmount The end of the range, exclusive.
+     * @param totalAmount The total amount.
+     * @return A new mixed ingredients object.
+     */
+    protected static IMixedIngredients getMixedIngredientsShare(IMixedIngredients mixedIngredients,
+                                                                long fromAmount, long toAmount, long totalAmount) {
+        Map<IngredientComponent<?, ?>, List<?>> ingredients = Maps.newIdentityHashMap();
+        for (IngredientComponent<?, ?> component : mixedIngredients.getComponents()) {
+            IIngredientMatcher matcher = component.getMatcher();
+            List instances = Lists.newArrayList();
+            for (Object instance : mixedIngredients.getInstances(component)) {
+                long quantity = matcher.getQuantity(instance);
+                long shareQuantity = quantity * toAmount / totalAmount - quantity * fromAmount / totalAmount;
+                if (shareQuantity > 0) {
+                    instances.add(matcher.withQuantity(instance, shareQuantity));
+                }
+            }
+            if (!instances.isEmpty()) {
+                ingredients.put(component, instances);
+            }
+        }
+        return new MixedIngredients(ingredients);
+    }
+
     /**
      * Insert the given ingredients into the given storage networks.
      * @param ingredients A collection of ingredients.
@@ -1672,4 +3241,105 @@ public class CraftingHelpers {
         public int getNext();
     }
 
+    /**
+     * Wrap the given identifier generator so that it can be called from multiple threads.
+     * @param identifierGenerator An identifier generator.
+     * @return A thread-safe identifier generator.
+     */
+    public static IIdentifierGenerator synchronizedIdentifierGenerator(IIdentifierGenerator identifierGenerator) {
+        return () -> {
+            synchronized (identifierGenerator) {
+                return identifierGenerator.getNext();
+            }
+        };
+    }
+
+    /**
+     * The calculation of a single recipe alternative against isolated forks of the extraction memories.
+     */
+    protected static class RecipeAlternativeCalculation {
+
+        private final IRecipeDefinition recipe;
+        private final int amount;
+        private final ExtractionMemoryFork<IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory;
+        private final ExtractionMemoryFork<IIngredientCollectionMutable<?, ?>> extractionMemoryReusable;
+        private final CraftingJobDependencyGraph craftingJobsGraph;
+        private ForkJoinTask<?> task;
+        private PartialCraftingJobCalculation result;
+        private RecursiveCraftingRecipeException recursiveException;
+        private CraftingJob craftingJob;
+        private long cost;
+
+        public RecipeAlternativeCalculation(IRecipeDefinition recipe, int amount,
+                                            Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory,
+                                            Map<IngredientComponent<?, ?>, IIngredientCollectionMutable<?, ?>> extractionMemoryReusable) {
+            this.recipe = recipe;
+            this.amount = amount;
+            this.simulatedExtractionMemory = forkSimulatedExtractionMemory(simulatedExtractionMemory);
+            this.extractionMemoryReusable = forkExtractionMemoryReusable(extractionMemoryReusable);
+            this.craftingJobsGraph = new CraftingJobDependencyGraph();
+        }
+
+        public void fork(ForkJoinPool pool, IRecipeAlternativeCalculator calculator) {
+            this.task = ForkJoinTask.adapt(() -> {
+                try {
+                    this.result = calculator.calculate();
+                } catch (RecursiveCraftingRecipeException e) {
+                    this.recursiveException = e;
+                }
+            });
+            if (ForkJoinTask.getPool() == pool) {
+                this.task.fork();
+            } else {
+                pool.execute(this.task);
+            }
+        }
+
+        public PartialCraftingJobCalculation join() throws RecursiveCraftingRecipeException {
+            this.task.join();
+            if (this.recursiveException != null) {
+                throw this.recursiveException;
+            }
+            return this.result;
+        }
+
+        public void cancel() {
+            this.task.cancel(false);
+        }
+
+        public void setCost(@Nullable CraftingJobCostModel costModel, CraftingJob craftingJob) {
+            this.craftingJob = craftingJob;
+            this.cost = costModel != null ? costModel.getCost(craftingJob, this.craftingJobsGraph) : 0;
+        }
+
+        public void apply(Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory,
+                          Map<IngredientComponent<?, ?>, IIngredientCollectionMutable<?, ?>> extractionMemoryReusable,
+                          CraftingJobDependencyGraph craftingJobsGraph) {
+            // Collections that were never accessed by this alternative are unchanged
+            simulatedExtractionMemory.putAll(this.simulatedExtractionMemory.getForkedEntries());
+            extractionMemoryReusable.putAll(this.extractionMemoryReusable.getForkedEntries());
+            craftingJobsGraph.importDependencies(this.craftingJobsGraph);
+        }
+    }
+
+    protected static interface IRecipeAlternativeCalculator {
+        public PartialCraftingJobCalculation calculate() throws RecursiveCraftingRecipeException;
+    }
+
+    /**
+     * Calculates a crafting job against a given recipe index and storage.
+     */
+    public static interface ICraftingJobCalculator {
+        /**
+         * @param recipeIndex The recipe index.
+         * @param storageGetter A callback function to get a storage for the given ingredient component.
+         * @param craftingJobsGraph The target graph where all dependencies will be stored.
+         * @return The calculated crafting job, or null if none could be calculated.
+         */
+        @Nullable
+        public CraftingJob calculate(IRecipeIndex recipeIndex,
+                                     Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                     CraftingJobDependencyGraph craftingJobsGraph);
+    }
+
 }
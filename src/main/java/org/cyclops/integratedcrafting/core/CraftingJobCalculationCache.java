@@ -0,0 +1,138 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Maps;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IPrototypedIngredient;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.PrototypedIngredient;
+import org.cyclops.integratedcrafting.GeneralConfig;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * A cache of recipe choices that were made during earlier crafting job calculations.
+ *
+ * Entries are keyed by the requested prototype (including its quantity) and match condition,
+ * and store the recipe that was able to produce it, together with the required recipe amount.
+ * Only choices of the highest-priority recipe are remembered,
+ * so that when the same instance is requested again,
+ * this recipe can be calculated directly without comparing it to the other recipe alternatives.
+ * A cached recipe is never preferred over a recipe with a higher priority.
+ *
+ * Since the availability of ingredients in storage can change at any time,
+ * cached entries are only hints, and must still be validated against storage.
+ *
+ * All entries are invalidated once the version of the recipe index changes.
+ *
+ * @author rubensworks
+ */
+public class CraftingJobCalculationCache {
+
+    private final Map<IPrototypedIngredient<?, ?>, Entry> entries;
+    private long recipeIndexVersion;
+
+    public CraftingJobCalculationCache() {
+        this.entries = Maps.newHashMap();
+        this.recipeIndexVersion = IRecipeIndex.VERSION_UNTRACKED;
+    }
+
+    /**
+     * Make sure that this cache is valid for the given recipe index.
+     * If the recipe index has changed since the last call, all entries will be removed.
+     * @param recipeIndex The recipe index that will be used for calculation.
+     */
+    public void validate(IRecipeIndex recipeIndex) {
+        if (this.recipeIndexVersion != recipeIndex.getVersion() || this.recipeIndexVersion == IRecipeIndex.VERSION_UNTRACKED) {
+            this.entries.clear();
+            this.recipeIndexVersion = recipeIndex.getVersion();
+        }
+    }
+
+    /**
+     * Remove all entries from this cache.
+     */
+    public void invalidate() {
+        this.entries.clear();
+        this.recipeIndexVersion = IRecipeIndex.VERSION_UNTRACKED;
+    }
+
+    /**
+     * Get the cached recipe choice for the given instance.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The requested instance.
+     * @param matchCondition The match condition of the instance.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The cached entry or null.
+     */
+    @Nullable
+    public <T, M> Entry get(IngredientComponent<T, M> ingredientComponent, T instance, M matchCondition) {
+        return this.entries.get(new PrototypedIngredient<>(ingredientComponent, instance, matchCondition));
+    }
+
+    /**
+     * Remember the recipe choice for the given instance.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The requested instance.
+     * @param matchCondition The match condition of the instance.
+     * @param recipe The recipe that was able to produce the instance.
+     * @param amount The amount of times the recipe must be applied.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    public <T, M> void put(IngredientComponent<T, M> ingredientComponent, T instance, M matchCondition,
+                           IRecipeDefinition recipe, int amount) {
+        if (GeneralConfig.craftingJobCalculationCacheSize <= 0) {
+            return;
+        }
+        // Simply start over if the cache grows too large, as entries can cheaply be recalculated.
+        if (this.entries.size() >= GeneralConfig.craftingJobCalculationCacheSize) {
+            this.entries.clear();
+        }
+        this.entries.put(new PrototypedIngredient<>(ingredientComponent, instance, matchCondition), new Entry(recipe, amount));
+    }
+
+    /**
+     * Forget the recipe choice for the given instance.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The requested instance.
+     * @param matchCondition The match condition of the instance.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    public <T, M> void remove(IngredientComponent<T, M> ingredientComponent, T instance, M matchCondition) {
+        this.entries.remove(new PrototypedIngredient<>(ingredientComponent, instance, matchCondition));
+    }
+
+    /**
+     * @return The number of cached entries.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * A cached recipe choice.
+     */
+    public static class Entry {
+
+        private final IRecipeDefinition recipe;
+        private final int amount;
+
+        public Entry(IRecipeDefinition recipe, int amount) {
+            this.recipe = recipe;
+            this.amount = amount;
+        }
+
+        public IRecipeDefinition getRecipe() {
+            return recipe;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+    }
+
+}
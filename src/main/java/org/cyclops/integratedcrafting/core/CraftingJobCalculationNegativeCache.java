@@ -0,0 +1,191 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import org.apache.commons.lang3.tuple.Triple;
+import org.cyclops.commoncapabilities.api.ingredient.IPrototypedIngredient;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.PrototypedIngredient;
+import org.cyclops.integratedcrafting.GeneralConfig;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache of crafting job calculations that failed.
+ *
+ * Entries are keyed by the requested prototype (including its quantity) and match condition,
+ * together with the calculation flags, and store the failed calculation result.
+ * This allows requests that are repeated while nothing has changed, such as those of crafting writers,
+ * to fail immediately instead of repeating the full calculation.
+ *
+ * All entries are invalidated once the version of the recipe index changes.
+ * Besides that, each entry remembers the storage versions of the ingredient components that its calculation depends on,
+ * so that an entry only expires once the storage of one of those ingredient components changes.
+ *
+ * @author rubensworks
+ */
+public class CraftingJobCalculationNegativeCache {
+
+    private final Map<Triple<IPrototypedIngredient<?, ?>, Boolean, Boolean>, Entry> entries;
+    private final ToLongFunction<IngredientComponent<?, ?>> storageVersionGetter;
+    private long recipeIndexVersion;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param storageVersionGetter A function to obtain the current storage version of an ingredient component.
+     */
+    public CraftingJobCalculationNegativeCache(ToLongFunction<IngredientComponent<?, ?>> storageVersionGetter) {
+        this.entries = Maps.newHashMap();
+        this.storageVersionGetter = storageVersionGetter;
+        this.recipeIndexVersion = IRecipeIndex.VERSION_UNTRACKED;
+    }
+
+    /**
+     * Make sure that this cache is valid for the given recipe index.
+     * If its version has changed since the last call, all entries will be removed.
+     * @param recipeIndex The recipe index that will be used for calculation.
+     */
+    public void validate(IRecipeIndex recipeIndex) {
+        if (this.recipeIndexVersion != recipeIndex.getVersion() || this.recipeIndexVersion == IRecipeIndex.VERSION_UNTRACKED) {
+            this.entries.clear();
+            this.recipeIndexVersion = recipeIndex.getVersion();
+        }
+    }
+
+    /**
+     * Remove all entries from this cache.
+     */
+    public void invalidate() {
+        this.entries.clear();
+        this.recipeIndexVersion = IRecipeIndex.VERSION_UNTRACKED;
+    }
+
+    /**
+     * Get the cached failure for the given instance.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The requested instance.
+     * @param matchCondition The match condition of the instance.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param collectMissingRecipes If the missing recipes should be collected.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The failed calculation result or null,
+     *         also if the storage of one of the ingredient components of the calculation has changed since then.
+     */
+    @Nullable
+    public <T, M> CraftingJobCalculationResult get(IngredientComponent<T, M> ingredientComponent, T instance, M matchCondition,
+                                                   boolean craftMissing, boolean collectMissingRecipes) {
+        Triple<IPrototypedIngredient<?, ?>, Boolean, Boolean> key = createKey(ingredientComponent, instance, matchCondition, craftMissing, collectMissingRecipes);
+        Entry entry = this.entries.get(key);
+        if (entry != null && !entry.isValid(this.storageVersionGetter)) {
+            this.entries.remove(key);
+            entry = null;
+        }
+        if (entry != null) {
+            hits++;
+            return entry.getResult();
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Remember the failed calculation for the given instance.
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance The requested instance.
+     * @param matchCondition The match condition of the instance.
+     * @param craftMissing If the missing required ingredients should also be crafted.
+     * @param collectMissingRecipes If the missing recipes should be collected.
+     * @param result The failed calculation result.
+     * @param storageComponents The ingredient components of which the storage was read during calculation.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    public <T, M> void put(IngredientComponent<T, M> ingredientComponent, T instance, M matchCondition,
+                           boolean craftMissing, boolean collectMissingRecipes, CraftingJobCalculationResult result,
+                           Collection<IngredientComponent<?, ?>> storageComponents) {
+        if (GeneralConfig.craftingJobCalculationNegativeCacheSize <= 0) {
+            return;
+        }
+        // Simply start over if the cache grows too large, as entries can be recalculated.
+        if (this.entries.size() >= GeneralConfig.craftingJobCalculationNegativeCacheSize) {
+            this.entries.clear();
+        }
+        Object2LongMap<IngredientComponent<?, ?>> storageVersions = new Object2LongOpenHashMap<>(storageComponents.size());
+        for (IngredientComponent<?, ?> storageComponent : storageComponents) {
+            storageVersions.put(storageComponent, this.storageVersionGetter.applyAsLong(storageComponent));
+        }
+        this.entries.put(createKey(ingredientComponent, instance, matchCondition, craftMissing, collectMissingRecipes),
+                new Entry(result, storageVersions));
+    }
+
+    protected <T, M> Triple<IPrototypedIngredient<?, ?>, Boolean, Boolean> createKey(IngredientComponent<T, M> ingredientComponent,
+                                                                                      T instance, M matchCondition,
+                                                                                      boolean craftMissing, boolean collectMissingRecipes) {
+        return Triple.of(new PrototypedIngredient<>(ingredientComponent, instance, matchCondition), craftMissing, collectMissingRecipes);
+    }
+
+    /**
+     * @return The number of cached entries.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return The number of lookups that returned a cached failure.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of lookups that did not return a cached failure.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Reset the hit and miss counters.
+     */
+    public void resetStatistics() {
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    protected static class Entry {
+
+        private final CraftingJobCalculationResult result;
+        private final Object2LongMap<IngredientComponent<?, ?>> storageVersions;
+
+        public Entry(CraftingJobCalculationResult result, Object2LongMap<IngredientComponent<?, ?>> storageVersions) {
+            this.result = result;
+            this.storageVersions = storageVersions;
+        }
+
+        public CraftingJobCalculationResult getResult() {
+            return result;
+        }
+
+        /**
+         * @param storageVersionGetter A function to obtain the current storage version of an ingredient component.
+         * @return If the storage of none of the ingredient components has changed since this entry was created.
+         */
+        public boolean isValid(ToLongFunction<IngredientComponent<?, ?>> storageVersionGetter) {
+            for (Object2LongMap.Entry<IngredientComponent<?, ?>> storageVersion : this.storageVersions.object2LongEntrySet()) {
+                if (storageVersionGetter.applyAsLong(storageVersion.getKey()) != storageVersion.getLongValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
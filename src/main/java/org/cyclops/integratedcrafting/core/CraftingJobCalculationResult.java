@@ -0,0 +1,129 @@
+package org.cyclops.integratedcrafting.core;
+
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+import org.cyclops.integratedcrafting.api.crafting.FailedCraftingRecipeException;
+import org.cyclops.integratedcrafting.api.crafting.RecursiveCraftingRecipeException;
+import org.cyclops.integratedcrafting.api.crafting.UnknownCraftingRecipeException;
+
+import javax.annotation.Nullable;
+
+/**
+ * The result of a crafting job calculation for an instance or a recipe.
+ *
+ * This is either a crafting job,
+ * a tree of missing ingredients if no valid recipe was found for an instance,
+ * a failed recipe if the dependencies of a recipe could not be calculated,
+ * or an infinite recursion that was detected.
+ *
+ * Failures are represented as regular values,
+ * so that failing calculations do not have to create exceptions.
+ *
+ * @author rubensworks
+ */
+public class CraftingJobCalculationResult {
+
+    @Nullable
+    private final CraftingJob craftingJob;
+    @Nullable
+    private final MissingCraftingRecipe missingRecipe;
+    @Nullable
+    private final FailedCraftingRecipe failedRecipe;
+    @Nullable
+    private final RecursiveCraftingRecipeException recursion;
+
+    protected CraftingJobCalculationResult(@Nullable CraftingJob craftingJob,
+                                           @Nullable MissingCraftingRecipe missingRecipe,
+                                           @Nullable FailedCraftingRecipe failedRecipe,
+                                           @Nullable RecursiveCraftingRecipeException recursion) {
+        this.craftingJob = craftingJob;
+        this.missingRecipe = missingRecipe;
+        this.failedRecipe = failedRecipe;
+        this.recursion = recursion;
+    }
+
+    public static CraftingJobCalculationResult success(CraftingJob craftingJob) {
+        return new CraftingJobCalculationResult(craftingJob, null, null, null);
+    }
+
+    public static CraftingJobCalculationResult missing(MissingCraftingRecipe missingRecipe) {
+        return new CraftingJobCalculationResult(null, missingRecipe, null, null);
+    }
+
+    public static CraftingJobCalculationResult failed(FailedCraftingRecipe failedRecipe) {
+        return new CraftingJobCalculationResult(null, null, failedRecipe, null);
+    }
+
+    public static CraftingJobCalculationResult recursive(RecursiveCraftingRecipeException recursion) {
+        return new CraftingJobCalculationResult(null, null, null, recursion);
+    }
+
+    /**
+     * @return If a crafting job was found.
+     */
+    public boolean isSuccess() {
+        return craftingJob != null;
+    }
+
+    /**
+     * @return The crafting job, or null if calculation failed.
+     */
+    @Nullable
+    public CraftingJob getCraftingJob() {
+        return craftingJob;
+    }
+
+    /**
+     * @return The missing ingredients tree, or null if calculation did not fail due to missing ingredients.
+     */
+    @Nullable
+    public MissingCraftingRecipe getMissingRecipe() {
+        return missingRecipe;
+    }
+
+    /**
+     * @return The failed recipe, or null if calculation did not fail due to a recipe with missing dependencies.
+     */
+    @Nullable
+    public FailedCraftingRecipe getFailedRecipe() {
+        return failedRecipe;
+    }
+
+    /**
+     * @return The detected recursion, or null if calculation did not fail due to recursion.
+     */
+    @Nullable
+    public RecursiveCraftingRecipeException getRecursion() {
+        return recursion;
+    }
+
+    /**
+     * @return The crafting job.
+     * @throws UnknownCraftingRecipeException If the recipe for a (sub)ingredient is unavailable.
+     * @throws RecursiveCraftingRecipeException If an infinite recursive recipe was detected.
+     */
+    public CraftingJob getCraftingJobOrThrow() throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
+        if (recursion != null) {
+            throw recursion;
+        }
+        if (missingRecipe != null) {
+            throw missingRecipe.toException();
+        }
+        return craftingJob;
+    }
+
+    /**
+     * @return The crafting job of a recipe calculation.
+     * @throws FailedCraftingRecipeException If the recipe could not be crafted due to missing sub-dependencies.
+     * @throws RecursiveCraftingRecipeException If an infinite recursive recipe was detected.
+     */
+    public CraftingJob getRecipeCraftingJobOrThrow() throws FailedCraftingRecipeException, RecursiveCraftingRecipeException {
+        if (recursion != null) {
+            throw recursion;
+        }
+        if (failedRecipe != null) {
+            throw failedRecipe.toException();
+        }
+        return craftingJob;
+    }
+
+}
@@ -0,0 +1,153 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Sets;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IMixedIngredients;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integratedcrafting.GeneralConfig;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJobDependencyGraph;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the cost of calculated crafting jobs, so that the cheapest of multiple valid recipes can be chosen.
+ *
+ * The cost of a crafting job is the sum of the following for the job and all of its (transitive) dependencies:
+ * <ul>
+ *     <li>A fixed cost per crafting job, which penalizes deep recipe chains with many sub-jobs.</li>
+ *     <li>The recipe amount, multiplied by the estimated number of ticks
+ *     that earlier crafting jobs for the same recipe took to process a single amount.</li>
+ *     <li>The total quantity of the ingredients that are drawn from storage.</li>
+ * </ul>
+ *
+ * Processing ticks are recorded from the server thread,
+ * but may be read while calculating crafting jobs on worker threads.
+ * They are kept per recipe instead of per crafting interface,
+ * because costs are estimated during calculation, before a job is assigned to an interface.
+ *
+ * Each model also holds a budget of valid alternative recipes that may be compared,
+ * which is shared over all ingredients of a single calculation level.
+ * So {@link #forCalculation()} must be called to obtain a model with a fresh budget for each calculation level,
+ * so that alternatives that are calculated concurrently never consume each other's budget,
+ * and the chosen recipes do not depend on timing.
+ *
+ * @author rubensworks
+ */
+public class CraftingJobCostModel {
+
+    /**
+     * The cost of a single crafting job, in addition to its processing and ingredient costs.
+     */
+    public static final long JOB_COST = 10;
+    /**
+     * The assumed processing ticks per amount for recipes that have not been crafted before.
+     */
+    public static final double DEFAULT_PROCESSING_TICKS = 1;
+    /**
+     * The weight of a new measurement in the exponential moving average of processing ticks.
+     */
+    public static final double PROCESSING_TICKS_WEIGHT = 0.5D;
+
+    private final Map<IRecipeDefinition, Double> processingTicks;
+    private int remainingCandidates;
+
+    public CraftingJobCostModel() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    protected CraftingJobCostModel(Map<IRecipeDefinition, Double> processingTicks) {
+        this.processingTicks = processingTicks;
+        this.remainingCandidates = GeneralConfig.craftingJobCalculationCostBudget;
+    }
+
+    /**
+     * @return A model that shares the recorded processing ticks of this model,
+     *         but has its own budget of alternative recipes to compare within a single calculation level.
+     */
+    public CraftingJobCostModel forCalculation() {
+        return new CraftingJobCostModel(this.processingTicks);
+    }
+
+    /**
+     * @return If more valid alternative recipes may be compared in this calculation.
+     */
+    public boolean hasCandidateBudget() {
+        return this.remainingCandidates > 0;
+    }
+
+    /**
+     * Consume the budget for one valid alternative recipe.
+     * @return If more valid alternative recipes may be compared after this one.
+     */
+    public boolean consumeCandidateBudget() {
+        return --this.remainingCandidates > 0;
+    }
+
+    /**
+     * Remember the number of ticks a finished crafting job for the given recipe took to process.
+     * The ticks per amount are combined with those of earlier crafting jobs for the same recipe
+     * as an exponential moving average, so that recent jobs weigh most.
+     * @param recipe A recipe.
+     * @param ticks The number of ticks the crafting job was processing, since its first ingredients were inserted.
+     * @param amount The amount of the crafting job when it started processing.
+     */
+    public void recordProcessingTicks(IRecipeDefinition recipe, long ticks, int amount) {
+        double ticksPerAmount = ((double) Math.max(ticks, 1)) / Math.max(amount, 1);
+        this.processingTicks.merge(recipe, ticksPerAmount,
+                (previous, current) -> previous + (current - previous) * PROCESSING_TICKS_WEIGHT);
+    }
+
+    /**
+     * @param recipe A recipe.
+     * @return The estimated number of ticks crafting jobs for the given recipe take to process a single amount.
+     */
+    public double getProcessingTicks(IRecipeDefinition recipe) {
+        return this.processingTicks.getOrDefault(recipe, DEFAULT_PROCESSING_TICKS);
+    }
+
+    /**
+     * Forget all recorded processing ticks.
+     */
+    public void clear() {
+        this.processingTicks.clear();
+    }
+
+    /**
+     * Estimate the cost of the given crafting job, including all of its dependencies.
+     * @param craftingJob A crafting job.
+     * @param craftingJobsGraph The graph containing the dependencies of the crafting job.
+     * @return The estimated cost.
+     */
+    public long getCost(CraftingJob craftingJob, CraftingJobDependencyGraph craftingJobsGraph) {
+        return getCost(craftingJob, craftingJobsGraph, Sets.newHashSet());
+    }
+
+    protected long getCost(CraftingJob craftingJob, CraftingJobDependencyGraph craftingJobsGraph, Set<Integer> visited) {
+        // Dependencies can be shared, in which case they should only be counted once
+        if (!visited.add(craftingJob.getId())) {
+            return 0;
+        }
+        long cost = JOB_COST + Math.round(craftingJob.getAmount() * getProcessingTicks(craftingJob.getRecipe()));
+        for (IngredientComponent<?, ?> ingredientComponent : craftingJob.getIngredientsStorage().getComponents()) {
+            cost += getQuantity(craftingJob.getIngredientsStorage(), ingredientComponent);
+        }
+        for (CraftingJob dependency : craftingJobsGraph.getDependencies(craftingJob)) {
+            cost += getCost(dependency, craftingJobsGraph, visited);
+        }
+        return cost;
+    }
+
+    protected static <T, M> long getQuantity(IMixedIngredients ingredients, IngredientComponent<T, M> ingredientComponent) {
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        long quantity = 0;
+        for (T instance : ingredients.getInstances(ingredientComponent)) {
+            quantity += matcher.getQuantity(instance);
+        }
+        return quantity;
+    }
+
+}
@@ -6,6 +6,8 @@ import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.core.Direction;
@@ -16,12 +18,14 @@ import net.minecraft.nbt.Tag;
 import net.minecraft.resources.ResourceLocation;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Level;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
 import org.cyclops.commoncapabilities.api.ingredient.IIngredientSerializer;
 import org.cyclops.commoncapabilities.api.ingredient.IMixedIngredients;
 import org.cyclops.commoncapabilities.api.ingredient.IPrototypedIngredient;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.commoncapabilities.api.ingredient.MixedIngredients;
 import org.cyclops.commoncapabilities.api.ingredient.PrototypedIngredient;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
 import org.cyclops.integratedcrafting.GeneralConfig;
 import org.cyclops.integratedcrafting.IntegratedCrafting;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
@@ -32,11 +36,13 @@ import org.cyclops.integratedcrafting.api.crafting.ICraftingResultsSink;
 import org.cyclops.integratedcrafting.api.network.ICraftingNetwork;
 import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
 import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -51,6 +57,10 @@ import java.util.function.Function;
  * If blockingJobsMode is true, then a multi-amount job will only be crafted one-by-one.
  * If false, then as much as possible of that job will be crafted at once.
  *
+ * Pending jobs that are missing ingredients are not checked again on each update,
+ * but only once a storage addition of one of their missing ingredients was observed,
+ * or after {@link GeneralConfig#craftingJobMissingIngredientsRecheckInterval} updates.
+ *
  * @author rubensworks
  */
 public class CraftingJobHandler {
@@ -64,6 +74,9 @@ public class CraftingJobHandler {
     private final Int2ObjectMap<CraftingJob> processingCraftingJobs;
     private final Int2ObjectMap<List<Map<IngredientComponent<?, ?>, List<IPrototypedIngredient<?, ?>>>>> processingCraftingJobsPendingIngredients;
     private final Int2ObjectMap<CraftingJob> pendingCraftingJobs;
+    private final CraftingJobMissingIngredientsIndex pendingCraftingJobsMissingIngredients;
+    private final IntSet wokenCraftingJobs;
+    private int missingIngredientsRecheckCounter;
     private final Object2IntMap<IngredientComponent<?, ?>> ingredientObserverCounters;
     private final Map<IngredientComponent<?, ?>, IIngredientComponentStorageObservable.IIndexChangeObserver<?, ?>> ingredientObservers;
     private final List<IngredientComponent<?, ?>> observersPendingCreation;
@@ -83,6 +96,8 @@ public class CraftingJobHandler {
         this.allCraftingJobs = new Int2ObjectOpenHashMap<>();
         this.processingCraftingJobs = new Int2ObjectOpenHashMap<>();
         this.pendingCraftingJobs = new Int2ObjectOpenHashMap<>();
+        this.pendingCraftingJobsMissingIngredients = new CraftingJobMissingIngredientsIndex();
+        this.wokenCraftingJobs = new IntOpenHashSet();
         this.processingCraftingJobsPendingIngredients = new Int2ObjectOpenHashMap<>();
         this.ingredientObserverCounters = new Object2IntOpenHashMap<>();
         this.ingredientObservers = Maps.newIdentityHashMap();
@@ -228,6 +243,7 @@ public class CraftingJobHandler {
             CraftingJob craftingJobInstance = CraftingJob.deserialize(lookupProvider, (CompoundTag) craftingJob);
             this.pendingCraftingJobs.put(craftingJobInstance.getId(), craftingJobInstance);
             this.allCraftingJobs.put(craftingJobInstance.getId(), craftingJobInstance);
+            this.pendingCraftingJobsMissingIngredients.setMissingIngredients(craftingJobInstance, craftingJobInstance.getLastMissingIngredients());
         }
 
         // Add required observers to a list so that they will be created in the next tick
@@ -295,6 +311,46 @@ public class CraftingJobHandler {
         return pendingCraftingJobs.values();
     }
 
+    /**
+     * Find pending crafting jobs that were missing the given ingredient when they last attempted to start.
+     * @param ingredientComponent The ingredient component type.
+     * @param instance An ingredient instance.
+     * @param matchCondition A condition under which the matching should be done.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter, may be Void.
+     * @return An iterator of the pending crafting jobs that are missing the given ingredient.
+     */
+    public <T, M> Iterator<CraftingJob> getPendingCraftingJobsMissing(IngredientComponent<T, M> ingredientComponent,
+                                                                      T instance, M matchCondition) {
+        return pendingCraftingJobsMissingIngredients.getCraftingJobs(ingredientComponent, instance, matchCondition);
+    }
+
+    /**
+     * Mark the pending crafting jobs that are missing any of the given ingredients,
+     * so that they will be checked again in the next update.
+     * @param ingredientComponent The ingredient component type.
+     * @param instances The ingredient instances that were added to the storage.
+     * @param channel The channel in which the instances were added.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    public <T, M> void wakePendingCraftingJobs(IngredientComponent<T, M> ingredientComponent, Iterable<T> instances, int channel) {
+        if (pendingCraftingJobsMissingIngredients.isEmpty()) {
+            return;
+        }
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        M matchCondition = matcher.getExactMatchNoQuantityCondition();
+        for (T instance : instances) {
+            Iterator<CraftingJob> it = getPendingCraftingJobsMissing(ingredientComponent, instance, matchCondition);
+            while (it.hasNext()) {
+                CraftingJob craftingJob = it.next();
+                if (craftingJob.getChannel() == IPositionedAddonsNetwork.WILDCARD_CHANNEL || craftingJob.getChannel() == channel) {
+                    wokenCraftingJobs.add(craftingJob.getId());
+                }
+            }
+        }
+    }
+
     public void unmarkCraftingJobProcessing(CraftingJob craftingJob) {
         if (this.processingCraftingJobs.remove(craftingJob.getId()) != null) {
             this.processingCraftingJobsPendingIngredients.remove(craftingJob.getId());
@@ -333,7 +389,7 @@ public class CraftingJobHandler {
         if (count == 0) {
             IPositionedAddonsNetworkIngredients<T, M> ingredientsNetwork = CraftingHelpers
                     .getIngredientsNetworkChecked(network, ingredientComponent);
-            ICraftingNetwork craftingNetwork = CraftingHelpers.getCraftingNetworkChecked(network);
+            ICraftingNetwork craftingNetwork = getCraftingNetwork(network);
             PendingCraftingJobResultIndexObserver<T, M> observer = new PendingCraftingJobResultIndexObserver<>(ingredientComponent, this, craftingNetwork);
             ingredientsNetwork.addObserver(observer);
             ingredientsNetwork.scheduleObservation();
@@ -359,6 +415,8 @@ public class CraftingJobHandler {
     public void onCraftingJobFinished(CraftingJob craftingJob) {
         this.processingCraftingJobs.remove(craftingJob.getId());
         this.pendingCraftingJobs.remove(craftingJob.getId());
+        this.pendingCraftingJobsMissingIngredients.removeCraftingJob(craftingJob);
+        this.wokenCraftingJobs.remove(craftingJob.getId());
         this.finishedCraftingJobs.put(craftingJob.getId(), craftingJob);
         this.allCraftingJobs.put(craftingJob.getId(), craftingJob);
     }
@@ -372,6 +430,8 @@ public class CraftingJobHandler {
         // Needed so that we remove the job in the next tick
         CraftingJob craftingJob = this.allCraftingJobs.get(craftingJobId);
         this.finishedCraftingJobs.put(craftingJobId, craftingJob);
+        this.pendingCraftingJobsMissingIngredients.removeCraftingJob(craftingJob);
+        this.wokenCraftingJobs.remove(craftingJobId);
         craftingJob.setAmount(0);
     }
 
@@ -386,6 +446,7 @@ public class CraftingJobHandler {
     public void onCraftingJobEntryFinished(ICraftingNetwork craftingNetwork, int craftingJobId) {
         CraftingJob craftingJob = this.allCraftingJobs.get(craftingJobId);
         craftingJob.setAmount(craftingJob.getAmount() - 1);
+        craftingNetwork.onCraftingJobAmountChanged(craftingJob);
 
         if (this.nonBlockingJobsRunningAmount.containsKey(craftingJobId)) {
             this.nonBlockingJobsRunningAmount.put(craftingJobId, this.nonBlockingJobsRunningAmount.get(craftingJobId) - 1);
@@ -420,7 +481,7 @@ public class CraftingJobHandler {
             for (CraftingJob finishedCraftingJob : finishedCraftingJobs.values()) {
                 if (finishedCraftingJob.getAmount() == 0) {
                     // If the job is fully finished, remove it from the network
-                    ICraftingNetwork craftingNetwork = CraftingHelpers.getCraftingNetworkChecked(network);
+                    ICraftingNetwork craftingNetwork = getCraftingNetwork(network);
                     craftingNetwork.onCraftingJobFinished(finishedCraftingJob);
                     allCraftingJobs.remove(finishedCraftingJob.getId());
                     nonBlockingJobsRunningAmount.remove(finishedCraftingJob.getId());
@@ -436,7 +497,8 @@ public class CraftingJobHandler {
         int processingJobs = getProcessingCraftingJobs().size();
 
         // Enable the observers for the next tick
-        if (processingJobs > 0) {
+        // Pending jobs that are missing ingredients rely on these observers as well to be woken up.
+        if (processingJobs > 0 || !pendingCraftingJobsMissingIngredients.isEmpty()) {
             for (IngredientComponent<?, ?> ingredientComponent : ingredientObservers.keySet()) {
                 IPositionedAddonsNetworkIngredients<?, ?> ingredientsNetwork = CraftingHelpers.getIngredientsNetworkChecked(network, ingredientComponent);
                 ingredientsNetwork.scheduleObservation();
@@ -457,10 +519,25 @@ public class CraftingJobHandler {
 
         if (processingJobs < this.maxProcessingJobs) {
             // Handle crafting jobs
-            CraftingJob startingCraftingJob = null;
-            ICraftingNetwork craftingNetwork = CraftingHelpers.getCraftingNetworkChecked(network);
+            int startedCraftingJobs = 0;
+            ICraftingNetwork craftingNetwork = getCraftingNetwork(network);
             CraftingJobDependencyGraph dependencyGraph = craftingNetwork.getCraftingJobDependencyGraph();
-            for (CraftingJob pendingCraftingJob : getPendingCraftingJobs()) {
+            boolean recheckMissingIngredients = ++missingIngredientsRecheckCounter >= GeneralConfig.craftingJobMissingIngredientsRecheckInterval;
+            if (recheckMissingIngredients) {
+                missingIngredientsRecheckCounter = 0;
+            }
+            // Starting a job removes it from the pending jobs, so we iterate over a copy if more than one job may start.
+            Collection<CraftingJob> pendingCraftingJobs = GeneralConfig.craftingJobStartsPerUpdate > 1
+                    ? Lists.newArrayList(getPendingCraftingJobs()) : getPendingCraftingJobs();
+            for (CraftingJob pendingCraftingJob : pendingCraftingJobs) {
+                // Skip jobs that were missing ingredients if none of them have been added to the storage since,
+                // unless a dependency has finished in the meantime, or the periodic recheck is due.
+                if (!recheckMissingIngredients && !pendingCraftingJob.getLastMissingIngredients().isEmpty()
+                        && !pendingCraftingJob.isIgnoreDependencyCheck()
+                        && !wokenCraftingJobs.contains(pendingCraftingJob.getId())) {
+                    continue;
+                }
+
                 // Make sure that this crafting job has no incomplete dependency jobs
                 // This check can be overridden if the ignoreDependencyCheck flag is set
                 // (which is done once a dependent finishes a job entry).
@@ -471,17 +548,24 @@ public class CraftingJobHandler {
                 if (pendingCraftingJob.isIgnoreDependencyCheck()) {
                     pendingCraftingJob.setIgnoreDependencyCheck(false);
                 }
+                wokenCraftingJobs.remove(pendingCraftingJob.getId());
 
-                // Check if pendingCraftingJob can start and set as startingCraftingJob
+                // Check if pendingCraftingJob can start, and start it if so
                 // This requires checking the available ingredients AND if the crafting handler can accept it.
+                // Ingredients that are reserved by older crafting jobs are not considered available.
                 Pair<Map<IngredientComponent<?, ?>, List<?>>, Map<IngredientComponent<?, ?>, MissingIngredients<?, ?>>> inputs = CraftingHelpers.getRecipeInputs(
-                        CraftingHelpers.getNetworkStorageGetter(network, pendingCraftingJob.getChannel(), false),
+                        getStorageGetter(network, pendingCraftingJob, false),
                         pendingCraftingJob.getRecipe(), true, Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), true, 1);
                 if (inputs.getRight().isEmpty()) { // If we have no missing ingredients
-                    if (insertCrafting(targetPos, new MixedIngredients(inputs.getLeft()), network, channel, true)) {
-                        startingCraftingJob = pendingCraftingJob;
-                        startingCraftingJob.setInvalidInputs(false);
-                        break;
+                    IMixedIngredients ingredientsSimulated = new MixedIngredients(inputs.getLeft());
+                    if (insertCrafting(targetPos, ingredientsSimulated, network, channel, true)) {
+                        pendingCraftingJob.setInvalidInputs(false);
+                        // Stop once the target rejects the job, or when no more jobs may be started
+                        if (!startCraftingJob(network, channel, targetPos, pendingCraftingJob, ingredientsSimulated)
+                                || ++startedCraftingJobs >= GeneralConfig.craftingJobStartsPerUpdate
+                                || getProcessingCraftingJobs().size() >= this.maxProcessingJobs) {
+                            break;
+                        }
                     } else {
                         pendingCraftingJob.setInvalidInputs(true);
                     }
@@ -521,32 +605,57 @@ public class CraftingJobHandler {
                     }
 
                     pendingCraftingJob.setLastMissingIngredients(inputs.getRight());
+                    pendingCraftingJobsMissingIngredients.setMissingIngredients(pendingCraftingJob, inputs.getRight());
                 }
             }
+        }
+    }
 
-            // Start the crafting job
-            if (startingCraftingJob != null) {
-                // If the job previously had missing in ingredients, unregister the observers that were previously created for it.
-                if (!startingCraftingJob.getLastMissingIngredients().isEmpty()) {
-                    for (IngredientComponent<?, ?> component : startingCraftingJob.getLastMissingIngredients().keySet()) {
-                        unregisterIngredientObserver(component, network);
-                    }
-                    startingCraftingJob.setLastMissingIngredients(Maps.newIdentityHashMap());
-                }
-
-                // Check if the job was started while blocking mode was enabled in this handler
-                boolean blockingMode = !nonBlockingJobsRunningAmount.containsKey(startingCraftingJob.getId()) || startingCraftingJob.getAmount() == 1;
+    /**
+     * @param network The network.
+     * @return The crafting network in the given network.
+     */
+    protected ICraftingNetwork getCraftingNetwork(INetwork network) {
+        return CraftingHelpers.getCraftingNetworkChecked(network);
+    }
 
-                // Start the actual crafting
-                boolean couldCraft = consumeAndInsertCrafting(blockingMode, network, channel, targetPos, startingCraftingJob);
+    /**
+     * Create a callback function for getting the storages from which the given crafting job takes its ingredients,
+     * without the ingredients that are reserved by older crafting jobs.
+     * @param network The network.
+     * @param craftingJob The crafting job.
+     * @param scheduleObservation If an observation inside the ingredients network should be scheduled.
+     * @return A callback function for getting a storage for an ingredient component.
+     */
+    protected Function<IngredientComponent<?, ?>, IIngredientComponentStorage> getStorageGetter(INetwork network,
+                                                                                                CraftingJob craftingJob,
+                                                                                                boolean scheduleObservation) {
+        return CraftingHelpers.getNetworkStorageGetterReserved(network, craftingJob.getChannel(), craftingJob, scheduleObservation);
+    }
 
-                // Keep inserting as much as possible if non-blocking
-                if (couldCraft && !blockingMode) {
-                    nonBlockingJobsRunningAmount.put(startingCraftingJob.getId(), 1);
-                    insertLoopNonBlocking(network, channel, targetPos, startingCraftingJob);
-                }
+    protected boolean startCraftingJob(INetwork network, int channel, PartPos targetPos, CraftingJob startingCraftingJob,
+                                       IMixedIngredients ingredientsSimulated) {
+        // If the job previously had missing in ingredients, unregister the observers that were previously created for it.
+        if (!startingCraftingJob.getLastMissingIngredients().isEmpty()) {
+            for (IngredientComponent<?, ?> component : startingCraftingJob.getLastMissingIngredients().keySet()) {
+                unregisterIngredientObserver(component, network);
             }
+            startingCraftingJob.setLastMissingIngredients(Maps.newIdentityHashMap());
+            pendingCraftingJobsMissingIngredients.removeCraftingJob(startingCraftingJob);
         }
+
+        // Check if the job was started while blocking mode was enabled in this handler
+        boolean blockingMode = !nonBlockingJobsRunningAmount.containsKey(startingCraftingJob.getId()) || startingCraftingJob.getAmount() == 1;
+
+        // Start the actual crafting
+        boolean couldCraft = consumeAndInsertCrafting(network, channel, targetPos, startingCraftingJob, 1, ingredientsSimulated);
+
+        // Keep inserting as much as possible if non-blocking
+        if (couldCraft && !blockingMode) {
+            nonBlockingJobsRunningAmount.put(startingCraftingJob.getId(), 1);
+            insertLoopNonBlocking(network, channel, targetPos, startingCraftingJob);
+        }
+        return couldCraft;
     }
 
     protected boolean insertCrafting(PartPos target, IMixedIngredients ingredients, INetwork network, int channel, boolean simulate) {
@@ -562,44 +671,92 @@ public class CraftingJobHandler {
         return CraftingHelpers.insertCrafting(targetGetter, ingredients, network, channel, simulate);
     }
 
+    /**
+     * Check if the ingredients of multiple entries of a crafting job can be inserted into the given target at once.
+     * This is the case for plain storage targets,
+     * but not for crafting process overrides that only process a single entry at a time, such as crafting tables.
+     * @param target The target position.
+     * @return If multiple entries can be inserted at once.
+     */
+    protected boolean isBulkInsertionSupported(PartPos target) {
+        for (ICraftingProcessOverride craftingProcessOverride : this.craftingProcessOverrides) {
+            if (craftingProcessOverride.isApplicable(target)) {
+                return craftingProcessOverride.isBulkCraftingSupported();
+            }
+        }
+        return true;
+    }
+
     protected void insertLoopNonBlocking(INetwork network, int channel, PartPos targetPos, CraftingJob craftingJob) {
-        // If in non-blocking mode, try to push as much as possible into the target
+        // If in non-blocking mode, try to push as much as possible into the target.
+        // If the target supports it, first push as many entries at once as the network can provide.
+        int bulkAmount = craftingJob.getAmount() - nonBlockingJobsRunningAmount.get(craftingJob.getId());
+        if (bulkAmount > 1 && isBulkInsertionSupported(targetPos)) {
+            Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = getStorageGetter(network, craftingJob, true);
+            IMixedIngredients ingredientsSingle = CraftingHelpers.getRecipeInputs(storageGetter, craftingJob.getRecipe(), true, 1);
+            if (ingredientsSingle != null) {
+                bulkAmount = (int) CraftingHelpers.getRecipeInputsMaxAmount(storageGetter, ingredientsSingle, bulkAmount);
+                if (bulkAmount > 1) {
+                    IMixedIngredients ingredientsSimulated = CraftingHelpers.getRecipeInputs(storageGetter,
+                            craftingJob.getRecipe(), true, bulkAmount);
+                    if (ingredientsSimulated != null && insertCrafting(targetPos, ingredientsSimulated, network, channel, true)) {
+                        if (!consumeAndInsertCrafting(network, channel, targetPos, craftingJob, bulkAmount, ingredientsSimulated)) {
+                            return;
+                        }
+                        nonBlockingJobsRunningAmount.put(craftingJob.getId(), nonBlockingJobsRunningAmount.get(craftingJob.getId()) + bulkAmount);
+                    }
+                }
+            }
+        }
+
+        // Push the remaining entries one by one
         while (nonBlockingJobsRunningAmount.get(craftingJob.getId()) < craftingJob.getAmount()) {
-            IMixedIngredients ingredientsSimulated = CraftingHelpers.getRecipeInputs(network, craftingJob.getChannel(),
+            IMixedIngredients ingredientsSimulated = CraftingHelpers.getRecipeInputs(getStorageGetter(network, craftingJob, true),
                     craftingJob.getRecipe(), true, 1);
             if (ingredientsSimulated == null ||!insertCrafting(targetPos, ingredientsSimulated, network, channel, true)) {
                 break;
             }
-            if (!consumeAndInsertCrafting(true, network, channel, targetPos, craftingJob)) {
+            if (!consumeAndInsertCrafting(network, channel, targetPos, craftingJob, 1, ingredientsSimulated)) {
                 break;
             }
             nonBlockingJobsRunningAmount.put(craftingJob.getId(), nonBlockingJobsRunningAmount.get(craftingJob.getId()) + 1);
         }
     }
 
-    protected boolean consumeAndInsertCrafting(boolean blockingMode, INetwork network, int channel, PartPos targetPos, CraftingJob startingCraftingJob) {
-        // Remove ingredients from network
-        IMixedIngredients ingredients = CraftingHelpers.getRecipeInputs(network, startingCraftingJob.getChannel(),
-                startingCraftingJob.getRecipe(), false, 1);
+    protected boolean consumeAndInsertCrafting(INetwork network, int channel, PartPos targetPos, CraftingJob startingCraftingJob,
+                                               int amount, @Nullable IMixedIngredients ingredientsSimulated) {
+        // Remove ingredients from network.
+        // If the ingredients were resolved in simulation mode right before, extract exactly those,
+        // and only resolve them again if that fails.
+        Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter = getStorageGetter(network, startingCraftingJob, true);
+        IMixedIngredients ingredients = ingredientsSimulated != null
+                ? CraftingHelpers.extractRecipeInputs(storageGetter, ingredientsSimulated) : null;
+        if (ingredients == null) {
+            ingredients = CraftingHelpers.getRecipeInputs(storageGetter, startingCraftingJob.getRecipe(), false, amount);
+        }
 
         // This may not be null, error if it is null!
         if (ingredients != null) {
             this.pendingCraftingJobs.remove(startingCraftingJob.getId());
 
-            // Update state with expected outputs
-            addCraftingJobProcessingPendingIngredientsEntry(startingCraftingJob,
-                    CraftingHelpers.getRecipeOutputs(startingCraftingJob.getRecipe()));
+            for (int i = 0; i < amount; i++) {
+                // Update state with expected outputs
+                addCraftingJobProcessingPendingIngredientsEntry(startingCraftingJob,
+                        CraftingHelpers.getRecipeOutputs(startingCraftingJob.getRecipe()));
 
-            // Register listeners for pending ingredients
-            for (IngredientComponent<?, ?> component : startingCraftingJob.getRecipe().getOutput().getComponents()) {
-                registerIngredientObserver(component, network);
+                // Register listeners for pending ingredients
+                for (IngredientComponent<?, ?> component : startingCraftingJob.getRecipe().getOutput().getComponents()) {
+                    registerIngredientObserver(component, network);
+                }
             }
 
             // Push the ingredients to the crafting interface
             if (!insertCrafting(targetPos, ingredients, network, channel, false)) {
                 // Unregister listeners again for pending ingredients
-                for (IngredientComponent<?, ?> component : startingCraftingJob.getRecipe().getOutput().getComponents()) {
-                    unregisterIngredientObserver(component, network);
+                for (int i = 0; i < amount; i++) {
+                    for (IngredientComponent<?, ?> component : startingCraftingJob.getRecipe().getOutput().getComponents()) {
+                        unregisterIngredientObserver(component, network);
+                    }
                 }
 
                 // If we reach this point, the target does not accept the recipe inputs,
@@ -610,6 +767,8 @@ public class CraftingJobHandler {
                 unmarkCraftingJobProcessing(startingCraftingJob);
                 return false;
             } else {
+                // The job now holds these ingredients, so it does not need to reserve them anymore
+                getCraftingNetwork(network).onCraftingJobIngredientsExtracted(startingCraftingJob, ingredients);
                 return true;
             }
         } else {
@@ -1,10 +1,12 @@
 package org.cyclops.integratedcrafting.core;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.cyclopscore.datastructure.MultitransformIterator;
 import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
@@ -26,16 +28,26 @@ import java.util.Map;
 public class CraftingJobIndexDefault implements ICraftingJobIndexModifiable {
 
     private final Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Collection<CraftingJob>>> recipeComponentIndexes;
+    private final Map<IRecipeDefinition, Collection<CraftingJob>> recipeCraftingJobs;
     private final Int2ObjectMap<CraftingJob> craftingJobs;
+    private final CraftingJobOutputLedger outputLedger;
+    @Nullable
+    private ImmutableList<CraftingJob> craftingJobsSnapshot;
 
     public CraftingJobIndexDefault() {
         this.recipeComponentIndexes = Maps.newIdentityHashMap();
-        this.craftingJobs = new Int2ObjectOpenHashMap<>();
+        this.recipeCraftingJobs = Maps.newHashMap();
+        this.craftingJobs = new Int2ObjectLinkedOpenHashMap<>();
+        this.outputLedger = new CraftingJobOutputLedger();
     }
 
     @Override
     public Collection<CraftingJob> getCraftingJobs() {
-        return Collections.unmodifiableCollection(craftingJobs.values());
+        // Only copy the jobs again after they have been modified
+        if (craftingJobsSnapshot == null) {
+            craftingJobsSnapshot = ImmutableList.copyOf(craftingJobs.values());
+        }
+        return craftingJobsSnapshot;
     }
 
     @Override
@@ -49,6 +61,20 @@ public class CraftingJobIndexDefault implements ICraftingJobIndexModifiable {
                         .iterator(output, matchCondition), (entry) -> entry.getValue()));
     }
 
+    @Override
+    public Collection<CraftingJob> getCraftingJobs(IRecipeDefinition recipe) {
+        Collection<CraftingJob> craftingJobs = recipeCraftingJobs.get(recipe);
+        if (craftingJobs == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(craftingJobs);
+    }
+
+    @Override
+    public <T, M> long getExpectedOutputQuantity(IngredientComponent<T, M> outputType, T output) {
+        return outputLedger.getQuantity(outputType, output);
+    }
+
     @Nullable
     @Override
     public CraftingJob getCraftingJob(int craftingJobId) {
@@ -63,6 +89,9 @@ public class CraftingJobIndexDefault implements ICraftingJobIndexModifiable {
     @Override
     public void addCraftingJob(CraftingJob craftingJob) {
         craftingJobs.put(craftingJob.getId(), craftingJob);
+        craftingJobsSnapshot = null;
+        recipeCraftingJobs.computeIfAbsent(craftingJob.getRecipe(), (recipe) -> Sets.newIdentityHashSet()).add(craftingJob);
+        outputLedger.setCraftingJob(craftingJob);
         for (IngredientComponent<?, ?> recipeComponent : craftingJob.getRecipe().getOutput().getComponents()) {
             IIngredientMapMutable<?, ?, Collection<CraftingJob>> index = recipeComponentIndexes.computeIfAbsent(recipeComponent, this::initializeIndex);
             if (index != null) {
@@ -83,9 +112,23 @@ public class CraftingJobIndexDefault implements ICraftingJobIndexModifiable {
         }
     }
 
+    @Override
+    public void updateCraftingJob(CraftingJob craftingJob) {
+        if (craftingJobs.containsKey(craftingJob.getId())) {
+            outputLedger.setCraftingJob(craftingJob);
+        }
+    }
+
     @Override
     public void removeCraftingJob(CraftingJob craftingJob) {
-        craftingJobs.remove(craftingJob.getId());
+        if (craftingJobs.remove(craftingJob.getId()) != null) {
+            craftingJobsSnapshot = null;
+        }
+        outputLedger.removeCraftingJob(craftingJob);
+        Collection<CraftingJob> recipeJobs = recipeCraftingJobs.get(craftingJob.getRecipe());
+        if (recipeJobs != null && recipeJobs.remove(craftingJob) && recipeJobs.isEmpty()) {
+            recipeCraftingJobs.remove(craftingJob.getRecipe());
+        }
         for (IngredientComponent<?, ?> recipeComponent : craftingJob.getRecipe().getOutput().getComponents()) {
             IIngredientMapMutable<?, ?, Collection<CraftingJob>> index = recipeComponentIndexes.get(recipeComponent);
             if (index != null) {
@@ -0,0 +1,146 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.cyclops.commoncapabilities.api.ingredient.IPrototypedIngredient;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DistinctIterator;
+import org.cyclops.cyclopscore.datastructure.MultitransformIterator;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Indexes pending crafting jobs by the prototypes of the ingredients they are missing,
+ * so that the jobs that are waiting for a certain ingredient can be found without visiting all pending jobs.
+ *
+ * Prototypes with a non-exact match condition are indexed by that condition,
+ * so that jobs waiting for them are also found for instances that only match under that condition.
+ *
+ * @author rubensworks
+ */
+public class CraftingJobMissingIngredientsIndex {
+
+    private final Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Collection<CraftingJob>>> componentIndexes;
+    private final Map<IngredientComponent<?, ?>, IngredientMatchConditionIndex<?, ?, CraftingJob>> componentConditionIndexes;
+    private final Int2ObjectMap<Map<IngredientComponent<?, ?>, MissingIngredients<?, ?>>> indexedMissingIngredients;
+
+    public CraftingJobMissingIngredientsIndex() {
+        this.componentIndexes = Maps.newIdentityHashMap();
+        this.componentConditionIndexes = Maps.newIdentityHashMap();
+        this.indexedMissingIngredients = new Int2ObjectOpenHashMap<>();
+    }
+
+    /**
+     * Find pending crafting jobs that are missing the given ingredient.
+     * This includes jobs of which the missing prototype matches the given instance under the prototype's own condition.
+     * @param ingredientComponent The ingredient component type.
+     * @param instance An ingredient instance.
+     * @param matchCondition A condition under which the matching should be done.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter, may be Void.
+     * @return An iterator of the crafting jobs that are missing the given ingredient.
+     */
+    public <T, M> Iterator<CraftingJob> getCraftingJobs(IngredientComponent<T, M> ingredientComponent, T instance, M matchCondition) {
+        IIngredientMapMutable<T, M, Collection<CraftingJob>> index = (IIngredientMapMutable<T, M, Collection<CraftingJob>>) componentIndexes.get(ingredientComponent);
+        IngredientMatchConditionIndex<T, M, CraftingJob> conditionIndex = (IngredientMatchConditionIndex<T, M, CraftingJob>) componentConditionIndexes.get(ingredientComponent);
+        Iterator<CraftingJob> craftingJobs = index == null ? Iterators.forArray() : MultitransformIterator.flattenIterableIterator(
+                Iterators.transform(index.iterator(instance, matchCondition), (entry) -> entry.getValue()));
+        if (conditionIndex != null) {
+            craftingJobs = Iterators.concat(craftingJobs, conditionIndex.getValues(instance));
+        }
+        return new DistinctIterator<>(craftingJobs, true);
+    }
+
+    /**
+     * @return If no crafting jobs are indexed.
+     */
+    public boolean isEmpty() {
+        return indexedMissingIngredients.isEmpty();
+    }
+
+    /**
+     * Replace the indexed missing ingredients of the given crafting job.
+     * @param craftingJob A crafting job.
+     * @param missingIngredients The ingredients that are currently missing for the job, may be empty.
+     */
+    public void setMissingIngredients(CraftingJob craftingJob, Map<IngredientComponent<?, ?>, MissingIngredients<?, ?>> missingIngredients) {
+        removeCraftingJob(craftingJob);
+        if (!missingIngredients.isEmpty()) {
+            indexedMissingIngredients.put(craftingJob.getId(), missingIngredients);
+            for (Map.Entry<IngredientComponent<?, ?>, MissingIngredients<?, ?>> entry : missingIngredients.entrySet()) {
+                IIngredientMapMutable<?, ?, Collection<CraftingJob>> index = componentIndexes.computeIfAbsent(entry.getKey(), this::initializeIndex);
+                IngredientMatchConditionIndex<?, ?, CraftingJob> conditionIndex = componentConditionIndexes.computeIfAbsent(entry.getKey(), IngredientMatchConditionIndex::new);
+                addCraftingJobForComponent((IIngredientMapMutable) index, conditionIndex, (MissingIngredients) entry.getValue(), craftingJob);
+            }
+        }
+    }
+
+    /**
+     * Remove the given crafting job from this index.
+     * @param craftingJob A crafting job.
+     */
+    public void removeCraftingJob(CraftingJob craftingJob) {
+        Map<IngredientComponent<?, ?>, MissingIngredients<?, ?>> missingIngredients = indexedMissingIngredients.remove(craftingJob.getId());
+        if (missingIngredients != null) {
+            for (Map.Entry<IngredientComponent<?, ?>, MissingIngredients<?, ?>> entry : missingIngredients.entrySet()) {
+                IIngredientMapMutable<?, ?, Collection<CraftingJob>> index = componentIndexes.get(entry.getKey());
+                if (index != null) {
+                    removeCraftingJobForComponent((IIngredientMapMutable) index, (IngredientMatchConditionIndex) componentConditionIndexes.get(entry.getKey()),
+                            (MissingIngredients) entry.getValue(), craftingJob);
+                }
+            }
+        }
+    }
+
+    protected <T, M> IIngredientMapMutable<T, M, Collection<CraftingJob>> initializeIndex(IngredientComponent<T, M> ingredientComponent) {
+        return new IngredientHashMap<>(ingredientComponent);
+    }
+
+    protected <T, M> void addCraftingJobForComponent(IIngredientMapMutable<T, M, Collection<CraftingJob>> index,
+                                                     IngredientMatchConditionIndex<T, M, CraftingJob> conditionIndex,
+                                                     MissingIngredients<T, M> missingIngredients, CraftingJob craftingJob) {
+        for (MissingIngredients.Element<T, M> element : missingIngredients.getElements()) {
+            for (MissingIngredients.PrototypedWithRequested<T, M> alternative : element.getAlternatives()) {
+                IPrototypedIngredient<T, M> prototype = alternative.getRequestedPrototype();
+                if (!IngredientMatchConditionIndex.isExact(index.getComponent(), prototype.getCondition())) {
+                    conditionIndex.add(prototype.getPrototype(), prototype.getCondition(), craftingJob);
+                    continue;
+                }
+                Collection<CraftingJob> craftingJobs = index.get(prototype.getPrototype());
+                if (craftingJobs == null) {
+                    craftingJobs = Sets.newIdentityHashSet();
+                    index.put(prototype.getPrototype(), craftingJobs);
+                }
+                craftingJobs.add(craftingJob);
+            }
+        }
+    }
+
+    protected <T, M> void removeCraftingJobForComponent(IIngredientMapMutable<T, M, Collection<CraftingJob>> index,
+                                                        IngredientMatchConditionIndex<T, M, CraftingJob> conditionIndex,
+                                                        MissingIngredients<T, M> missingIngredients, CraftingJob craftingJob) {
+        for (MissingIngredients.Element<T, M> element : missingIngredients.getElements()) {
+            for (MissingIngredients.PrototypedWithRequested<T, M> alternative : element.getAlternatives()) {
+                IPrototypedIngredient<T, M> prototype = alternative.getRequestedPrototype();
+                if (!IngredientMatchConditionIndex.isExact(index.getComponent(), prototype.getCondition())) {
+                    conditionIndex.remove(prototype.getPrototype(), prototype.getCondition(), craftingJob);
+                    continue;
+                }
+                T instance = prototype.getPrototype();
+                Collection<CraftingJob> craftingJobs = index.get(instance);
+                if (craftingJobs != null && craftingJobs.remove(craftingJob) && craftingJobs.isEmpty()) {
+                    index.remove(instance);
+                }
+            }
+        }
+    }
+
+}
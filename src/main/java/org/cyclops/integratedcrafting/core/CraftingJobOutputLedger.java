@@ -0,0 +1,109 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+
+import java.util.Map;
+
+/**
+ * A running total of the output quantities that are still expected from a set of crafting jobs,
+ * indexed by output prototype.
+ *
+ * For each crafting job, the remaining amount that was last registered is remembered,
+ * so that the totals can be corrected when a job's amount changes.
+ *
+ * @author rubensworks
+ */
+public class CraftingJobOutputLedger {
+
+    private final Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> componentQuantities;
+    private final Int2IntMap craftingJobAmounts;
+
+    public CraftingJobOutputLedger() {
+        this.componentQuantities = Maps.newIdentityHashMap();
+        this.craftingJobAmounts = new Int2IntOpenHashMap();
+    }
+
+    /**
+     * Get the total output quantity that is still expected for the given instance.
+     * The instance is matched exactly, ignoring its quantity.
+     * @param ingredientComponent The ingredient component type.
+     * @param instance An ingredient instance.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The expected quantity.
+     */
+    public <T, M> long getQuantity(IngredientComponent<T, M> ingredientComponent, T instance) {
+        IIngredientMapMutable<T, M, Long> quantities = (IIngredientMapMutable<T, M, Long>) componentQuantities.get(ingredientComponent);
+        if (quantities == null) {
+            return 0;
+        }
+        Long quantity = quantities.get(ingredientComponent.getMatcher().withQuantity(instance, 1));
+        return quantity == null ? 0 : quantity;
+    }
+
+    /**
+     * Register the given crafting job with its current amount,
+     * or correct it if it was registered with another amount before.
+     * @param craftingJob A crafting job.
+     */
+    public void setCraftingJob(CraftingJob craftingJob) {
+        int amount = Math.max(0, craftingJob.getAmount());
+        int previousAmount = craftingJobAmounts.get(craftingJob.getId());
+        if (amount != previousAmount) {
+            addRecipeOutputs(craftingJob.getRecipe(), amount - previousAmount);
+            if (amount == 0) {
+                craftingJobAmounts.remove(craftingJob.getId());
+            } else {
+                craftingJobAmounts.put(craftingJob.getId(), amount);
+            }
+        }
+    }
+
+    /**
+     * Remove the given crafting job from this ledger.
+     * @param craftingJob A crafting job.
+     */
+    public void removeCraftingJob(CraftingJob craftingJob) {
+        int previousAmount = craftingJobAmounts.remove(craftingJob.getId());
+        if (previousAmount != 0) {
+            addRecipeOutputs(craftingJob.getRecipe(), -previousAmount);
+        }
+    }
+
+    protected void addRecipeOutputs(IRecipeDefinition recipe, int amount) {
+        for (IngredientComponent<?, ?> ingredientComponent : recipe.getOutput().getComponents()) {
+            addComponentOutputs(ingredientComponent, recipe, amount);
+        }
+    }
+
+    protected <T, M> IIngredientMapMutable<T, M, Long> initializeIndex(IngredientComponent<T, M> ingredientComponent) {
+        return new IngredientHashMap<>(ingredientComponent);
+    }
+
+    protected <T, M> void addComponentOutputs(IngredientComponent<T, M> ingredientComponent, IRecipeDefinition recipe, int amount) {
+        IIngredientMapMutable<T, M, Long> quantities = (IIngredientMapMutable<T, M, Long>) componentQuantities
+                .computeIfAbsent(ingredientComponent, this::initializeIndex);
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        for (T instance : recipe.getOutput().getInstances(ingredientComponent)) {
+            if (!matcher.isEmpty(instance)) {
+                T key = matcher.withQuantity(instance, 1);
+                Long previousQuantity = quantities.get(key);
+                long quantity = (previousQuantity == null ? 0 : previousQuantity) + matcher.getQuantity(instance) * amount;
+                if (quantity > 0) {
+                    quantities.put(key, quantity);
+                } else {
+                    quantities.remove(key);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.cyclops.integratedcrafting.GeneralConfig;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds the worker pools on which crafting jobs can be calculated off the server thread.
+ *
+ * The pools are (re)created lazily based on {@link GeneralConfig#craftingJobPlanningThreads},
+ * {@link GeneralConfig#craftingJobCalculationTickConcurrency}
+ * and {@link GeneralConfig#craftingJobCalculationParallelAlternatives}.
+ *
+ * @author rubensworks
+ */
+public class CraftingJobPlanningExecutor {
+
+    private static ExecutorService executor = null;
+    private static int threads = 0;
+    private static ExecutorService timeSlicedExecutor = null;
+    private static int timeSlicedThreads = 0;
+    private static ForkJoinPool alternativesPool = null;
+
+    /**
+     * @return The worker pool for crafting job calculation, or null if asynchronous calculation is disabled.
+     */
+    @Nullable
+    public static synchronized Executor getExecutor() {
+        int configuredThreads = GeneralConfig.craftingJobPlanningThreads;
+        if (configuredThreads != threads) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+            if (configuredThreads > 0) {
+                executor = Executors.newFixedThreadPool(configuredThreads, new ThreadFactoryBuilder()
+                        .setNameFormat("IntegratedCrafting Job Planner %d")
+                        .setDaemon(true)
+                        .build());
+            }
+            threads = configuredThreads;
+        }
+        return executor;
+    }
+
+    /**
+     * The worker pool on which crafting jobs that are calculated over multiple ticks are started.
+     * This pool has a thread for each of the calculations that may be started at the same time.
+     * @return The worker pool for time-sliced crafting job calculation.
+     */
+    public static synchronized Executor getTimeSlicedExecutor() {
+        int configuredThreads = GeneralConfig.craftingJobCalculationTickConcurrency;
+        if (configuredThreads != timeSlicedThreads || timeSlicedExecutor == null) {
+            if (timeSlicedExecutor != null) {
+                timeSlicedExecutor.shutdown();
+            }
+            timeSlicedExecutor = Executors.newFixedThreadPool(configuredThreads, new ThreadFactoryBuilder()
+                    .setNameFormat("IntegratedCrafting Job Calculation %d")
+                    .setDaemon(true)
+                    .build());
+            timeSlicedThreads = configuredThreads;
+        }
+        return timeSlicedExecutor;
+    }
+
+    /**
+     * @return The pool on which alternative recipes are calculated concurrently, or null if this is disabled.
+     */
+    @Nullable
+    public static synchronized ForkJoinPool getAlternativesPool() {
+        if (!GeneralConfig.craftingJobCalculationParallelAlternatives) {
+            return null;
+        }
+        if (alternativesPool == null) {
+            alternativesPool = new ForkJoinPool();
+        }
+        return alternativesPool;
+    }
+
+    /**
+     * Stop the worker pools.
+     * Calculations that are still running will be finished.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        threads = 0;
+        if (timeSlicedExecutor != null) {
+            timeSlicedExecutor.shutdown();
+            timeSlicedExecutor = null;
+        }
+        timeSlicedThreads = 0;
+        if (alternativesPool != null) {
+            alternativesPool.shutdown();
+            alternativesPool = null;
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.ints.Int2LongRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2LongSortedMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IMixedIngredients;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * A ledger of the storage ingredients that are reserved by scheduled crafting jobs,
+ * indexed by prototype.
+ *
+ * Each crafting job reserves the ingredients it is expected to take from storage,
+ * so that these are not taken by the extraction of other crafting jobs in the meantime.
+ * The reservations of a job are consumed as the job extracts its inputs,
+ * and the remainder is released once the job is finished or cancelled.
+ *
+ * A crafting job only has to respect the reservations of crafting jobs that are older (have a smaller id),
+ * so that jobs that together reserve more than is available can not lock each other out,
+ * but are instead started in the order in which they were created.
+ *
+ * @author rubensworks
+ */
+public class CraftingJobReservations {
+
+    private final Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> componentQuantities;
+    private final Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Int2LongSortedMap>> componentCraftingJobQuantities;
+    private final Int2ObjectMap<IMixedIngredients> craftingJobIngredients;
+    private final Int2ObjectMap<Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>>> craftingJobQuantities;
+
+    public CraftingJobReservations() {
+        this.componentQuantities = Maps.newIdentityHashMap();
+        this.componentCraftingJobQuantities = Maps.newIdentityHashMap();
+        this.craftingJobIngredients = new Int2ObjectOpenHashMap<>();
+        this.craftingJobQuantities = new Int2ObjectOpenHashMap<>();
+    }
+
+    /**
+     * @param ingredientComponent An ingredient component type.
+     * @return If any ingredients of the given type are reserved.
+     */
+    public boolean hasReservations(IngredientComponent<?, ?> ingredientComponent) {
+        IIngredientMapMutable<?, ?, Long> quantities = componentQuantities.get(ingredientComponent);
+        return quantities != null && !quantities.isEmpty();
+    }
+
+    /**
+     * Get the reserved quantity of the given instance.
+     * The instance is matched exactly, ignoring its quantity.
+     * @param ingredientComponent The ingredient component type.
+     * @param instance An ingredient instance.
+     * @param craftingJob The crafting job that wants to extract the instance,
+     *                    only the reservations of older crafting jobs are counted.
+     *                    If null, all reservations are counted.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The reserved quantity.
+     */
+    public <T, M> long getQuantity(IngredientComponent<T, M> ingredientComponent, T instance,
+                                   @Nullable CraftingJob craftingJob) {
+        T key = ingredientComponent.getMatcher().withQuantity(instance, 1);
+        if (craftingJob == null) {
+            return getQuantity(componentQuantities, ingredientComponent, key);
+        }
+
+        IIngredientMapMutable<T, M, Int2LongSortedMap> craftingJobQuantitiesIndex =
+                (IIngredientMapMutable<T, M, Int2LongSortedMap>) componentCraftingJobQuantities.get(ingredientComponent);
+        Int2LongSortedMap quantities = craftingJobQuantitiesIndex == null ? null : craftingJobQuantitiesIndex.get(key);
+        if (quantities == null) {
+            return 0;
+        }
+        long quantity = 0;
+        LongIterator it = quantities.headMap(craftingJob.getId()).values().iterator();
+        while (it.hasNext()) {
+            quantity += it.nextLong();
+        }
+        return quantity;
+    }
+
+    /**
+     * Reserve the storage ingredients of the given crafting job, if they were not reserved yet.
+     * @param craftingJob A crafting job.
+     */
+    public void reserve(CraftingJob craftingJob) {
+        if (!craftingJobIngredients.containsKey(craftingJob.getId())) {
+            IMixedIngredients ingredients = craftingJob.getIngredientsStorage();
+            Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> jobQuantities = Maps.newIdentityHashMap();
+            craftingJobIngredients.put(craftingJob.getId(), ingredients);
+            craftingJobQuantities.put(craftingJob.getId(), jobQuantities);
+            for (IngredientComponent<?, ?> ingredientComponent : ingredients.getComponents()) {
+                reserveComponent(craftingJob.getId(), jobQuantities, ingredientComponent, ingredients);
+            }
+        }
+    }
+
+    /**
+     * Consume the reservations of the given crafting job for the given ingredients,
+     * which were just extracted by this job.
+     * @param craftingJob A crafting job.
+     * @param ingredients The extracted ingredients.
+     */
+    public void consume(CraftingJob craftingJob, IMixedIngredients ingredients) {
+        Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> jobQuantities = craftingJobQuantities.get(craftingJob.getId());
+        if (jobQuantities != null) {
+            for (IngredientComponent<?, ?> ingredientComponent : ingredients.getComponents()) {
+                consumeComponent(craftingJob.getId(), jobQuantities, ingredientComponent, ingredients);
+            }
+        }
+    }
+
+    /**
+     * Release the remaining reservations of the given crafting job.
+     * @param craftingJob A crafting job.
+     */
+    public void release(CraftingJob craftingJob) {
+        IMixedIngredients ingredients = craftingJobIngredients.remove(craftingJob.getId());
+        Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> jobQuantities = craftingJobQuantities.remove(craftingJob.getId());
+        if (ingredients != null) {
+            for (IngredientComponent<?, ?> ingredientComponent : ingredients.getComponents()) {
+                releaseComponent(craftingJob.getId(), jobQuantities, ingredientComponent, ingredients);
+            }
+        }
+    }
+
+    protected <T, M> void reserveComponent(int craftingJobId, Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> jobQuantities,
+                                           IngredientComponent<T, M> ingredientComponent, IMixedIngredients ingredients) {
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        for (T instance : ingredients.getInstances(ingredientComponent)) {
+            if (!matcher.isEmpty(instance)) {
+                T key = matcher.withQuantity(instance, 1);
+                long quantity = matcher.getQuantity(instance);
+                addQuantity(jobQuantities, ingredientComponent, key, quantity);
+                addQuantity(componentQuantities, ingredientComponent, key, quantity);
+                addCraftingJobQuantity(ingredientComponent, key, craftingJobId, quantity);
+            }
+        }
+    }
+
+    protected <T, M> void consumeComponent(int craftingJobId, Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> jobQuantities,
+                                           IngredientComponent<T, M> ingredientComponent, IMixedIngredients ingredients) {
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        for (T instance : ingredients.getInstances(ingredientComponent)) {
+            if (!matcher.isEmpty(instance)) {
+                T key = matcher.withQuantity(instance, 1);
+                long quantity = Math.min(matcher.getQuantity(instance), getQuantity(jobQuantities, ingredientComponent, key));
+                if (quantity > 0) {
+                    addQuantity(jobQuantities, ingredientComponent, key, -quantity);
+                    addQuantity(componentQuantities, ingredientComponent, key, -quantity);
+                    addCraftingJobQuantity(ingredientComponent, key, craftingJobId, -quantity);
+                }
+            }
+        }
+    }
+
+    protected <T, M> void releaseComponent(int craftingJobId, Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> jobQuantities,
+                                           IngredientComponent<T, M> ingredientComponent, IMixedIngredients ingredients) {
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        for (T instance : ingredients.getInstances(ingredientComponent)) {
+            if (!matcher.isEmpty(instance)) {
+                T key = matcher.withQuantity(instance, 1);
+                long quantity = getQuantity(jobQuantities, ingredientComponent, key);
+                if (quantity > 0) {
+                    // Reset the job's quantity, so that duplicate instances are only released once
+                    addQuantity(jobQuantities, ingredientComponent, key, -quantity);
+                    addQuantity(componentQuantities, ingredientComponent, key, -quantity);
+                    addCraftingJobQuantity(ingredientComponent, key, craftingJobId, -quantity);
+                }
+            }
+        }
+    }
+
+    protected <T, M> IIngredientMapMutable<T, M, Long> initializeIndex(IngredientComponent<T, M> ingredientComponent) {
+        return new IngredientHashMap<>(ingredientComponent);
+    }
+
+    protected static <T, M> long getQuantity(Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> componentQuantities,
+                                             IngredientComponent<T, M> ingredientComponent, T key) {
+        IIngredientMapMutable<T, M, Long> quantities = (IIngredientMapMutable<T, M, Long>) componentQuantities.get(ingredientComponent);
+        if (quantities == null) {
+            return 0;
+        }
+        Long quantity = quantities.get(key);
+        return quantity == null ? 0 : quantity;
+    }
+
+    protected <T, M> void addQuantity(Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Long>> componentQuantities,
+                                      IngredientComponent<T, M> ingredientComponent, T key, long delta) {
+        IIngredientMapMutable<T, M, Long> quantities = (IIngredientMapMutable<T, M, Long>) componentQuantities
+                .computeIfAbsent(ingredientComponent, this::initializeIndex);
+        Long previousQuantity = quantities.get(key);
+        long quantity = (previousQuantity == null ? 0 : previousQuantity) + delta;
+        if (quantity > 0) {
+            quantities.put(key, quantity);
+        } else {
+            quantities.remove(key);
+        }
+    }
+
+    protected <T, M> void addCraftingJobQuantity(IngredientComponent<T, M> ingredientComponent, T key,
+                                                 int craftingJobId, long delta) {
+        IIngredientMapMutable<T, M, Int2LongSortedMap> craftingJobQuantitiesIndex = (IIngredientMapMutable<T, M, Int2LongSortedMap>) componentCraftingJobQuantities
+                .computeIfAbsent(ingredientComponent, this::initializeCraftingJobIndex);
+        Int2LongSortedMap quantities = craftingJobQuantitiesIndex.get(key);
+        if (quantities == null) {
+            quantities = new Int2LongRBTreeMap();
+            craftingJobQuantitiesIndex.put(key, quantities);
+        }
+        long quantity = quantities.get(craftingJobId) + delta;
+        if (quantity > 0) {
+            quantities.put(craftingJobId, quantity);
+        } else {
+            quantities.remove(craftingJobId);
+            if (quantities.isEmpty()) {
+                craftingJobQuantitiesIndex.remove(key);
+            }
+        }
+    }
+
+    protected <T, M> IIngredientMapMutable<T, M, Int2LongSortedMap> initializeCraftingJobIndex(IngredientComponent<T, M> ingredientComponent) {
+        return new IngredientHashMap<>(ingredientComponent);
+    }
+
+}
@@ -0,0 +1,215 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollectionMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashSet;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A checkpoint of the extraction memories of a crafting job calculation,
+ * from which all later changes to these memories can be undone.
+ *
+ * Instead of copying the memories upfront, the memory collections record
+ * the original state of each instance they modify after the checkpoint was taken.
+ * This only works for memory collections that were created via
+ * {@link #createSimulatedExtractionMemory(IngredientComponent)} and
+ * {@link #createExtractionMemoryReusable(IngredientComponent)},
+ * other collections are copied once when the checkpoint is taken.
+ *
+ * @author rubensworks
+ */
+public class ExtractionMemoryCheckpoint {
+
+    private final Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory;
+    private final Map<IngredientComponent<?, ?>, IIngredientCollectionMutable<?, ?>> extractionMemoryReusable;
+    private final Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemoryEntries;
+    private final Map<IngredientComponent<?, ?>, IIngredientCollectionMutable<?, ?>> extractionMemoryReusableEntries;
+
+    /**
+     * Take a checkpoint of the given memories.
+     * @param simulatedExtractionMemory A simulated extraction memory.
+     * @param extractionMemoryReusable A reusable extraction memory.
+     */
+    public ExtractionMemoryCheckpoint(Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> simulatedExtractionMemory,
+                                      Map<IngredientComponent<?, ?>, IIngredientCollectionMutable<?, ?>> extractionMemoryReusable) {
+        this.simulatedExtractionMemory = simulatedExtractionMemory;
+        this.extractionMemoryReusable = extractionMemoryReusable;
+
+        for (Map.Entry<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> entry : simulatedExtractionMemory.entrySet()) {
+            if (!(entry.getValue() instanceof SimulatedExtractionMemory)) {
+                IngredientCollectionPrototypeMap collection = createSimulatedExtractionMemory(entry.getKey());
+                collection.addAll(entry.getValue());
+                entry.setValue(collection);
+            }
+            ((SimulatedExtractionMemory<?, ?>) entry.getValue()).startJournal();
+        }
+        for (Map.Entry<IngredientComponent<?, ?>, IIngredientCollectionMutable<?, ?>> entry : extractionMemoryReusable.entrySet()) {
+            if (!(entry.getValue() instanceof ExtractionMemoryReusable)) {
+                IIngredientCollectionMutable collection = createExtractionMemoryReusable(entry.getKey());
+                collection.addAll(entry.getValue());
+                entry.setValue(collection);
+            }
+            ((ExtractionMemoryReusable<?, ?>) entry.getValue()).startJournal();
+        }
+
+        // Collections may be added or replaced during calculation, so remember the ones at the time of the checkpoint
+        this.simulatedExtractionMemoryEntries = Maps.newIdentityHashMap();
+        this.simulatedExtractionMemoryEntries.putAll(simulatedExtractionMemory);
+        this.extractionMemoryReusableEntries = Maps.newIdentityHashMap();
+        this.extractionMemoryReusableEntries.putAll(extractionMemoryReusable);
+    }
+
+    /**
+     * Keep all changes since this checkpoint.
+     */
+    public void commit() {
+        for (IngredientCollectionPrototypeMap<?, ?> collection : simulatedExtractionMemoryEntries.values()) {
+            ((SimulatedExtractionMemory<?, ?>) collection).stopJournal();
+        }
+        for (IIngredientCollectionMutable<?, ?> collection : extractionMemoryReusableEntries.values()) {
+            ((ExtractionMemoryReusable<?, ?>) collection).stopJournal();
+        }
+    }
+
+    /**
+     * Undo all changes since this checkpoint.
+     */
+    public void rollback() {
+        for (IngredientCollectionPrototypeMap<?, ?> collection : simulatedExtractionMemoryEntries.values()) {
+            ((SimulatedExtractionMemory<?, ?>) collection).undoJournal();
+        }
+        for (IIngredientCollectionMutable<?, ?> collection : extractionMemoryReusableEntries.values()) {
+            ((ExtractionMemoryReusable<?, ?>) collection).undoJournal();
+        }
+        simulatedExtractionMemory.clear();
+        simulatedExtractionMemory.putAll(simulatedExtractionMemoryEntries);
+        extractionMemoryReusable.clear();
+        extractionMemoryReusable.putAll(extractionMemoryReusableEntries);
+    }
+
+    /**
+     * @param ingredientComponent An ingredient component type.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return A new simulated extraction memory that supports checkpoints.
+     */
+    public static <T, M> IngredientCollectionPrototypeMap<T, M> createSimulatedExtractionMemory(IngredientComponent<T, M> ingredientComponent) {
+        return new SimulatedExtractionMemory<>(ingredientComponent);
+    }
+
+    /**
+     * @param ingredientComponent An ingredient component type.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return A new reusable extraction memory that supports checkpoints.
+     */
+    public static <T, M> IIngredientCollectionMutable<T, M> createExtractionMemoryReusable(IngredientComponent<T, M> ingredientComponent) {
+        return new ExtractionMemoryReusable<>(ingredientComponent);
+    }
+
+    /**
+     * A simulated extraction memory that can record the original quantities of the instances it modifies.
+     */
+    protected static class SimulatedExtractionMemory<T, M> extends IngredientCollectionPrototypeMap<T, M> {
+
+        private List<T> journalInstances = null;
+        private LongArrayList journalQuantities = null;
+
+        public SimulatedExtractionMemory(IngredientComponent<T, M> component) {
+            super(component, true);
+        }
+
+        public void startJournal() {
+            this.journalInstances = Lists.newArrayList();
+            this.journalQuantities = new LongArrayList();
+        }
+
+        public void stopJournal() {
+            this.journalInstances = null;
+            this.journalQuantities = null;
+        }
+
+        public void undoJournal() {
+            List<T> instances = this.journalInstances;
+            LongArrayList quantities = this.journalQuantities;
+            stopJournal();
+            if (instances != null) {
+                // Undo in reverse order, so that the oldest recorded quantity of each instance is restored last
+                for (int i = instances.size() - 1; i >= 0; i--) {
+                    super.setQuantity(instances.get(i), quantities.getLong(i));
+                }
+            }
+        }
+
+        protected void record(T instance) {
+            if (this.journalInstances != null) {
+                this.journalInstances.add(instance);
+                this.journalQuantities.add(getQuantity(instance));
+            }
+        }
+
+        @Override
+        public boolean add(T instance) {
+            record(instance);
+            return super.add(instance);
+        }
+
+        @Override
+        public boolean remove(T instance) {
+            record(instance);
+            return super.remove(instance);
+        }
+
+        @Override
+        public long setQuantity(T instance, long quantity) {
+            record(instance);
+            return super.setQuantity(instance, quantity);
+        }
+    }
+
+    /**
+     * A reusable extraction memory that can record the instances that were added to it.
+     */
+    protected static class ExtractionMemoryReusable<T, M> extends IngredientHashSet<T, M> {
+
+        private List<T> journalInstances = null;
+
+        public ExtractionMemoryReusable(IngredientComponent<T, M> component) {
+            super(component);
+        }
+
+        public void startJournal() {
+            this.journalInstances = Lists.newArrayList();
+        }
+
+        public void stopJournal() {
+            this.journalInstances = null;
+        }
+
+        public void undoJournal() {
+            List<T> instances = this.journalInstances;
+            stopJournal();
+            if (instances != null) {
+                for (T instance : instances) {
+                    super.remove(instance);
+                }
+            }
+        }
+
+        @Override
+        public boolean add(T instance) {
+            boolean added = super.add(instance);
+            if (added && this.journalInstances != null) {
+                this.journalInstances.add(instance);
+            }
+            return added;
+        }
+    }
+
+}
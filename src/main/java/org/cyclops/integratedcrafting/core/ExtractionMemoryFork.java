@@ -0,0 +1,142 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * A writable fork of an extraction memory that does not modify the underlying memory.
+ *
+ * Instead of copying the underlying memory upfront,
+ * the collection of an ingredient component is only copied once it is accessed,
+ * so that forking is independent of the number of ingredient components in the underlying memory,
+ * and components that are never accessed are never copied.
+ * The underlying memory must not be modified while this fork is in use.
+ *
+ * Forks of forks only read from their underlying fork, so multiple forks can safely be used concurrently.
+ *
+ * @param <V> The collection type.
+ * @author rubensworks
+ */
+public class ExtractionMemoryFork<V> extends AbstractMap<IngredientComponent<?, ?>, V> {
+
+    @Nullable
+    private Map<IngredientComponent<?, ?>, V> base;
+    private final BiFunction<IngredientComponent<?, ?>, V, V> copier;
+    private final Map<IngredientComponent<?, ?>, V> entries;
+
+    /**
+     * @param base The underlying memory.
+     * @param copier A function to copy the collection of the given ingredient component.
+     */
+    public ExtractionMemoryFork(Map<IngredientComponent<?, ?>, V> base, BiFunction<IngredientComponent<?, ?>, V, V> copier) {
+        this.base = base;
+        this.copier = copier;
+        this.entries = Maps.newIdentityHashMap();
+    }
+
+    /**
+     * @return The collections that were accessed or added in this fork,
+     *         which are the only ones that may differ from the underlying memory.
+     */
+    public Map<IngredientComponent<?, ?>, V> getForkedEntries() {
+        return entries;
+    }
+
+    @Nullable
+    protected V peek(Object ingredientComponent) {
+        V value = this.entries.get(ingredientComponent);
+        if (value == null && this.base != null) {
+            value = peek(this.base, ingredientComponent);
+        }
+        return value;
+    }
+
+    @Nullable
+    protected static <V> V peek(Map<IngredientComponent<?, ?>, V> memory, Object ingredientComponent) {
+        // Never copy in underlying forks, as they may be shared with other forks
+        if (memory instanceof ExtractionMemoryFork) {
+            return ((ExtractionMemoryFork<V>) memory).peek(ingredientComponent);
+        }
+        return memory.get(ingredientComponent);
+    }
+
+    protected void collectKeys(Set<IngredientComponent<?, ?>> keys) {
+        keys.addAll(this.entries.keySet());
+        if (this.base != null) {
+            collectKeys(this.base, keys);
+        }
+    }
+
+    protected static <V> void collectKeys(Map<IngredientComponent<?, ?>, V> memory, Set<IngredientComponent<?, ?>> keys) {
+        if (memory instanceof ExtractionMemoryFork) {
+            ((ExtractionMemoryFork<V>) memory).collectKeys(keys);
+        } else {
+            keys.addAll(memory.keySet());
+        }
+    }
+
+    /**
+     * Copy all collections of the underlying memory into this fork,
+     * after which the underlying memory is not read anymore.
+     */
+    protected void detach() {
+        if (this.base != null) {
+            Set<IngredientComponent<?, ?>> keys = Sets.newIdentityHashSet();
+            collectKeys(this.base, keys);
+            for (IngredientComponent<?, ?> ingredientComponent : keys) {
+                get(ingredientComponent);
+            }
+            this.base = null;
+        }
+    }
+
+    @Override
+    public V get(Object ingredientComponent) {
+        V value = this.entries.get(ingredientComponent);
+        if (value == null && this.base != null) {
+            V baseValue = peek(this.base, ingredientComponent);
+            if (baseValue != null) {
+                value = this.copier.apply((IngredientComponent<?, ?>) ingredientComponent, baseValue);
+                this.entries.put((IngredientComponent<?, ?>) ingredientComponent, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object ingredientComponent) {
+        return peek(ingredientComponent) != null;
+    }
+
+    @Override
+    public V put(IngredientComponent<?, ?> ingredientComponent, V value) {
+        V previous = peek(ingredientComponent);
+        this.entries.put(ingredientComponent, value);
+        return previous;
+    }
+
+    @Override
+    public V remove(Object ingredientComponent) {
+        detach();
+        return this.entries.remove(ingredientComponent);
+    }
+
+    @Override
+    public void clear() {
+        this.base = null;
+        this.entries.clear();
+    }
+
+    @Override
+    public Set<Entry<IngredientComponent<?, ?>, V>> entrySet() {
+        detach();
+        return this.entries.entrySet();
+    }
+}
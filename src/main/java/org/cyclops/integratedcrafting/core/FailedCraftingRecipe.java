@@ -0,0 +1,68 @@
+package org.cyclops.integratedcrafting.core;
+
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.MixedIngredients;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+import org.cyclops.integratedcrafting.api.crafting.FailedCraftingRecipeException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A recipe that could not be crafted in a crafting job calculation due to missing sub-dependencies.
+ *
+ * This contains the same information as {@link FailedCraftingRecipeException},
+ * but it is cheap to create, as ingredients are only compressed
+ * once an exception is requested via {@link #toException()}.
+ *
+ * @author rubensworks
+ */
+public class FailedCraftingRecipe {
+
+    private final IRecipeDefinition recipe;
+    private final long quantityMissing;
+    private final List<MissingCraftingRecipe> missingChildRecipes;
+    private final Map<IngredientComponent<?, ?>, List<?>> ingredientsStorage;
+    private final List<CraftingJob> partialCraftingJobs;
+
+    public FailedCraftingRecipe(IRecipeDefinition recipe, long quantityMissing,
+                                List<MissingCraftingRecipe> missingChildRecipes,
+                                Map<IngredientComponent<?, ?>, List<?>> ingredientsStorage,
+                                List<CraftingJob> partialCraftingJobs) {
+        this.recipe = recipe;
+        this.quantityMissing = quantityMissing;
+        this.missingChildRecipes = missingChildRecipes;
+        this.ingredientsStorage = ingredientsStorage;
+        this.partialCraftingJobs = partialCraftingJobs;
+    }
+
+    public IRecipeDefinition getRecipe() {
+        return recipe;
+    }
+
+    public long getQuantityMissing() {
+        return quantityMissing;
+    }
+
+    public List<MissingCraftingRecipe> getMissingChildRecipes() {
+        return missingChildRecipes;
+    }
+
+    public Map<IngredientComponent<?, ?>, List<?>> getIngredientsStorage() {
+        return ingredientsStorage;
+    }
+
+    public List<CraftingJob> getPartialCraftingJobs() {
+        return partialCraftingJobs;
+    }
+
+    /**
+     * @return An exception containing the full (compressed) information of this failed recipe and its missing children.
+     */
+    public FailedCraftingRecipeException toException() {
+        return new FailedCraftingRecipeException(recipe, quantityMissing, MissingCraftingRecipe.toExceptions(missingChildRecipes),
+                CraftingHelpers.compressMixedIngredients(new MixedIngredients(ingredientsStorage)), partialCraftingJobs);
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponentCategoryType;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashSet;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A secondary index over ingredient instances,
+ * which groups instances by each of the category types of their ingredient component,
+ * such as the item or fluid regardless of quantity or data.
+ *
+ * This allows lookups with match conditions that ignore part of an instance
+ * to only visit the instances within a single category, instead of all instances.
+ * Primary quantifier categories are not indexed, as lookups typically ignore quantities.
+ *
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter.
+ * @author rubensworks
+ */
+public class IngredientCategoryIndex<T, M> {
+
+    private final IngredientComponent<T, M> component;
+    private final List<IngredientComponentCategoryType<T, M, ?>> categoryTypes;
+    private final List<Map<Object, IngredientHashSet<T, M>>> categories;
+
+    public IngredientCategoryIndex(IngredientComponent<T, M> component) {
+        this.component = component;
+        this.categoryTypes = Lists.newArrayList();
+        this.categories = Lists.newArrayList();
+        for (IngredientComponentCategoryType<T, M, ?> categoryType : component.getCategoryTypes()) {
+            if (!categoryType.isPrimaryQuantifier()) {
+                this.categoryTypes.add(categoryType);
+                this.categories.add(Maps.newHashMap());
+            }
+        }
+    }
+
+    /**
+     * Add the given instance to its categories.
+     * @param instance An instance.
+     */
+    public void add(T instance) {
+        for (int i = 0; i < categoryTypes.size(); i++) {
+            Object category = categoryTypes.get(i).getClassifier().apply(instance);
+            IngredientHashSet<T, M> instances = categories.get(i).get(category);
+            if (instances == null) {
+                instances = new IngredientHashSet<>(component);
+                categories.get(i).put(category, instances);
+            }
+            instances.add(instance);
+        }
+    }
+
+    /**
+     * Remove the given instance from its categories.
+     * @param instance An instance.
+     */
+    public void remove(T instance) {
+        for (int i = 0; i < categoryTypes.size(); i++) {
+            Object category = categoryTypes.get(i).getClassifier().apply(instance);
+            IngredientHashSet<T, M> instances = categories.get(i).get(category);
+            if (instances != null && instances.remove(instance) && instances.isEmpty()) {
+                categories.get(i).remove(category);
+            }
+        }
+    }
+
+    /**
+     * Find all indexed instances that match the given instance.
+     * The smallest category that is covered by the match condition is used.
+     * @param instance An instance to match with.
+     * @param matchCondition A match condition.
+     * @return An iterator over the matching instances,
+     *         or null if the match condition does not cover any indexed category.
+     */
+    @Nullable
+    public Iterator<T> getInstances(T instance, M matchCondition) {
+        IIngredientMatcher<T, M> matcher = component.getMatcher();
+        IngredientHashSet<T, M> smallestInstances = null;
+        boolean covered = false;
+        for (int i = 0; i < categoryTypes.size(); i++) {
+            IngredientComponentCategoryType<T, M, ?> categoryType = categoryTypes.get(i);
+            if (matcher.hasCondition(matchCondition, categoryType.getMatchCondition())) {
+                covered = true;
+                IngredientHashSet<T, M> instances = categories.get(i).get(categoryType.getClassifier().apply(instance));
+                if (instances == null) {
+                    return Iterators.forArray();
+                }
+                if (smallestInstances == null || instances.size() < smallestInstances.size()) {
+                    smallestInstances = instances;
+                }
+            }
+        }
+        if (!covered) {
+            return null;
+        }
+        return Iterators.filter(smallestInstances.iterator(), indexedInstance -> matcher.matches(indexedInstance, instance, matchCondition));
+    }
+
+}
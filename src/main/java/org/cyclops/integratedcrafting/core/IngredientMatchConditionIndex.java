@@ -0,0 +1,118 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.MultitransformIterator;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes values by ingredient prototypes that have a non-exact match condition,
+ * grouped by that match condition,
+ * so that the values of which the prototype matches a given instance under its own condition can be found.
+ *
+ * Prototypes of which the match condition is exact (ignoring quantity) can simply be looked up by instance,
+ * so they should be indexed by the caller directly.
+ *
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter.
+ * @param <V> The value type.
+ * @author rubensworks
+ */
+public class IngredientMatchConditionIndex<T, M, V> {
+
+    private final IngredientComponent<T, M> component;
+    private final Map<M, IIngredientMapMutable<T, M, Set<V>>> conditionIndexes;
+
+    public IngredientMatchConditionIndex(IngredientComponent<T, M> component) {
+        this.component = component;
+        this.conditionIndexes = Maps.newHashMap();
+    }
+
+    /**
+     * @param component The ingredient component type.
+     * @param matchCondition A match condition.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The given match condition, without the quantity condition.
+     */
+    public static <T, M> M getQuantitylessCondition(IngredientComponent<T, M> component, M matchCondition) {
+        return component.getMatcher().withoutCondition(matchCondition, component.getPrimaryQuantifier().getMatchCondition());
+    }
+
+    /**
+     * @param component The ingredient component type.
+     * @param matchCondition A match condition.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return If the given condition matches exactly, ignoring quantity.
+     */
+    public static <T, M> boolean isExact(IngredientComponent<T, M> component, M matchCondition) {
+        IIngredientMatcher<T, M> matcher = component.getMatcher();
+        return matcher.getExactMatchNoQuantityCondition().equals(getQuantitylessCondition(component, matchCondition));
+    }
+
+    /**
+     * @return If no values are indexed.
+     */
+    public boolean isEmpty() {
+        return this.conditionIndexes.isEmpty();
+    }
+
+    /**
+     * Add a value for the given prototype.
+     * @param prototype A prototype.
+     * @param matchCondition The non-exact match condition of the prototype.
+     * @param value A value.
+     */
+    public void add(T prototype, M matchCondition, V value) {
+        IIngredientMapMutable<T, M, Set<V>> index = this.conditionIndexes
+                .computeIfAbsent(getQuantitylessCondition(component, matchCondition), (c) -> new IngredientHashMap<>(component));
+        Set<V> values = index.get(prototype);
+        if (values == null) {
+            values = Sets.newHashSet();
+            index.put(prototype, values);
+        }
+        values.add(value);
+    }
+
+    /**
+     * Remove a value for the given prototype.
+     * @param prototype A prototype.
+     * @param matchCondition The non-exact match condition of the prototype.
+     * @param value A value.
+     */
+    public void remove(T prototype, M matchCondition, V value) {
+        M condition = getQuantitylessCondition(component, matchCondition);
+        IIngredientMapMutable<T, M, Set<V>> index = this.conditionIndexes.get(condition);
+        if (index != null) {
+            Set<V> values = index.get(prototype);
+            if (values != null && values.remove(value) && values.isEmpty()) {
+                index.remove(prototype);
+                if (index.isEmpty()) {
+                    this.conditionIndexes.remove(condition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the values of which the prototype matches the given instance under the prototype's match condition.
+     * Values may be returned multiple times.
+     * @param instance An instance.
+     * @return The matching values.
+     */
+    public Iterator<V> getValues(T instance) {
+        return MultitransformIterator.flattenIterableIterator(Iterators.concat(Iterators.transform(
+                this.conditionIndexes.entrySet().iterator(),
+                (entry) -> Iterators.transform(entry.getValue().iterator(instance, entry.getKey()), (e) -> e.getValue()))));
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Lists;
+import org.cyclops.commoncapabilities.api.ingredient.IPrototypedIngredient;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.MixedIngredients;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+import org.cyclops.integratedcrafting.api.crafting.UnknownCraftingRecipeException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node in the tree of missing ingredients of a failed crafting job calculation.
+ *
+ * This contains the same information as {@link UnknownCraftingRecipeException},
+ * but it is cheap to create, as ingredients are only compressed
+ * once an exception is requested via {@link #toException()}.
+ *
+ * @author rubensworks
+ */
+public class MissingCraftingRecipe {
+
+    private final IPrototypedIngredient<?, ?> ingredient;
+    private final long quantityMissing;
+    private final List<MissingCraftingRecipe> missingChildRecipes;
+    private final Map<IngredientComponent<?, ?>, List<?>> ingredientsStorage;
+    private final List<CraftingJob> partialCraftingJobs;
+
+    public MissingCraftingRecipe(IPrototypedIngredient<?, ?> ingredient, long quantityMissing,
+                                 List<MissingCraftingRecipe> missingChildRecipes,
+                                 Map<IngredientComponent<?, ?>, List<?>> ingredientsStorage,
+                                 List<CraftingJob> partialCraftingJobs) {
+        this.ingredient = ingredient;
+        this.quantityMissing = quantityMissing;
+        this.missingChildRecipes = missingChildRecipes;
+        this.ingredientsStorage = ingredientsStorage;
+        this.partialCraftingJobs = partialCraftingJobs;
+    }
+
+    public IPrototypedIngredient<?, ?> getIngredient() {
+        return ingredient;
+    }
+
+    public long getQuantityMissing() {
+        return quantityMissing;
+    }
+
+    public List<MissingCraftingRecipe> getMissingChildRecipes() {
+        return missingChildRecipes;
+    }
+
+    public Map<IngredientComponent<?, ?>, List<?>> getIngredientsStorage() {
+        return ingredientsStorage;
+    }
+
+    public List<CraftingJob> getPartialCraftingJobs() {
+        return partialCraftingJobs;
+    }
+
+    /**
+     * @param quantityMissing A new missing quantity.
+     * @return A copy of this missing recipe with the given missing quantity.
+     */
+    public MissingCraftingRecipe withQuantityMissing(long quantityMissing) {
+        return new MissingCraftingRecipe(ingredient, quantityMissing, missingChildRecipes, ingredientsStorage, partialCraftingJobs);
+    }
+
+    /**
+     * @return An exception containing the full (compressed) information of this missing recipe and its children.
+     */
+    public UnknownCraftingRecipeException toException() {
+        return new UnknownCraftingRecipeException(ingredient, quantityMissing, toExceptions(missingChildRecipes),
+                CraftingHelpers.compressMixedIngredients(new MixedIngredients(ingredientsStorage)), partialCraftingJobs);
+    }
+
+    /**
+     * @param missingRecipes A list of missing recipes.
+     * @return A list of exceptions for the given missing recipes.
+     */
+    public static List<UnknownCraftingRecipeException> toExceptions(List<MissingCraftingRecipe> missingRecipes) {
+        List<UnknownCraftingRecipeException> exceptions = Lists.newArrayListWithExpectedSize(missingRecipes.size());
+        for (MissingCraftingRecipe missingRecipe : missingRecipes) {
+            exceptions.add(missingRecipe.toException());
+        }
+        return exceptions;
+    }
+
+}
@@ -2,7 +2,6 @@ package org.cyclops.integratedcrafting.core;
 
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
-import org.cyclops.integratedcrafting.api.crafting.UnknownCraftingRecipeException;
 
 import javax.annotation.Nullable;
 import java.util.List;
@@ -16,14 +15,14 @@ public class PartialCraftingJobCalculation {
     @Nullable
     private final CraftingJob craftingJob;
     @Nullable
-    private final List<UnknownCraftingRecipeException> missingDependencies;
+    private final List<MissingCraftingRecipe> missingDependencies;
     @Nullable
     private final Map<IngredientComponent<?, ?>, List<?>> ingredientsStorage;
     @Nullable
     private final List<CraftingJob> partialCraftingJobs;
 
     public PartialCraftingJobCalculation(@Nullable CraftingJob craftingJob,
-                                         List<UnknownCraftingRecipeException> missingDependencies,
+                                         List<MissingCraftingRecipe> missingDependencies,
                                          Map<IngredientComponent<?, ?>, List<?>> ingredientsStorage,
                                          List<CraftingJob> partialCraftingJobs) {
         this.craftingJob = craftingJob;
@@ -38,7 +37,7 @@ public class PartialCraftingJobCalculation {
     }
 
     @Nullable
-    public List<UnknownCraftingRecipeException> getMissingDependencies() {
+    public List<MissingCraftingRecipe> getMissingDependencies() {
         return missingDependencies;
     }
 
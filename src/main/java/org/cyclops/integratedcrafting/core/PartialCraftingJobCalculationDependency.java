@@ -1,7 +1,6 @@
 package org.cyclops.integratedcrafting.core;
 
 import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
-import org.cyclops.integratedcrafting.api.crafting.UnknownCraftingRecipeException;
 
 import java.util.Collection;
 import java.util.List;
@@ -11,16 +10,16 @@ import java.util.List;
  */
 public class PartialCraftingJobCalculationDependency {
 
-    private final List<UnknownCraftingRecipeException> unknownCrafingRecipes;
+    private final List<MissingCraftingRecipe> unknownCrafingRecipes;
     private final Collection<CraftingJob> partialCraftingJobs;
 
-    public PartialCraftingJobCalculationDependency(List<UnknownCraftingRecipeException> unknownCrafingRecipes,
+    public PartialCraftingJobCalculationDependency(List<MissingCraftingRecipe> unknownCrafingRecipes,
                                                    Collection<CraftingJob> partialCraftingJobs) {
         this.unknownCrafingRecipes = unknownCrafingRecipes;
         this.partialCraftingJobs = partialCraftingJobs;
     }
 
-    public List<UnknownCraftingRecipeException> getUnknownCrafingRecipes() {
+    public List<MissingCraftingRecipe> getUnknownCrafingRecipes() {
         return unknownCrafingRecipes;
     }
 
@@ -42,6 +42,11 @@ public class PendingCraftingJobResultIndexObserver<T, M>
 
     @Override
     public void onChange(IIngredientComponentStorageObservable.StorageChangeEvent<T, M> event) {
+        // Pending crafting jobs that are waiting for the added ingredients may be able to start now
+        if (event.getChangeType() == IIngredientComponentStorageObservable.Change.ADDITION) {
+            handler.wakePendingCraftingJobs(ingredientComponent, event.getInstances(), event.getChannel());
+        }
+
         if (event.getChangeType() == IIngredientComponentStorageObservable.Change.ADDITION
                 // If we're still initializing the network, skip addition events.
                 // Otherwise, we could incorrectly mark running crafting jobs as finished.
@@ -0,0 +1,270 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArraySet;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndexModifiable;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A recipe index that is shared by multiple channels.
+ *
+ * All recipes are indexed only once in a single underlying index,
+ * and each recipe stores the set of channels it is available in.
+ * For each channel, a view can be obtained that only exposes the recipes within that channel.
+ * The view for the wildcard channel exposes all recipes.
+ *
+ * If a recipe priority is set, recipe lookups on the views are sorted by that priority,
+ * and then by descending output quantity, instead of being returned in an arbitrary order.
+ * The sorted recipes are cached per output until the version of the view changes,
+ * so {@link #onRecipePriorityChanged(Collection)} must be called when the priority of recipes changes.
+ *
+ * @author rubensworks
+ */
+public class RecipeIndexChanneled {
+
+    private final IRecipeIndexModifiable recipeIndex;
+    private final Map<IRecipeDefinition, IntSet> recipeChannels;
+    private final Int2ObjectMap<Channel> channels;
+    @Nullable
+    private final Comparator<IRecipeDefinition> recipePriority;
+    private long versionCounter;
+
+    public RecipeIndexChanneled(IRecipeIndexModifiable recipeIndex) {
+        this(recipeIndex, null);
+    }
+
+    public RecipeIndexChanneled(IRecipeIndexModifiable recipeIndex, @Nullable Comparator<IRecipeDefinition> recipePriority) {
+        this.recipeIndex = recipeIndex;
+        this.recipePriority = recipePriority;
+        this.recipeChannels = Maps.newHashMap();
+        this.channels = new Int2ObjectOpenHashMap<>();
+        this.versionCounter = 0;
+    }
+
+    /**
+     * @param channel A channel id, or the wildcard channel.
+     * @return A view of the recipes that are available in the given channel.
+     */
+    public IRecipeIndexModifiable getChannel(int channel) {
+        Channel view = this.channels.get(channel);
+        if (view == null) {
+            view = new Channel(channel);
+            this.channels.put(channel, view);
+        }
+        return view;
+    }
+
+    /**
+     * @return The comparator that places recipes with a higher priority first, may be null.
+     */
+    @Nullable
+    public Comparator<IRecipeDefinition> getRecipePriority() {
+        return recipePriority;
+    }
+
+    /**
+     * Remove the view of the given channel.
+     * @param channel A channel id.
+     */
+    public void removeChannel(int channel) {
+        this.channels.remove(channel);
+    }
+
+    /**
+     * @param recipe A recipe.
+     * @param channel A channel id.
+     * @return If the given recipe is available in the given channel.
+     */
+    public boolean isRecipeInChannel(IRecipeDefinition recipe, int channel) {
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+            return this.recipeChannels.containsKey(recipe);
+        }
+        IntSet channels = this.recipeChannels.get(recipe);
+        return channels != null && channels.contains(channel);
+    }
+
+    /**
+     * Add the given recipes to the given channel at once.
+     * This only updates the version of the channel once.
+     * @param recipes Recipes.
+     * @param channel A channel id.
+     */
+    public void addRecipes(Collection<IRecipeDefinition> recipes, int channel) {
+        boolean changed = false;
+        for (IRecipeDefinition recipe : recipes) {
+            changed |= addRecipe(recipe, channel);
+        }
+        if (changed) {
+            ((Channel) getChannel(channel)).version = nextVersion();
+        }
+    }
+
+    /**
+     * Indicate that the priority of the given recipes may have changed,
+     * which changes the version of all views that contain any of these recipes.
+     * @param recipes Recipes.
+     */
+    public void onRecipePriorityChanged(Collection<IRecipeDefinition> recipes) {
+        if (this.recipePriority == null) {
+            return;
+        }
+        IntSet changedChannels = new IntOpenHashSet();
+        for (IRecipeDefinition recipe : recipes) {
+            IntSet channels = this.recipeChannels.get(recipe);
+            if (channels != null) {
+                changedChannels.addAll(channels);
+            }
+        }
+        if (!changedChannels.isEmpty()) {
+            changedChannels.add(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+            IntIterator it = changedChannels.iterator();
+            while (it.hasNext()) {
+                Channel view = this.channels.get(it.nextInt());
+                if (view != null) {
+                    view.version = nextVersion();
+                }
+            }
+        }
+    }
+
+    protected long nextVersion() {
+        return ++this.versionCounter;
+    }
+
+    protected boolean addRecipe(IRecipeDefinition recipe, int channel) {
+        IntSet channels = this.recipeChannels.get(recipe);
+        if (channels == null) {
+            // Most recipes are only available in a few channels
+            channels = new IntArraySet(1);
+            this.recipeChannels.put(recipe, channels);
+            this.recipeIndex.addRecipe(recipe);
+        }
+        return channels.add(channel);
+    }
+
+    protected boolean removeRecipe(IRecipeDefinition recipe, int channel) {
+        IntSet channels = this.recipeChannels.get(recipe);
+        if (channels == null || !channels.remove(channel)) {
+            return false;
+        }
+        if (channels.isEmpty()) {
+            this.recipeChannels.remove(recipe);
+            this.recipeIndex.removeRecipe(recipe);
+        }
+        return true;
+    }
+
+    /**
+     * A view over the recipes of a single channel.
+     */
+    protected class Channel implements IRecipeIndexModifiable {
+
+        private final int channel;
+        private final RecipeSortCache recipeSortCache;
+        private long version;
+        private long recipeIndexVersion;
+
+        public Channel(int channel) {
+            this.channel = channel;
+            this.recipeSortCache = new RecipeSortCache();
+            this.version = nextVersion();
+            this.recipeIndexVersion = recipeIndex.getVersion();
+        }
+
+        protected boolean isWildcard() {
+            return this.channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL;
+        }
+
+        @Override
+        public Set<IRecipeDefinition> getRecipes() {
+            if (isWildcard()) {
+                return recipeIndex.getRecipes();
+            }
+            return Sets.filter(recipeIndex.getRecipes(), recipe -> isRecipeInChannel(recipe, this.channel));
+        }
+
+        @Override
+        public <T, M> Iterator<IRecipeDefinition> getRecipes(IngredientComponent<T, M> outputType, T output, M matchCondition) {
+            if (recipePriority != null) {
+                return recipeSortCache.getRecipes(recipeIndex, getVersion(), () -> getRecipesUnsorted(outputType, output, matchCondition),
+                        recipePriority, outputType, output, matchCondition);
+            }
+            return getRecipesUnsorted(outputType, output, matchCondition);
+        }
+
+        protected <T, M> Iterator<IRecipeDefinition> getRecipesUnsorted(IngredientComponent<T, M> outputType, T output, M matchCondition) {
+            Iterator<IRecipeDefinition> recipes = recipeIndex.getRecipes(outputType, output, matchCondition);
+            if (!isWildcard()) {
+                recipes = Iterators.filter(recipes, recipe -> isRecipeInChannel(recipe, this.channel));
+            }
+            return recipes;
+        }
+
+        @Override
+        public <T, M> Iterator<IRecipeDefinition> getRecipesByInput(IngredientComponent<T, M> inputType, T input, M matchCondition) {
+            if (isWildcard()) {
+                return recipeIndex.getRecipesByInput(inputType, input, matchCondition);
+            }
+            return Iterators.filter(recipeIndex.getRecipesByInput(inputType, input, matchCondition),
+                    recipe -> isRecipeInChannel(recipe, this.channel));
+        }
+
+        @Override
+        public <T, M> long getOutputQuantity(IRecipeDefinition recipe, IngredientComponent<T, M> outputType, T output, M matchCondition) {
+            return recipeIndex.getOutputQuantity(recipe, outputType, output, matchCondition);
+        }
+
+        @Override
+        public long getVersion() {
+            // The wildcard view changes with the underlying index, but may also change due to recipe priority changes
+            if (isWildcard() && this.recipeIndexVersion != recipeIndex.getVersion()) {
+                this.recipeIndexVersion = recipeIndex.getVersion();
+                this.version = nextVersion();
+            }
+            // This is unique across all views, so that a recreated view for the same channel never reuses a version
+            return this.version;
+        }
+
+        /**
+         * Cycles are determined over the recipes of all channels,
+         * which may include recipes that are not cyclic within this channel alone.
+         * @param recipe A recipe.
+         * @return If the recipe is part of a cycle over all channels.
+         */
+        @Override
+        public boolean isRecipeCyclic(IRecipeDefinition recipe) {
+            return recipeIndex.isRecipeCyclic(recipe);
+        }
+
+        @Override
+        public void addRecipe(IRecipeDefinition recipe) {
+            if (RecipeIndexChanneled.this.addRecipe(recipe, this.channel)) {
+                this.version = nextVersion();
+            }
+        }
+
+        @Override
+        public void removeRecipe(IRecipeDefinition recipe) {
+            if (RecipeIndexChanneled.this.removeRecipe(recipe, this.channel)) {
+                this.version = nextVersion();
+            }
+        }
+    }
+
+}
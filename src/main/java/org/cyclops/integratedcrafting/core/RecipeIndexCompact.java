@@ -0,0 +1,269 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndexModifiable;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An implementation of {@link IRecipeIndex} and {@link IRecipeIndexModifiable}
+ * that is optimized for networks with many recipes.
+ *
+ * Recipes are interned to integer ids, and for each output instance,
+ * a sorted array of recipe ids is stored instead of a set of recipes.
+ * Ids of removed recipes are reused for new recipes.
+ *
+ * Recipe lookups return a single iterator that walks over the matching id arrays directly,
+ * and only allocates a set for filtering duplicates if multiple outputs match.
+ *
+ * @author rubensworks
+ */
+public class RecipeIndexCompact implements IRecipeIndexModifiable {
+
+    private static final int[] EMPTY_IDS = new int[0];
+
+    private final Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, int[]>> recipeComponentIndexes;
+    private final Object2IntMap<IRecipeDefinition> recipeIds;
+    private final ObjectArrayList<IRecipeDefinition> recipesById;
+    private final ObjectArrayList<RecipeOutputQuantities> outputQuantitiesById;
+    private final IntArrayList freeIds;
+    private final RecipeInputIndex recipeInputIndex;
+    private long version;
+    private Set<IRecipeDefinition> cyclicRecipes;
+    private long cyclicRecipesVersion;
+
+    public RecipeIndexCompact() {
+        this.recipeComponentIndexes = Maps.newIdentityHashMap();
+        this.recipeIds = new Object2IntOpenHashMap<>();
+        this.recipeIds.defaultReturnValue(-1);
+        this.recipesById = new ObjectArrayList<>();
+        this.outputQuantitiesById = new ObjectArrayList<>();
+        this.freeIds = new IntArrayList();
+        this.recipeInputIndex = new RecipeInputIndex();
+        this.version = 0;
+        this.cyclicRecipes = null;
+        this.cyclicRecipesVersion = -1;
+    }
+
+    @Override
+    public Set<IRecipeDefinition> getRecipes() {
+        return Collections.unmodifiableSet(recipeIds.keySet());
+    }
+
+    @Override
+    public <T, M> RecipeIterator<T> getRecipes(IngredientComponent<T, M> outputType, T output, M matchCondition) {
+        IIngredientMapMutable<T, M, int[]> index = (IIngredientMapMutable<T, M, int[]>) recipeComponentIndexes.get(outputType);
+        return new RecipeIterator<>(index != null ? index.iterator(output, matchCondition) : null);
+    }
+
+    @Override
+    public <T, M> Iterator<IRecipeDefinition> getRecipesByInput(IngredientComponent<T, M> inputType, T input, M matchCondition) {
+        return recipeInputIndex.getRecipes(inputType, input, matchCondition);
+    }
+
+    @Override
+    public <T, M> long getOutputQuantity(IRecipeDefinition recipe, IngredientComponent<T, M> outputType, T output, M matchCondition) {
+        int id = recipeIds.getInt(recipe);
+        RecipeOutputQuantities outputQuantities = id >= 0 ? outputQuantitiesById.get(id) : new RecipeOutputQuantities(recipe);
+        return outputQuantities.getQuantity(outputType, output, matchCondition);
+    }
+
+    /**
+     * @param recipe A recipe.
+     * @return The id of the given recipe, or -1 if it is not present in this index.
+     */
+    public int getRecipeId(IRecipeDefinition recipe) {
+        return recipeIds.getInt(recipe);
+    }
+
+    /**
+     * @param id A recipe id.
+     * @return The recipe with the given id, or null if no such recipe exists.
+     */
+    @Nullable
+    public IRecipeDefinition getRecipe(int id) {
+        return id >= 0 && id < recipesById.size() ? recipesById.get(id) : null;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean isRecipeCyclic(IRecipeDefinition recipe) {
+        return getCyclicRecipes().contains(recipe);
+    }
+
+    protected synchronized Set<IRecipeDefinition> getCyclicRecipes() {
+        if (cyclicRecipes == null || cyclicRecipesVersion != version) {
+            cyclicRecipes = RecipeIndexDefault.calculateCyclicRecipes(this);
+            cyclicRecipesVersion = version;
+        }
+        return cyclicRecipes;
+    }
+
+    @Override
+    public void addRecipe(IRecipeDefinition recipe) {
+        if (recipeIds.containsKey(recipe)) {
+            return;
+        }
+        int id;
+        if (freeIds.isEmpty()) {
+            id = recipesById.size();
+            recipesById.add(recipe);
+            outputQuantitiesById.add(new RecipeOutputQuantities(recipe));
+        } else {
+            id = freeIds.popInt();
+            recipesById.set(id, recipe);
+            outputQuantitiesById.set(id, new RecipeOutputQuantities(recipe));
+        }
+        recipeIds.put(recipe, id);
+        version++;
+        recipeInputIndex.addRecipe(recipe);
+        for (IngredientComponent<?, ?> recipeComponent : recipe.getOutput().getComponents()) {
+            IIngredientMapMutable<?, ?, int[]> index = recipeComponentIndexes.computeIfAbsent(recipeComponent, this::initializeIndex);
+            addRecipeForComponent(index, recipe, id);
+        }
+    }
+
+    protected <T, M> IIngredientMapMutable<T, M, int[]> initializeIndex(IngredientComponent<T, M> recipeComponent) {
+        return new IngredientHashMap<>(recipeComponent);
+    }
+
+    protected <T, M> void addRecipeForComponent(IIngredientMapMutable<T, M, int[]> index, IRecipeDefinition recipe, int id) {
+        for (T instance : recipe.getOutput().getInstances(index.getComponent())) {
+            int[] ids = index.get(instance);
+            if (ids == null) {
+                ids = EMPTY_IDS;
+            }
+            int position = Arrays.binarySearch(ids, id);
+            if (position < 0) {
+                position = -position - 1;
+                int[] newIds = new int[ids.length + 1];
+                System.arraycopy(ids, 0, newIds, 0, position);
+                newIds[position] = id;
+                System.arraycopy(ids, position, newIds, position + 1, ids.length - position);
+                index.put(instance, newIds);
+            }
+        }
+    }
+
+    @Override
+    public void removeRecipe(IRecipeDefinition recipe) {
+        int id = recipeIds.removeInt(recipe);
+        if (id < 0) {
+            return;
+        }
+        recipesById.set(id, null);
+        outputQuantitiesById.set(id, null);
+        freeIds.add(id);
+        version++;
+        recipeInputIndex.removeRecipe(recipe);
+        for (IngredientComponent<?, ?> recipeComponent : recipe.getOutput().getComponents()) {
+            IIngredientMapMutable<?, ?, int[]> index = recipeComponentIndexes.get(recipeComponent);
+            if (index != null) {
+                removeRecipeForComponent(index, recipe, id);
+            }
+        }
+    }
+
+    protected <T, M> void removeRecipeForComponent(IIngredientMapMutable<T, M, int[]> index, IRecipeDefinition recipe, int id) {
+        for (T instance : recipe.getOutput().getInstances(index.getComponent())) {
+            int[] ids = index.get(instance);
+            if (ids != null) {
+                int position = Arrays.binarySearch(ids, id);
+                if (position >= 0) {
+                    if (ids.length == 1) {
+                        index.remove(instance);
+                    } else {
+                        int[] newIds = new int[ids.length - 1];
+                        System.arraycopy(ids, 0, newIds, 0, position);
+                        System.arraycopy(ids, position + 1, newIds, position, ids.length - position - 1);
+                        index.put(instance, newIds);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterates over the recipes of all matching outputs, without returning duplicates.
+     * @param <T> The instance type.
+     */
+    public class RecipeIterator<T> implements Iterator<IRecipeDefinition> {
+
+        @Nullable
+        private final Iterator<Map.Entry<T, int[]>> entries;
+        private int[] ids;
+        private int position;
+        private IntSet returnedIds;
+        private int nextId;
+
+        public RecipeIterator(@Nullable Iterator<Map.Entry<T, int[]>> entries) {
+            this.entries = entries;
+            this.ids = EMPTY_IDS;
+            this.position = 0;
+            this.returnedIds = null;
+            this.nextId = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextId < 0) {
+                if (position < ids.length) {
+                    int id = ids[position++];
+                    if (returnedIds == null || returnedIds.add(id)) {
+                        nextId = id;
+                    }
+                } else if (entries != null && entries.hasNext()) {
+                    int[] nextIds = entries.next().getValue();
+                    // Only start filtering duplicates once multiple outputs match
+                    if (ids.length > 0 && returnedIds == null) {
+                        returnedIds = new IntOpenHashSet(ids);
+                    }
+                    ids = nextIds;
+                    position = 0;
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return The id of the next recipe.
+         */
+        public int nextId() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int id = nextId;
+            nextId = -1;
+            return id;
+        }
+
+        @Override
+        public IRecipeDefinition next() {
+            return recipesById.get(nextId());
+        }
+    }
+
+}
@@ -1,9 +1,16 @@
 package org.cyclops.integratedcrafting.core;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.apache.commons.lang3.tuple.Pair;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IPrototypedIngredientAlternatives;
 import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IPrototypedIngredient;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.cyclopscore.datastructure.DistinctIterator;
 import org.cyclops.cyclopscore.datastructure.MultitransformIterator;
@@ -13,28 +20,48 @@ import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
 import org.cyclops.integratedcrafting.api.recipe.IRecipeIndexModifiable;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * A default implementation of {@link IRecipeIndex} and {@link IRecipeIndexModifiable}.
+ *
+ * The recipes that are part of a cycle in the recipe graph are determined
+ * by calculating the strongly connected components of this graph.
+ * This is done lazily, once after each batch of recipe changes.
+ *
+ * Lookups with match conditions that ignore part of the output, such as its data,
+ * are answered via an {@link IngredientCategoryIndex} instead of by visiting all outputs.
  * @author rubensworks
  */
 public class RecipeIndexDefault implements IRecipeIndexModifiable {
 
     private final Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Set<IRecipeDefinition>>> recipeComponentIndexes;
-    private final Set<IRecipeDefinition> recipes;
+    private final Map<IngredientComponent<?, ?>, IngredientCategoryIndex<?, ?>> recipeComponentCategoryIndexes;
+    private final RecipeInputIndex recipeInputIndex;
+    private final Map<IRecipeDefinition, RecipeOutputQuantities> recipes;
+    private long version;
+    private Set<IRecipeDefinition> cyclicRecipes;
+    private long cyclicRecipesVersion;
 
     public RecipeIndexDefault() {
         this.recipeComponentIndexes = Maps.newIdentityHashMap();
-        this.recipes = Sets.newHashSet();
+        this.recipeComponentCategoryIndexes = Maps.newIdentityHashMap();
+        this.recipeInputIndex = new RecipeInputIndex();
+        this.recipes = Maps.newHashMap();
+        this.version = 0;
+        this.cyclicRecipes = null;
+        this.cyclicRecipesVersion = -1;
     }
 
     @Override
     public Set<IRecipeDefinition> getRecipes() {
-        return Collections.unmodifiableSet(recipes);
+        return Collections.unmodifiableSet(recipes.keySet());
     }
 
     @Override
@@ -43,9 +70,147 @@ public class RecipeIndexDefault implements IRecipeIndexModifiable {
         if (index == null) {
             return Iterators.forArray();
         }
+        IIngredientMapMutable<T, M, Set<IRecipeDefinition>> indexTyped = (IIngredientMapMutable<T, M, Set<IRecipeDefinition>>) index;
+        IngredientCategoryIndex<T, M> categoryIndex = (IngredientCategoryIndex<T, M>) recipeComponentCategoryIndexes.get(outputType);
+        Iterator<T> outputs = categoryIndex != null ? categoryIndex.getInstances(output, matchCondition) : null;
+        if (outputs != null) {
+            return new DistinctIterator<>(MultitransformIterator.flattenIterableIterator(
+                    Iterators.transform(outputs, indexTyped::get)), true);
+        }
         return new DistinctIterator<>(MultitransformIterator.flattenIterableIterator(
-                Iterators.transform(((IIngredientMapMutable<T, M, Set<IRecipeDefinition>>) index)
-                        .iterator(output, matchCondition), (entry) -> entry.getValue())), true);
+                Iterators.transform(indexTyped.iterator(output, matchCondition), (entry) -> entry.getValue())), true);
+    }
+
+    @Override
+    public <T, M> Iterator<IRecipeDefinition> getRecipesByInput(IngredientComponent<T, M> inputType, T input, M matchCondition) {
+        return recipeInputIndex.getRecipes(inputType, input, matchCondition);
+    }
+
+    @Override
+    public <T, M> long getOutputQuantity(IRecipeDefinition recipe, IngredientComponent<T, M> outputType, T output, M matchCondition) {
+        RecipeOutputQuantities outputQuantities = recipes.get(recipe);
+        if (outputQuantities == null) {
+            outputQuantities = new RecipeOutputQuantities(recipe);
+        }
+        return outputQuantities.getQuantity(outputType, output, matchCondition);
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean isRecipeCyclic(IRecipeDefinition recipe) {
+        return getCyclicRecipes().contains(recipe);
+    }
+
+    protected synchronized Set<IRecipeDefinition> getCyclicRecipes() {
+        if (cyclicRecipes == null || cyclicRecipesVersion != version) {
+            cyclicRecipes = calculateCyclicRecipes();
+            cyclicRecipesVersion = version;
+        }
+        return cyclicRecipes;
+    }
+
+    protected Set<IRecipeDefinition> calculateCyclicRecipes() {
+        return calculateCyclicRecipes(this);
+    }
+
+    /**
+     * Find all recipes that can (indirectly) depend on themselves,
+     * using an iterative version of Tarjan's strongly connected components algorithm.
+     * @param recipeIndex A recipe index.
+     * @return The set of recipes that are part of a cycle.
+     */
+    public static Set<IRecipeDefinition> calculateCyclicRecipes(IRecipeIndex recipeIndex) {
+        Set<IRecipeDefinition> recipes = recipeIndex.getRecipes();
+        Map<IRecipeDefinition, List<IRecipeDefinition>> dependencies = Maps.newHashMapWithExpectedSize(recipes.size());
+        for (IRecipeDefinition recipe : recipes) {
+            dependencies.put(recipe, getRecipeDependencies(recipeIndex, recipe));
+        }
+
+        Set<IRecipeDefinition> cyclicRecipes = Sets.newHashSet();
+        Object2IntMap<IRecipeDefinition> indexes = new Object2IntOpenHashMap<>(recipes.size());
+        indexes.defaultReturnValue(-1);
+        Object2IntMap<IRecipeDefinition> lowLinks = new Object2IntOpenHashMap<>(recipes.size());
+        Set<IRecipeDefinition> onStack = Sets.newHashSet();
+        Deque<IRecipeDefinition> stack = new ArrayDeque<>();
+        Deque<Pair<IRecipeDefinition, Iterator<IRecipeDefinition>>> callStack = new ArrayDeque<>();
+        int index = 0;
+        for (IRecipeDefinition root : recipes) {
+            if (indexes.getInt(root) >= 0) {
+                continue;
+            }
+            indexes.put(root, index);
+            lowLinks.put(root, index);
+            index++;
+            stack.push(root);
+            onStack.add(root);
+            callStack.push(Pair.of(root, dependencies.get(root).iterator()));
+            while (!callStack.isEmpty()) {
+                IRecipeDefinition recipe = callStack.peek().getLeft();
+                Iterator<IRecipeDefinition> it = callStack.peek().getRight();
+                if (it.hasNext()) {
+                    IRecipeDefinition dependency = it.next();
+                    int dependencyIndex = indexes.getInt(dependency);
+                    if (dependencyIndex < 0) {
+                        indexes.put(dependency, index);
+                        lowLinks.put(dependency, index);
+                        index++;
+                        stack.push(dependency);
+                        onStack.add(dependency);
+                        callStack.push(Pair.of(dependency, dependencies.get(dependency).iterator()));
+                    } else if (onStack.contains(dependency)) {
+                        lowLinks.put(recipe, Math.min(lowLinks.getInt(recipe), dependencyIndex));
+                    }
+                } else {
+                    callStack.pop();
+                    if (!callStack.isEmpty()) {
+                        IRecipeDefinition parent = callStack.peek().getLeft();
+                        lowLinks.put(parent, Math.min(lowLinks.getInt(parent), lowLinks.getInt(recipe)));
+                    }
+                    if (lowLinks.getInt(recipe) == indexes.getInt(recipe)) {
+                        // This recipe is the root of a strongly connected component
+                        List<IRecipeDefinition> component = Lists.newArrayList();
+                        IRecipeDefinition member;
+                        do {
+                            member = stack.pop();
+                            onStack.remove(member);
+                            component.add(member);
+                        } while (!member.equals(recipe));
+                        if (component.size() > 1 || dependencies.get(recipe).contains(recipe)) {
+                            cyclicRecipes.addAll(component);
+                        }
+                    }
+                }
+            }
+        }
+        return cyclicRecipes;
+    }
+
+    /**
+     * @param recipeIndex A recipe index.
+     * @param recipe A recipe.
+     * @return All recipes in the index that produce an ingredient that can be used as input of the given recipe.
+     */
+    protected static List<IRecipeDefinition> getRecipeDependencies(IRecipeIndex recipeIndex, IRecipeDefinition recipe) {
+        List<IRecipeDefinition> dependencies = Lists.newArrayList();
+        for (IngredientComponent<?, ?> inputComponent : recipe.getInputComponents()) {
+            addRecipeDependenciesForComponent(recipeIndex, inputComponent, recipe, dependencies);
+        }
+        return dependencies;
+    }
+
+    protected static <T, M> void addRecipeDependenciesForComponent(IRecipeIndex recipeIndex, IngredientComponent<T, M> inputComponent,
+                                                                   IRecipeDefinition recipe, List<IRecipeDefinition> dependencies) {
+        IIngredientMatcher<T, M> matcher = inputComponent.getMatcher();
+        for (IPrototypedIngredientAlternatives<T, M> inputAlternatives : recipe.getInputs(inputComponent)) {
+            for (IPrototypedIngredient<T, M> inputPrototype : inputAlternatives.getAlternatives()) {
+                Iterators.addAll(dependencies, recipeIndex.getRecipes(inputComponent, inputPrototype.getPrototype(),
+                        matcher.withoutCondition(inputPrototype.getCondition(), inputComponent.getPrimaryQuantifier().getMatchCondition())));
+            }
+        }
     }
 
     @Nullable
@@ -55,22 +220,30 @@ public class RecipeIndexDefault implements IRecipeIndexModifiable {
 
     @Override
     public void addRecipe(IRecipeDefinition prioritizedRecipe) {
-        recipes.add(prioritizedRecipe);
+        if (recipes.containsKey(prioritizedRecipe)) {
+            return;
+        }
+        recipes.put(prioritizedRecipe, new RecipeOutputQuantities(prioritizedRecipe));
+        version++;
+        recipeInputIndex.addRecipe(prioritizedRecipe);
         for (IngredientComponent<?, ?> recipeComponent : prioritizedRecipe.getOutput().getComponents()) {
             IIngredientMapMutable<?, ?, Set<IRecipeDefinition>> index = recipeComponentIndexes.computeIfAbsent(recipeComponent, this::initializeIndex);
             if (index != null) {
-                addRecipeForComponent(index, prioritizedRecipe);
+                IngredientCategoryIndex<?, ?> categoryIndex = recipeComponentCategoryIndexes.computeIfAbsent(recipeComponent, IngredientCategoryIndex::new);
+                addRecipeForComponent(index, (IngredientCategoryIndex) categoryIndex, prioritizedRecipe);
             }
         }
     }
 
     protected <T, M> void addRecipeForComponent(IIngredientMapMutable<T, M, Set<IRecipeDefinition>> index,
+                                                IngredientCategoryIndex<T, M> categoryIndex,
                                                 IRecipeDefinition prioritizedRecipe) {
         for (T instance : prioritizedRecipe.getOutput().getInstances(index.getComponent())) {
             Set<IRecipeDefinition> set = index.get(instance);
             if (set == null) {
                 set = Sets.newHashSet();
                 index.put(instance, set);
+                categoryIndex.add(instance);
             }
             set.add(prioritizedRecipe);
         }
@@ -78,16 +251,21 @@ public class RecipeIndexDefault implements IRecipeIndexModifiable {
 
     @Override
     public void removeRecipe(IRecipeDefinition prioritizedRecipe) {
-        recipes.remove(prioritizedRecipe);
+        if (recipes.remove(prioritizedRecipe) == null) {
+            return;
+        }
+        version++;
+        recipeInputIndex.removeRecipe(prioritizedRecipe);
         for (IngredientComponent<?, ?> recipeComponent : prioritizedRecipe.getOutput().getComponents()) {
             IIngredientMapMutable<?, ?, Set<IRecipeDefinition>> index = recipeComponentIndexes.get(recipeComponent);
             if (index != null) {
-                removeRecipeForComponent(index, prioritizedRecipe);
+                removeRecipeForComponent(index, (IngredientCategoryIndex) recipeComponentCategoryIndexes.get(recipeComponent), prioritizedRecipe);
             }
         }
     }
 
     protected <T, M> void removeRecipeForComponent(IIngredientMapMutable<T, M, Set<IRecipeDefinition>> index,
+                                                   IngredientCategoryIndex<T, M> categoryIndex,
                                                    IRecipeDefinition prioritizedRecipe) {
         for (T instance : prioritizedRecipe.getOutput().getInstances(index.getComponent())) {
             Set<IRecipeDefinition> set = index.get(instance);
@@ -95,6 +273,7 @@ public class RecipeIndexDefault implements IRecipeIndexModifiable {
                 if (set.remove(prioritizedRecipe)) {
                     if (set.isEmpty()) {
                         index.remove(instance);
+                        categoryIndex.remove(instance);
                     }
                 }
             }
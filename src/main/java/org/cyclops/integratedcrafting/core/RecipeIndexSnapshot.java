@@ -0,0 +1,163 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable copy of a recipe index at a certain version.
+ *
+ * Once created, a snapshot is never modified, so it can safely be read from any thread,
+ * while the original index keeps being modified on the server thread.
+ * The version of a snapshot equals the version of the original index at the time of creation,
+ * so it can be used as cache key for anything that was derived from the snapshot.
+ *
+ * Recipe cycles are not recalculated for the snapshot,
+ * but are taken over from the (cached) cycles of the original index.
+ * Similarly, if a recipe priority is given, it is evaluated once when the snapshot is created,
+ * and the sorted recipes of each output are cached.
+ *
+ * As creating a snapshot copies all recipes,
+ * the previous snapshot of an index should be passed to {@link #of(IRecipeIndex, Comparator, RecipeIndexSnapshot)},
+ * so that it is reused as long as the index has not changed.
+ *
+ * @author rubensworks
+ */
+public class RecipeIndexSnapshot implements IRecipeIndex {
+
+    private final RecipeIndexDefault recipeIndex;
+    private final long version;
+    private final Set<IRecipeDefinition> cyclicRecipes;
+    @Nullable
+    private final Comparator<IRecipeDefinition> recipePriority;
+    @Nullable
+    private final Comparator<IRecipeDefinition> originalRecipePriority;
+    private final RecipeSortCache recipeSortCache;
+
+    protected RecipeIndexSnapshot(IRecipeIndex recipeIndex, @Nullable Comparator<IRecipeDefinition> recipePriority) {
+        this.recipeIndex = new RecipeIndexDefault();
+        this.version = recipeIndex.getVersion();
+        ImmutableSet.Builder<IRecipeDefinition> cyclicRecipes = ImmutableSet.builder();
+        for (IRecipeDefinition recipe : recipeIndex.getRecipes()) {
+            this.recipeIndex.addRecipe(recipe);
+            if (recipeIndex.isRecipeCyclic(recipe)) {
+                cyclicRecipes.add(recipe);
+            }
+        }
+        this.cyclicRecipes = cyclicRecipes.build();
+        this.recipeSortCache = new RecipeSortCache();
+        this.originalRecipePriority = recipePriority;
+
+        // Rank all recipes upfront, as the given priority may not be safe to call from other threads
+        if (recipePriority != null) {
+            List<IRecipeDefinition> sortedRecipes = Lists.newArrayList(recipeIndex.getRecipes());
+            sortedRecipes.sort(recipePriority);
+            Object2IntMap<IRecipeDefinition> recipeRanks = new Object2IntOpenHashMap<>(sortedRecipes.size());
+            for (int i = 0; i < sortedRecipes.size(); i++) {
+                IRecipeDefinition recipe = sortedRecipes.get(i);
+                recipeRanks.put(recipe, i > 0 && recipePriority.compare(sortedRecipes.get(i - 1), recipe) == 0
+                        ? recipeRanks.getInt(sortedRecipes.get(i - 1)) : i);
+            }
+            this.recipePriority = Comparator.comparingInt(recipeRanks::getInt);
+        } else {
+            this.recipePriority = null;
+        }
+    }
+
+    /**
+     * Create a snapshot of the given recipe index.
+     * This must be called on the thread that modifies the given index.
+     * @param recipeIndex A recipe index.
+     * @return A snapshot of the index, or the index itself if it was a snapshot already.
+     */
+    public static RecipeIndexSnapshot of(IRecipeIndex recipeIndex) {
+        return of(recipeIndex, null);
+    }
+
+    /**
+     * Create a snapshot of the given recipe index, where recipe lookups are sorted by the given priority.
+     * This must be called on the thread that modifies the given index.
+     * @param recipeIndex A recipe index.
+     * @param recipePriority A comparator that places recipes with a higher priority first, may be null.
+     * @return A snapshot of the index, or the index itself if it was a snapshot already.
+     */
+    public static RecipeIndexSnapshot of(IRecipeIndex recipeIndex, @Nullable Comparator<IRecipeDefinition> recipePriority) {
+        return of(recipeIndex, recipePriority, null);
+    }
+
+    /**
+     * Create a snapshot of the given recipe index, where recipe lookups are sorted by the given priority,
+     * unless the given previous snapshot of the same index is still up-to-date.
+     * This must be called on the thread that modifies the given index.
+     * @param recipeIndex A recipe index.
+     * @param recipePriority A comparator that places recipes with a higher priority first, may be null.
+     * @param previousSnapshot The last snapshot that was created of the given index, may be null.
+     * @return A snapshot of the index, which is the previous snapshot if the index has not changed since then,
+     *         or the index itself if it was a snapshot already.
+     */
+    public static RecipeIndexSnapshot of(IRecipeIndex recipeIndex, @Nullable Comparator<IRecipeDefinition> recipePriority,
+                                         @Nullable RecipeIndexSnapshot previousSnapshot) {
+        if (recipeIndex instanceof RecipeIndexSnapshot) {
+            return (RecipeIndexSnapshot) recipeIndex;
+        }
+        if (previousSnapshot != null && previousSnapshot.isUpToDate(recipeIndex, recipePriority)) {
+            return previousSnapshot;
+        }
+        return new RecipeIndexSnapshot(recipeIndex, recipePriority);
+    }
+
+    /**
+     * @param recipeIndex The recipe index this snapshot was created of.
+     * @param recipePriority The recipe priority of the index.
+     * @return If this snapshot still equals the given index, which can only be determined if the index tracks its version.
+     */
+    public boolean isUpToDate(IRecipeIndex recipeIndex, @Nullable Comparator<IRecipeDefinition> recipePriority) {
+        return this.version != IRecipeIndex.VERSION_UNTRACKED && this.version == recipeIndex.getVersion()
+                && this.originalRecipePriority == recipePriority;
+    }
+
+    @Override
+    public Set<IRecipeDefinition> getRecipes() {
+        return recipeIndex.getRecipes();
+    }
+
+    @Override
+    public <T, M> Iterator<IRecipeDefinition> getRecipes(IngredientComponent<T, M> outputType, T output, M matchCondition) {
+        if (recipePriority != null) {
+            return recipeSortCache.getRecipes(recipeIndex, version, () -> recipeIndex.getRecipes(outputType, output, matchCondition),
+                    recipePriority, outputType, output, matchCondition);
+        }
+        return recipeIndex.getRecipes(outputType, output, matchCondition);
+    }
+
+    @Override
+    public <T, M> Iterator<IRecipeDefinition> getRecipesByInput(IngredientComponent<T, M> inputType, T input, M matchCondition) {
+        return recipeIndex.getRecipesByInput(inputType, input, matchCondition);
+    }
+
+    @Override
+    public <T, M> long getOutputQuantity(IRecipeDefinition recipe, IngredientComponent<T, M> outputType, T output, M matchCondition) {
+        return recipeIndex.getOutputQuantity(recipe, outputType, output, matchCondition);
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean isRecipeCyclic(IRecipeDefinition recipe) {
+        return cyclicRecipes.contains(recipe);
+    }
+
+}
@@ -0,0 +1,146 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IPrototypedIngredientAlternatives;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IPrototypedIngredient;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DistinctIterator;
+import org.cyclops.cyclopscore.datastructure.MultitransformIterator;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes recipes by the prototypes of all of their input alternatives,
+ * so that the recipes consuming a certain ingredient can be found without visiting all recipes.
+ *
+ * Input prototypes with a non-exact match condition are indexed by that condition,
+ * so that their recipes are also found for inputs that only match under that condition.
+ *
+ * This is used by recipe indexes in addition to their output index.
+ *
+ * @author rubensworks
+ */
+public class RecipeInputIndex {
+
+    private final Map<IngredientComponent<?, ?>, IIngredientMapMutable<?, ?, Set<IRecipeDefinition>>> recipeComponentIndexes;
+    private final Map<IngredientComponent<?, ?>, IngredientCategoryIndex<?, ?>> recipeComponentCategoryIndexes;
+    private final Map<IngredientComponent<?, ?>, IngredientMatchConditionIndex<?, ?, IRecipeDefinition>> recipeComponentConditionIndexes;
+
+    public RecipeInputIndex() {
+        this.recipeComponentIndexes = Maps.newIdentityHashMap();
+        this.recipeComponentCategoryIndexes = Maps.newIdentityHashMap();
+        this.recipeComponentConditionIndexes = Maps.newIdentityHashMap();
+    }
+
+    /**
+     * Find recipes that have an input alternative matching the given instance,
+     * either under the given condition, or under the condition of that input alternative.
+     * @param inputType The recipe component type.
+     * @param input An input ingredient instance.
+     * @param matchCondition A condition under which the matching should be done.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter, may be Void.
+     * @return An iterator of the recipes that may consume the given input.
+     */
+    public <T, M> Iterator<IRecipeDefinition> getRecipes(IngredientComponent<T, M> inputType, T input, M matchCondition) {
+        IIngredientMapMutable<T, M, Set<IRecipeDefinition>> index = (IIngredientMapMutable<T, M, Set<IRecipeDefinition>>) recipeComponentIndexes.get(inputType);
+        if (index == null) {
+            return Iterators.forArray();
+        }
+        IngredientCategoryIndex<T, M> categoryIndex = (IngredientCategoryIndex<T, M>) recipeComponentCategoryIndexes.get(inputType);
+        IngredientMatchConditionIndex<T, M, IRecipeDefinition> conditionIndex = (IngredientMatchConditionIndex<T, M, IRecipeDefinition>) recipeComponentConditionIndexes.get(inputType);
+        Iterator<T> inputs = categoryIndex.getInstances(input, matchCondition);
+        Iterator<IRecipeDefinition> recipes;
+        if (inputs != null) {
+            recipes = MultitransformIterator.flattenIterableIterator(Iterators.transform(inputs, index::get));
+        } else {
+            recipes = MultitransformIterator.flattenIterableIterator(
+                    Iterators.transform(index.iterator(input, matchCondition), (entry) -> entry.getValue()));
+        }
+        if (!conditionIndex.isEmpty()) {
+            recipes = Iterators.concat(recipes, conditionIndex.getValues(input));
+        }
+        return new DistinctIterator<>(recipes, true);
+    }
+
+    /**
+     * Add the given recipe to this index.
+     * @param recipe A recipe.
+     */
+    public void addRecipe(IRecipeDefinition recipe) {
+        for (IngredientComponent<?, ?> recipeComponent : recipe.getInputComponents()) {
+            IIngredientMapMutable<?, ?, Set<IRecipeDefinition>> index = recipeComponentIndexes.computeIfAbsent(recipeComponent, this::initializeIndex);
+            IngredientCategoryIndex<?, ?> categoryIndex = recipeComponentCategoryIndexes.computeIfAbsent(recipeComponent, IngredientCategoryIndex::new);
+            IngredientMatchConditionIndex<?, ?, IRecipeDefinition> conditionIndex = recipeComponentConditionIndexes.computeIfAbsent(recipeComponent, IngredientMatchConditionIndex::new);
+            addRecipeForComponent(index, (IngredientCategoryIndex) categoryIndex, (IngredientMatchConditionIndex) conditionIndex, recipe);
+        }
+    }
+
+    protected <T, M> IIngredientMapMutable<T, M, Set<IRecipeDefinition>> initializeIndex(IngredientComponent<T, M> recipeComponent) {
+        return new IngredientHashMap<>(recipeComponent);
+    }
+
+    protected <T, M> void addRecipeForComponent(IIngredientMapMutable<T, M, Set<IRecipeDefinition>> index,
+                                                IngredientCategoryIndex<T, M> categoryIndex,
+                                                IngredientMatchConditionIndex<T, M, IRecipeDefinition> conditionIndex,
+                                                IRecipeDefinition recipe) {
+        for (IPrototypedIngredientAlternatives<T, M> inputAlternatives : recipe.getInputs(index.getComponent())) {
+            for (IPrototypedIngredient<T, M> inputPrototype : inputAlternatives.getAlternatives()) {
+                if (!IngredientMatchConditionIndex.isExact(index.getComponent(), inputPrototype.getCondition())) {
+                    conditionIndex.add(inputPrototype.getPrototype(), inputPrototype.getCondition(), recipe);
+                    continue;
+                }
+                T instance = inputPrototype.getPrototype();
+                Set<IRecipeDefinition> set = index.get(instance);
+                if (set == null) {
+                    set = Sets.newHashSet();
+                    index.put(instance, set);
+                    categoryIndex.add(instance);
+                }
+                set.add(recipe);
+            }
+        }
+    }
+
+    /**
+     * Remove the given recipe from this index.
+     * @param recipe A recipe.
+     */
+    public void removeRecipe(IRecipeDefinition recipe) {
+        for (IngredientComponent<?, ?> recipeComponent : recipe.getInputComponents()) {
+            IIngredientMapMutable<?, ?, Set<IRecipeDefinition>> index = recipeComponentIndexes.get(recipeComponent);
+            if (index != null) {
+                removeRecipeForComponent(index, (IngredientCategoryIndex) recipeComponentCategoryIndexes.get(recipeComponent),
+                        (IngredientMatchConditionIndex) recipeComponentConditionIndexes.get(recipeComponent), recipe);
+            }
+        }
+    }
+
+    protected <T, M> void removeRecipeForComponent(IIngredientMapMutable<T, M, Set<IRecipeDefinition>> index,
+                                                   IngredientCategoryIndex<T, M> categoryIndex,
+                                                   IngredientMatchConditionIndex<T, M, IRecipeDefinition> conditionIndex,
+                                                   IRecipeDefinition recipe) {
+        for (IPrototypedIngredientAlternatives<T, M> inputAlternatives : recipe.getInputs(index.getComponent())) {
+            for (IPrototypedIngredient<T, M> inputPrototype : inputAlternatives.getAlternatives()) {
+                if (!IngredientMatchConditionIndex.isExact(index.getComponent(), inputPrototype.getCondition())) {
+                    conditionIndex.remove(inputPrototype.getPrototype(), inputPrototype.getCondition(), recipe);
+                    continue;
+                }
+                T instance = inputPrototype.getPrototype();
+                Set<IRecipeDefinition> set = index.get(instance);
+                if (set != null && set.remove(recipe) && set.isEmpty()) {
+                    index.remove(instance);
+                    categoryIndex.remove(instance);
+                }
+            }
+        }
+    }
+
+}
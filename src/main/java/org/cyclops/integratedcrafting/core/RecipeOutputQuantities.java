@@ -0,0 +1,69 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Maps;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The precomputed output instances and their quantities of a single recipe.
+ *
+ * Recipe indexes create this once per recipe,
+ * so that the output quantity of a recipe for a requested instance
+ * does not have to be recalculated from the recipe outputs for each crafting job calculation.
+ *
+ * @author rubensworks
+ */
+public class RecipeOutputQuantities {
+
+    private final Map<IngredientComponent<?, ?>, Object[]> instances;
+    private final Map<IngredientComponent<?, ?>, long[]> quantities;
+
+    public RecipeOutputQuantities(IRecipeDefinition recipe) {
+        this.instances = Maps.newIdentityHashMap();
+        this.quantities = Maps.newIdentityHashMap();
+        for (IngredientComponent<?, ?> ingredientComponent : recipe.getOutput().getComponents()) {
+            addComponent(recipe, ingredientComponent);
+        }
+    }
+
+    protected <T, M> void addComponent(IRecipeDefinition recipe, IngredientComponent<T, M> ingredientComponent) {
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        List<T> outputs = recipe.getOutput().getInstances(ingredientComponent);
+        Object[] instances = outputs.toArray();
+        long[] quantities = new long[instances.length];
+        for (int i = 0; i < instances.length; i++) {
+            quantities[i] = matcher.getQuantity((T) instances[i]);
+        }
+        this.instances.put(ingredientComponent, instances);
+        this.quantities.put(ingredientComponent, quantities);
+    }
+
+    /**
+     * @param ingredientComponent The ingredient component type of the instance.
+     * @param instance An instance.
+     * @param matchCondition The condition under which outputs should match the instance.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The summed quantity of all recipe outputs that match the given instance.
+     */
+    public <T, M> long getQuantity(IngredientComponent<T, M> ingredientComponent, T instance, M matchCondition) {
+        Object[] instances = this.instances.get(ingredientComponent);
+        if (instances == null) {
+            return 0;
+        }
+        long[] quantities = this.quantities.get(ingredientComponent);
+        IIngredientMatcher<T, M> matcher = ingredientComponent.getMatcher();
+        long quantity = 0;
+        for (int i = 0; i < instances.length; i++) {
+            if (matcher.matches((T) instances[i], instance, matchCondition)) {
+                quantity += quantities[i];
+            }
+        }
+        return quantity;
+    }
+
+}
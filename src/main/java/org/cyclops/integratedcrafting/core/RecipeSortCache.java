@@ -0,0 +1,68 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IPrototypedIngredient;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.PrototypedIngredient;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A cache of recipe lookups that were sorted by priority,
+ * so that the recipes for the same output are not sorted again on each lookup.
+ *
+ * Entries are keyed by the requested output (including its quantity) and match condition,
+ * and are invalidated once the version of the recipe index changes.
+ * Lookups may happen concurrently, but the version may only change on a single thread.
+ *
+ * @author rubensworks
+ */
+public class RecipeSortCache {
+
+    private final Map<IPrototypedIngredient<?, ?>, List<IRecipeDefinition>> sortedRecipes;
+    private volatile long recipeIndexVersion;
+
+    public RecipeSortCache() {
+        this.sortedRecipes = new ConcurrentHashMap<>();
+        this.recipeIndexVersion = -1;
+    }
+
+    /**
+     * Get the sorted recipes for the given output.
+     * @param recipeIndex The recipe index that contains the recipes.
+     * @param recipeIndexVersion The current version of the recipes and their priority.
+     * @param recipes A supplier of the unsorted recipes, only called if they are not cached yet.
+     * @param recipePriority A comparator that places recipes with a higher priority first.
+     * @param outputType The recipe component type.
+     * @param output An output ingredient instance.
+     * @param matchCondition A condition under which the matching should be done.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return An iterator over the sorted recipes.
+     */
+    public <T, M> Iterator<IRecipeDefinition> getRecipes(IRecipeIndex recipeIndex, long recipeIndexVersion,
+                                                         Supplier<Iterator<IRecipeDefinition>> recipes,
+                                                         Comparator<IRecipeDefinition> recipePriority,
+                                                         IngredientComponent<T, M> outputType, T output, M matchCondition) {
+        if (this.recipeIndexVersion != recipeIndexVersion) {
+            this.sortedRecipes.clear();
+            this.recipeIndexVersion = recipeIndexVersion;
+        }
+        IPrototypedIngredient<T, M> key = new PrototypedIngredient<>(outputType, output, matchCondition);
+        List<IRecipeDefinition> sorted = this.sortedRecipes.get(key);
+        if (sorted == null) {
+            sorted = Lists.newArrayList(CraftingHelpers.sortRecipes(recipeIndex, recipes.get(), recipePriority, outputType, output, matchCondition));
+            this.sortedRecipes.put(key, sorted);
+        }
+        return Iterators.unmodifiableIterator(sorted.iterator());
+    }
+
+}
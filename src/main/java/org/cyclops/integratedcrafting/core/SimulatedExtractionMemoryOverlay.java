@@ -0,0 +1,62 @@
+package org.cyclops.integratedcrafting.core;
+
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+
+/**
+ * A writable view over a simulated extraction memory that does not modify the underlying memory.
+ *
+ * Instead of copying the underlying memory, only the differences are stored,
+ * which makes creating such a view independent of the size of the underlying memory.
+ * The underlying memory must not be modified while this view is in use.
+ *
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter.
+ * @author rubensworks
+ */
+public class SimulatedExtractionMemoryOverlay<T, M> {
+
+    private final IngredientCollectionPrototypeMap<T, M> base;
+    private IngredientCollectionPrototypeMap<T, M> delta;
+
+    public SimulatedExtractionMemoryOverlay(IngredientCollectionPrototypeMap<T, M> base) {
+        this.base = base;
+        this.delta = null;
+    }
+
+    /**
+     * @param instance An instance.
+     * @return The quantity of the given instance in the underlying memory, including all changes in this view.
+     */
+    public long getQuantity(T instance) {
+        long quantity = base.getQuantity(instance);
+        if (delta != null) {
+            quantity += delta.getQuantity(instance);
+        }
+        return quantity;
+    }
+
+    /**
+     * Increment the quantity of the given instance.
+     * @param instance An instance.
+     */
+    public void add(T instance) {
+        getDelta().add(instance);
+    }
+
+    /**
+     * Set the quantity of the given instance.
+     * @param instance An instance.
+     * @param quantity The new quantity.
+     */
+    public void setQuantity(T instance, long quantity) {
+        getDelta().setQuantity(instance, quantity - base.getQuantity(instance));
+    }
+
+    protected IngredientCollectionPrototypeMap<T, M> getDelta() {
+        if (delta == null) {
+            delta = new IngredientCollectionPrototypeMap<>(base.getComponent(), true);
+        }
+        return delta;
+    }
+
+}
@@ -0,0 +1,344 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.Level;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+import org.cyclops.integratedcrafting.GeneralConfig;
+import org.cyclops.integratedcrafting.IntegratedCrafting;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJobDependencyGraph;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * A crafting job calculation that is spread over multiple ticks.
+ *
+ * The calculation runs the regular recursive calculation on a worker thread of
+ * {@link CraftingJobPlanningExecutor#getTimeSlicedExecutor()},
+ * but that thread only ever runs while the server thread is waiting for it inside {@link #step(int, long)}.
+ * Each time a recipe graph node is visited, the calculation checks whether its budget is exhausted,
+ * in which case it pauses until the next step, keeping its full recursion state.
+ * Since the calculation runs against a snapshot of recipes and storage,
+ * the resulting crafting jobs are identical to those of an uninterrupted calculation.
+ *
+ * Calculations that are added via {@link #enqueue(TimeSlicedCraftingJobCalculation)}
+ * are advanced on each server tick, where all calculations share the configured budget.
+ * As each started calculation occupies a worker thread until it is done,
+ * at most {@link GeneralConfig#craftingJobCalculationTickConcurrency} calculations are started at the same time,
+ * and the others wait until an earlier calculation is done.
+ *
+ * @author rubensworks
+ */
+public class TimeSlicedCraftingJobCalculation {
+
+    private static final List<TimeSlicedCraftingJobCalculation> PENDING_CALCULATIONS = Lists.newArrayList();
+
+    private final CraftingHelpers.ICraftingJobCalculator calculator;
+    private final IRecipeIndex recipeIndex;
+    private final Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter;
+    private final Function<TimeSlicedCraftingJobCalculation, CraftingJob> finalizer;
+    private final CraftingJobDependencyGraph craftingJobsGraph;
+    private final CompletableFuture<CraftingJob> future;
+    private final Semaphore calculatorPermit;
+    private final Semaphore callerPermit;
+
+    private boolean started;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private CraftingJob craftingJob;
+    private RuntimeException exception;
+
+    private int sliceNodeBudget;
+    private long sliceDeadline;
+    private int sliceNodes;
+    private volatile int visitedNodes;
+    private int slices;
+
+    /**
+     * @param calculator The calculation to run.
+     * @param recipeIndex The recipe index to calculate against.
+     * @param storageGetter A callback function to get a storage for the given ingredient component.
+     * @param finalizer A callback that is invoked on the server thread once calculation is done,
+     *                  returning the crafting job the future will be completed with.
+     */
+    public TimeSlicedCraftingJobCalculation(CraftingHelpers.ICraftingJobCalculator calculator,
+                                            IRecipeIndex recipeIndex,
+                                            Function<IngredientComponent<?, ?>, IIngredientComponentStorage> storageGetter,
+                                            Function<TimeSlicedCraftingJobCalculation, CraftingJob> finalizer) {
+        this.calculator = calculator;
+        this.recipeIndex = new YieldingRecipeIndex(recipeIndex);
+        this.storageGetter = storageGetter;
+        this.finalizer = finalizer;
+        this.craftingJobsGraph = new CraftingJobDependencyGraph();
+        this.future = new CompletableFuture<>();
+        this.calculatorPermit = new Semaphore(0);
+        this.callerPermit = new Semaphore(0);
+    }
+
+    /**
+     * @return A future of the final crafting job, which will contain null if no crafting job could be calculated.
+     */
+    public CompletableFuture<CraftingJob> getFuture() {
+        return future;
+    }
+
+    /**
+     * @return If calculation has finished.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return If calculation has been started on a worker thread.
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * @return The number of recipe graph nodes that have been visited so far.
+     */
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    /**
+     * @return The number of steps that have been executed so far.
+     */
+    public int getSlices() {
+        return slices;
+    }
+
+    /**
+     * @return The calculated crafting job, or null if calculation is not done or failed.
+     */
+    @Nullable
+    public CraftingJob getCraftingJob() {
+        return craftingJob;
+    }
+
+    /**
+     * @return The graph containing the calculated crafting job and its dependencies.
+     */
+    public CraftingJobDependencyGraph getCraftingJobsGraph() {
+        return craftingJobsGraph;
+    }
+
+    /**
+     * Advance this calculation until it is done, or the given budget is exhausted.
+     * @param nodeBudget The maximum number of recipe graph nodes to visit.
+     * @param nanoBudget The maximum number of nanoseconds to run.
+     * @return If calculation has finished.
+     */
+    public boolean step(int nodeBudget, long nanoBudget) {
+        if (done) {
+            return true;
+        }
+        this.sliceNodeBudget = nodeBudget;
+        this.sliceDeadline = System.nanoTime() + nanoBudget;
+        this.sliceNodes = 0;
+        if (!started) {
+            getExecutor().execute(this::run);
+            started = true;
+        }
+        calculatorPermit.release();
+        callerPermit.acquireUninterruptibly();
+        slices++;
+        return done;
+    }
+
+    /**
+     * Stop this calculation, and cancel its future.
+     */
+    public void cancel() {
+        if (!done) {
+            cancelled = true;
+            if (started) {
+                // Let the calculation thread unwind
+                calculatorPermit.release();
+                callerPermit.acquireUninterruptibly();
+            }
+            done = true;
+        }
+        future.cancel(false);
+    }
+
+    /**
+     * @return The executor on which this calculation is started, which must have a thread available.
+     */
+    protected Executor getExecutor() {
+        return CraftingJobPlanningExecutor.getTimeSlicedExecutor();
+    }
+
+    protected void run() {
+        calculatorPermit.acquireUninterruptibly();
+        try {
+            craftingJob = calculator.calculate(recipeIndex, storageGetter, craftingJobsGraph);
+            if (craftingJob != null) {
+                craftingJobsGraph.addCraftingJobId(craftingJob);
+            }
+        } catch (CancellationException e) {
+            // Calculation was stopped
+        } catch (RuntimeException e) {
+            exception = e;
+        } finally {
+            done = true;
+            callerPermit.release();
+        }
+    }
+
+    protected void onNodeVisited() {
+        visitedNodes++;
+        sliceNodes++;
+        if (sliceNodes >= sliceNodeBudget || System.nanoTime() >= sliceDeadline) {
+            // Hand control back to the server thread, and wait for the next step
+            callerPermit.release();
+            calculatorPermit.acquireUninterruptibly();
+        }
+        if (cancelled) {
+            throw new CancellationException();
+        }
+    }
+
+    protected void finish() {
+        if (cancelled) {
+            return;
+        }
+        if (exception != null) {
+            future.completeExceptionally(exception);
+        } else {
+            try {
+                future.complete(finalizer.apply(this));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Add the given calculation, so that it will be advanced each server tick.
+     * @param calculation A calculation.
+     */
+    public static void enqueue(TimeSlicedCraftingJobCalculation calculation) {
+        PENDING_CALCULATIONS.add(calculation);
+    }
+
+    /**
+     * Advance all pending calculations by the configured budget.
+     * This should be called once per server tick.
+     */
+    public static void tickAll() {
+        tickAll(GeneralConfig.craftingJobCalculationTickNodes > 0 ? GeneralConfig.craftingJobCalculationTickNodes : Integer.MAX_VALUE,
+                GeneralConfig.craftingJobCalculationTickNanos, GeneralConfig.craftingJobCalculationTickConcurrency);
+    }
+
+    /**
+     * Advance pending calculations, where the given budget is divided over all calculations.
+     * Calculations that do not use their share leave it to the next calculations.
+     * @param nodeBudget The maximum number of recipe graph nodes to visit over all calculations.
+     * @param nanoBudget The maximum number of nanoseconds to run over all calculations.
+     * @param concurrency The maximum number of calculations that are started at the same time.
+     */
+    protected static void tickAll(int nodeBudget, long nanoBudget, int concurrency) {
+        long deadline = System.nanoTime() + nanoBudget;
+
+        // Calculations that were started must always be advanced, as they occupy a worker thread
+        List<TimeSlicedCraftingJobCalculation> active = Lists.newArrayList();
+        for (TimeSlicedCraftingJobCalculation calculation : PENDING_CALCULATIONS) {
+            if (calculation.isStarted() || active.size() < concurrency) {
+                active.add(calculation);
+            }
+        }
+
+        List<TimeSlicedCraftingJobCalculation> finished = Lists.newArrayList();
+        int remainingNodes = nodeBudget;
+        for (int i = 0; i < active.size(); i++) {
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNodes <= 0 || remainingNanos <= 0) {
+                break;
+            }
+            int remainingCalculations = active.size() - i;
+            TimeSlicedCraftingJobCalculation calculation = active.get(i);
+            int visitedNodesBefore = calculation.getVisitedNodes();
+            if (calculation.step(Math.max(1, remainingNodes / remainingCalculations),
+                    Math.max(1, remainingNanos / remainingCalculations))) {
+                PENDING_CALCULATIONS.remove(calculation);
+                finished.add(calculation);
+            }
+            remainingNodes -= calculation.getVisitedNodes() - visitedNodesBefore;
+        }
+        // Finalize afterwards, as finalizers may enqueue new calculations
+        for (TimeSlicedCraftingJobCalculation calculation : finished) {
+            if (calculation.exception != null) {
+                IntegratedCrafting.clog(Level.ERROR, "Crafting job calculation failed: " + calculation.exception.getMessage());
+            }
+            calculation.finish();
+        }
+    }
+
+    /**
+     * Cancel all pending calculations.
+     */
+    public static void cancelAll() {
+        for (TimeSlicedCraftingJobCalculation calculation : PENDING_CALCULATIONS) {
+            calculation.cancel();
+        }
+        PENDING_CALCULATIONS.clear();
+    }
+
+    /**
+     * A recipe index that reports each recipe lookup as a visited node.
+     */
+    protected class YieldingRecipeIndex implements IRecipeIndex {
+
+        private final IRecipeIndex recipeIndex;
+
+        public YieldingRecipeIndex(IRecipeIndex recipeIndex) {
+            this.recipeIndex = recipeIndex;
+        }
+
+        @Override
+        public Set<IRecipeDefinition> getRecipes() {
+            return recipeIndex.getRecipes();
+        }
+
+        @Override
+        public <T, M> Iterator<IRecipeDefinition> getRecipes(IngredientComponent<T, M> outputType, T output, M matchCondition) {
+            onNodeVisited();
+            return recipeIndex.getRecipes(outputType, output, matchCondition);
+        }
+
+        @Override
+        public <T, M> Iterator<IRecipeDefinition> getRecipesByInput(IngredientComponent<T, M> inputType, T input, M matchCondition) {
+            return recipeIndex.getRecipesByInput(inputType, input, matchCondition);
+        }
+
+        @Override
+        public <T, M> long getOutputQuantity(IRecipeDefinition recipe, IngredientComponent<T, M> outputType, T output, M matchCondition) {
+            return recipeIndex.getOutputQuantity(recipe, outputType, output, matchCondition);
+        }
+
+        @Override
+        public long getVersion() {
+            return recipeIndex.getVersion();
+        }
+
+        @Override
+        public boolean isRecipeCyclic(IRecipeDefinition recipe) {
+            return recipeIndex.isRecipeCyclic(recipe);
+        }
+    }
+
+}
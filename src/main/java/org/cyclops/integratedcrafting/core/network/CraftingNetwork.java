@@ -1,32 +1,47 @@
 package org.cyclops.integratedcrafting.core.network;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntListIterator;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.minecraft.world.level.Level;
 import net.neoforged.neoforge.server.ServerLifecycleHooks;
 import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IMixedIngredients;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
-import org.cyclops.cyclopscore.datastructure.MultitransformIterator;
+import org.cyclops.integratedcrafting.GeneralConfig;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJobDependencyGraph;
 import org.cyclops.integratedcrafting.api.crafting.ICraftingInterface;
 import org.cyclops.integratedcrafting.api.crafting.UnavailableCraftingInterfacesException;
 import org.cyclops.integratedcrafting.api.network.ICraftingNetwork;
 import org.cyclops.integratedcrafting.api.recipe.ICraftingJobIndexModifiable;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
 import org.cyclops.integratedcrafting.api.recipe.IRecipeIndexModifiable;
 import org.cyclops.integratedcrafting.core.CraftingHelpers;
+import org.cyclops.integratedcrafting.core.CraftingJobCalculationCache;
+import org.cyclops.integratedcrafting.core.CraftingJobCalculationNegativeCache;
+import org.cyclops.integratedcrafting.core.CraftingJobCostModel;
 import org.cyclops.integratedcrafting.core.CraftingJobIndexDefault;
+import org.cyclops.integratedcrafting.core.CraftingJobReservations;
+import org.cyclops.integratedcrafting.core.RecipeIndexChanneled;
+import org.cyclops.integratedcrafting.core.RecipeIndexCompact;
 import org.cyclops.integratedcrafting.core.RecipeIndexDefault;
+import org.cyclops.integratedcrafting.core.RecipeIndexSnapshot;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -36,27 +51,46 @@ import java.util.stream.Collectors;
  */
 public class CraftingNetwork implements ICraftingNetwork {
 
+    private static final Comparator<ICraftingInterface> CRAFTING_INTERFACE_COMPARATOR = ICraftingInterface.createComparator();
+
     private final Set<ICraftingInterface> allCraftingInterfaces = Sets.newHashSet();
     private final Int2ObjectMap<Set<ICraftingInterface>> craftingInterfaces = new Int2ObjectOpenHashMap<>();
 
     private final Multimap<IRecipeDefinition, ICraftingInterface> allRecipeCraftingInterfaces = newRecipeCraftingInterfacesMap();
     private final Int2ObjectMap<Multimap<IRecipeDefinition, ICraftingInterface>> recipeCraftingInterfaces = new Int2ObjectOpenHashMap<>();
 
-    private final IRecipeIndexModifiable allRecipesIndex = new RecipeIndexDefault();
-    private final Int2ObjectMap<IRecipeIndexModifiable> recipeIndexes = new Int2ObjectOpenHashMap<>();
+    private final RecipeIndexChanneled channeledRecipeIndex = new RecipeIndexChanneled(createRecipeIndex(), this::compareRecipePriority);
+    private final Int2ObjectMap<RecipeIndexSnapshot> recipeIndexSnapshots = new Int2ObjectOpenHashMap<>();
+    private final Int2ObjectMap<CraftingJobCalculationCache> craftingJobCalculationCaches = new Int2ObjectOpenHashMap<>();
+    private final Int2ObjectMap<CraftingJobCalculationNegativeCache> craftingJobCalculationNegativeCaches = new Int2ObjectOpenHashMap<>();
+    private final Object2LongMap<IngredientComponent<?, ?>> storageVersions = new Object2LongOpenHashMap<>();
+    private final CraftingJobCostModel craftingJobCostModel = new CraftingJobCostModel();
 
     private final ICraftingJobIndexModifiable allIndexedCraftingJobs = new CraftingJobIndexDefault();
     private final Int2ObjectMap<ICraftingJobIndexModifiable> indexedCraftingJobs = new Int2ObjectOpenHashMap<>();
 
+    private final CraftingJobReservations allCraftingJobReservations = new CraftingJobReservations();
+    private final Int2ObjectMap<CraftingJobReservations> craftingJobReservations = new Int2ObjectOpenHashMap<>();
+
     private final Int2ObjectMap<ICraftingInterface> allCraftingJobsToInterface = new Int2ObjectOpenHashMap<>();
     private final Int2ObjectMap<Int2ObjectMap<ICraftingInterface>> channeledCraftingJobsToInterface = new Int2ObjectOpenHashMap<>();
 
     private final CraftingJobDependencyGraph craftingJobDependencyGraph = new CraftingJobDependencyGraph();
 
+    private Int2ObjectMap<List<ICraftingInterface>> pendingCraftingInterfaces = new Int2ObjectOpenHashMap<>();
+
     protected static Multimap<IRecipeDefinition, ICraftingInterface> newRecipeCraftingInterfacesMap() {
         return MultimapBuilder.hashKeys().treeSetValues(ICraftingInterface.createComparator()).build();
     }
 
+    protected static Multimap<IRecipeDefinition, ICraftingInterface> newRecipeCraftingInterfacesMap(int expectedRecipes) {
+        return MultimapBuilder.hashKeys(expectedRecipes).treeSetValues(ICraftingInterface.createComparator()).build();
+    }
+
+    protected static IRecipeIndexModifiable createRecipeIndex() {
+        return GeneralConfig.compactRecipeIndex ? new RecipeIndexCompact() : new RecipeIndexDefault();
+    }
+
     @Override
     public int[] getChannels() {
         return craftingInterfaces.keySet().toIntArray();
@@ -77,6 +111,7 @@ public class CraftingNetwork implements ICraftingNetwork {
 
     @Override
     public Multimap<IRecipeDefinition, ICraftingInterface> getRecipeCraftingInterfaces(int channel) {
+        flushPendingCraftingInterfaces();
         if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
             return allRecipeCraftingInterfaces;
         }
@@ -90,15 +125,97 @@ public class CraftingNetwork implements ICraftingNetwork {
 
     @Override
     public IRecipeIndexModifiable getRecipeIndex(int channel) {
-        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
-            return allRecipesIndex;
+        flushPendingCraftingInterfaces();
+        return this.channeledRecipeIndex.getChannel(channel);
+    }
+
+    /**
+     * Compare recipes by the crafting interfaces that expose them,
+     * so that recipes of the highest priority crafting interfaces are placed first.
+     * @param recipeA A recipe.
+     * @param recipeB Another recipe.
+     * @return The comparison result.
+     */
+    protected int compareRecipePriority(IRecipeDefinition recipeA, IRecipeDefinition recipeB) {
+        Iterator<ICraftingInterface> interfacesA = allRecipeCraftingInterfaces.get(recipeA).iterator();
+        Iterator<ICraftingInterface> interfacesB = allRecipeCraftingInterfaces.get(recipeB).iterator();
+        if (!interfacesA.hasNext()) {
+            return interfacesB.hasNext() ? 1 : 0;
+        }
+        if (!interfacesB.hasNext()) {
+            return -1;
         }
-        IRecipeIndexModifiable recipeIndex = this.recipeIndexes.get(channel);
-        if (recipeIndex == null) {
-            recipeIndex = new RecipeIndexDefault();
-            this.recipeIndexes.put(channel, recipeIndex);
+        return CRAFTING_INTERFACE_COMPARATOR.compare(interfacesA.next(), interfacesB.next());
+    }
+
+    @Override
+    public IRecipeIndex getRecipeIndexSnapshot(int channel) {
+        RecipeIndexSnapshot previousSnapshot = this.recipeIndexSnapshots.get(channel);
+        RecipeIndexSnapshot snapshot = RecipeIndexSnapshot.of(getRecipeIndex(channel), this.channeledRecipeIndex.getRecipePriority(), previousSnapshot);
+        if (snapshot != previousSnapshot) {
+            this.recipeIndexSnapshots.put(channel, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the cache of earlier crafting job calculations on the given channel.
+     * @param channel The crafting channel.
+     * @return The calculation cache.
+     */
+    public CraftingJobCalculationCache getCraftingJobCalculationCache(int channel) {
+        CraftingJobCalculationCache calculationCache = this.craftingJobCalculationCaches.get(channel);
+        if (calculationCache == null) {
+            calculationCache = new CraftingJobCalculationCache();
+            this.craftingJobCalculationCaches.put(channel, calculationCache);
+        }
+        return calculationCache;
+    }
+
+    /**
+     * Get the cache of failed crafting job calculations on the given channel.
+     * @param channel The crafting channel.
+     * @return The negative calculation cache.
+     */
+    public CraftingJobCalculationNegativeCache getCraftingJobCalculationNegativeCache(int channel) {
+        CraftingJobCalculationNegativeCache negativeCache = this.craftingJobCalculationNegativeCaches.get(channel);
+        if (negativeCache == null) {
+            negativeCache = new CraftingJobCalculationNegativeCache(this::getStorageVersion);
+            this.craftingJobCalculationNegativeCaches.put(channel, negativeCache);
+        }
+        return negativeCache;
+    }
+
+    /**
+     * Start observing storage changes in the given ingredient network,
+     * if this was not the case yet.
+     * @param ingredientsNetwork An ingredient network within the same network.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    public <T, M> void observeStorageChanges(IPositionedAddonsNetworkIngredients<T, M> ingredientsNetwork) {
+        IngredientComponent<T, M> ingredientComponent = ingredientsNetwork.getComponent();
+        if (!this.storageVersions.containsKey(ingredientComponent)) {
+            this.storageVersions.put(ingredientComponent, 0L);
+            ingredientsNetwork.addObserver(event -> this.storageVersions.put(ingredientComponent, this.storageVersions.getLong(ingredientComponent) + 1));
+            ingredientsNetwork.scheduleObservation();
         }
-        return recipeIndex;
+    }
+
+    /**
+     * @param ingredientComponent An ingredient component.
+     * @return A counter that is incremented each time the contents of the observed storage
+     *         of the given ingredient component changes.
+     */
+    public long getStorageVersion(IngredientComponent<?, ?> ingredientComponent) {
+        return this.storageVersions.getLong(ingredientComponent);
+    }
+
+    /**
+     * @return The cost model that estimates crafting job costs based on earlier crafting jobs in this network.
+     */
+    public CraftingJobCostModel getCraftingJobCostModel() {
+        return craftingJobCostModel;
     }
 
     @Override
@@ -106,40 +223,100 @@ public class CraftingNetwork implements ICraftingNetwork {
         // Only process deeper indexes if the interface was not yet present
         if (getCraftingInterfaces(channel).add(craftingInterface)) {
             allCraftingInterfaces.add(craftingInterface);
-            IRecipeIndexModifiable recipeIndex = getRecipeIndex(channel);
-            Multimap<IRecipeDefinition, ICraftingInterface> recipeCraftingInterfaces = getRecipeCraftingInterfaces(channel);
-            for (IRecipeDefinition recipe : craftingInterface.getRecipes()) {
-                // Save the recipes in the index
-                recipeIndex.addRecipe(recipe);
-                allRecipesIndex.addRecipe(recipe);
-                // Save a mapping from each of the recipes to this crafting interface
-                recipeCraftingInterfaces.put(recipe, craftingInterface);
-                allRecipeCraftingInterfaces.put(recipe, craftingInterface);
+
+            // Deeper indexes are built in bulk once they are needed,
+            // as many interfaces are added at once when a network is (re)formed.
+            List<ICraftingInterface> pendingInterfaces = pendingCraftingInterfaces.get(channel);
+            if (pendingInterfaces == null) {
+                pendingInterfaces = Lists.newArrayList();
+                pendingCraftingInterfaces.put(channel, pendingInterfaces);
             }
+            pendingInterfaces.add(craftingInterface);
 
-            // Loop over the crafting jobs owned by the interface
-            Iterator<CraftingJob> craftingJobsIt = craftingInterface.getCraftingJobs();
-            while (craftingJobsIt.hasNext()) {
-                CraftingJob craftingJob = craftingJobsIt.next();
+            return true;
+        }
+        return false;
+    }
 
-                // Store mapping between interface and job in the network
-                addCraftingJob(craftingJob.getChannel(), craftingJob, craftingInterface);
+    /**
+     * Add the recipes and crafting jobs of all crafting interfaces
+     * that were added since the last call to the deeper indexes.
+     *
+     * All recipes of a channel are collected first,
+     * so that each distinct recipe is indexed only once per channel.
+     */
+    protected void flushPendingCraftingInterfaces() {
+        if (pendingCraftingInterfaces.isEmpty()) {
+            return;
+        }
+        Int2ObjectMap<List<ICraftingInterface>> pendingCraftingInterfaces = this.pendingCraftingInterfaces;
+        this.pendingCraftingInterfaces = new Int2ObjectOpenHashMap<>();
+
+        for (Int2ObjectMap.Entry<List<ICraftingInterface>> entry : pendingCraftingInterfaces.int2ObjectEntrySet()) {
+            int channel = entry.getIntKey();
+            List<ICraftingInterface> craftingInterfaces = entry.getValue();
 
-                // Add the crafting job dependencies
-                craftingJobDependencyGraph.addCraftingJobId(craftingJob);
-                IntListIterator dependencyIt = craftingJob.getDependencyCraftingJobs().iterator();
-                while (dependencyIt.hasNext()) {
-                    craftingJobDependencyGraph.addDependency(craftingJob, dependencyIt.nextInt());
+            // Pre-size the structures for the recipes of all interfaces
+            int expectedRecipes = 0;
+            for (ICraftingInterface craftingInterface : craftingInterfaces) {
+                expectedRecipes += craftingInterface.getRecipes().size();
+            }
+            Set<IRecipeDefinition> recipes = Sets.newHashSetWithExpectedSize(expectedRecipes);
+            Multimap<IRecipeDefinition, ICraftingInterface> recipeCraftingInterfaces;
+            if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+                recipeCraftingInterfaces = allRecipeCraftingInterfaces;
+            } else {
+                recipeCraftingInterfaces = this.recipeCraftingInterfaces.get(channel);
+                if (recipeCraftingInterfaces == null) {
+                    recipeCraftingInterfaces = newRecipeCraftingInterfacesMap(expectedRecipes);
+                    this.recipeCraftingInterfaces.put(channel, recipeCraftingInterfaces);
                 }
             }
 
-            return true;
+            // Collect the recipes of all interfaces
+            for (ICraftingInterface craftingInterface : craftingInterfaces) {
+                for (IRecipeDefinition recipe : craftingInterface.getRecipes()) {
+                    recipes.add(recipe);
+                    // Save a mapping from each of the recipes to this crafting interface
+                    recipeCraftingInterfaces.put(recipe, craftingInterface);
+                    allRecipeCraftingInterfaces.put(recipe, craftingInterface);
+                }
+            }
+
+            // Save the recipes in the index, which also makes them available in the wildcard channel
+            channeledRecipeIndex.addRecipes(recipes, channel);
+            // Recipes that were already exposed by other interfaces may now be ordered differently
+            channeledRecipeIndex.onRecipePriorityChanged(recipes);
+
+            // Loop over the crafting jobs owned by the interfaces
+            for (ICraftingInterface craftingInterface : craftingInterfaces) {
+                Iterator<CraftingJob> craftingJobsIt = craftingInterface.getCraftingJobs();
+                while (craftingJobsIt.hasNext()) {
+                    CraftingJob craftingJob = craftingJobsIt.next();
+
+                    // Store mapping between interface and job in the network
+                    addCraftingJob(craftingJob.getChannel(), craftingJob, craftingInterface);
+
+                    // Reservations are not persisted, so reserve the storage ingredients again for jobs that were loaded.
+                    // Once a job has extracted ingredients, it is unknown which part of its reservation is left.
+                    if (craftingJob.getProcessingStartTick() < 0) {
+                        reserveCraftingJobIngredients(craftingJob);
+                    }
+
+                    // Add the crafting job dependencies
+                    craftingJobDependencyGraph.addCraftingJobId(craftingJob);
+                    IntListIterator dependencyIt = craftingJob.getDependencyCraftingJobs().iterator();
+                    while (dependencyIt.hasNext()) {
+                        craftingJobDependencyGraph.addDependency(craftingJob, dependencyIt.nextInt());
+                    }
+                }
+            }
         }
-        return false;
     }
 
     @Override
     public boolean removeCraftingInterface(int channel, ICraftingInterface craftingInterface) {
+        flushPendingCraftingInterfaces();
         // Only process deeper indexes if the interface was present
         if (getCraftingInterfaces(channel).remove(craftingInterface)) {
             allCraftingInterfaces.remove(craftingInterface);
@@ -154,10 +331,10 @@ public class CraftingNetwork implements ICraftingNetwork {
                 if (!recipeCraftingInterfaces.containsKey(recipe)) {
                     recipeIndex.removeRecipe(recipe);
                 }
-                if (!allRecipeCraftingInterfaces.containsKey(recipe)) {
-                    allRecipesIndex.removeRecipe(recipe);
-                }
             }
+            // Recipes that are still exposed by other interfaces may now be ordered differently,
+            // which is also how priority changes of an interface are detected, as these re-add the interface.
+            channeledRecipeIndex.onRecipePriorityChanged(craftingInterface.getRecipes());
 
             // Try cleaning up the channel
             cleanupChannelIfEmpty(channel);
@@ -181,12 +358,12 @@ public class CraftingNetwork implements ICraftingNetwork {
 
     @Override
     public boolean addCraftingInterfaceRecipe(int channel, ICraftingInterface craftingInterface, IRecipeDefinition recipe) {
+        flushPendingCraftingInterfaces();
         IRecipeIndexModifiable recipeIndex = getRecipeIndex(channel);
         Multimap<IRecipeDefinition, ICraftingInterface> recipeCraftingInterfaces = getRecipeCraftingInterfaces(channel);
 
-        // Save the recipes in the index
+        // Save the recipes in the index, which also makes them available in the wildcard channel
         recipeIndex.addRecipe(recipe);
-        allRecipesIndex.addRecipe(recipe);
         // Save a mapping from each of the recipes to this crafting interface
         boolean changed = recipeCraftingInterfaces.put(recipe, craftingInterface);
         allRecipeCraftingInterfaces.put(recipe, craftingInterface);
@@ -196,6 +373,7 @@ public class CraftingNetwork implements ICraftingNetwork {
 
     @Override
     public boolean removeCraftingInterfaceRecipe(int channel, ICraftingInterface craftingInterface, IRecipeDefinition recipe) {
+        flushPendingCraftingInterfaces();
         IRecipeIndexModifiable recipeIndex = getRecipeIndex(channel);
         Multimap<IRecipeDefinition, ICraftingInterface> recipeCraftingInterfaces = getRecipeCraftingInterfaces(channel);
 
@@ -207,9 +385,6 @@ public class CraftingNetwork implements ICraftingNetwork {
         if (!recipeCraftingInterfaces.containsKey(recipe)) {
             recipeIndex.removeRecipe(recipe);
         }
-        if (!allRecipeCraftingInterfaces.containsKey(recipe)) {
-            allRecipesIndex.removeRecipe(recipe);
-        }
 
         return changed;
     }
@@ -258,6 +433,9 @@ public class CraftingNetwork implements ICraftingNetwork {
             bestCraftingInterface.scheduleCraftingJob(craftingJob);
             addCraftingJob(craftingJob.getChannel(), craftingJob, bestCraftingInterface);
 
+            // Reserve the storage ingredients of the job until it has extracted them
+            reserveCraftingJobIngredients(craftingJob);
+
             // Store the starting tick in the job
             craftingJob.setStartTick(getCurrentTick());
         }
@@ -269,10 +447,40 @@ public class CraftingNetwork implements ICraftingNetwork {
 
     @Override
     public void onCraftingJobFinished(CraftingJob craftingJob) {
+        flushPendingCraftingInterfaces();
+        // Only fully finished jobs are representative for the processing time of their recipe.
+        // Time spent waiting for ingredients before processing started is not included.
+        if (craftingJob.getAmount() == 0 && craftingJob.getProcessingStartTick() >= 0) {
+            craftingJobCostModel.recordProcessingTicks(craftingJob.getRecipe(),
+                    getCurrentTick() - craftingJob.getProcessingStartTick(), craftingJob.getProcessingAmount());
+        }
         removeCraftingJob(craftingJob.getChannel(), craftingJob);
         getCraftingJobDependencyGraph().onCraftingJobFinished(craftingJob);
     }
 
+    @Override
+    public void onCraftingJobAmountChanged(CraftingJob craftingJob) {
+        flushPendingCraftingInterfaces();
+        allIndexedCraftingJobs.updateCraftingJob(craftingJob);
+        ICraftingJobIndexModifiable craftingJobIndex = indexedCraftingJobs.get(craftingJob.getChannel());
+        if (craftingJobIndex != null) {
+            craftingJobIndex.updateCraftingJob(craftingJob);
+        }
+    }
+
+    @Override
+    public void onCraftingJobIngredientsExtracted(CraftingJob craftingJob, IMixedIngredients ingredients) {
+        // The first extraction marks the start of processing, which is used to measure processing times
+        if (craftingJob.getProcessingStartTick() < 0) {
+            craftingJob.setProcessingStart(getCurrentTick(), craftingJob.getAmount());
+        }
+        allCraftingJobReservations.consume(craftingJob, ingredients);
+        CraftingJobReservations reservations = craftingJobReservations.get(craftingJob.getChannel());
+        if (reservations != null) {
+            reservations.consume(craftingJob, ingredients);
+        }
+    }
+
     @Override
     public boolean cancelCraftingJob(int channel, int craftingJobId) {
         CraftingJob craftingJob = getCraftingJob(channel, craftingJobId);
@@ -301,13 +509,74 @@ public class CraftingNetwork implements ICraftingNetwork {
 
     @Override
     public Iterator<CraftingJob> getCraftingJobs(int channel) {
-        return new MultitransformIterator<>(getCraftingInterfaces(channel).iterator(),
-                ICraftingInterface::getCraftingJobs);
+        flushPendingCraftingInterfaces();
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+            return createRemovableCraftingJobsIterator(allIndexedCraftingJobs.getCraftingJobs().iterator());
+        }
+
+        // Check for the specific channel
+        ICraftingJobIndexModifiable craftingJobIndex = indexedCraftingJobs.get(channel);
+        Iterator<CraftingJob> channelIterator;
+        if (craftingJobIndex != null) {
+            channelIterator = craftingJobIndex.getCraftingJobs().iterator();
+        } else {
+            channelIterator = Iterators.forArray();
+        }
+
+        // Check for the case the crafting job was explicitly started on the wildcard channel,
+        // and was scheduled in an interface of this channel.
+        ICraftingJobIndexModifiable wildcardCraftingJobIndex = indexedCraftingJobs.get(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+        Iterator<CraftingJob> wildcardChannelIterator;
+        if (wildcardCraftingJobIndex != null) {
+            Set<ICraftingInterface> craftingInterfaces = getCraftingInterfaces(channel);
+            wildcardChannelIterator = Iterators.filter(wildcardCraftingJobIndex.getCraftingJobs().iterator(), craftingJob -> {
+                ICraftingInterface craftingInterface = allCraftingJobsToInterface.get(craftingJob.getId());
+                return craftingInterface != null && craftingInterfaces.contains(craftingInterface);
+            });
+        } else {
+            wildcardChannelIterator = Iterators.forArray();
+        }
+
+        // Concat both iterators
+        return createRemovableCraftingJobsIterator(Iterators.concat(channelIterator, wildcardChannelIterator));
+    }
+
+    /**
+     * Wrap an iterator over snapshots of the crafting job indexes,
+     * so that removing a crafting job removes it from the indexes of this network.
+     * @param craftingJobs An iterator over crafting jobs.
+     * @return An iterator over the same crafting jobs.
+     */
+    protected Iterator<CraftingJob> createRemovableCraftingJobsIterator(Iterator<CraftingJob> craftingJobs) {
+        return new Iterator<CraftingJob>() {
+            @Nullable
+            private CraftingJob lastCraftingJob;
+
+            @Override
+            public boolean hasNext() {
+                return craftingJobs.hasNext();
+            }
+
+            @Override
+            public CraftingJob next() {
+                return lastCraftingJob = craftingJobs.next();
+            }
+
+            @Override
+            public void remove() {
+                if (lastCraftingJob == null) {
+                    throw new IllegalStateException();
+                }
+                removeCraftingJobFromIndexes(lastCraftingJob.getChannel(), lastCraftingJob);
+                lastCraftingJob = null;
+            }
+        };
     }
 
     @Nullable
     @Override
     public CraftingJob getCraftingJob(int channel, int craftingJobId) {
+        flushPendingCraftingInterfaces();
         if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
             return allIndexedCraftingJobs.getCraftingJob(craftingJobId);
         }
@@ -355,6 +624,17 @@ public class CraftingNetwork implements ICraftingNetwork {
     }
 
     protected void removeCraftingJob(int channel, CraftingJob craftingJob) {
+        removeCraftingJobFromIndexes(channel, craftingJob);
+
+        // Release the remaining storage ingredients of the job
+        allCraftingJobReservations.release(craftingJob);
+        CraftingJobReservations reservations = craftingJobReservations.get(craftingJob.getChannel());
+        if (reservations != null) {
+            reservations.release(craftingJob);
+        }
+    }
+
+    protected void removeCraftingJobFromIndexes(int channel, CraftingJob craftingJob) {
         // Prepare crafting job index
         ICraftingJobIndexModifiable craftingJobIndex = indexedCraftingJobs.get(channel);
 
@@ -374,9 +654,20 @@ public class CraftingNetwork implements ICraftingNetwork {
         }
     }
 
+    protected void reserveCraftingJobIngredients(CraftingJob craftingJob) {
+        CraftingJobReservations reservations = craftingJobReservations.get(craftingJob.getChannel());
+        if (reservations == null) {
+            reservations = new CraftingJobReservations();
+            craftingJobReservations.put(craftingJob.getChannel(), reservations);
+        }
+        allCraftingJobReservations.reserve(craftingJob);
+        reservations.reserve(craftingJob);
+    }
+
     @Override
     public <T, M> Iterator<CraftingJob> getCraftingJobs(int channel, IngredientComponent<T, M> ingredientComponent,
                                                         T instance, M matchCondition) {
+        flushPendingCraftingInterfaces();
         if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
             return allIndexedCraftingJobs.getCraftingJobs(ingredientComponent, instance, matchCondition);
         }
@@ -400,17 +691,175 @@ public class CraftingNetwork implements ICraftingNetwork {
         }
 
         // Concat both iterators
-        return Iterators.concat(channelIterator, wildcardChannelIterator);
+        return createRemovableCraftingJobsIterator(Iterators.concat(channelIterator, wildcardChannelIterator));
+    }
+
+    /**
+     * Wrap an iterator over snapshots of the crafting job indexes,
+     * so that removing a crafting job removes it from the indexes of this network.
+     * @param craftingJobs An iterator over crafting jobs.
+     * @return An iterator over the same crafting jobs.
+     */
+    protected Iterator<CraftingJob> createRemovableCraftingJobsIterator(Iterator<CraftingJob> craftingJobs) {
+        return new Iterator<CraftingJob>() {
+            @Nullable
+            private CraftingJob lastCraftingJob;
+
+            @Override
+            public boolean hasNext() {
+                return craftingJobs.hasNext();
+            }
+
+            @Override
+            public CraftingJob next() {
+                return lastCraftingJob = craftingJobs.next();
+            }
+
+            @Override
+            public void remove() {
+                if (lastCraftingJob == null) {
+                    throw new IllegalStateException();
+                }
+                removeCraftingJobFromIndexes(lastCraftingJob.getChannel(), lastCraftingJob);
+                lastCraftingJob = null;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<CraftingJob> getCraftingJobs(int channel, IRecipeDefinition recipe) {
+        flushPendingCraftingInterfaces();
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+            return allIndexedCraftingJobs.getCraftingJobs(recipe).iterator();
+        }
+
+        // Check for the specific channel
+        ICraftingJobIndexModifiable craftingJobIndex = indexedCraftingJobs.get(channel);
+        Iterator<CraftingJob> channelIterator;
+        if (craftingJobIndex != null) {
+            channelIterator = craftingJobIndex.getCraftingJobs(recipe).iterator();
+        } else {
+            channelIterator = Iterators.forArray();
+        }
+
+        // Check for the case the crafting job was explicitly started on the wildcard channel
+        ICraftingJobIndexModifiable wildcardCraftingJobIndex = indexedCraftingJobs.get(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+        Iterator<CraftingJob> wildcardChannelIterator;
+        if (wildcardCraftingJobIndex != null) {
+            wildcardChannelIterator = wildcardCraftingJobIndex.getCraftingJobs(recipe).iterator();
+        } else {
+            wildcardChannelIterator = Iterators.forArray();
+        }
+
+        // Concat both iterators
+        return createRemovableCraftingJobsIterator(Iterators.concat(channelIterator, wildcardChannelIterator));
+    }
+
+    /**
+     * Wrap an iterator over snapshots of the crafting job indexes,
+     * so that removing a crafting job removes it from the indexes of this network.
+     * @param craftingJobs An iterator over crafting jobs.
+     * @return An iterator over the same crafting jobs.
+     */
+    protected Iterator<CraftingJob> createRemovableCraftingJobsIterator(Iterator<CraftingJob> craftingJobs) {
+        return new Iterator<CraftingJob>() {
+            @Nullable
+            private CraftingJob lastCraftingJob;
+
+            @Override
+            public boolean hasNext() {
+                return craftingJobs.hasNext();
+            }
+
+            @Override
+            public CraftingJob next() {
+                return lastCraftingJob = craftingJobs.next();
+            }
+
+            @Override
+            public void remove() {
+                if (lastCraftingJob == null) {
+                    throw new IllegalStateException();
+                }
+                removeCraftingJobFromIndexes(lastCraftingJob.getChannel(), lastCraftingJob);
+                lastCraftingJob = null;
+            }
+        };
+    }
+
+    @Override
+    public <T, M> long getCraftingJobsOutputQuantity(int channel, IngredientComponent<T, M> ingredientComponent, T instance) {
+        flushPendingCraftingInterfaces();
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+            return allIndexedCraftingJobs.getExpectedOutputQuantity(ingredientComponent, instance);
+        }
+
+        // Check for the specific channel
+        long quantity = 0;
+        ICraftingJobIndexModifiable craftingJobIndex = indexedCraftingJobs.get(channel);
+        if (craftingJobIndex != null) {
+            quantity += craftingJobIndex.getExpectedOutputQuantity(ingredientComponent, instance);
+        }
+
+        // Check for the case the crafting job was explicitly started on the wildcard channel
+        ICraftingJobIndexModifiable wildcardCraftingJobIndex = indexedCraftingJobs.get(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+        if (wildcardCraftingJobIndex != null) {
+            quantity += wildcardCraftingJobIndex.getExpectedOutputQuantity(ingredientComponent, instance);
+        }
+
+        return quantity;
+    }
+
+    @Override
+    public boolean hasReservedIngredients(int channel, IngredientComponent<?, ?> ingredientComponent) {
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+            return allCraftingJobReservations.hasReservations(ingredientComponent);
+        }
+
+        // Check for the specific channel
+        CraftingJobReservations reservations = craftingJobReservations.get(channel);
+        if (reservations != null && reservations.hasReservations(ingredientComponent)) {
+            return true;
+        }
+
+        // Check for the case the crafting job was explicitly started on the wildcard channel
+        CraftingJobReservations wildcardReservations = craftingJobReservations.get(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+        return wildcardReservations != null && wildcardReservations.hasReservations(ingredientComponent);
+    }
+
+    @Override
+    public <T, M> long getReservedQuantity(int channel, IngredientComponent<T, M> ingredientComponent, T instance,
+                                           @Nullable CraftingJob craftingJob) {
+        if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
+            return allCraftingJobReservations.getQuantity(ingredientComponent, instance, craftingJob);
+        }
+
+        // Check for the specific channel
+        long quantity = 0;
+        CraftingJobReservations reservations = craftingJobReservations.get(channel);
+        if (reservations != null) {
+            quantity += reservations.getQuantity(ingredientComponent, instance, craftingJob);
+        }
+
+        // Check for the case the crafting job was explicitly started on the wildcard channel
+        CraftingJobReservations wildcardReservations = craftingJobReservations.get(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+        if (wildcardReservations != null) {
+            quantity += wildcardReservations.getQuantity(ingredientComponent, instance, craftingJob);
+        }
+
+        return quantity;
     }
 
     @Override
     public CraftingJobDependencyGraph getCraftingJobDependencyGraph() {
+        flushPendingCraftingInterfaces();
         return craftingJobDependencyGraph;
     }
 
     @Nullable
     @Override
     public ICraftingInterface getCraftingJobInterface(int channel, int craftingJobId) {
+        flushPendingCraftingInterfaces();
         if (channel == IPositionedAddonsNetwork.WILDCARD_CHANNEL) {
             return allCraftingJobsToInterface.get(craftingJobId);
         }
@@ -443,7 +892,10 @@ public class CraftingNetwork implements ICraftingNetwork {
         Set<ICraftingInterface> craftingInterfaces = this.craftingInterfaces.get(channel);
         if (craftingInterfaces != null && craftingInterfaces.isEmpty()) {
             this.craftingInterfaces.remove(channel);
-            this.recipeIndexes.remove(channel);
+            this.channeledRecipeIndex.removeChannel(channel);
+            this.recipeIndexSnapshots.remove(channel);
+            this.craftingJobCalculationCaches.remove(channel);
+            this.craftingJobCalculationNegativeCaches.remove(channel);
             this.recipeCraftingInterfaces.remove(channel);
         }
     }
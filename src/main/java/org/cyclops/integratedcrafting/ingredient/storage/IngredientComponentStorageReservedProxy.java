@@ -0,0 +1,134 @@
+package org.cyclops.integratedcrafting.ingredient.storage;
+
+import com.google.common.collect.Lists;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+import org.cyclops.integrateddynamics.core.network.IngredientChannelAdapter;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * An ingredient component storage that forwards to another storage,
+ * but does not allow reserved quantities of instances to be extracted.
+ *
+ * When extracting by prototype, the quantities of all matching instances are summed per exact instance,
+ * and the first exact instance of which enough quantity is not reserved is extracted.
+ * When extracting without prototype, the first instance that is not fully reserved is extracted.
+ * As this storage is only used for extracting recipe inputs,
+ * the limits of the underlying network channel are disabled during extraction.
+ *
+ * @author rubensworks
+ */
+public class IngredientComponentStorageReservedProxy<T, M> implements IIngredientComponentStorage<T, M> {
+
+    private final IIngredientComponentStorage<T, M> storage;
+    private final ToLongFunction<T> reservedQuantityGetter;
+
+    /**
+     * @param storage The storage to forward to.
+     * @param reservedQuantityGetter A function that returns the reserved quantity for an instance,
+     *                               matched exactly, ignoring its quantity.
+     */
+    public IngredientComponentStorageReservedProxy(IIngredientComponentStorage<T, M> storage, ToLongFunction<T> reservedQuantityGetter) {
+        this.storage = storage;
+        this.reservedQuantityGetter = reservedQuantityGetter;
+    }
+
+    @Override
+    public IngredientComponent<T, M> getComponent() {
+        return this.storage.getComponent();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.storage.iterator();
+    }
+
+    @Override
+    public Iterator<T> iterator(@Nonnull T prototype, M matchCondition) {
+        return this.storage.iterator(prototype, matchCondition);
+    }
+
+    @Override
+    public long getMaxQuantity() {
+        return this.storage.getMaxQuantity();
+    }
+
+    @Override
+    public T insert(@Nonnull T instance, boolean simulate) {
+        return this.storage.insert(instance, simulate);
+    }
+
+    @Override
+    public T extract(@Nonnull T prototype, M matchCondition, boolean simulate) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        M quantifierCondition = getComponent().getPrimaryQuantifier().getMatchCondition();
+        boolean exactQuantity = matcher.hasCondition(matchCondition, quantifierCondition);
+        long requestedQuantity = matcher.getQuantity(prototype);
+
+        // Sum the stored quantities of all matching instances per exact instance
+        IIngredientMapMutable<T, M, Long> storedQuantities = new IngredientHashMap<>(getComponent());
+        List<T> keys = Lists.newArrayList();
+        Iterator<T> it = this.storage.iterator(prototype, matcher.withoutCondition(matchCondition, quantifierCondition));
+        while (it.hasNext()) {
+            T instance = it.next();
+            if (!matcher.isEmpty(instance)) {
+                T key = matcher.withQuantity(instance, 1);
+                Long storedQuantity = storedQuantities.get(key);
+                if (storedQuantity == null) {
+                    keys.add(key);
+                    storedQuantity = 0L;
+                }
+                storedQuantities.put(key, storedQuantity + matcher.getQuantity(instance));
+            }
+        }
+
+        // Only the quantity that is available on top of the reserved quantity may be extracted
+        M exactMatchCondition = matcher.getExactMatchNoQuantityCondition();
+        for (T key : keys) {
+            long quantity = Math.min(requestedQuantity, storedQuantities.get(key) - reservedQuantityGetter.applyAsLong(key));
+            if (quantity > 0 && (!exactQuantity || quantity == requestedQuantity)) {
+                T extracted = extractUnlimited(matcher.withQuantity(key, quantity), exactMatchCondition, true);
+                if (!matcher.isEmpty(extracted) && (!exactQuantity || matcher.getQuantity(extracted) == requestedQuantity)) {
+                    return simulate ? extracted : extractUnlimited(extracted, exactMatchCondition, false);
+                }
+            }
+        }
+        return matcher.getEmptyInstance();
+    }
+
+    @Override
+    public T extract(long maxQuantity, boolean simulate) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        if (maxQuantity <= 0) {
+            return matcher.getEmptyInstance();
+        }
+
+        // Extract by prototype, so that reservations are taken into account
+        M exactMatchCondition = matcher.getExactMatchNoQuantityCondition();
+        long quantity = Math.min(maxQuantity, matcher.getMaximumQuantity());
+        Iterator<T> it = iterator();
+        while (it.hasNext()) {
+            T extracted = extract(matcher.withQuantity(it.next(), quantity), exactMatchCondition, simulate);
+            if (!matcher.isEmpty(extracted)) {
+                return extracted;
+            }
+        }
+        return matcher.getEmptyInstance();
+    }
+
+    protected T extractUnlimited(T prototype, M matchCondition, boolean simulate) {
+        if (storage instanceof IngredientChannelAdapter)
+            ((IngredientChannelAdapter) storage).disableLimits();
+        T extracted = storage.extract(prototype, matchCondition, simulate);
+        if (storage instanceof IngredientChannelAdapter)
+            ((IngredientChannelAdapter) storage).enableLimits();
+        return extracted;
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import org.cyclops.cyclopscore.init.ModBase;
 import org.cyclops.integratedcrafting.GeneralConfig;
 import org.cyclops.integratedcrafting.IntegratedCrafting;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
 import org.cyclops.integratedcrafting.part.aspect.CraftingAspects;
 import org.cyclops.integrateddynamics.api.part.aspect.IAspect;
 import org.cyclops.integrateddynamics.core.part.aspect.AspectRegistry;
@@ -11,6 +12,9 @@ import org.cyclops.integrateddynamics.core.part.write.PartStateWriterBase;
 import org.cyclops.integrateddynamics.core.part.write.PartTypeWriteBase;
 import org.cyclops.integrateddynamics.part.aspect.Aspects;
 
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author rubensworks
  */
@@ -43,6 +47,8 @@ public class PartTypeCraftingWriter extends PartTypeWriteBase<PartTypeCraftingWr
 
     public static class State extends PartStateWriterBase<PartTypeCraftingWriter> {
         protected long initialTickCraftingTrigger = -1;
+        @Nullable
+        protected CompletableFuture<CraftingJob> pendingCraftingJob = null;
 
         public State(int inventorySize) {
             super(inventorySize);
@@ -55,6 +61,22 @@ public class PartTypeCraftingWriter extends PartTypeWriteBase<PartTypeCraftingWr
         public void setInitialTickCraftingTrigger(long initialTickCraftingTrigger) {
             this.initialTickCraftingTrigger = initialTickCraftingTrigger;
         }
+
+        /**
+         * @return If a crafting job triggered by this writer is still being calculated.
+         */
+        public boolean isCraftingJobPending() {
+            return pendingCraftingJob != null && !pendingCraftingJob.isDone();
+        }
+
+        @Nullable
+        public CompletableFuture<CraftingJob> getPendingCraftingJob() {
+            return pendingCraftingJob;
+        }
+
+        public void setPendingCraftingJob(@Nullable CompletableFuture<CraftingJob> pendingCraftingJob) {
+            this.pendingCraftingJob = pendingCraftingJob;
+        }
     }
 
 }
@@ -7,9 +7,11 @@ import org.apache.commons.lang3.tuple.Triple;
 import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
 import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integratedcrafting.GeneralConfig;
 import org.cyclops.integratedcrafting.IntegratedCrafting;
 import org.cyclops.integratedcrafting.api.network.ICraftingNetwork;
 import org.cyclops.integratedcrafting.core.CraftingHelpers;
+import org.cyclops.integratedcrafting.core.IngredientMatchConditionIndex;
 import org.cyclops.integratedcrafting.part.PartTypeCraftingWriter;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
@@ -127,16 +129,51 @@ public class CraftingAspectWriteBuilders {
                 boolean ignoreCrafting = properties.getValue(PROP_IGNORE_CRAFTING).getRawValue();
                 boolean craftMissing = properties.getValue(PROP_CRAFT_MISSING).getRawValue();
 
-                if ((ignoreCrafting || !CraftingHelpers.isCrafting(craftingNetwork, channel, recipe))) {
-                    CraftingHelpers.calculateAndScheduleCraftingJob(network, channel,
-                            recipe, amount, craftMissing, true,
-                            CraftingHelpers.getGlobalCraftingJobIdentifier(), null);
+                PartTypeCraftingWriter.State partState = (PartTypeCraftingWriter.State) PartHelpers.getPart(center).getState();
+                if (!partState.isCraftingJobPending()
+                        && (ignoreCrafting || !CraftingHelpers.isCrafting(craftingNetwork, channel, recipe))) {
+                    if (GeneralConfig.craftingJobPlanningThreads > 0) {
+                        partState.setPendingCraftingJob(CraftingHelpers.calculateAndScheduleCraftingJobAsync(network, channel,
+                                recipe, amount, craftMissing, true,
+                                CraftingHelpers.getGlobalCraftingJobIdentifier(), null));
+                    } else if (GeneralConfig.craftingJobCalculationTickNodes > 0) {
+                        partState.setPendingCraftingJob(CraftingHelpers.calculateAndScheduleCraftingJobTimeSliced(network, channel,
+                                recipe, amount, craftMissing, true,
+                                CraftingHelpers.getGlobalCraftingJobIdentifier(), null).getFuture());
+                    } else {
+                        CraftingHelpers.calculateAndScheduleCraftingJob(network, channel,
+                                recipe, amount, craftMissing, true,
+                                CraftingHelpers.getGlobalCraftingJobIdentifier(), null);
+                    }
                 }
             }
         }
         return null;
     };
 
+    /**
+     * Get the quantity of the given instance that present crafting jobs are still expected to produce.
+     * The output ledger of the crafting network only matches exactly,
+     * so for other match conditions, any matching crafting job is assumed to produce the full quantity.
+     * @param craftingNetwork The crafting network.
+     * @param channel The channel.
+     * @param ingredientComponent The ingredient component type.
+     * @param instance The instance to craft.
+     * @param matchCondition The match condition of the instance.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return The quantity that is being crafted.
+     */
+    protected static <T, M> long getCraftingQuantity(ICraftingNetwork craftingNetwork, int channel,
+                                                     IngredientComponent<T, M> ingredientComponent, T instance,
+                                                     M matchCondition) {
+        if (IngredientMatchConditionIndex.isExact(ingredientComponent, matchCondition)) {
+            return craftingNetwork.getCraftingJobsOutputQuantity(channel, ingredientComponent, instance);
+        }
+        return CraftingHelpers.isCrafting(craftingNetwork, channel, ingredientComponent, instance, matchCondition)
+                ? ingredientComponent.getMatcher().getQuantity(instance) : 0;
+    }
+
     public static <T, M> IAspectValuePropagator<CraftingJobData<T, M>, Void> PROP_CRAFT() {
         return input -> {
             IngredientComponent<T, M> ingredientComponent = input.getIngredientComponent();
@@ -155,10 +192,18 @@ public class CraftingAspectWriteBuilders {
                     boolean craftMissing = properties.getValue(PROP_CRAFT_MISSING).getRawValue();
                     int craftDelay = properties.getValue(PROP_CRAFT_DELAY).getRawValue();
 
+                    // Don't trigger a new crafting job while a previous one is still being calculated
+                    if (((PartTypeCraftingWriter.State) PartHelpers.getPart(input.getCenter()).getState()).isCraftingJobPending()) {
+                        return null;
+                    }
+
+                    // The quantity that running crafting jobs will still produce
+                    long craftingQuantity = ignoreCrafting ? 0 : getCraftingQuantity(craftingNetwork, channel,
+                            ingredientComponent, instance, matchCondition);
+
                     if ((ignoreStorage || !CraftingHelpers.hasStorageInstance(network, channel, ingredientComponent,
                             instance, ingredientComponent.getMatcher().getExactMatchCondition()))
-                            && (ignoreCrafting || !CraftingHelpers.isCrafting(craftingNetwork, channel,
-                                ingredientComponent, instance, matchCondition))) {
+                            && (ignoreCrafting || craftingQuantity < matcher.getQuantity(instance))) {
                         // Handle craft delay (only if we are checking storage)
                         boolean allowCraft;
                         if (craftDelay > 0 && !ignoreStorage) {
@@ -180,18 +225,35 @@ public class CraftingAspectWriteBuilders {
                             allowCraft = true;
                         }
 
-                        // If delay check passed, trigger a new crafting job
-                        if (allowCraft) {
-                            // If a quantity of > 1 was set, only craft the missing quantity.
-                            if (matcher.getQuantity(instance) > 1) {
-                                long missingQuantity = matcher.getQuantity(instance) - CraftingHelpers.getStorageInstanceQuantity(network, channel, ingredientComponent,
-                                        instance, ingredientComponent.getMatcher().getExactMatchCondition());
+                        // If a quantity of > 1 was set, only craft the missing quantity,
+                        // without the quantity that is already being crafted.
+                        if (allowCraft && matcher.getQuantity(instance) > 1) {
+                            long missingQuantity = matcher.getQuantity(instance) - CraftingHelpers.getStorageInstanceQuantity(network, channel, ingredientComponent,
+                                    instance, ingredientComponent.getMatcher().getExactMatchCondition()) - craftingQuantity;
+                            if (missingQuantity > 0) {
                                 instance = matcher.withQuantity(instance, missingQuantity);
+                            } else {
+                                allowCraft = false;
                             }
+                        }
 
-                            CraftingHelpers.calculateAndScheduleCraftingJob(network, channel,
-                                    ingredientComponent, instance, matchCondition, craftMissing, true,
-                                    CraftingHelpers.getGlobalCraftingJobIdentifier(), null);
+                        // If delay check passed, trigger a new crafting job
+                        if (allowCraft) {
+                            if (GeneralConfig.craftingJobPlanningThreads > 0) {
+                                ((PartTypeCraftingWriter.State) PartHelpers.getPart(input.getCenter()).getState())
+                                        .setPendingCraftingJob(CraftingHelpers.calculateAndScheduleCraftingJobAsync(network, channel,
+                                                ingredientComponent, instance, matchCondition, craftMissing, true,
+                                                CraftingHelpers.getGlobalCraftingJobIdentifier(), null));
+                            } else if (GeneralConfig.craftingJobCalculationTickNodes > 0) {
+                                ((PartTypeCraftingWriter.State) PartHelpers.getPart(input.getCenter()).getState())
+                                        .setPendingCraftingJob(CraftingHelpers.calculateAndScheduleCraftingJobTimeSliced(network, channel,
+                                                ingredientComponent, instance, matchCondition, craftMissing, true,
+                                                CraftingHelpers.getGlobalCraftingJobIdentifier(), null).getFuture());
+                            } else {
+                                CraftingHelpers.calculateAndScheduleCraftingJob(network, channel,
+                                        ingredientComponent, instance, matchCondition, craftMissing, true,
+                                        CraftingHelpers.getGlobalCraftingJobIdentifier(), null);
+                            }
                         }
                     } else {
                         // Reset initial tick crafting trigger
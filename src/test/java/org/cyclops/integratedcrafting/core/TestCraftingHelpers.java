@@ -22,19 +22,30 @@ import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollectionMutabl
 import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientHashSet;
 import org.cyclops.cyclopscore.ingredient.storage.IngredientComponentStorageCollectionWrapper;
+import org.cyclops.integratedcrafting.GeneralConfig;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
 import org.cyclops.integratedcrafting.api.crafting.CraftingJobDependencyGraph;
 import org.cyclops.integratedcrafting.api.crafting.RecursiveCraftingRecipeException;
 import org.cyclops.integratedcrafting.api.crafting.UnknownCraftingRecipeException;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndexModifiable;
 import org.cyclops.integratedcrafting.ingredient.ComplexStack;
 import org.cyclops.integratedcrafting.ingredient.IngredientComponentStubs;
+import org.cyclops.integratedcrafting.ingredient.storage.IngredientComponentStorageReservedProxy;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -1726,6 +1737,286 @@ public class TestCraftingHelpers {
         }
     }
 
+    @Test
+    public void testCalculateCraftingJobResultUnknown() throws RecursiveCraftingRecipeException {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+
+        CraftingJobCalculationResult result = CraftingHelpers.calculateCraftingJobResult(recipeIndex, 0, storageGetterEmpty,
+                IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT, true,
+                simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobDependencyGraph, parentDependencies,
+                false, null, null, null);
+        assertThat(result.isSuccess(), is(false));
+        assertThat(result.getCraftingJob(), nullValue());
+        assertThat(result.getRecursion(), nullValue());
+        assertThat(result.getMissingRecipe().getIngredient(), equalTo(new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT)));
+        assertThat(result.getMissingRecipe().toException(), equalTo(
+                new UnknownCraftingRecipeException(new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT), 1, Lists.newArrayList(), new MixedIngredients(Collections.emptyMap()), Lists.newArrayList())
+        ));
+    }
+
+    @Test
+    public void testCalculateCraftingJobResultsMerged() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+
+        storageGetter = (c) -> storageValidMore;
+
+        List<CraftingJobCalculationResult> results = CraftingHelpers.calculateCraftingJobResults(recipeIndex, 0, storageGetter,
+                Lists.<IPrototypedIngredient<?, ?>>newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT),
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT)
+                ), true, identifierGenerator, craftingJobDependencyGraph, false, null, null, null);
+
+        assertThat(results.size(), equalTo(2));
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(1).isSuccess(), is(true));
+        assertThat(results.get(1).getCraftingJob(), sameInstance(results.get(0).getCraftingJob()));
+        assertThat(results.get(0).getCraftingJob().getAmount(), equalTo(2));
+        assertThat(results.get(0).getCraftingJob().getRecipe(), equalTo(recipeB));
+        assertThat(craftingJobDependencyGraph.getCraftingJobs().size(), equalTo(1));
+    }
+
+    @Test
+    public void testCalculateCraftingJobResultsSharedStorage() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+
+        IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA01_, false);
+        storageGetter = (c) -> storage;
+
+        List<CraftingJobCalculationResult> results = CraftingHelpers.calculateCraftingJobResults(recipeIndex, 0, storageGetter,
+                Lists.<IPrototypedIngredient<?, ?>>newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT),
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT)
+                ), true, identifierGenerator, craftingJobDependencyGraph, false, null, null, null);
+
+        assertThat(results.size(), equalTo(2));
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(0).getCraftingJob().getAmount(), equalTo(1));
+        assertThat(results.get(1).isSuccess(), is(false));
+        assertThat(craftingJobDependencyGraph.getCraftingJobs().size(), equalTo(1));
+    }
+
+    @Test
+    public void testCalculateCraftingJobResultsSharedIntermediate() {
+        // Recipe E and F also require CA01_, which is crafted by recipe A
+        Map<IngredientComponent<?, ?>, List<IPrototypedIngredientAlternatives<?, ?>>> mapE = Maps.newIdentityHashMap();
+        mapE.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(
+                new PrototypedIngredientAlternativesList<>(Lists.newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT)
+                ))
+        ));
+        Map<IngredientComponent<?, ?>, List<?>> mapEOutput = Maps.newIdentityHashMap();
+        mapEOutput.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CE01_));
+        IRecipeDefinition recipeE = new RecipeDefinition(mapE, new MixedIngredients(mapEOutput));
+        Map<IngredientComponent<?, ?>, List<IPrototypedIngredientAlternatives<?, ?>>> mapF = Maps.newIdentityHashMap();
+        mapF.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(
+                new PrototypedIngredientAlternativesList<>(Lists.newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT)
+                )),
+                new PrototypedIngredientAlternativesList<>(Lists.newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CC01_, ComplexStack.Match.EXACT)
+                ))
+        ));
+        Map<IngredientComponent<?, ?>, List<?>> mapFOutput = Maps.newIdentityHashMap();
+        mapFOutput.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CD01_));
+        IRecipeDefinition recipeF = new RecipeDefinition(mapF, new MixedIngredients(mapFOutput));
+
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeA);
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeE);
+        recipeIndex.addRecipe(recipeF);
+
+        IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA92B, false);
+        storageGetter = (c) -> storage;
+
+        // The failing calculation of CD01_ must not take the CA91B that is needed for CE01_
+        List<CraftingJobCalculationResult> results = CraftingHelpers.calculateCraftingJobResults(recipeIndex, 0, storageGetter,
+                Lists.<IPrototypedIngredient<?, ?>>newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT),
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CD01_, ComplexStack.Match.EXACT),
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CE01_, ComplexStack.Match.EXACT)
+                ), true, identifierGenerator, craftingJobDependencyGraph, false, null, null, null);
+
+        assertThat(results.size(), equalTo(3));
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(1).isSuccess(), is(false));
+        assertThat(results.get(2).isSuccess(), is(true));
+        CraftingJob jobB = results.get(0).getCraftingJob();
+        CraftingJob jobE = results.get(2).getCraftingJob();
+        assertThat(jobB.getRecipe(), equalTo(recipeB));
+        assertThat(jobE.getRecipe(), equalTo(recipeE));
+
+        // Both jobs depend on a single shared job for CA01_
+        assertThat(craftingJobDependencyGraph.getCraftingJobs().size(), equalTo(3));
+        Collection<CraftingJob> dependenciesB = craftingJobDependencyGraph.getDependencies(jobB);
+        Collection<CraftingJob> dependenciesE = craftingJobDependencyGraph.getDependencies(jobE);
+        assertThat(dependenciesB.size(), equalTo(1));
+        assertThat(dependenciesE, equalTo(dependenciesB));
+        CraftingJob jobA = Iterables.getFirst(dependenciesB, null);
+        assertThat(jobA.getRecipe(), equalTo(recipeA));
+        assertThat(jobA.getAmount(), equalTo(2));
+        assertThat(Sets.newHashSet(craftingJobDependencyGraph.getDependents(jobA)), equalTo(Sets.newHashSet(jobB, jobE)));
+        assertThat(jobA.getIngredientsStorage().getInstances(IngredientComponentStubs.COMPLEX), equalTo(Lists.newArrayList(
+                CA92B
+        )));
+    }
+
+    @Test
+    public void testCalculateCraftingJobResultCostBased() throws RecursiveCraftingRecipeException {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeBAlt2);
+        recipeIndex.addRecipe(recipeA);
+
+        IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA91B, false);
+        storageGetter = (c) -> storage;
+
+        // Crafting via recipeB requires an additional crafting job for recipeA
+        CraftingJobCalculationResult result = CraftingHelpers.calculateCraftingJobResult(recipeIndex, 0, storageGetter,
+                IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true,
+                simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobDependencyGraph, parentDependencies,
+                false, null, null, new CraftingJobCostModel());
+        assertThat(result.isSuccess(), is(true));
+        assertThat(result.getCraftingJob().getRecipe(), equalTo(recipeBAlt2));
+        assertThat(result.getCraftingJob().getDependencyCraftingJobs().size(), equalTo(0));
+        assertThat(craftingJobDependencyGraph.getCraftingJobs().size(), equalTo(0));
+    }
+
+    @Test
+    public void testCalculateCraftingJobResultCostBasedBudgetUsedUp() throws RecursiveCraftingRecipeException {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeBAlt2);
+        recipeIndex.addRecipe(recipeA);
+
+        IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA91B, false);
+        storageGetter = (c) -> storage;
+
+        // Once the budget of the calculation is used up, the first valid recipe is chosen
+        CraftingJobCostModel costModel = new CraftingJobCostModel().forCalculation();
+        while (costModel.consumeCandidateBudget());
+        assertThat(costModel.hasCandidateBudget(), is(false));
+        CraftingJobCalculationResult result = CraftingHelpers.calculateCraftingJobResult(recipeIndex, 0, storageGetter,
+                IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true,
+                simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobDependencyGraph, parentDependencies,
+                false, null, null, costModel);
+        assertThat(result.isSuccess(), is(true));
+        assertThat(result.getCraftingJob().getRecipe(), equalTo(recipeB));
+
+        // A new calculation has a new budget
+        assertThat(costModel.forCalculation().hasCandidateBudget(), is(true));
+    }
+
+    @Test
+    public void testForkSimulatedExtractionMemory() {
+        IngredientCollectionPrototypeMap<ComplexStack, Integer> memory = new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX);
+        memory.add(CA01_);
+        Map<IngredientComponent<?, ?>, IngredientCollectionPrototypeMap<?, ?>> memories = Maps.newIdentityHashMap();
+        memories.put(IngredientComponentStubs.COMPLEX, memory);
+
+        // Collections are only copied once they are accessed
+        ExtractionMemoryFork<IngredientCollectionPrototypeMap<?, ?>> fork = CraftingHelpers.forkSimulatedExtractionMemory(memories);
+        assertThat(fork.getForkedEntries().size(), equalTo(0));
+        assertThat(fork.containsKey(IngredientComponentStubs.COMPLEX), is(true));
+        assertThat(fork.getForkedEntries().size(), equalTo(0));
+        IngredientCollectionPrototypeMap<ComplexStack, Integer> forkedMemory = (IngredientCollectionPrototypeMap<ComplexStack, Integer>) fork.get(IngredientComponentStubs.COMPLEX);
+        assertThat(forkedMemory, not(sameInstance(memory)));
+        assertThat(fork.getForkedEntries().size(), equalTo(1));
+        assertThat(forkedMemory.getQuantity(CA01_), equalTo(1L));
+
+        // Changes in the fork do not modify the underlying memory
+        forkedMemory.add(CB01_);
+        assertThat(memory.getQuantity(CB01_), equalTo(0L));
+
+        // Forks of forks do not copy collections in the underlying fork
+        ExtractionMemoryFork<IngredientCollectionPrototypeMap<?, ?>> fork2 = CraftingHelpers.forkSimulatedExtractionMemory(fork);
+        IngredientCollectionPrototypeMap<ComplexStack, Integer> forkedMemory2 = (IngredientCollectionPrototypeMap<ComplexStack, Integer>) fork2.get(IngredientComponentStubs.COMPLEX);
+        assertThat(forkedMemory2.getQuantity(CB01_), equalTo(1L));
+        assertThat(fork.get(IngredientComponentStubs.COMPLEX), sameInstance(forkedMemory));
+        assertThat(fork2.get(IngredientComponentStubs.SIMPLE), nullValue());
+        assertThat(fork2.getForkedEntries().size(), equalTo(1));
+    }
+
+    @Test
+    public void testRecipeIndexDefaults() {
+        RecipeIndexDefault recipeIndexDefault = new RecipeIndexDefault();
+        recipeIndexDefault.addRecipe(recipeB);
+        // An index that only implements the required methods
+        IRecipeIndex recipeIndex = new IRecipeIndex() {
+            @Override
+            public Set<IRecipeDefinition> getRecipes() {
+                return recipeIndexDefault.getRecipes();
+            }
+
+            @Override
+            public <T, M> Iterator<IRecipeDefinition> getRecipes(IngredientComponent<T, M> outputType, T output, M matchCondition) {
+                return recipeIndexDefault.getRecipes(outputType, output, matchCondition);
+            }
+        };
+
+        assertThat(Lists.newArrayList(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(recipeB)));
+        assertThat(Lists.newArrayList(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.EXACT)).isEmpty(), is(true));
+        assertThat(recipeIndex.getOutputQuantity(recipeB, IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.ANY), equalTo(2L));
+        assertThat(recipeIndex.getVersion(), equalTo(IRecipeIndex.VERSION_UNTRACKED));
+        assertThat(recipeIndex.isRecipeCyclic(recipeB), is(true));
+
+        // Caches must never be reused for indexes that don't track their changes
+        int cacheSize = GeneralConfig.craftingJobCalculationCacheSize;
+        GeneralConfig.craftingJobCalculationCacheSize = 1024;
+        try {
+            CraftingJobCalculationCache calculationCache = new CraftingJobCalculationCache();
+            calculationCache.validate(recipeIndex);
+            calculationCache.put(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, recipeB, 1);
+            assertThat(calculationCache.size(), equalTo(1));
+            calculationCache.validate(recipeIndex);
+            assertThat(calculationCache.size(), equalTo(0));
+        } finally {
+            GeneralConfig.craftingJobCalculationCacheSize = cacheSize;
+        }
+    }
+
+    @Test
+    public void testGetRecipeTreeInputComponents() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        assertThat(CraftingHelpers.getRecipeTreeInputComponents(recipeIndex, IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT).isEmpty(), is(true));
+
+        recipeIndex.addRecipe(recipeB);
+        assertThat(CraftingHelpers.getRecipeTreeInputComponents(recipeIndex, IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT),
+                equalTo(Sets.<IngredientComponent<?, ?>>newHashSet(IngredientComponentStubs.COMPLEX)));
+        assertThat(CraftingHelpers.getRecipeTreeInputComponents(recipeIndex, IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCraftingJobCostModelProcessingTicks() {
+        CraftingJobCostModel costModel = new CraftingJobCostModel();
+        assertThat(costModel.getProcessingTicks(recipeA), equalTo(CraftingJobCostModel.DEFAULT_PROCESSING_TICKS));
+
+        // Ticks are recorded per amount, and averaged with earlier jobs
+        costModel.recordProcessingTicks(recipeA, 40, 10);
+        assertThat(costModel.getProcessingTicks(recipeA), equalTo(4D));
+        costModel.recordProcessingTicks(recipeA, 20, 10);
+        assertThat(costModel.getProcessingTicks(recipeA), equalTo(3D));
+
+        // Calculations share the recorded ticks
+        assertThat(costModel.forCalculation().getProcessingTicks(recipeA), equalTo(3D));
+
+        // Ingredients are counted by quantity
+        CraftingJob craftingJob = new CraftingJob(0, 0, recipeA, 2, new MixedIngredients(Maps.newIdentityHashMap()));
+        assertThat(costModel.getCost(craftingJob, new CraftingJobDependencyGraph()), equalTo(CraftingJobCostModel.JOB_COST + 6));
+        Map<IngredientComponent<?, ?>, List<?>> ingredients = Maps.newIdentityHashMap();
+        ingredients.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA05_, CA03_));
+        craftingJob = new CraftingJob(0, 0, recipeA, 2, new MixedIngredients(ingredients));
+        assertThat(costModel.getCost(craftingJob, new CraftingJobDependencyGraph()), equalTo(CraftingJobCostModel.JOB_COST + 6 + 8));
+    }
+
     @Test
     public void testCalculateCraftingJobsSingleOneAvailable() throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
         RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
@@ -1804,6 +2095,55 @@ public class TestCraftingHelpers {
         assertThat(craftingJobDependencyGraph.getCraftingJobs().size(), equalTo(0));
     }
 
+    @Test
+    public void testCalculateCraftingJobsSingleOneAvailableCached() throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
+        int cacheSize = GeneralConfig.craftingJobCalculationCacheSize;
+        GeneralConfig.craftingJobCalculationCacheSize = 1024;
+        try {
+            RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+            recipeIndex.addRecipe(recipeB);
+            CraftingJobCalculationCache calculationCache = new CraftingJobCalculationCache();
+            calculationCache.validate(recipeIndex);
+
+            // Single crafting recipe with one available dependent
+            IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+            storage.insert(CA01_, false);
+            storageGetter = (c) -> storage;
+
+            // A cached recipe that does not have the highest priority is ignored
+            calculationCache.put(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, recipeBAlt, 1);
+
+            CraftingJob j = CraftingHelpers.calculateCraftingJobs(recipeIndex, 0, storageGetter,
+                    IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true,
+                    simulatedExtractionMemory, extractionMemoryReusable, identifierGenerator, craftingJobDependencyGraph, parentDependencies, false,
+                    calculationCache, null);
+
+            assertThat(j.getRecipe(), equalTo(recipeB));
+            assertThat(calculationCache.size(), equalTo(1));
+            assertThat(calculationCache.get(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT).getRecipe(), equalTo(recipeB));
+            assertThat(calculationCache.get(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT).getAmount(), equalTo(1));
+
+            // A second calculation must produce the same job
+            CraftingJob j2 = CraftingHelpers.calculateCraftingJobs(recipeIndex, 0, storageGetter,
+                    IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true,
+                    Maps.newIdentityHashMap(), Maps.newIdentityHashMap(), identifierGenerator, craftingJobDependencyGraph, parentDependencies, false,
+                    calculationCache, null);
+
+            assertThat(j2.getRecipe(), equalTo(recipeB));
+            assertThat(j2.getAmount(), equalTo(1));
+            assertThat(j2.getIngredientsStorage().getInstances(IngredientComponentStubs.COMPLEX), equalTo(Lists.newArrayList(
+                    CA01_
+            )));
+
+            // Changing the recipe index invalidates the cache
+            recipeIndex.removeRecipe(recipeB);
+            calculationCache.validate(recipeIndex);
+            assertThat(calculationCache.size(), equalTo(0));
+        } finally {
+            GeneralConfig.craftingJobCalculationCacheSize = cacheSize;
+        }
+    }
+
     @Test
     public void testCalculateCraftingJobsSingleOneAvailableNoCraftMissing() throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
         RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
@@ -1871,6 +2211,134 @@ public class TestCraftingHelpers {
         }
     }
 
+    @Test
+    public void testCalculateCraftingJobsDoubleOneMissingTimeSliced() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeA);
+
+        // Single crafting recipe with one missing but craftable dependent
+        IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA91B, false);
+        storageGetter = (c) -> storage;
+
+        TimeSlicedCraftingJobCalculation calculation = new TimeSlicedCraftingJobCalculation(
+                CraftingHelpers.createCraftingJobCalculator(0, IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true, identifierGenerator, null, null),
+                recipeIndex, storageGetter, c -> c.getCraftingJob());
+
+        // Only visit a single recipe node per step
+        assertThat(calculation.step(1, 1000000000L), equalTo(false));
+        assertThat(calculation.getVisitedNodes(), equalTo(1));
+        assertThat(calculation.step(1, 1000000000L), equalTo(false));
+        assertThat(calculation.getVisitedNodes(), equalTo(2));
+        assertThat(calculation.step(1, 1000000000L), equalTo(true));
+        assertThat(calculation.isDone(), equalTo(true));
+        assertThat(calculation.getSlices(), equalTo(3));
+
+        CraftingJob j1 = calculation.getCraftingJob();
+        assertThat(j1.getId(), equalTo(1));
+        assertThat(j1.getAmount(), equalTo(1));
+        assertThat(j1.getRecipe(), equalTo(recipeB));
+
+        CraftingJobDependencyGraph graph = calculation.getCraftingJobsGraph();
+        assertThat(graph.getCraftingJobs().size(), equalTo(2));
+        assertThat(graph.getDependencies(j1).size(), equalTo(1));
+        CraftingJob j0 = Iterables.getFirst(graph.getDependencies(j1), null);
+        assertThat(j0.getId(), equalTo(0));
+        assertThat(j0.getIngredientsStorage().getInstances(IngredientComponentStubs.COMPLEX), equalTo(Lists.newArrayList(
+                CA91B
+        )));
+    }
+
+    @Test
+    public void testCalculateCraftingJobsDoubleOneMissingTimeSlicedSharedBudget() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeA);
+
+        IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA91B, false);
+        storageGetter = (c) -> storage;
+
+        TimeSlicedCraftingJobCalculation calculation1 = new TimeSlicedCraftingJobCalculation(
+                CraftingHelpers.createCraftingJobCalculator(0, IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true, identifierGenerator, null, null),
+                recipeIndex, storageGetter, c -> c.getCraftingJob());
+        TimeSlicedCraftingJobCalculation calculation2 = new TimeSlicedCraftingJobCalculation(
+                CraftingHelpers.createCraftingJobCalculator(0, IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true, identifierGenerator, null, null),
+                recipeIndex, storageGetter, c -> c.getCraftingJob());
+        TimeSlicedCraftingJobCalculation.enqueue(calculation1);
+        TimeSlicedCraftingJobCalculation.enqueue(calculation2);
+        try {
+            // Only one calculation may be started
+            TimeSlicedCraftingJobCalculation.tickAll(1, 1000000000L, 1);
+            assertThat(calculation1.getVisitedNodes(), equalTo(1));
+            assertThat(calculation1.isStarted(), is(true));
+            assertThat(calculation2.isStarted(), is(false));
+
+            // The node budget is divided over both calculations
+            TimeSlicedCraftingJobCalculation.tickAll(2, 1000000000L, 2);
+            assertThat(calculation1.getVisitedNodes(), equalTo(2));
+            assertThat(calculation2.getVisitedNodes(), equalTo(1));
+            assertThat(calculation2.isStarted(), is(true));
+
+            TimeSlicedCraftingJobCalculation.tickAll(Integer.MAX_VALUE, 1000000000L, 2);
+            assertThat(calculation1.isDone(), is(true));
+            assertThat(calculation2.isDone(), is(true));
+            assertThat(calculation1.getFuture().join().getRecipe(), equalTo(recipeB));
+            assertThat(calculation2.getFuture().join().getRecipe(), equalTo(recipeB));
+        } finally {
+            TimeSlicedCraftingJobCalculation.cancelAll();
+        }
+    }
+
+    @Test
+    public void testCalculateCraftingJobsDoubleOneMissingAsync() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeA);
+
+        // Single crafting recipe with one missing but craftable dependent
+        IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA91B, false);
+        storageGetter = (c) -> storage;
+
+        // Calculate against snapshots, while the original storage is modified
+        IRecipeIndex recipeIndexSnapshot = CraftingHelpers.createRecipeIndexSnapshot(recipeIndex);
+        IIngredientComponentStorage<ComplexStack, Integer> storageSnapshot = CraftingHelpers.createStorageSnapshot(storage);
+        storage.extract(CA91B, ComplexStack.Match.EXACT, false);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Pair<CraftingJob, CraftingJobDependencyGraph> result;
+        try {
+            result = CraftingHelpers.calculateCraftingJobAsync(
+                    CraftingHelpers.createCraftingJobCalculator(0, IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true, identifierGenerator, null, null),
+                    recipeIndexSnapshot, (c) -> storageSnapshot, executor).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        CraftingJob j1 = result.getLeft();
+        assertThat(j1.getId(), equalTo(1));
+        assertThat(j1.getAmount(), equalTo(1));
+        assertThat(j1.getRecipe(), equalTo(recipeB));
+
+        CraftingJobDependencyGraph graph = result.getRight();
+        assertThat(graph.getCraftingJobs().size(), equalTo(2));
+        CraftingJob j0 = Iterables.getFirst(graph.getDependencies(j1), null);
+        assertThat(j0.getIngredientsStorage().getInstances(IngredientComponentStubs.COMPLEX), equalTo(Lists.newArrayList(
+                CA91B
+        )));
+
+        // The calculation is invalid while its ingredients are missing from the original storage
+        long version = recipeIndexSnapshot.getVersion();
+        assertThat(CraftingHelpers.isCraftingJobCalculationValid(recipeIndex, version, storageGetter, graph), is(false));
+        storage.insert(CA91B, false);
+        assertThat(CraftingHelpers.isCraftingJobCalculationValid(recipeIndex, version, storageGetter, graph), is(true));
+
+        // The calculation is invalid once the recipes have changed
+        recipeIndex.addRecipe(recipeC);
+        assertThat(CraftingHelpers.isCraftingJobCalculationValid(recipeIndex, version, storageGetter, graph), is(false));
+    }
+
     @Test
     public void testCalculateCraftingJobsDoubleOneMissing() throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
         RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
@@ -2128,6 +2596,305 @@ public class TestCraftingHelpers {
         }
     }
 
+    @Test
+    public void testRecipeIndexCyclicRecipes() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeBRecursive);
+        assertThat(recipeIndex.isRecipeCyclic(recipeBRecursive), is(true));
+
+        recipeIndex.removeRecipe(recipeBRecursive);
+        assertThat(recipeIndex.isRecipeCyclic(recipeB), is(false));
+
+        recipeIndex.addRecipe(recipeA);
+        recipeIndex.addRecipe(recipeA9);
+        assertThat(recipeIndex.isRecipeCyclic(recipeB), is(true));
+        assertThat(recipeIndex.isRecipeCyclic(recipeA), is(true));
+        assertThat(recipeIndex.isRecipeCyclic(recipeA9), is(true));
+    }
+
+    @Test
+    public void testRecipeIndexCompact() {
+        RecipeIndexCompact recipeIndex = new RecipeIndexCompact();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeBAlt2);
+        recipeIndex.addRecipe(recipeA);
+        assertThat(recipeIndex.getRecipes().size(), equalTo(3));
+        assertThat(Lists.newArrayList(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(recipeB, recipeBAlt2)));
+        assertThat(Lists.newArrayList(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(recipeA)));
+
+        // Ids of removed recipes are reused
+        int idB = recipeIndex.getRecipeId(recipeB);
+        recipeIndex.removeRecipe(recipeB);
+        assertThat(recipeIndex.getRecipeId(recipeB), equalTo(-1));
+        assertThat(recipeIndex.getRecipe(idB), nullValue());
+        assertThat(Lists.newArrayList(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(recipeBAlt2)));
+        recipeIndex.addRecipe(recipeBRecursive);
+        assertThat(recipeIndex.getRecipeId(recipeBRecursive), equalTo(idB));
+        assertThat(recipeIndex.getRecipe(idB), equalTo(recipeBRecursive));
+        assertThat(recipeIndex.isRecipeCyclic(recipeBRecursive), is(true));
+
+        recipeIndex.removeRecipe(recipeBAlt2);
+        recipeIndex.removeRecipe(recipeBRecursive);
+        assertThat(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT).hasNext(), is(false));
+    }
+
+    @Test
+    public void testRecipeIndexDefaultFuzzy() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeA);
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeBAlt2);
+        assertThat(Sets.newHashSet(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB08_, ComplexStack.Match.GROUP)),
+                equalTo(Sets.newHashSet(recipeB, recipeBAlt2)));
+        assertThat(Sets.newHashSet(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CA03_, ComplexStack.Match.GROUP | ComplexStack.Match.META)),
+                equalTo(Sets.newHashSet(recipeA)));
+        assertThat(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB08_, ComplexStack.Match.EXACT).hasNext(), is(false));
+        assertThat(Sets.newHashSet(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB08_, ComplexStack.Match.ANY)),
+                equalTo(Sets.newHashSet(recipeA, recipeB, recipeBAlt2)));
+
+        recipeIndex.removeRecipe(recipeB);
+        recipeIndex.removeRecipe(recipeBAlt2);
+        assertThat(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB08_, ComplexStack.Match.GROUP).hasNext(), is(false));
+    }
+
+    @Test
+    public void testRecipeIndexByInput() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeBAlt);
+        recipeIndex.addRecipe(recipeBAlt2);
+        assertThat(Sets.newHashSet(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT)),
+                equalTo(Sets.newHashSet(recipeB, recipeBAlt)));
+        assertThat(Sets.newHashSet(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CA93B, ComplexStack.Match.GROUP | ComplexStack.Match.META)),
+                equalTo(Sets.newHashSet(recipeBAlt2)));
+
+        recipeIndex.removeRecipe(recipeB);
+        assertThat(Sets.newHashSet(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT)),
+                equalTo(Sets.newHashSet(recipeBAlt)));
+    }
+
+    @Test
+    public void testRecipeIndexByInputFuzzy() {
+        Map<IngredientComponent<?, ?>, List<IPrototypedIngredientAlternatives<?, ?>>> mapFuzzy = Maps.newIdentityHashMap();
+        mapFuzzy.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(
+                new PrototypedIngredientAlternativesList<>(Lists.newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.GROUP | ComplexStack.Match.AMOUNT)
+                ))
+        ));
+        Map<IngredientComponent<?, ?>, List<?>> mapFuzzyOutput = Maps.newIdentityHashMap();
+        mapFuzzyOutput.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CB02_));
+        IRecipeDefinition recipeFuzzy = new RecipeDefinition(mapFuzzy, new MixedIngredients(mapFuzzyOutput));
+
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeFuzzy);
+
+        // Inputs that only match under the condition of the recipe input are found as well
+        assertThat(Sets.newHashSet(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT)),
+                equalTo(Sets.newHashSet(recipeB, recipeFuzzy)));
+        assertThat(Sets.newHashSet(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CA93B, ComplexStack.Match.EXACT)),
+                equalTo(Sets.newHashSet(recipeFuzzy)));
+        assertThat(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.EXACT).hasNext(), is(false));
+
+        recipeIndex.removeRecipe(recipeFuzzy);
+        assertThat(recipeIndex.getRecipesByInput(IngredientComponentStubs.COMPLEX, CA93B, ComplexStack.Match.EXACT).hasNext(), is(false));
+    }
+
+    @Test
+    public void testCraftingJobMissingIngredientsIndexFuzzy() {
+        CraftingJobMissingIngredientsIndex index = new CraftingJobMissingIngredientsIndex();
+        CraftingJob craftingJobExact = new CraftingJob(0, 0, recipeB, 1, new MixedIngredients(Maps.newIdentityHashMap()));
+        CraftingJob craftingJobFuzzy = new CraftingJob(1, 0, recipeB, 1, new MixedIngredients(Maps.newIdentityHashMap()));
+        index.setMissingIngredients(craftingJobExact, createMissingIngredients(CA01_, ComplexStack.Match.EXACT));
+        index.setMissingIngredients(craftingJobFuzzy, createMissingIngredients(CA01_, ComplexStack.Match.GROUP | ComplexStack.Match.META));
+
+        // Added instances are matched against the condition of each missing prototype
+        Integer condition = ComplexStack.Match.GROUP | ComplexStack.Match.META | ComplexStack.Match.TAG;
+        assertThat(Sets.newHashSet(index.getCraftingJobs(IngredientComponentStubs.COMPLEX, CA05_, condition)),
+                equalTo(Sets.newHashSet(craftingJobExact, craftingJobFuzzy)));
+        assertThat(Sets.newHashSet(index.getCraftingJobs(IngredientComponentStubs.COMPLEX, CA02B, condition)),
+                equalTo(Sets.newHashSet(craftingJobFuzzy)));
+        assertThat(index.getCraftingJobs(IngredientComponentStubs.COMPLEX, CA11_, condition).hasNext(), is(false));
+
+        index.removeCraftingJob(craftingJobFuzzy);
+        assertThat(index.getCraftingJobs(IngredientComponentStubs.COMPLEX, CA02B, condition).hasNext(), is(false));
+        index.removeCraftingJob(craftingJobExact);
+        assertThat(index.isEmpty(), is(true));
+    }
+
+    protected Map<IngredientComponent<?, ?>, MissingIngredients<?, ?>> createMissingIngredients(ComplexStack instance, Integer matchCondition) {
+        Map<IngredientComponent<?, ?>, MissingIngredients<?, ?>> missingIngredients = Maps.newIdentityHashMap();
+        missingIngredients.put(IngredientComponentStubs.COMPLEX, new MissingIngredients<>(Lists.newArrayList(
+                new MissingIngredients.Element<>(Lists.newArrayList(
+                        new MissingIngredients.PrototypedWithRequested<>(
+                                new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, instance, matchCondition), 1)
+                ), false)
+        )));
+        return missingIngredients;
+    }
+
+    @Test
+    public void testRecipeIndexSnapshot() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        IRecipeIndex snapshot = RecipeIndexSnapshot.of(recipeIndex);
+        assertThat(snapshot.getVersion(), equalTo(recipeIndex.getVersion()));
+        assertThat(RecipeIndexSnapshot.of(snapshot), sameInstance(snapshot));
+
+        recipeIndex.addRecipe(recipeBAlt2);
+        recipeIndex.removeRecipe(recipeB);
+        assertThat(snapshot.getVersion(), not(equalTo(recipeIndex.getVersion())));
+        assertThat(Lists.newArrayList(snapshot.getRecipes(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(recipeB)));
+        assertThat(snapshot.getRecipes(), equalTo(Sets.newHashSet(recipeB)));
+    }
+
+    @Test
+    public void testRecipeIndexSnapshotReuse() {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        RecipeIndexSnapshot snapshot = RecipeIndexSnapshot.of(recipeIndex);
+
+        // The previous snapshot is reused while the index is unchanged
+        assertThat(RecipeIndexSnapshot.of(recipeIndex, null, snapshot), sameInstance(snapshot));
+        assertThat(RecipeIndexSnapshot.of(recipeIndex, Comparator.comparingInt(Object::hashCode), snapshot), not(sameInstance(snapshot)));
+        IRecipeIndex helperSnapshot = CraftingHelpers.createRecipeIndexSnapshot(recipeIndex);
+        assertThat(CraftingHelpers.createRecipeIndexSnapshot(recipeIndex), sameInstance(helperSnapshot));
+
+        // A new snapshot is created once the index changes
+        recipeIndex.addRecipe(recipeBAlt2);
+        RecipeIndexSnapshot newSnapshot = RecipeIndexSnapshot.of(recipeIndex, null, snapshot);
+        assertThat(newSnapshot, not(sameInstance(snapshot)));
+        assertThat(newSnapshot.getRecipes(), equalTo(Sets.newHashSet(recipeB, recipeBAlt2)));
+        assertThat(CraftingHelpers.createRecipeIndexSnapshot(recipeIndex), not(sameInstance(helperSnapshot)));
+    }
+
+    @Test
+    public void testRecipeIndexChanneledPriority() {
+        RecipeIndexChanneled recipeIndex = new RecipeIndexChanneled(new RecipeIndexDefault(),
+                Comparator.comparingInt(recipe -> recipe == recipeBAlt2 ? 0 : 1));
+        IRecipeIndexModifiable channel0 = recipeIndex.getChannel(0);
+        channel0.addRecipe(recipeB);
+        channel0.addRecipe(recipeBAlt2);
+        assertThat(channel0.getRecipes(IngredientComponentStubs.COMPLEX, CB08_, ComplexStack.Match.GROUP).next(),
+                equalTo(recipeBAlt2));
+        assertThat(channel0.getOutputQuantity(recipeB, IngredientComponentStubs.COMPLEX, CB08_, ComplexStack.Match.GROUP),
+                equalTo(2L));
+        assertThat(channel0.getOutputQuantity(recipeB, IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.GROUP),
+                equalTo(0L));
+    }
+
+    @Test
+    public void testCraftingJobIndexDefaultByRecipe() {
+        CraftingJobIndexDefault index = new CraftingJobIndexDefault();
+        CraftingJob job1 = new CraftingJob(1, 0, recipeB, 1, new MixedIngredients(Maps.newIdentityHashMap()));
+        CraftingJob job2 = new CraftingJob(2, 0, recipeB, 1, new MixedIngredients(Maps.newIdentityHashMap()));
+        index.addCraftingJob(job1);
+        index.addCraftingJob(job2);
+        assertThat(Sets.newHashSet(index.getCraftingJobs(recipeB)), equalTo(Sets.newHashSet(job1, job2)));
+        assertThat(index.getCraftingJobs(recipeBAlt2).isEmpty(), is(true));
+
+        index.removeCraftingJob(job1);
+        index.removeCraftingJob(job2);
+        assertThat(index.getCraftingJobs(recipeB).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCraftingJobIndexDefaultExpectedOutputQuantity() {
+        CraftingJobIndexDefault index = new CraftingJobIndexDefault();
+        CraftingJob job = new CraftingJob(1, 0, recipeB, 3, new MixedIngredients(Maps.newIdentityHashMap()));
+        index.addCraftingJob(job);
+        assertThat(index.getExpectedOutputQuantity(IngredientComponentStubs.COMPLEX, CB01_), equalTo(6L));
+        assertThat(index.getExpectedOutputQuantity(IngredientComponentStubs.COMPLEX, CA01_), equalTo(0L));
+
+        job.setAmount(2);
+        index.updateCraftingJob(job);
+        assertThat(index.getExpectedOutputQuantity(IngredientComponentStubs.COMPLEX, CB08_), equalTo(4L));
+
+        index.removeCraftingJob(job);
+        assertThat(index.getExpectedOutputQuantity(IngredientComponentStubs.COMPLEX, CB01_), equalTo(0L));
+    }
+
+    @Test
+    public void testCraftingJobIndexDefaultSnapshot() {
+        CraftingJobIndexDefault index = new CraftingJobIndexDefault();
+        CraftingJob job2 = new CraftingJob(2, 0, recipeB, 1, new MixedIngredients(Maps.newIdentityHashMap()));
+        CraftingJob job1 = new CraftingJob(1, 0, recipeB, 1, new MixedIngredients(Maps.newIdentityHashMap()));
+        index.addCraftingJob(job2);
+        index.addCraftingJob(job1);
+        Collection<CraftingJob> snapshot = index.getCraftingJobs();
+        assertThat(Lists.newArrayList(snapshot), equalTo(Lists.newArrayList(job2, job1)));
+        assertThat(index.getCraftingJobs(), sameInstance(snapshot));
+
+        index.removeCraftingJob(job2);
+        assertThat(Lists.newArrayList(snapshot), equalTo(Lists.newArrayList(job2, job1)));
+        assertThat(Lists.newArrayList(index.getCraftingJobs()), equalTo(Lists.newArrayList(job1)));
+    }
+
+    @Test
+    public void testCraftingJobReservations() {
+        CraftingJobReservations reservations = new CraftingJobReservations();
+        Map<IngredientComponent<?, ?>, List<?>> ingredients1 = Maps.newIdentityHashMap();
+        ingredients1.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA03_, CB01_));
+        CraftingJob job1 = new CraftingJob(1, 0, recipeB, 1, new MixedIngredients(ingredients1));
+        Map<IngredientComponent<?, ?>, List<?>> ingredients2 = Maps.newIdentityHashMap();
+        ingredients2.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA02_));
+        CraftingJob job2 = new CraftingJob(2, 0, recipeB, 1, new MixedIngredients(ingredients2));
+
+        reservations.reserve(job1);
+        reservations.reserve(job1);
+        reservations.reserve(job2);
+        assertThat(reservations.hasReservations(IngredientComponentStubs.COMPLEX), is(true));
+        assertThat(reservations.getQuantity(IngredientComponentStubs.COMPLEX, CA01_, null), equalTo(5L));
+        assertThat(reservations.getQuantity(IngredientComponentStubs.COMPLEX, CA01_, job1), equalTo(0L));
+        assertThat(reservations.getQuantity(IngredientComponentStubs.COMPLEX, CA01_, job2), equalTo(3L));
+        assertThat(reservations.getQuantity(IngredientComponentStubs.COMPLEX, CB08_, null), equalTo(1L));
+        assertThat(reservations.getQuantity(IngredientComponentStubs.COMPLEX, CC01_, null), equalTo(0L));
+
+        Map<IngredientComponent<?, ?>, List<?>> extracted = Maps.newIdentityHashMap();
+        extracted.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA02_));
+        reservations.consume(job1, new MixedIngredients(extracted));
+        assertThat(reservations.getQuantity(IngredientComponentStubs.COMPLEX, CA01_, null), equalTo(3L));
+
+        reservations.release(job1);
+        assertThat(reservations.getQuantity(IngredientComponentStubs.COMPLEX, CA01_, null), equalTo(2L));
+        assertThat(reservations.getQuantity(IngredientComponentStubs.COMPLEX, CB01_, null), equalTo(0L));
+
+        reservations.release(job2);
+        assertThat(reservations.hasReservations(IngredientComponentStubs.COMPLEX), is(false));
+    }
+
+    @Test
+    public void testRecipeIndexChanneled() {
+        RecipeIndexChanneled recipeIndex = new RecipeIndexChanneled(new RecipeIndexDefault());
+        IRecipeIndexModifiable channel0 = recipeIndex.getChannel(0);
+        IRecipeIndexModifiable channel1 = recipeIndex.getChannel(1);
+        IRecipeIndexModifiable channelAll = recipeIndex.getChannel(IPositionedAddonsNetwork.WILDCARD_CHANNEL);
+
+        channel0.addRecipe(recipeB);
+        channel1.addRecipe(recipeB);
+        channel1.addRecipe(recipeBAlt2);
+        assertThat(Lists.newArrayList(channel0.getRecipes(IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(recipeB)));
+        assertThat(Sets.newHashSet(channel1.getRecipes()), equalTo(Sets.newHashSet(recipeB, recipeBAlt2)));
+        assertThat(Sets.newHashSet(channelAll.getRecipes()), equalTo(Sets.newHashSet(recipeB, recipeBAlt2)));
+
+        long version0 = channel0.getVersion();
+        channel1.removeRecipe(recipeB);
+        assertThat(channel0.getVersion(), equalTo(version0));
+        assertThat(Sets.newHashSet(channel1.getRecipes()), equalTo(Sets.newHashSet(recipeBAlt2)));
+        assertThat(Sets.newHashSet(channelAll.getRecipes()), equalTo(Sets.newHashSet(recipeB, recipeBAlt2)));
+
+        channel0.removeRecipe(recipeB);
+        assertThat(channel0.getVersion(), not(equalTo(version0)));
+        assertThat(channel0.getRecipes().isEmpty(), is(true));
+        assertThat(Sets.newHashSet(channelAll.getRecipes()), equalTo(Sets.newHashSet(recipeBAlt2)));
+    }
+
     @Test
     public void testCalculateCraftingJobsSingleMultipleRecipes1() throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
         RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
@@ -2155,6 +2922,36 @@ public class TestCraftingHelpers {
         assertThat(craftingJobDependencyGraph.getCraftingJobs().size(), equalTo(0));
     }
 
+    @Test
+    public void testCalculateCraftingJobsSingleMultipleRecipes1Parallel() throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
+        RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
+        recipeIndex.addRecipe(recipeB);
+        recipeIndex.addRecipe(recipeBAlt2);
+
+        // Single crafting recipe with one missing, but one other available alternative
+        IngredientComponentStorageCollectionWrapper<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA91B, false);
+        storageGetter = (c) -> storage;
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        CraftingJob j0 = CraftingHelpers.calculateCraftingJobs(recipeIndex, 0, storageGetter,
+                IngredientComponentStubs.COMPLEX, CB02_, ComplexStack.Match.EXACT, true,
+                simulatedExtractionMemory, extractionMemoryReusable, CraftingHelpers.synchronizedIdentifierGenerator(identifierGenerator),
+                craftingJobDependencyGraph, parentDependencies, false, null, pool);
+        pool.shutdown();
+
+        assertThat(j0.getId(), equalTo(0));
+        assertThat(j0.getChannel(), equalTo(0));
+        assertThat(j0.getAmount(), equalTo(1));
+        assertThat(j0.getRecipe(), equalTo(recipeBAlt2));
+        assertThat(j0.getIngredientsStorage().getComponents().size(), equalTo(1));
+        assertThat(j0.getIngredientsStorage().getInstances(IngredientComponentStubs.COMPLEX), equalTo(Lists.newArrayList(
+                CA91B
+        )));
+
+        assertThat(craftingJobDependencyGraph.getCraftingJobs().size(), equalTo(0));
+    }
+
     @Test
     public void testCalculateCraftingJobsSingleMultipleRecipes2() throws UnknownCraftingRecipeException, RecursiveCraftingRecipeException {
         RecipeIndexDefault recipeIndex = new RecipeIndexDefault();
@@ -3693,4 +4490,127 @@ public class TestCraftingHelpers {
         assertThat(craftingJobDependencyGraph.getDependencies(dependent), equalTo(Lists.newArrayList(job0, job1, job2)));
     }
 
+    @Test
+    public void testCraftingJobReservationsOverSubscribed() {
+        ComplexStack ca10_ = new ComplexStack(ComplexStack.Group.A, 0, 10, null);
+        IIngredientComponentStorage<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(
+                new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(ca10_, false);
+
+        // Both jobs reserve all 10 available instances
+        CraftingJobReservations reservations = new CraftingJobReservations();
+        Map<IngredientComponent<?, ?>, List<?>> ingredients = Maps.newIdentityHashMap();
+        ingredients.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(ca10_));
+        CraftingJob job1 = new CraftingJob(1, 0, recipeB, 1, new MixedIngredients(ingredients));
+        CraftingJob job2 = new CraftingJob(2, 0, recipeB, 1, new MixedIngredients(ingredients));
+        reservations.reserve(job2);
+        reservations.reserve(job1);
+        IIngredientComponentStorage<ComplexStack, Integer> storage1 = new IngredientComponentStorageReservedProxy<>(storage,
+                instance -> reservations.getQuantity(IngredientComponentStubs.COMPLEX, instance, job1));
+        IIngredientComponentStorage<ComplexStack, Integer> storage2 = new IngredientComponentStorageReservedProxy<>(storage,
+                instance -> reservations.getQuantity(IngredientComponentStubs.COMPLEX, instance, job2));
+
+        // The oldest job may extract, the newer job must wait
+        assertThat(storage1.extract(ca10_, ComplexStack.Match.EXACT, true), equalTo(ca10_));
+        assertThat(storage1.extract(5, true), equalTo(ca10_.withAmount(5)));
+        assertThat(IngredientComponentStubs.COMPLEX.getMatcher().isEmpty(
+                storage2.extract(ca10_, ComplexStack.Match.EXACT, true)), is(true));
+        assertThat(IngredientComponentStubs.COMPLEX.getMatcher().isEmpty(
+                storage2.extract(5, true)), is(true));
+
+        // Once the oldest job has extracted its ingredients, the newer job may extract new instances
+        assertThat(storage1.extract(ca10_, ComplexStack.Match.EXACT, false), equalTo(ca10_));
+        reservations.consume(job1, new MixedIngredients(ingredients));
+        storage.insert(ca10_, false);
+        assertThat(storage2.extract(ca10_, ComplexStack.Match.EXACT, false), equalTo(ca10_));
+    }
+
+    @Test
+    public void testReservedProxyExtractMatchingVariants() {
+        ComplexStack ca010_ = new ComplexStack(ComplexStack.Group.A, 0, 10, null);
+        ComplexStack ca110_ = new ComplexStack(ComplexStack.Group.A, 1, 10, null);
+        IIngredientComponentStorage<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(
+                new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(ca010_, false);
+        storage.insert(ca110_, false);
+        IIngredientComponentStorage<ComplexStack, Integer> storageReserved = new IngredientComponentStorageReservedProxy<>(storage,
+                instance -> instance.getMeta() == 0 ? 7 : 0);
+
+        // Only unreserved variants may be extracted
+        assertThat(IngredientComponentStubs.COMPLEX.getMatcher().isEmpty(
+                storageReserved.extract(ca010_.withAmount(5), ComplexStack.Match.EXACT, true)), is(true));
+        assertThat(storageReserved.extract(ca010_.withAmount(5), ComplexStack.Match.GROUP | ComplexStack.Match.AMOUNT, true),
+                equalTo(ca110_.withAmount(5)));
+
+        // Newly stored instances on top of the reserved quantity may be extracted
+        storage.insert(ca010_, false);
+        assertThat(storageReserved.extract(ca010_.withAmount(5), ComplexStack.Match.EXACT, false),
+                equalTo(ca010_.withAmount(5)));
+        assertThat(IngredientComponentStubs.COMPLEX.getMatcher().isEmpty(
+                storageReserved.extract(ca010_.withAmount(9), ComplexStack.Match.EXACT, true)), is(true));
+    }
+
+    @Test
+    public void testCreateStorageSnapshotReserved() {
+        ComplexStack ca010_ = new ComplexStack(ComplexStack.Group.A, 0, 10, null);
+        IIngredientComponentStorage<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(
+                new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(ca010_, false);
+        storage.insert(CB01_, false);
+
+        // Reserved quantities are not part of the snapshot
+        IIngredientComponentStorage<ComplexStack, Integer> snapshot = CraftingHelpers.createStorageSnapshot(storage,
+                instance -> instance.getGroup() == ComplexStack.Group.A ? 4 : 0);
+        assertThat(Sets.newHashSet(snapshot.iterator()), equalTo(Sets.newHashSet(ca010_.withAmount(6), CB01_)));
+        assertThat(Sets.newHashSet(storage.iterator()), equalTo(Sets.newHashSet(ca010_, CB01_)));
+    }
+
+    @Test
+    public void testExtractRecipeInputsPartialFailure() {
+        IIngredientComponentStorage<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(
+                new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA01_, false);
+        storage.insert(CB01_, false);
+        Map<IngredientComponent<?, ?>, List<?>> inputs = Maps.newIdentityHashMap();
+        inputs.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA01_, CB02_));
+
+        // CB02_ can only be extracted partially, so all extracted instances must be re-inserted
+        assertThat(CraftingHelpers.extractRecipeInputs(c -> storage, new MixedIngredients(inputs)), nullValue());
+        assertThat(Sets.newHashSet(storage.iterator()), equalTo(Sets.newHashSet(CA01_, CB01_)));
+    }
+
+    @Test
+    public void testExtractRecipeInputsPartialFailureMultipleComponents() {
+        IIngredientComponentStorage<ComplexStack, Integer> storageComplex = new IngredientComponentStorageCollectionWrapper<>(
+                new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storageComplex.insert(CA01_, false);
+        IIngredientComponentStorage<Long, Boolean> storageSimple = new IngredientComponentStorageCollectionWrapper<>(
+                new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.SIMPLE));
+        storageSimple.insert(3L, false);
+        Map<IngredientComponent<?, ?>, List<?>> inputs = Maps.newIdentityHashMap();
+        inputs.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA01_));
+        inputs.put(IngredientComponentStubs.SIMPLE, Lists.newArrayList(5L));
+
+        // The simple input can not be extracted, so the instances of all components must be re-inserted
+        assertThat(CraftingHelpers.extractRecipeInputs(
+                c -> c == IngredientComponentStubs.COMPLEX ? storageComplex : storageSimple,
+                new MixedIngredients(inputs)), nullValue());
+        assertThat(Lists.newArrayList(storageComplex.iterator()), equalTo(Lists.newArrayList(CA01_)));
+        assertThat(Lists.newArrayList(storageSimple.iterator()), equalTo(Lists.newArrayList(3L)));
+    }
+
+    @Test
+    public void testExtractRecipeInputs() {
+        IIngredientComponentStorage<ComplexStack, Integer> storage = new IngredientComponentStorageCollectionWrapper<>(
+                new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+        storage.insert(CA01_, false);
+        storage.insert(CB02_, false);
+        Map<IngredientComponent<?, ?>, List<?>> inputs = Maps.newIdentityHashMap();
+        inputs.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA01_, CB01_));
+        IMixedIngredients ingredients = new MixedIngredients(inputs);
+
+        assertThat(CraftingHelpers.extractRecipeInputs(c -> storage, ingredients), is(ingredients));
+        assertThat(Lists.newArrayList(storage.iterator()), equalTo(Lists.newArrayList(CB01_)));
+    }
+
 }
@@ -0,0 +1,394 @@
+package org.cyclops.integratedcrafting.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IPrototypedIngredientAlternatives;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.PrototypedIngredientAlternativesList;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.RecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IMixedIngredients;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.MixedIngredients;
+import org.cyclops.commoncapabilities.api.ingredient.PrototypedIngredient;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+import org.cyclops.cyclopscore.ingredient.storage.IngredientComponentStorageCollectionWrapper;
+import org.cyclops.integratedcrafting.GeneralConfig;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+import org.cyclops.integratedcrafting.api.crafting.ICraftingProcessOverride;
+import org.cyclops.integratedcrafting.api.crafting.ICraftingResultsSink;
+import org.cyclops.integratedcrafting.api.network.ICraftingNetwork;
+import org.cyclops.integratedcrafting.core.network.CraftingNetwork;
+import org.cyclops.integratedcrafting.ingredient.ComplexStack;
+import org.cyclops.integratedcrafting.ingredient.IngredientComponentStubs;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author rubensworks
+ */
+public class TestCraftingJobHandler {
+
+    private static final ComplexStack CA01_ = new ComplexStack(ComplexStack.Group.A, 0, 1, null);
+    private static final ComplexStack CA03_ = new ComplexStack(ComplexStack.Group.A, 0, 3, null);
+    private static final ComplexStack CB01_ = new ComplexStack(ComplexStack.Group.B, 0, 1, null);
+
+    private static final IRecipeDefinition RECIPE_B = createRecipe(CA01_, CB01_);
+    private static final PartPos TARGET = PartPos.of(DimPos.of(Level.OVERWORLD, new BlockPos(0, 0, 0)), Direction.NORTH);
+
+    private int recheckInterval;
+    private int startsPerUpdate;
+    private CraftingNetwork craftingNetwork;
+    private IIngredientComponentStorage<ComplexStack, Integer> storage;
+
+    @Before
+    public void beforeEach() {
+        recheckInterval = GeneralConfig.craftingJobMissingIngredientsRecheckInterval;
+        startsPerUpdate = GeneralConfig.craftingJobStartsPerUpdate;
+        craftingNetwork = new CraftingNetwork() {
+            @Override
+            protected long getCurrentTick() {
+                return 0;
+            }
+        };
+        storage = new IngredientComponentStorageCollectionWrapper<>(
+                new IngredientCollectionPrototypeMap<>(IngredientComponentStubs.COMPLEX));
+    }
+
+    @After
+    public void afterEach() {
+        GeneralConfig.craftingJobMissingIngredientsRecheckInterval = recheckInterval;
+        GeneralConfig.craftingJobStartsPerUpdate = startsPerUpdate;
+    }
+
+    protected static IRecipeDefinition createRecipe(ComplexStack input, ComplexStack output) {
+        Map<IngredientComponent<?, ?>, List<IPrototypedIngredientAlternatives<?, ?>>> inputs = Maps.newIdentityHashMap();
+        inputs.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(
+                new PrototypedIngredientAlternativesList<>(Lists.newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, input, ComplexStack.Match.EXACT)
+                ))
+        ));
+        Map<IngredientComponent<?, ?>, List<?>> outputs = Maps.newIdentityHashMap();
+        outputs.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(output));
+        return new RecipeDefinition(inputs, new MixedIngredients(outputs));
+    }
+
+    protected static CraftingJob createCraftingJob(int id, IRecipeDefinition recipe, int amount) {
+        return new CraftingJob(id, 0, recipe, amount, new MixedIngredients(Maps.newIdentityHashMap()));
+    }
+
+    protected Handler createHandler(int maxProcessingJobs, boolean blockingJobsMode) {
+        return new Handler(maxProcessingJobs, blockingJobsMode, Collections.emptyList());
+    }
+
+    @Test
+    public void testPendingJobWokenByMissingIngredient() {
+        GeneralConfig.craftingJobMissingIngredientsRecheckInterval = 100;
+        Handler handler = createHandler(1, true);
+        CraftingJob craftingJob = createCraftingJob(0, RECIPE_B, 1);
+        handler.scheduleCraftingJob(craftingJob);
+
+        // The first check finds that the ingredient is missing
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(1));
+        assertThat(craftingJob.getLastMissingIngredients().isEmpty(), is(false));
+
+        // Without storage changes, the job is not checked again
+        handler.update(null, 0, TARGET);
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(1));
+
+        // The addition of another ingredient does not wake the job
+        storage.insert(CB01_, false);
+        handler.wakePendingCraftingJobs(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CB01_), 0);
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(1));
+
+        // The addition of the ingredient in another channel does not wake the job
+        storage.insert(CA01_, false);
+        handler.wakePendingCraftingJobs(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA01_), 1);
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(1));
+
+        // The addition of the missing ingredient wakes the job, which is then started
+        handler.wakePendingCraftingJobs(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA01_), 0);
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(2));
+        assertThat(handler.getProcessingCraftingJobs().contains(craftingJob), is(true));
+        assertThat(handler.getPendingCraftingJobs().isEmpty(), is(true));
+        assertThat(handler.insertions.size(), is(1));
+        assertThat(IngredientComponentStubs.COMPLEX.getMatcher().isEmpty(
+                storage.extract(CA01_, ComplexStack.Match.EXACT, true)), is(true));
+    }
+
+    @Test
+    public void testPendingJobRecheckedAfterInterval() {
+        GeneralConfig.craftingJobMissingIngredientsRecheckInterval = 3;
+        Handler handler = createHandler(1, true);
+        CraftingJob craftingJob = createCraftingJob(0, RECIPE_B, 1);
+        handler.scheduleCraftingJob(craftingJob);
+
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(1));
+
+        // The ingredient becomes available without an observed storage change
+        storage.insert(CA01_, false);
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(1));
+        assertThat(handler.getProcessingCraftingJobs().isEmpty(), is(true));
+
+        // The periodic recheck starts the job
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(2));
+        assertThat(handler.getProcessingCraftingJobs().contains(craftingJob), is(true));
+        assertThat(handler.insertions.size(), is(1));
+    }
+
+    @Test
+    public void testStartMultipleJobsPerUpdate() {
+        GeneralConfig.craftingJobStartsPerUpdate = 2;
+        Handler handler = createHandler(10, true);
+        CraftingJob craftingJob0 = createCraftingJob(0, RECIPE_B, 1);
+        CraftingJob craftingJob1 = createCraftingJob(1, RECIPE_B, 1);
+        CraftingJob craftingJob2 = createCraftingJob(2, RECIPE_B, 1);
+        handler.scheduleCraftingJob(craftingJob0);
+        handler.scheduleCraftingJob(craftingJob1);
+        handler.scheduleCraftingJob(craftingJob2);
+        storage.insert(CA03_, false);
+
+        // Only the number of jobs per update are started
+        handler.update(null, 0, TARGET);
+        assertThat(handler.getProcessingCraftingJobs().size(), is(2));
+        assertThat(handler.getPendingCraftingJobs().size(), is(1));
+        assertThat(handler.insertions.size(), is(2));
+
+        // The remaining job is started in the next update
+        handler.update(null, 0, TARGET);
+        assertThat(handler.getProcessingCraftingJobs().size(), is(3));
+        assertThat(handler.getPendingCraftingJobs().isEmpty(), is(true));
+        assertThat(handler.insertions.size(), is(3));
+    }
+
+    @Test
+    public void testStartMultipleJobsPerUpdateMaxProcessing() {
+        GeneralConfig.craftingJobStartsPerUpdate = 5;
+        Handler handler = createHandler(2, true);
+        handler.scheduleCraftingJob(createCraftingJob(0, RECIPE_B, 1));
+        handler.scheduleCraftingJob(createCraftingJob(1, RECIPE_B, 1));
+        handler.scheduleCraftingJob(createCraftingJob(2, RECIPE_B, 1));
+        storage.insert(CA03_, false);
+
+        // No more jobs are started than the number of processing jobs allows
+        handler.update(null, 0, TARGET);
+        assertThat(handler.getProcessingCraftingJobs().size(), is(2));
+        assertThat(handler.getPendingCraftingJobs().size(), is(1));
+
+        // Also not in later updates while these jobs are processing
+        handler.update(null, 0, TARGET);
+        assertThat(handler.getProcessingCraftingJobs().size(), is(2));
+        assertThat(handler.getPendingCraftingJobs().size(), is(1));
+        assertThat(handler.insertions.size(), is(2));
+    }
+
+    @Test
+    public void testStartMultipleJobsPerUpdateMissingIngredients() {
+        GeneralConfig.craftingJobStartsPerUpdate = 3;
+        Handler handler = createHandler(10, true);
+        handler.scheduleCraftingJob(createCraftingJob(0, RECIPE_B, 1));
+        handler.scheduleCraftingJob(createCraftingJob(1, RECIPE_B, 1));
+        handler.scheduleCraftingJob(createCraftingJob(2, RECIPE_B, 1));
+        storage.insert(CA01_, false);
+
+        // Jobs that miss ingredients do not stop other jobs from being checked
+        handler.update(null, 0, TARGET);
+        assertThat(handler.inputChecks, is(3));
+        assertThat(handler.getProcessingCraftingJobs().size(), is(1));
+        assertThat(handler.getPendingCraftingJobs().size(), is(2));
+        assertThat(handler.insertions.size(), is(1));
+    }
+
+    @Test
+    public void testNonBlockingStorageTargetBulk() {
+        Handler handler = createHandler(1, false);
+        CraftingJob craftingJob = createCraftingJob(0, RECIPE_B, 5);
+        handler.scheduleCraftingJob(craftingJob);
+        storage.insert(CA03_, false);
+
+        // After the first entry, all entries that the storage can provide are inserted at once
+        handler.update(null, 0, TARGET);
+        assertThat(handler.insertions.size(), is(2));
+        assertThat(getQuantity(handler.insertions.get(0)), is(1L));
+        assertThat(getQuantity(handler.insertions.get(1)), is(2L));
+
+        // Once more ingredients are available, the remaining entries are inserted at once
+        storage.insert(CA03_, false);
+        handler.update(null, 0, TARGET);
+        assertThat(handler.insertions.size(), is(3));
+        assertThat(getQuantity(handler.insertions.get(2)), is(2L));
+        assertThat(getQuantity(storage.extract(CA03_, ComplexStack.Match.GROUP, true)), is(1L));
+    }
+
+    @Test
+    public void testNonBlockingOverrideTargetSingle() {
+        CraftingProcessOverride craftingProcessOverride = new CraftingProcessOverride(false);
+        Handler handler = new Handler(1, false, Lists.newArrayList(craftingProcessOverride));
+        CraftingJob craftingJob = createCraftingJob(0, RECIPE_B, 3);
+        handler.scheduleCraftingJob(craftingJob);
+        storage.insert(CA03_, false);
+
+        // An override that crafts a single entry per call must receive the entries one by one
+        handler.update(null, 0, TARGET);
+        assertThat(craftingProcessOverride.crafts.size(), is(3));
+        for (IMixedIngredients ingredients : craftingProcessOverride.crafts) {
+            assertThat(getQuantity(ingredients), is(1L));
+        }
+        assertThat(IngredientComponentStubs.COMPLEX.getMatcher().isEmpty(
+                storage.extract(CA01_, ComplexStack.Match.GROUP, true)), is(true));
+    }
+
+    @Test
+    public void testNonBlockingOverrideTargetBulk() {
+        CraftingProcessOverride craftingProcessOverride = new CraftingProcessOverride(true);
+        Handler handler = new Handler(1, false, Lists.newArrayList(craftingProcessOverride));
+        CraftingJob craftingJob = createCraftingJob(0, RECIPE_B, 3);
+        handler.scheduleCraftingJob(craftingJob);
+        storage.insert(CA03_, false);
+
+        // An override that supports bulk crafting receives the remaining entries at once
+        handler.update(null, 0, TARGET);
+        assertThat(craftingProcessOverride.crafts.size(), is(2));
+        assertThat(getQuantity(craftingProcessOverride.crafts.get(0)), is(1L));
+        assertThat(getQuantity(craftingProcessOverride.crafts.get(1)), is(2L));
+    }
+
+    @Test
+    public void testGetRecipeInputsMaxAmount() {
+        Map<IngredientComponent<?, ?>, List<?>> inputs = Maps.newIdentityHashMap();
+        inputs.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(CA01_, CA01_, CB01_));
+        IMixedIngredients ingredients = new MixedIngredients(inputs);
+        storage.insert(new ComplexStack(ComplexStack.Group.A, 0, 7, null), false);
+        storage.insert(new ComplexStack(ComplexStack.Group.B, 0, 10, null), false);
+
+        // Identical inputs are required together, so only 3 times 2 instances of A are available
+        assertThat(CraftingHelpers.getRecipeInputsMaxAmount(c -> storage, ingredients, 100), is(3L));
+        assertThat(CraftingHelpers.getRecipeInputsMaxAmount(c -> storage, ingredients, 2), is(2L));
+    }
+
+    protected static long getQuantity(IMixedIngredients ingredients) {
+        long quantity = 0;
+        for (ComplexStack instance : ingredients.getInstances(IngredientComponentStubs.COMPLEX)) {
+            quantity += getQuantity(instance);
+        }
+        return quantity;
+    }
+
+    protected static long getQuantity(ComplexStack instance) {
+        return IngredientComponentStubs.COMPLEX.getMatcher().getQuantity(instance);
+    }
+
+    /**
+     * A crafting process override for all targets that records the ingredients it crafted.
+     */
+    protected static class CraftingProcessOverride implements ICraftingProcessOverride {
+
+        private final boolean bulkCraftingSupported;
+        private final List<IMixedIngredients> crafts;
+
+        public CraftingProcessOverride(boolean bulkCraftingSupported) {
+            this.bulkCraftingSupported = bulkCraftingSupported;
+            this.crafts = Lists.newArrayList();
+        }
+
+        @Override
+        public boolean isApplicable(PartPos target) {
+            return true;
+        }
+
+        @Override
+        public boolean craft(Function<IngredientComponent<?, ?>, PartPos> targetGetter, IMixedIngredients ingredients,
+                             ICraftingResultsSink resultsSink, boolean simulate) {
+            if (!simulate) {
+                crafts.add(ingredients);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isBulkCraftingSupported() {
+            return bulkCraftingSupported;
+        }
+    }
+
+    /**
+     * A crafting job handler that takes ingredients from a single storage,
+     * and that inserts into a plain storage target that accepts everything,
+     * unless crafting process overrides are given.
+     */
+    protected class Handler extends CraftingJobHandler {
+
+        private final Collection<ICraftingProcessOverride> craftingProcessOverrides;
+        private final List<IMixedIngredients> insertions;
+        private int inputChecks;
+
+        public Handler(int maxProcessingJobs, boolean blockingJobsMode,
+                       Collection<ICraftingProcessOverride> craftingProcessOverrides) {
+            super(maxProcessingJobs, blockingJobsMode, craftingProcessOverrides, null);
+            this.craftingProcessOverrides = craftingProcessOverrides;
+            this.insertions = Lists.newArrayList();
+        }
+
+        @Override
+        protected ICraftingNetwork getCraftingNetwork(INetwork network) {
+            return craftingNetwork;
+        }
+
+        @Override
+        protected Function<IngredientComponent<?, ?>, IIngredientComponentStorage> getStorageGetter(INetwork network,
+                                                                                                    CraftingJob craftingJob,
+                                                                                                    boolean scheduleObservation) {
+            // Only the checks of pending jobs do not schedule an observation
+            if (!scheduleObservation) {
+                inputChecks++;
+            }
+            return ingredientComponent -> storage;
+        }
+
+        @Override
+        protected <T, M> void registerIngredientObserver(IngredientComponent<T, M> ingredientComponent, INetwork network) {
+            // No observers are needed, as storage changes are passed to the handler directly
+        }
+
+        @Override
+        protected <T, M> void unregisterIngredientObserver(IngredientComponent<T, M> ingredientComponent, INetwork network) {
+
+        }
+
+        @Override
+        protected boolean insertCrafting(PartPos target, IMixedIngredients ingredients, INetwork network, int channel, boolean simulate) {
+            if (!craftingProcessOverrides.isEmpty()) {
+                return super.insertCrafting(target, ingredients, network, channel, simulate);
+            }
+            if (!simulate) {
+                insertions.add(ingredients);
+            }
+            return true;
+        }
+    }
+
+}
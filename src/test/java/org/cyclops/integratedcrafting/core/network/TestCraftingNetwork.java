@@ -0,0 +1,267 @@
+package org.cyclops.integratedcrafting.core.network;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IPrototypedIngredientAlternatives;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.IRecipeDefinition;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.PrototypedIngredientAlternativesList;
+import org.cyclops.commoncapabilities.api.capability.recipehandler.RecipeDefinition;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.MixedIngredients;
+import org.cyclops.commoncapabilities.api.ingredient.PrototypedIngredient;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integratedcrafting.api.crafting.CraftingJob;
+import org.cyclops.integratedcrafting.api.crafting.ICraftingInterface;
+import org.cyclops.integratedcrafting.api.recipe.IRecipeIndex;
+import org.cyclops.integratedcrafting.core.CraftingJobCalculationNegativeCache;
+import org.cyclops.integratedcrafting.core.CraftingJobCalculationResult;
+import org.cyclops.integratedcrafting.core.MissingCraftingRecipe;
+import org.cyclops.integratedcrafting.ingredient.ComplexStack;
+import org.cyclops.integratedcrafting.ingredient.IngredientComponentStubs;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author rubensworks
+ */
+public class TestCraftingNetwork {
+
+    private static final ComplexStack CA01_ = new ComplexStack(ComplexStack.Group.A, 0, 1, null);
+    private static final ComplexStack CB01_ = new ComplexStack(ComplexStack.Group.B, 0, 1, null);
+    private static final ComplexStack CC01_ = new ComplexStack(ComplexStack.Group.C, 0, 1, null);
+
+    private static final IRecipeDefinition RECIPE_B = createRecipe(CA01_, CB01_);
+    private static final IRecipeDefinition RECIPE_C = createRecipe(CA01_, CC01_);
+    private static final IRecipeDefinition RECIPE_B_ALT = createRecipe(CC01_, CB01_);
+
+    private CraftingNetwork network;
+    private List<IIngredientComponentStorageObservable.IIndexChangeObserver<ComplexStack, Integer>> observers;
+    private int scheduledObservations;
+    private IPositionedAddonsNetworkIngredients<ComplexStack, Integer> ingredientsNetwork;
+
+    @Before
+    public void beforeEach() {
+        network = new CraftingNetwork();
+        observers = Lists.newArrayList();
+        scheduledObservations = 0;
+        ingredientsNetwork = createIngredientsNetwork();
+    }
+
+    /**
+     * @return An ingredients network that only records its observers and scheduled observations.
+     */
+    protected IPositionedAddonsNetworkIngredients<ComplexStack, Integer> createIngredientsNetwork() {
+        return (IPositionedAddonsNetworkIngredients<ComplexStack, Integer>) Proxy.newProxyInstance(
+                IPositionedAddonsNetworkIngredients.class.getClassLoader(),
+                new Class[]{IPositionedAddonsNetworkIngredients.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getComponent":
+                            return IngredientComponentStubs.COMPLEX;
+                        case "addObserver":
+                            observers.add((IIngredientComponentStorageObservable.IIndexChangeObserver<ComplexStack, Integer>) args[0]);
+                            return null;
+                        case "scheduleObservation":
+                            scheduledObservations++;
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    protected static IRecipeDefinition createRecipe(ComplexStack input, ComplexStack output) {
+        Map<IngredientComponent<?, ?>, List<IPrototypedIngredientAlternatives<?, ?>>> inputs = Maps.newIdentityHashMap();
+        inputs.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(
+                new PrototypedIngredientAlternativesList<>(Lists.newArrayList(
+                        new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, input, ComplexStack.Match.EXACT)
+                ))
+        ));
+        Map<IngredientComponent<?, ?>, List<?>> outputs = Maps.newIdentityHashMap();
+        outputs.put(IngredientComponentStubs.COMPLEX, Lists.newArrayList(output));
+        return new RecipeDefinition(inputs, new MixedIngredients(outputs));
+    }
+
+    /**
+     * @param x The x position of the interface.
+     * @param priority The priority of the interface.
+     * @param recipes The recipes of the interface.
+     * @return A crafting interface without crafting jobs that exposes the given recipes.
+     */
+    protected static ICraftingInterface createCraftingInterface(int x, int priority, IRecipeDefinition... recipes) {
+        PrioritizedPartPos position = PrioritizedPartPos.of(
+                PartPos.of(DimPos.of(Level.OVERWORLD, new BlockPos(x, 0, 0)), Direction.NORTH), priority);
+        return (ICraftingInterface) Proxy.newProxyInstance(
+                ICraftingInterface.class.getClassLoader(),
+                new Class[]{ICraftingInterface.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRecipes":
+                            return Lists.newArrayList(recipes);
+                        case "getCraftingJobs":
+                            return Collections.emptyIterator();
+                        case "getPosition":
+                            return position;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    protected CraftingJobCalculationResult createFailure() {
+        return CraftingJobCalculationResult.missing(new MissingCraftingRecipe(
+                new PrototypedIngredient<>(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT), 1,
+                Lists.newArrayList(), Maps.newIdentityHashMap(), Lists.newArrayList()));
+    }
+
+    @Test
+    public void testObserveStorageChangesOnce() {
+        network.observeStorageChanges(ingredientsNetwork);
+        network.observeStorageChanges(ingredientsNetwork);
+        network.observeStorageChanges(ingredientsNetwork);
+
+        assertThat(observers.size(), equalTo(1));
+        assertThat(scheduledObservations, equalTo(1));
+        assertThat(network.getStorageVersion(IngredientComponentStubs.COMPLEX), equalTo(0L));
+
+        observers.get(0).onChange(null);
+        assertThat(network.getStorageVersion(IngredientComponentStubs.COMPLEX), equalTo(1L));
+    }
+
+    @Test
+    public void testNegativeCacheExpiresAfterStorageChange() {
+        IRecipeIndex recipeIndex = network.getRecipeIndex(0);
+        CraftingJobCalculationNegativeCache negativeCache = network.getCraftingJobCalculationNegativeCache(0);
+
+        // Cache a failed calculation that depends on the storage, and one that does not
+        network.observeStorageChanges(ingredientsNetwork);
+        negativeCache.validate(recipeIndex);
+        negativeCache.put(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT, true, false, createFailure(),
+                Collections.singleton(IngredientComponentStubs.COMPLEX));
+        negativeCache.put(IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.EXACT, true, false, createFailure(),
+                Collections.emptySet());
+
+        // The failures remain cached while storage is unchanged
+        negativeCache.validate(recipeIndex);
+        assertThat(negativeCache.get(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT, true, false), notNullValue());
+        assertThat(negativeCache.get(IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.EXACT, true, false), notNullValue());
+
+        // Lookups do not schedule new observations
+        assertThat(scheduledObservations, equalTo(1));
+
+        // A storage change only expires the failure that depends on the storage
+        observers.get(0).onChange(null);
+        negativeCache.validate(recipeIndex);
+        assertThat(negativeCache.get(IngredientComponentStubs.COMPLEX, CA01_, ComplexStack.Match.EXACT, true, false), nullValue());
+        assertThat(negativeCache.get(IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.EXACT, true, false), notNullValue());
+        assertThat(negativeCache.size(), equalTo(1));
+    }
+
+    @Test
+    public void testFlushPendingCraftingInterfaces() {
+        ICraftingInterface interfaceB = createCraftingInterface(0, 0, RECIPE_B);
+        ICraftingInterface interfaceBC = createCraftingInterface(1, 0, RECIPE_B, RECIPE_C);
+
+        // Added interfaces are only indexed once recipes are queried
+        assertThat(network.addCraftingInterface(0, interfaceB), is(true));
+        assertThat(network.addCraftingInterface(0, interfaceBC), is(true));
+        assertThat(network.addCraftingInterface(0, interfaceB), is(false));
+        assertThat(network.getRecipeIndex(0).getRecipes(), equalTo(Sets.newHashSet(RECIPE_B, RECIPE_C)));
+        assertThat(network.getRecipeCraftingInterfaces(0).get(RECIPE_B).size(), equalTo(2));
+        assertThat(network.getRecipeCraftingInterfaces(0).get(RECIPE_C).size(), equalTo(1));
+        assertThat(network.getRecipeIndex(IPositionedAddonsNetwork.WILDCARD_CHANNEL).getRecipes(), equalTo(Sets.newHashSet(RECIPE_B, RECIPE_C)));
+
+        // A recipe remains available as long as another interface exposes it
+        assertThat(network.removeCraftingInterface(0, interfaceBC), is(true));
+        assertThat(network.getRecipeIndex(0).getRecipes(), equalTo(Sets.newHashSet(RECIPE_B)));
+        assertThat(network.getRecipeCraftingInterfaces(0).get(RECIPE_B).size(), equalTo(1));
+        assertThat(network.getRecipeCraftingInterfaces(0).containsKey(RECIPE_C), is(false));
+
+        // Removing an interface that is still pending flushes it first, so nothing is left behind
+        assertThat(network.addCraftingInterface(0, interfaceBC), is(true));
+        assertThat(network.removeCraftingInterface(0, interfaceBC), is(true));
+        assertThat(network.getRecipeIndex(0).getRecipes(), equalTo(Sets.newHashSet(RECIPE_B)));
+
+        // An interface added after a query becomes visible on the next query
+        ICraftingInterface interfaceC = createCraftingInterface(2, 0, RECIPE_C);
+        assertThat(network.addCraftingInterface(1, interfaceC), is(true));
+        assertThat(network.getRecipeIndex(1).getRecipes(), equalTo(Sets.newHashSet(RECIPE_C)));
+        assertThat(network.getRecipeIndex(IPositionedAddonsNetwork.WILDCARD_CHANNEL).getRecipes(), equalTo(Sets.newHashSet(RECIPE_B, RECIPE_C)));
+
+        // Removing the last interface of a channel removes its recipes
+        assertThat(network.removeCraftingInterface(0, interfaceB), is(true));
+        assertThat(network.getRecipeIndex(0).getRecipes().isEmpty(), is(true));
+        assertThat(network.getRecipeIndex(IPositionedAddonsNetwork.WILDCARD_CHANNEL).getRecipes(), equalTo(Sets.newHashSet(RECIPE_C)));
+    }
+
+    @Test
+    public void testPriorityChangeInvalidatesRecipeOrder() {
+        ICraftingInterface interfaceB1 = createCraftingInterface(0, 0, RECIPE_B);
+        ICraftingInterface interfaceB2 = createCraftingInterface(1, 0, RECIPE_B);
+        ICraftingInterface interfaceBAlt = createCraftingInterface(2, 5, RECIPE_B_ALT);
+        network.addCraftingInterface(0, interfaceB1);
+        network.addCraftingInterface(0, interfaceB2);
+        network.addCraftingInterface(0, interfaceBAlt);
+
+        // Recipes of higher priority interfaces come first
+        IRecipeIndex recipeIndex = network.getRecipeIndex(0);
+        assertThat(Lists.newArrayList(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(RECIPE_B_ALT, RECIPE_B)));
+        long version = recipeIndex.getVersion();
+        long versionWildcard = network.getRecipeIndex(IPositionedAddonsNetwork.WILDCARD_CHANNEL).getVersion();
+        IRecipeIndex snapshot = network.getRecipeIndexSnapshot(0);
+
+        // Changing the priority of an interface re-adds it, while its recipe remains exposed by another interface
+        network.removeCraftingInterface(0, interfaceB1);
+        network.addCraftingInterface(0, createCraftingInterface(0, 10, RECIPE_B));
+        assertThat(Lists.newArrayList(recipeIndex.getRecipes(IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(RECIPE_B, RECIPE_B_ALT)));
+        assertThat(recipeIndex.getVersion(), not(equalTo(version)));
+        assertThat(network.getRecipeIndex(IPositionedAddonsNetwork.WILDCARD_CHANNEL).getVersion(), not(equalTo(versionWildcard)));
+        assertThat(network.getRecipeIndexSnapshot(0), not(sameInstance(snapshot)));
+        assertThat(Lists.newArrayList(network.getRecipeIndexSnapshot(0).getRecipes(IngredientComponentStubs.COMPLEX, CB01_, ComplexStack.Match.EXACT)),
+                equalTo(Lists.newArrayList(RECIPE_B, RECIPE_B_ALT)));
+    }
+
+    @Test
+    public void testRemoveCraftingJobViaIterator() {
+        CraftingJob craftingJob = new CraftingJob(1, 0, RECIPE_B, 1, new MixedIngredients(Maps.newIdentityHashMap()));
+        network.addCraftingJob(0, craftingJob, createCraftingInterface(0, 0, RECIPE_B));
+
+        // Removing via the iterator only removes the job from the network
+        Iterator<CraftingJob> it = network.getCraftingJobs(0);
+        assertThat(it.next(), sameInstance(craftingJob));
+        it.remove();
+        assertThat(it.hasNext(), is(false));
+        assertThat(network.getCraftingJobs(0).hasNext(), is(false));
+        assertThat(network.getCraftingJob(0, 1), nullValue());
+        assertThat(network.getCraftingJobInterface(0, 1), nullValue());
+    }
+
+}